@@ -4,47 +4,76 @@ import gqserver.api.data.system.ServerClientConfig;
 import gqserver.api.exception.PacketLimitException;
 import gqserver.api.exception.UnknownPacketException;
 import gqserver.api.packets.data.DataRequestPacket;
+import gqserver.api.packets.earthquake.ArchiveDeltaRequestPacket;
+import gqserver.api.packets.earthquake.ArchiveQueryPacket;
+import gqserver.api.packets.earthquake.ArchivedEventsRequestPacket;
 import gqserver.api.packets.earthquake.ArchivedQuakesRequestPacket;
 import gqserver.api.packets.earthquake.EarthquakeRequestPacket;
 import gqserver.api.packets.earthquake.EarthquakesRequestPacket;
 import gqserver.api.packets.station.StationsRequestPacket;
 import gqserver.api.packets.system.HandshakePacket;
+import gqserver.api.packets.system.HandshakeSuccessfulPacket;
 import gqserver.api.packets.system.HeartbeatPacket;
 import gqserver.api.packets.system.TerminationPacket;
+import gqserver.api.protocol.BinaryProtocol;
+import gqserver.api.protocol.OutboundPacket;
+import gqserver.api.protocol.OutboundQueue;
+import gqserver.api.protocol.PacketTransport;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class ServerClient {
 
     private static final AtomicInteger nextID = new AtomicInteger(0);
+
+    // encoded packets that grew the output buffer over this size don't keep it
+    private static final int MAX_RETAINED_OUTPUT_BUFFER = 64 * 1024;
+
+    private final SocketChannel channel;
     private final Socket socket;
     private final int id;
 
-    private final ObjectInputStream inputStream;
-    private final ObjectOutputStream outputStream;
+    private final PacketTransport transport;
+    private final OutboundQueue outboundQueue = new OutboundQueue();
+    private final Runnable outboundListener;
+    private ByteArrayOutputStream outputBuffer = new ByteArrayOutputStream();
+    private ByteBuffer pendingOutput;
 
     private final long joinTime;
     private long lastHeartbeat;
 
     private long receivedPackets = 0;
 
-    private long sentPackets = 0;
+    private volatile long sentPackets = 0;
+
+    private volatile long sentBytes = 0;
 
     private ServerClientConfig clientConfig;
 
+    // requests of each type a client may send per minute, that many can also come at once
     private static final Map<Class<? extends Packet>, Integer> limitRules = new HashMap<>();
-    private final Map<Class<? extends Packet>, Integer> limits = new HashMap<>();
+    private final Map<Class<? extends Packet>, TokenBucket> limits = new ConcurrentHashMap<>();
+
+    // every ignored request takes one, a client that keeps ignoring the limits is disconnected
+    private static final int MAX_VIOLATIONS = 32;
+    private static final double VIOLATIONS_FORGIVEN_PER_SECOND = 0.5;
+    private final TokenBucket violations = new TokenBucket(MAX_VIOLATIONS, VIOLATIONS_FORGIVEN_PER_SECOND);
 
-    private final Object limitsLock = new Object();
+    private long throttledPackets = 0;
 
     static {
         limitRules.put(HandshakePacket.class, 2);
@@ -53,64 +82,98 @@ public class ServerClient {
         limitRules.put(EarthquakesRequestPacket.class, 20);
         limitRules.put(EarthquakeRequestPacket.class, 128);
         limitRules.put(ArchivedQuakesRequestPacket.class, 4);
+        limitRules.put(ArchiveQueryPacket.class, 64);
+        limitRules.put(ArchivedEventsRequestPacket.class, 64);
+        limitRules.put(ArchiveDeltaRequestPacket.class, 4);
         limitRules.put(DataRequestPacket.class, 60);
     }
 
-    public ServerClient(Socket socket) throws IOException {
-        this.socket = socket;
-        this.inputStream = new ObjectInputStream(socket.getInputStream());
-        this.outputStream = new ObjectOutputStream(socket.getOutputStream());
+    /**
+     * @param inputStream bytes received from the channel, the channel itself is only written to
+     * @param outboundListener called after every queued packet,
+     *                         the owner is then expected to call {@link #writeOutbound()} from its IO thread
+     */
+    public ServerClient(SocketChannel channel, InputStream inputStream, Runnable outboundListener) throws IOException {
+        this.channel = channel;
+        this.socket = channel.socket();
+        this.outboundListener = outboundListener;
+        this.transport = new PacketTransport(inputStream, new BufferOutputStream());
         this.id = nextID.getAndIncrement();
         this.joinTime = System.currentTimeMillis();
         this.lastHeartbeat = joinTime;
     }
 
-    private ObjectInputStream getInputStream() {
-        return inputStream;
+    /**
+     * The packet is not checked against the limits, that's up to the caller using {@link #checkLimits(Packet)}
+     */
+    public Packet readPacket() throws IOException, UnknownPacketException {
+        Packet packet = transport.readPacket();
+        receivedPackets++;
+
+        return packet;
     }
 
-    private ObjectOutputStream getOutputStream() {
-        return outputStream;
+    /**
+     * Decodes a frame of the binary protocol that was received whole, the owner is expected to cut the frames
+     * from the received bytes by itself instead of using {@link #readPacket()}.
+     * Writing switches to the binary protocol by itself right after the {@link HandshakeSuccessfulPacket} leaves the queue
+     *
+     * @param frame the whole frame of the packet, without its length
+     */
+    public Packet decodePacket(byte[] frame) throws IOException, UnknownPacketException {
+        Packet packet = BinaryProtocol.decode(frame);
+        receivedPackets++;
+
+        return packet;
     }
 
-    public Packet readPacket() throws IOException, UnknownPacketException, PacketLimitException {
-        try {
-            Object obj = getInputStream().readObject();
-            if(obj instanceof Packet packet) {
-                receivedPackets++;
+    public int available() throws IOException {
+        return transport.available();
+    }
 
-                checkLimits(packet);
+    public int getProtocolVersion() {
+        return transport.getProtocolVersion();
+    }
 
-                return packet;
-            }
+    /**
+     * Takes a token from the bucket of the packet type
+     *
+     * @return false if the client sent too many packets of this type recently, the packet should then be ignored
+     * @throws PacketLimitException if the packet type is never accepted from clients, or the client keeps ignoring the limits
+     */
+    public boolean checkLimits(Packet packet) throws PacketLimitException {
+        Integer perMinute = limitRules.get(packet.getClass());
+        if (perMinute == null) {
+            throw new PacketLimitException("Unknown request of type %s received from client #%d".formatted(packet.getClass(), getID()), null);
+        }
 
-            throw new UnknownPacketException("Received obj not instance of Packet!", null);
-        }  catch(ClassNotFoundException e){
-            throw new UnknownPacketException(e.getMessage(), e);
+        TokenBucket bucket = limits.computeIfAbsent(packet.getClass(), ignored -> new TokenBucket(perMinute, perMinute / 60.0));
+        if (bucket.tryAcquire(1)) {
+            return true;
         }
+
+        noteThrottled();
+        return false;
     }
 
-    private void checkLimits(Packet packet) throws PacketLimitException{
-        int maximum = limitRules.getOrDefault(packet.getClass(), -1);
-        if(maximum == -1) {
-            throw new PacketLimitException("Unknown request of type %s received from client #%d".formatted(packet.getClass(), getID()), null);
+    /**
+     * Counts a request that was ignored because of some limit
+     *
+     * @throws PacketLimitException if the client has been throttled too often recently
+     */
+    public void noteThrottled() throws PacketLimitException {
+        synchronized (violations) {
+            throttledPackets++;
         }
 
-        int count = limits.getOrDefault(packet.getClass(), 1);
-        if(count > maximum) {
-            throw new PacketLimitException("Too many requests (%d / %d) received of type %s from client #%d".formatted(count, maximum, packet.getClass(), getID()), null);
+        if (!violations.tryAcquire(1)) {
+            throw new PacketLimitException("Client #%d keeps sending too many requests".formatted(getID()), null);
         }
-
-        limits.put(packet.getClass(), count + 1);
     }
 
-    public void updateLimits() {
-        synchronized (limitsLock) {
-            for (var kv : limitRules.entrySet()) {
-                if (limits.containsKey(kv.getKey())) {
-                    limits.put(kv.getKey(), Math.max(0, limits.get(kv.getKey()) - kv.getValue()));
-                }
-            }
+    public long getThrottledPackets() {
+        synchronized (violations) {
+            return throttledPackets;
         }
     }
 
@@ -122,18 +185,102 @@ public class ServerClient {
         return clientConfig;
     }
 
-    public synchronized void sendPacket(Packet packet) throws IOException{
-        getOutputStream().writeObject(packet);
-        sentPackets++;
+    /**
+     * Queues the packet and returns immediately, the packet is written when the client is ready to receive it
+     */
+    public void sendPacket(Packet packet) throws IOException {
+        sendPacket(new OutboundPacket(packet));
+    }
+
+    /**
+     * Same as {@link #sendPacket(Packet)}, but the encoded packet can be shared with other clients
+     */
+    public void sendPacket(OutboundPacket packet) throws IOException {
+        if (!isConnected()) {
+            throw new SocketException("Client #%d is disconnected".formatted(getID()));
+        }
+
+        if (!outboundQueue.offer(packet)) {
+            destroy();
+            throw new IOException("Outbound queue of client #%d overflowed".formatted(getID()));
+        }
+
+        outboundListener.run();
+    }
+
+    /**
+     * Writes as much of the queued packets as the channel accepts without blocking
+     *
+     * @return true if everything was written, false if the channel is full
+     */
+    public synchronized boolean writeOutbound() throws IOException {
+        while (true) {
+            if (pendingOutput == null || !pendingOutput.hasRemaining()) {
+                if (outputBuffer.size() == 0) {
+                    OutboundPacket next = outboundQueue.poll();
+                    if (next == null) {
+                        pendingOutput = null;
+                        return true;
+                    }
+
+                    sentPackets++;
+                    pendingOutput = encode(next);
+                }
+
+                if (outputBuffer.size() > 0) {
+                    pendingOutput = takeOutputBuffer();
+                }
+            }
+
+            int written = channel.write(pendingOutput);
+            sentBytes += written;
+            OutboundPacket.noteSent(written);
+            if (pendingOutput.hasRemaining()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return the shared frame of the packet, or null if it was serialized into the output buffer of this client
+     */
+    private ByteBuffer encode(OutboundPacket outboundPacket) throws IOException {
+        // newer versions only add packet types, so the frames are the same for every binary client
+        if (transport.getProtocolVersion() > 0) {
+            return outboundPacket.getFrame();
+        }
+
+        Packet packet = outboundPacket.getPacket();
+        transport.writePacket(packet);
+        OutboundPacket.noteEncoded(outputBuffer.size());
+
+        if (packet instanceof HandshakeSuccessfulPacket handshakeSuccessfulPacket && handshakeSuccessfulPacket.binaryProtocolVersion() > 0) {
+            transport.enableBinaryOutput(handshakeSuccessfulPacket.binaryProtocolVersion());
+        }
+
+        return null;
+    }
+
+    private ByteBuffer takeOutputBuffer() {
+        ByteBuffer result = ByteBuffer.wrap(outputBuffer.toByteArray());
+        if (outputBuffer.size() > MAX_RETAINED_OUTPUT_BUFFER) {
+            outputBuffer = new ByteArrayOutputStream();
+        } else {
+            outputBuffer.reset();
+        }
+
+        return result;
     }
 
     public void destroy() throws IOException {
-        socket.close();
+        outboundQueue.clear();
+        channel.close();
     }
 
     public void destroy(String reason) throws IOException{
         try {
             sendPacket(new TerminationPacket(reason));
+            flush();
         } finally {
             destroy();
         }
@@ -152,7 +299,7 @@ public class ServerClient {
     }
 
     public boolean isConnected() {
-        return socket.isConnected() && !socket.isClosed();
+        return channel.isOpen() && channel.isConnected();
     }
 
     public void noteHeartbeat() {
@@ -179,8 +326,35 @@ public class ServerClient {
         return sentPackets;
     }
 
+    public long getSentBytes() {
+        return sentBytes;
+    }
+
+    public int getQueuedPackets() {
+        return outboundQueue.size();
+    }
+
+    public long getDroppedPackets() {
+        return outboundQueue.getDropped();
+    }
+
+    /**
+     * Writes whatever the channel accepts right now, the rest is left to the owner of the channel
+     */
     public void flush() throws IOException {
-        getOutputStream().flush();
+        writeOutbound();
+    }
+
+    private class BufferOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            outputBuffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            outputBuffer.write(b, off, len);
+        }
     }
 
     @Override
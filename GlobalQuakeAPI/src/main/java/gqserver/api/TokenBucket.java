@@ -0,0 +1,76 @@
+package gqserver.api;
+
+/**
+ * Allows bursts up to the capacity, after that only as much as refills over time
+ */
+public class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final double capacity;
+    private final double refillPerSecond;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double capacity, double refillPerSecond) {
+        this(capacity, refillPerSecond, System.nanoTime());
+    }
+
+    public TokenBucket(double capacity, double refillPerSecond, long nanoTime) {
+        if (capacity <= 0 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Capacity and refill rate must be positive");
+        }
+
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.tokens = capacity;
+        this.lastRefill = nanoTime;
+    }
+
+    public boolean tryAcquire(double cost) {
+        return tryAcquire(cost, System.nanoTime());
+    }
+
+    /**
+     * @return true if there were enough tokens, nothing is taken otherwise
+     */
+    public synchronized boolean tryAcquire(double cost, long nanoTime) {
+        refill(nanoTime);
+        if (tokens < cost) {
+            return false;
+        }
+
+        tokens -= cost;
+        return true;
+    }
+
+    /**
+     * @return how long it takes until the cost can be acquired, 0 if it can be right now
+     */
+    public synchronized long getWaitNanos(double cost, long nanoTime) {
+        refill(nanoTime);
+        double missing = Math.min(cost, capacity) - tokens;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / refillPerSecond * NANOS_PER_SECOND);
+    }
+
+    /**
+     * @return true if the bucket has refilled completely, so it can be forgotten without giving anyone an advantage
+     */
+    public synchronized boolean isFull(long nanoTime) {
+        refill(nanoTime);
+        return tokens >= capacity;
+    }
+
+    public double getCapacity() {
+        return capacity;
+    }
+
+    private void refill(long nanoTime) {
+        long elapsed = nanoTime - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed / NANOS_PER_SECOND * refillPerSecond);
+            lastRefill = nanoTime;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package gqserver.api.data.earthquake;
+
+import java.io.Serializable;
+
+/**
+ * Archived quake without its events, which are requested separately
+ */
+public record ArchivedQuakeSummaryData(ArchivedQuakeData archivedQuakeData, int assignedStations) implements Serializable {
+}
@@ -0,0 +1,14 @@
+package gqserver.api.data.system;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * State of the streams a client has received, used to resume after a reconnect.
+ *
+ * @param serverSession identifies one run of the server, the sequence numbers are only comparable within it
+ * @param stationsIndexing indexing of the station list
+ * @param archiveSequence number of the last archive change the client has received
+ */
+public record SessionData(UUID serverSession, UUID stationsIndexing, long archiveSequence) implements Serializable {
+}
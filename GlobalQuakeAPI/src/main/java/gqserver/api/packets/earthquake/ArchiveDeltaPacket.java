@@ -0,0 +1,13 @@
+package gqserver.api.packets.earthquake;
+
+import gqserver.api.Packet;
+import gqserver.api.data.earthquake.ArchivedQuakeSummaryData;
+
+import java.util.List;
+
+/**
+ * @param archiveSequence sequence number of the last change included, to be sent in the next delta request
+ */
+public record ArchiveDeltaPacket(List<ArchivedQuakeSummaryData> quakes, long archiveSequence) implements Packet {
+
+}
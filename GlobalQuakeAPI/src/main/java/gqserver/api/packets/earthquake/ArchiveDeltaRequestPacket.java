@@ -0,0 +1,10 @@
+package gqserver.api.packets.earthquake;
+
+import gqserver.api.Packet;
+
+/**
+ * Asks for the quakes archived after the given sequence number of the same server session
+ */
+public record ArchiveDeltaRequestPacket(long archiveSequence) implements Packet {
+
+}
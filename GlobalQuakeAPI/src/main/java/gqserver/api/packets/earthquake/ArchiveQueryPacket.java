@@ -0,0 +1,20 @@
+package gqserver.api.packets.earthquake;
+
+import gqserver.api.Packet;
+
+import java.util.UUID;
+
+/**
+ * One page of archived quakes, newest first. The server answers with {@link ArchiveQueryResultPacket}.
+ *
+ * @param from oldest origin time included
+ * @param to newest origin time included
+ * @param minLon western edge of the area, may be greater than maxLon if the area crosses the antimeridian
+ * @param cursorOrigin origin time of the last quake of the previous page
+ * @param cursorUUID uuid of the last quake of the previous page, null for the first page
+ */
+public record ArchiveQueryPacket(long from, long to, float minMagnitude,
+                                 float minLat, float maxLat, float minLon, float maxLon,
+                                 int pageSize, long cursorOrigin, UUID cursorUUID) implements Packet {
+
+}
@@ -0,0 +1,13 @@
+package gqserver.api.packets.earthquake;
+
+import gqserver.api.Packet;
+import gqserver.api.data.earthquake.ArchivedQuakeSummaryData;
+
+import java.util.List;
+
+/**
+ * @param hasMore true if the next page, starting after the last quake of this one, isn't empty
+ */
+public record ArchiveQueryResultPacket(List<ArchivedQuakeSummaryData> quakes, boolean hasMore) implements Packet {
+
+}
@@ -0,0 +1,11 @@
+package gqserver.api.packets.earthquake;
+
+import gqserver.api.Packet;
+import gqserver.api.data.earthquake.ArchivedEventData;
+
+import java.util.List;
+import java.util.UUID;
+
+public record ArchivedEventsPacket(UUID uuid, List<ArchivedEventData> archivedEventDataList) implements Packet {
+
+}
@@ -0,0 +1,9 @@
+package gqserver.api.packets.earthquake;
+
+import gqserver.api.Packet;
+
+import java.util.UUID;
+
+public record ArchivedEventsRequestPacket(UUID uuid) implements Packet {
+
+}
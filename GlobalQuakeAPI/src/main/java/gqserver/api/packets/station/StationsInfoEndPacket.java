@@ -0,0 +1,13 @@
+package gqserver.api.packets.station;
+
+import gqserver.api.Packet;
+
+import java.util.UUID;
+
+/**
+ * Sent after the last {@link StationsInfoPacket} of a station list
+ * @param stationCount number of stations in the whole list
+ */
+public record StationsInfoEndPacket(UUID stationsIndexing, int stationCount) implements Packet {
+
+}
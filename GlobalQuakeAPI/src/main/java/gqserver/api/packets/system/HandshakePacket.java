@@ -2,7 +2,13 @@ package gqserver.api.packets.system;
 
 import gqserver.api.Packet;
 import gqserver.api.data.system.ServerClientConfig;
+import gqserver.api.data.system.SessionData;
 
-public record HandshakePacket(int compatVersion, ServerClientConfig clientConfig) implements Packet {
+/**
+ * @param binaryProtocolVersion highest version of the binary protocol the client supports, 0 if none.
+ *                              Older clients don't send it and are left on java serialization.
+ * @param session state of the previous session when reconnecting, null on the first connect
+ */
+public record HandshakePacket(int compatVersion, ServerClientConfig clientConfig, int binaryProtocolVersion, SessionData session) implements Packet {
 
 }
@@ -1,6 +1,11 @@
 package gqserver.api.packets.system;
 
 import gqserver.api.Packet;
+import gqserver.api.data.system.SessionData;
 
-public record HandshakeSuccessfulPacket() implements Packet {
+/**
+ * @param binaryProtocolVersion version of the binary protocol both sides switch to after this packet, 0 to keep java serialization
+ * @param session current state of the server, null if the server can't resume sessions
+ */
+public record HandshakeSuccessfulPacket(int binaryProtocolVersion, SessionData session) implements Packet {
 }
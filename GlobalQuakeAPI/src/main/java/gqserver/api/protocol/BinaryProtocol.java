@@ -0,0 +1,543 @@
+package gqserver.api.protocol;
+
+import gqserver.api.Packet;
+import gqserver.api.data.cluster.ClusterData;
+import gqserver.api.data.earthquake.ArchivedEventData;
+import gqserver.api.data.earthquake.ArchivedQuakeData;
+import gqserver.api.data.earthquake.ArchivedQuakeSummaryData;
+import gqserver.api.data.earthquake.EarthquakeInfo;
+import gqserver.api.data.earthquake.HypocenterData;
+import gqserver.api.data.earthquake.advanced.*;
+import gqserver.api.data.station.StationInfoData;
+import gqserver.api.data.station.StationIntensityData;
+import gqserver.api.exception.UnknownPacketException;
+import gqserver.api.packets.cluster.ClusterPacket;
+import gqserver.api.packets.data.DataRecordPacket;
+import gqserver.api.packets.data.DataRequestPacket;
+import gqserver.api.packets.earthquake.*;
+import gqserver.api.packets.station.InputType;
+import gqserver.api.packets.station.StationsInfoEndPacket;
+import gqserver.api.packets.station.StationsInfoPacket;
+import gqserver.api.packets.station.StationsIntensityPacket;
+import gqserver.api.packets.station.StationsRequestPacket;
+import gqserver.api.packets.system.HeartbeatPacket;
+import gqserver.api.packets.system.TerminationPacket;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fixed field layouts of the packets for the binary protocol.
+ * Every frame starts with the packet type, packets without a layout are sent as a standalone serialized object.
+ */
+public final class BinaryProtocol {
+
+    public static final int VERSION = 3;
+
+    /**
+     * First version with paged archive queries, older servers only understand {@link ArchivedQuakesRequestPacket}
+     */
+    public static final int ARCHIVE_QUERY_VERSION = 2;
+
+    /**
+     * First version that ends the station list with {@link StationsInfoEndPacket}
+     */
+    public static final int STATIONS_END_VERSION = 3;
+
+    private static final byte SERIALIZED = 0;
+    private static final byte HEARTBEAT = 1;
+    private static final byte TERMINATION = 2;
+    private static final byte HYPOCENTER_DATA = 3;
+    private static final byte EARTHQUAKE_CHECK = 4;
+    private static final byte ARCHIVED_QUAKE = 5;
+    private static final byte CLUSTER = 6;
+    private static final byte STATIONS_INFO = 7;
+    private static final byte STATIONS_INTENSITY = 8;
+    private static final byte DATA_RECORD = 9;
+    private static final byte EARTHQUAKES_REQUEST = 10;
+    private static final byte EARTHQUAKE_REQUEST = 11;
+    private static final byte ARCHIVED_QUAKES_REQUEST = 12;
+    private static final byte STATIONS_REQUEST = 13;
+    private static final byte DATA_REQUEST = 14;
+    private static final byte ARCHIVE_QUERY = 15;
+    private static final byte ARCHIVE_QUERY_RESULT = 16;
+    private static final byte ARCHIVED_EVENTS_REQUEST = 17;
+    private static final byte ARCHIVED_EVENTS = 18;
+    private static final byte ARCHIVE_DELTA_REQUEST = 19;
+    private static final byte ARCHIVE_DELTA = 20;
+    private static final byte STATIONS_INFO_END = 21;
+
+    private static final InputType[] INPUT_TYPES = InputType.values();
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * @return the whole frame of the packet, including its length
+     */
+    public static byte[] encodeFrame(Packet packet) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(0);
+        encode(packet, out);
+        out.flush();
+
+        byte[] frame = buffer.toByteArray();
+        int length = frame.length - Integer.BYTES;
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+        return frame;
+    }
+
+    public static void encode(Packet packet, DataOutputStream out) throws IOException {
+        if (packet instanceof HeartbeatPacket) {
+            out.writeByte(HEARTBEAT);
+        } else if (packet instanceof TerminationPacket terminationPacket) {
+            out.writeByte(TERMINATION);
+            writeString(out, terminationPacket.cause());
+        } else if (packet instanceof HypocenterDataPacket hypocenterDataPacket) {
+            out.writeByte(HYPOCENTER_DATA);
+            writeHypocenterData(out, hypocenterDataPacket.data());
+            writeAdvancedHypocenterData(out, hypocenterDataPacket.advancedHypocenterData());
+            writeClusterData(out, hypocenterDataPacket.clusterData());
+        } else if (packet instanceof EarthquakeCheckPacket earthquakeCheckPacket) {
+            out.writeByte(EARTHQUAKE_CHECK);
+            EarthquakeInfo info = earthquakeCheckPacket.info();
+            out.writeBoolean(info != null);
+            if (info != null) {
+                writeUUID(out, info.uuid());
+                out.writeInt(info.revisionID());
+            }
+        } else if (packet instanceof ArchivedQuakePacket archivedQuakePacket) {
+            out.writeByte(ARCHIVED_QUAKE);
+            writeArchivedQuakeData(out, archivedQuakePacket.archivedQuakeData());
+            writeArchivedEvents(out, archivedQuakePacket.archivedEventDataList());
+        } else if (packet instanceof ClusterPacket clusterPacket) {
+            out.writeByte(CLUSTER);
+            writeClusterData(out, clusterPacket.clusterData());
+        } else if (packet instanceof StationsInfoPacket stationsInfoPacket) {
+            out.writeByte(STATIONS_INFO);
+            writeUUID(out, stationsInfoPacket.stationsIndexing());
+            writeStationInfos(out, stationsInfoPacket.stationInfoDataList());
+        } else if (packet instanceof StationsIntensityPacket stationsIntensityPacket) {
+            out.writeByte(STATIONS_INTENSITY);
+            writeUUID(out, stationsIntensityPacket.stationsIndexing());
+            out.writeLong(stationsIntensityPacket.time());
+            writeStationIntensities(out, stationsIntensityPacket.intensities());
+        } else if (packet instanceof DataRecordPacket dataRecordPacket) {
+            out.writeByte(DATA_RECORD);
+            out.writeInt(dataRecordPacket.stationIndex());
+            out.writeInt(dataRecordPacket.data().length);
+            out.write(dataRecordPacket.data());
+        } else if (packet instanceof EarthquakesRequestPacket) {
+            out.writeByte(EARTHQUAKES_REQUEST);
+        } else if (packet instanceof EarthquakeRequestPacket earthquakeRequestPacket) {
+            out.writeByte(EARTHQUAKE_REQUEST);
+            writeUUID(out, earthquakeRequestPacket.uuid());
+        } else if (packet instanceof ArchivedQuakesRequestPacket) {
+            out.writeByte(ARCHIVED_QUAKES_REQUEST);
+        } else if (packet instanceof StationsRequestPacket) {
+            out.writeByte(STATIONS_REQUEST);
+        } else if (packet instanceof DataRequestPacket dataRequestPacket) {
+            out.writeByte(DATA_REQUEST);
+            writeString(out, dataRequestPacket.station());
+            out.writeBoolean(dataRequestPacket.cancel());
+        } else if (packet instanceof ArchiveQueryPacket archiveQueryPacket) {
+            out.writeByte(ARCHIVE_QUERY);
+            writeArchiveQuery(out, archiveQueryPacket);
+        } else if (packet instanceof ArchiveQueryResultPacket archiveQueryResultPacket) {
+            out.writeByte(ARCHIVE_QUERY_RESULT);
+            writeArchivedQuakeSummaries(out, archiveQueryResultPacket.quakes());
+            out.writeBoolean(archiveQueryResultPacket.hasMore());
+        } else if (packet instanceof ArchivedEventsRequestPacket archivedEventsRequestPacket) {
+            out.writeByte(ARCHIVED_EVENTS_REQUEST);
+            writeUUID(out, archivedEventsRequestPacket.uuid());
+        } else if (packet instanceof ArchivedEventsPacket archivedEventsPacket) {
+            out.writeByte(ARCHIVED_EVENTS);
+            writeUUID(out, archivedEventsPacket.uuid());
+            writeArchivedEvents(out, archivedEventsPacket.archivedEventDataList());
+        } else if (packet instanceof ArchiveDeltaRequestPacket archiveDeltaRequestPacket) {
+            out.writeByte(ARCHIVE_DELTA_REQUEST);
+            out.writeLong(archiveDeltaRequestPacket.archiveSequence());
+        } else if (packet instanceof ArchiveDeltaPacket archiveDeltaPacket) {
+            out.writeByte(ARCHIVE_DELTA);
+            writeArchivedQuakeSummaries(out, archiveDeltaPacket.quakes());
+            out.writeLong(archiveDeltaPacket.archiveSequence());
+        } else if (packet instanceof StationsInfoEndPacket stationsInfoEndPacket) {
+            out.writeByte(STATIONS_INFO_END);
+            writeUUID(out, stationsInfoEndPacket.stationsIndexing());
+            out.writeInt(stationsInfoEndPacket.stationCount());
+        } else {
+            out.writeByte(SERIALIZED);
+            // a new stream for every packet, so there is no handle table to keep
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(out);
+            objectOutputStream.writeObject(packet);
+            objectOutputStream.flush();
+        }
+    }
+
+    /**
+     * @param frame the whole frame of the packet, without its length
+     */
+    public static Packet decode(byte[] frame) throws IOException, UnknownPacketException {
+        return decode(new DataInputStream(new ByteArrayInputStream(frame)));
+    }
+
+    public static Packet decode(DataInputStream in) throws IOException, UnknownPacketException {
+        byte type = in.readByte();
+        return switch (type) {
+            case HEARTBEAT -> new HeartbeatPacket();
+            case TERMINATION -> new TerminationPacket(readString(in));
+            case HYPOCENTER_DATA -> new HypocenterDataPacket(readHypocenterData(in), readAdvancedHypocenterData(in), readClusterData(in));
+            case EARTHQUAKE_CHECK -> new EarthquakeCheckPacket(in.readBoolean() ? new EarthquakeInfo(readUUID(in), in.readInt()) : null);
+            case ARCHIVED_QUAKE -> new ArchivedQuakePacket(readArchivedQuakeData(in), readArchivedEvents(in));
+            case CLUSTER -> new ClusterPacket(readClusterData(in));
+            case STATIONS_INFO -> new StationsInfoPacket(readUUID(in), readStationInfos(in));
+            case STATIONS_INTENSITY -> new StationsIntensityPacket(readUUID(in), in.readLong(), readStationIntensities(in));
+            case DATA_RECORD -> {
+                int stationIndex = in.readInt();
+                byte[] data = new byte[readLength(in)];
+                in.readFully(data);
+                yield new DataRecordPacket(stationIndex, data);
+            }
+            case EARTHQUAKES_REQUEST -> new EarthquakesRequestPacket();
+            case EARTHQUAKE_REQUEST -> new EarthquakeRequestPacket(readUUID(in));
+            case ARCHIVED_QUAKES_REQUEST -> new ArchivedQuakesRequestPacket();
+            case STATIONS_REQUEST -> new StationsRequestPacket();
+            case DATA_REQUEST -> new DataRequestPacket(readString(in), in.readBoolean());
+            case ARCHIVE_QUERY -> readArchiveQuery(in);
+            case ARCHIVE_QUERY_RESULT -> new ArchiveQueryResultPacket(readArchivedQuakeSummaries(in), in.readBoolean());
+            case ARCHIVED_EVENTS_REQUEST -> new ArchivedEventsRequestPacket(readUUID(in));
+            case ARCHIVED_EVENTS -> new ArchivedEventsPacket(readUUID(in), readArchivedEvents(in));
+            case ARCHIVE_DELTA_REQUEST -> new ArchiveDeltaRequestPacket(in.readLong());
+            case ARCHIVE_DELTA -> new ArchiveDeltaPacket(readArchivedQuakeSummaries(in), in.readLong());
+            case STATIONS_INFO_END -> new StationsInfoEndPacket(readUUID(in), in.readInt());
+            case SERIALIZED -> readSerialized(in);
+            default -> throw new UnknownPacketException("Unknown packet type %d".formatted(type), null);
+        };
+    }
+
+    private static Packet readSerialized(DataInputStream in) throws IOException, UnknownPacketException {
+        try {
+            Object obj = new ObjectInputStream(in).readObject();
+            if (obj instanceof Packet packet) {
+                return packet;
+            }
+        } catch (ClassNotFoundException e) {
+            throw new UnknownPacketException(e.getMessage(), e);
+        }
+
+        throw new UnknownPacketException("Received obj not instance of Packet!", null);
+    }
+
+    private static void writeHypocenterData(DataOutputStream out, HypocenterData data) throws IOException {
+        out.writeBoolean(data != null);
+        if (data == null) {
+            return;
+        }
+
+        writeUUID(out, data.uuid());
+        out.writeInt(data.revisionID());
+        out.writeFloat(data.lat());
+        out.writeFloat(data.lon());
+        out.writeFloat(data.depth());
+        out.writeLong(data.origin());
+        out.writeFloat(data.magnitude());
+    }
+
+    private static HypocenterData readHypocenterData(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        return new HypocenterData(readUUID(in), in.readInt(), in.readFloat(), in.readFloat(), in.readFloat(),
+                in.readLong(), in.readFloat());
+    }
+
+    private static void writeAdvancedHypocenterData(DataOutputStream out, AdvancedHypocenterData data) throws IOException {
+        out.writeBoolean(data != null);
+        if (data == null) {
+            return;
+        }
+
+        HypocenterQualityData quality = data.qualityData();
+        out.writeBoolean(quality != null);
+        if (quality != null) {
+            out.writeFloat(quality.errOrigin());
+            out.writeFloat(quality.errDepth());
+            out.writeFloat(quality.errNS());
+            out.writeFloat(quality.errEW());
+            out.writeInt(quality.stations());
+            out.writeFloat(quality.pct());
+        }
+
+        DepthConfidenceIntervalData depthInterval = data.depthIntervalData();
+        out.writeBoolean(depthInterval != null);
+        if (depthInterval != null) {
+            out.writeFloat(depthInterval.minDepth());
+            out.writeFloat(depthInterval.maxDepth());
+        }
+
+        LocationConfidenceIntervalData locationInterval = data.locationConfidenceIntervalData();
+        out.writeBoolean(locationInterval != null);
+        if (locationInterval != null) {
+            List<PolygonConfidenceIntervalData> polygons = locationInterval.polygonConfidenceIntervalDataList();
+            out.writeInt(polygons.size());
+            for (PolygonConfidenceIntervalData polygon : polygons) {
+                out.writeInt(polygon.n());
+                out.writeFloat(polygon.offset());
+                writeFloats(out, polygon.lengths());
+            }
+        }
+
+        StationCountData stationCount = data.stationCountData();
+        out.writeBoolean(stationCount != null);
+        if (stationCount != null) {
+            out.writeInt(stationCount.total());
+            out.writeInt(stationCount.reduced());
+            out.writeInt(stationCount.used());
+            out.writeInt(stationCount.correct());
+        }
+
+        out.writeBoolean(data.magsData() != null);
+        if (data.magsData() != null) {
+            writeFloats(out, data.magsData());
+        }
+    }
+
+    private static AdvancedHypocenterData readAdvancedHypocenterData(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        HypocenterQualityData quality = in.readBoolean() ? new HypocenterQualityData(in.readFloat(), in.readFloat(),
+                in.readFloat(), in.readFloat(), in.readInt(), in.readFloat()) : null;
+
+        DepthConfidenceIntervalData depthInterval = in.readBoolean() ?
+                new DepthConfidenceIntervalData(in.readFloat(), in.readFloat()) : null;
+
+        LocationConfidenceIntervalData locationInterval = null;
+        if (in.readBoolean()) {
+            int count = readLength(in);
+            List<PolygonConfidenceIntervalData> polygons = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                polygons.add(new PolygonConfidenceIntervalData(in.readInt(), in.readFloat(), readFloats(in)));
+            }
+            locationInterval = new LocationConfidenceIntervalData(polygons);
+        }
+
+        StationCountData stationCount = in.readBoolean() ?
+                new StationCountData(in.readInt(), in.readInt(), in.readInt(), in.readInt()) : null;
+
+        List<Float> mags = in.readBoolean() ? readFloats(in) : null;
+
+        return new AdvancedHypocenterData(quality, depthInterval, locationInterval, stationCount, mags);
+    }
+
+    private static void writeClusterData(DataOutputStream out, ClusterData data) throws IOException {
+        out.writeBoolean(data != null);
+        if (data == null) {
+            return;
+        }
+
+        writeUUID(out, data.uuid());
+        out.writeDouble(data.rootLat());
+        out.writeDouble(data.rootLon());
+        out.writeInt(data.level());
+    }
+
+    private static ClusterData readClusterData(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        return new ClusterData(readUUID(in), in.readDouble(), in.readDouble(), in.readInt());
+    }
+
+    private static void writeArchivedQuakeData(DataOutputStream out, ArchivedQuakeData data) throws IOException {
+        out.writeBoolean(data != null);
+        if (data == null) {
+            return;
+        }
+
+        writeUUID(out, data.uuid());
+        out.writeFloat(data.lat());
+        out.writeFloat(data.lon());
+        out.writeFloat(data.depth());
+        out.writeFloat(data.magnitude());
+        out.writeLong(data.origin());
+        out.writeByte(data.qualityID());
+    }
+
+    private static ArchivedQuakeData readArchivedQuakeData(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        return new ArchivedQuakeData(readUUID(in), in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(),
+                in.readLong(), in.readByte());
+    }
+
+    private static void writeArchivedEvents(DataOutputStream out, List<ArchivedEventData> events) throws IOException {
+        out.writeInt(events.size());
+        for (ArchivedEventData event : events) {
+            out.writeFloat(event.lat());
+            out.writeFloat(event.lon());
+            out.writeFloat(event.maxRatio());
+            out.writeLong(event.pWave());
+        }
+    }
+
+    private static List<ArchivedEventData> readArchivedEvents(DataInputStream in) throws IOException {
+        int count = readLength(in);
+        List<ArchivedEventData> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new ArchivedEventData(in.readFloat(), in.readFloat(), in.readFloat(), in.readLong()));
+        }
+        return result;
+    }
+
+    private static void writeArchiveQuery(DataOutputStream out, ArchiveQueryPacket query) throws IOException {
+        out.writeLong(query.from());
+        out.writeLong(query.to());
+        out.writeFloat(query.minMagnitude());
+        out.writeFloat(query.minLat());
+        out.writeFloat(query.maxLat());
+        out.writeFloat(query.minLon());
+        out.writeFloat(query.maxLon());
+        out.writeInt(query.pageSize());
+        out.writeLong(query.cursorOrigin());
+        writeUUID(out, query.cursorUUID());
+    }
+
+    private static ArchiveQueryPacket readArchiveQuery(DataInputStream in) throws IOException {
+        return new ArchiveQueryPacket(in.readLong(), in.readLong(), in.readFloat(),
+                in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(),
+                in.readInt(), in.readLong(), readUUID(in));
+    }
+
+    private static void writeArchivedQuakeSummaries(DataOutputStream out, List<ArchivedQuakeSummaryData> quakes) throws IOException {
+        out.writeInt(quakes.size());
+        for (ArchivedQuakeSummaryData quake : quakes) {
+            writeArchivedQuakeData(out, quake.archivedQuakeData());
+            out.writeInt(quake.assignedStations());
+        }
+    }
+
+    private static List<ArchivedQuakeSummaryData> readArchivedQuakeSummaries(DataInputStream in) throws IOException {
+        int count = readLength(in);
+        List<ArchivedQuakeSummaryData> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new ArchivedQuakeSummaryData(readArchivedQuakeData(in), in.readInt()));
+        }
+        return result;
+    }
+
+    private static void writeStationInfos(DataOutputStream out, List<StationInfoData> stations) throws IOException {
+        out.writeInt(stations.size());
+        for (StationInfoData station : stations) {
+            out.writeInt(station.index());
+            out.writeFloat(station.lat());
+            out.writeFloat(station.lon());
+            writeString(out, station.network());
+            writeString(out, station.station());
+            writeString(out, station.channel());
+            writeString(out, station.location());
+            out.writeLong(station.time());
+            out.writeFloat(station.maxIntensity());
+            out.writeBoolean(station.eventMode());
+            out.writeByte(station.sensorType() == null ? -1 : station.sensorType().ordinal());
+        }
+    }
+
+    private static List<StationInfoData> readStationInfos(DataInputStream in) throws IOException {
+        int count = readLength(in);
+        List<StationInfoData> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = in.readInt();
+            float lat = in.readFloat();
+            float lon = in.readFloat();
+            String network = readString(in);
+            String station = readString(in);
+            String channel = readString(in);
+            String location = readString(in);
+            long time = in.readLong();
+            float maxIntensity = in.readFloat();
+            boolean eventMode = in.readBoolean();
+            byte sensorType = in.readByte();
+            result.add(new StationInfoData(index, lat, lon, network, station, channel, location, time, maxIntensity, eventMode,
+                    sensorType >= 0 && sensorType < INPUT_TYPES.length ? INPUT_TYPES[sensorType] : null));
+        }
+        return result;
+    }
+
+    private static void writeStationIntensities(DataOutputStream out, List<StationIntensityData> intensities) throws IOException {
+        out.writeInt(intensities.size());
+        for (StationIntensityData intensity : intensities) {
+            out.writeInt(intensity.index());
+            out.writeFloat(intensity.maxIntensity());
+            out.writeBoolean(intensity.eventMode());
+        }
+    }
+
+    private static List<StationIntensityData> readStationIntensities(DataInputStream in) throws IOException {
+        int count = readLength(in);
+        List<StationIntensityData> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new StationIntensityData(in.readInt(), in.readFloat(), in.readBoolean()));
+        }
+        return result;
+    }
+
+    private static void writeFloats(DataOutputStream out, List<Float> values) throws IOException {
+        out.writeInt(values.size());
+        for (Float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    private static List<Float> readFloats(DataInputStream in) throws IOException {
+        int count = readLength(in);
+        List<Float> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(in.readFloat());
+        }
+        return result;
+    }
+
+    private static void writeUUID(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeBoolean(uuid != null);
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUUID(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid length %d".formatted(length));
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,69 @@
+package gqserver.api.protocol;
+
+import gqserver.api.Packet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Packet on its way to one or more clients.
+ * Its binary frame is encoded at most once and the same bytes are then written to every client using the binary protocol.
+ */
+public final class OutboundPacket {
+
+    private static final LongAdder encodedBytes = new LongAdder();
+    private static final LongAdder sentBytes = new LongAdder();
+
+    private final Packet packet;
+    private volatile ByteBuffer frame;
+
+    public OutboundPacket(Packet packet) {
+        this.packet = packet;
+    }
+
+    public Packet getPacket() {
+        return packet;
+    }
+
+    /**
+     * @return read-only view of the encoded frame, positioned at its start
+     */
+    public ByteBuffer getFrame() throws IOException {
+        ByteBuffer result = frame;
+        if (result == null) {
+            synchronized (this) {
+                result = frame;
+                if (result == null) {
+                    byte[] bytes = BinaryProtocol.encodeFrame(packet);
+                    noteEncoded(bytes.length);
+                    frame = result = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+                }
+            }
+        }
+
+        return result.duplicate();
+    }
+
+    public static void noteEncoded(long bytes) {
+        encodedBytes.add(bytes);
+    }
+
+    public static void noteSent(long bytes) {
+        sentBytes.add(bytes);
+    }
+
+    /**
+     * @return total number of bytes produced by encoding packets for the clients
+     */
+    public static long getEncodedBytes() {
+        return encodedBytes.sum();
+    }
+
+    /**
+     * @return total number of bytes written to the clients, the difference to the encoded bytes was shared
+     */
+    public static long getSentBytes() {
+        return sentBytes.sum();
+    }
+}
@@ -0,0 +1,154 @@
+package gqserver.api.protocol;
+
+import gqserver.api.Packet;
+import gqserver.api.packets.data.DataRecordPacket;
+import gqserver.api.packets.earthquake.HypocenterDataPacket;
+import gqserver.api.packets.station.StationsInfoEndPacket;
+import gqserver.api.packets.station.StationsInfoPacket;
+import gqserver.api.packets.station.StationsIntensityPacket;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bounded queue of packets waiting to be written to one client.
+ * Earthquake packets always leave first, station intensities and waveform data are dropped when the client can't keep up.
+ */
+public class OutboundQueue {
+
+    public enum Priority {
+        EARTHQUAKE(16384, false),
+        STATION(4096, false),
+        WAVEFORM(1024, true);
+
+        private final int capacity;
+        private final boolean droppable;
+
+        Priority(int capacity, boolean droppable) {
+            this.capacity = capacity;
+            this.droppable = droppable;
+        }
+    }
+
+    private static final class Entry {
+        private OutboundPacket packet;
+
+        private Entry(OutboundPacket packet) {
+            this.packet = packet;
+        }
+    }
+
+    private final Deque<Entry>[] queues;
+
+    // hypocenter updates still waiting in the queue, a newer revision replaces them in place
+    private final Map<UUID, Entry> pendingHypocenters = new HashMap<>();
+
+    private int size = 0;
+    private long dropped = 0;
+    private long coalesced = 0;
+
+    @SuppressWarnings("unchecked")
+    public OutboundQueue() {
+        queues = new Deque[Priority.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    public static Priority getPriority(Packet packet) {
+        if (packet instanceof StationsIntensityPacket || packet instanceof DataRecordPacket) {
+            return Priority.WAVEFORM;
+        }
+
+        // the end of the list has to stay behind its stations
+        if (packet instanceof StationsInfoPacket || packet instanceof StationsInfoEndPacket) {
+            return Priority.STATION;
+        }
+
+        return Priority.EARTHQUAKE;
+    }
+
+    /**
+     * @return false if the packet can't be dropped and the queue of its priority is full
+     */
+    public synchronized boolean offer(OutboundPacket packet) {
+        if (packet.getPacket() instanceof HypocenterDataPacket hypocenterDataPacket) {
+            Entry pending = pendingHypocenters.get(hypocenterDataPacket.data().uuid());
+            if (pending != null) {
+                pending.packet = packet;
+                coalesced++;
+                return true;
+            }
+        }
+
+        Priority priority = getPriority(packet.getPacket());
+        Deque<Entry> queue = queues[priority.ordinal()];
+        if (queue.size() >= priority.capacity) {
+            if (!priority.droppable) {
+                return false;
+            }
+
+            queue.removeFirst();
+            size--;
+            dropped++;
+        }
+
+        Entry entry = new Entry(packet);
+        queue.addLast(entry);
+        size++;
+
+        if (packet.getPacket() instanceof HypocenterDataPacket hypocenterDataPacket) {
+            pendingHypocenters.put(hypocenterDataPacket.data().uuid(), entry);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the packet with the highest priority or null if the queue is empty
+     */
+    public synchronized OutboundPacket poll() {
+        for (Deque<Entry> queue : queues) {
+            Entry entry = queue.pollFirst();
+            if (entry != null) {
+                size--;
+                if (entry.packet.getPacket() instanceof HypocenterDataPacket hypocenterDataPacket) {
+                    pendingHypocenters.remove(hypocenterDataPacket.data().uuid(), entry);
+                }
+                return entry.packet;
+            }
+        }
+
+        return null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        for (Deque<Entry> queue : queues) {
+            queue.clear();
+        }
+        pendingHypocenters.clear();
+        size = 0;
+    }
+
+    /**
+     * @return number of packets that were thrown away because the client wasn't reading fast enough
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return number of hypocenter updates that replaced an older revision still waiting in the queue
+     */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+}
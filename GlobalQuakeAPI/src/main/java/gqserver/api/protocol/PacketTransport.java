@@ -0,0 +1,162 @@
+package gqserver.api.protocol;
+
+import gqserver.api.Packet;
+import gqserver.api.exception.UnknownPacketException;
+
+import java.io.*;
+import java.net.Socket;
+
+/**
+ * Reads and writes packets of one connection.
+ * Every connection starts with java serialization, the binary protocol is switched on after a successful handshake.
+ */
+public class PacketTransport {
+
+    public static final int MAX_FRAME_LENGTH = 32 * 1024 * 1024;
+
+    // the handle table of the object stream is cleared this often so it doesn't grow forever
+    private static final int RESET_INTERVAL = 256;
+
+    // frame buffers that grew over this size are not kept for the next packet
+    private static final int MAX_RETAINED_FRAME_BUFFER = 256 * 1024;
+
+    private final InputStream inputStream;
+    private final OutputStream outputStream;
+
+    private final Object inputLock = new Object();
+    private ObjectInputStream objectInputStream;
+    private final ObjectOutputStream objectOutputStream;
+    private int writtenObjects = 0;
+
+    private DataInputStream binaryInputStream;
+    private DataOutputStream binaryOutputStream;
+    private ByteArrayOutputStream frameBuffer;
+    private DataOutputStream frameOutputStream;
+
+    private volatile int inputVersion = 0;
+    private volatile int outputVersion = 0;
+
+    public PacketTransport(Socket socket) throws IOException {
+        this(socket.getInputStream(), socket.getOutputStream());
+    }
+
+    /**
+     * The object input stream is only created when the first packet is read,
+     * so neither side waits for the stream header of the other one here
+     */
+    public PacketTransport(InputStream inputStream, OutputStream outputStream) throws IOException {
+        this.inputStream = inputStream;
+        this.outputStream = outputStream;
+        objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.flush();
+    }
+
+    /**
+     * Switches both directions to the binary protocol, must be called right after the handshake
+     * from the only thread that reads from this connection
+     */
+    public void enableBinaryProtocol(int version) throws IOException {
+        enableBinaryOutput(version);
+        enableBinaryInput(version);
+    }
+
+    public void enableBinaryInput(int version) {
+        synchronized (inputLock) {
+            binaryInputStream = new DataInputStream(new BufferedInputStream(inputStream));
+            inputVersion = version;
+        }
+    }
+
+    public synchronized void enableBinaryOutput(int version) throws IOException {
+        objectOutputStream.flush();
+        binaryOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+        createFrameBuffer();
+        outputVersion = version;
+    }
+
+    /**
+     * @return version of the binary protocol used for writing, 0 if java serialization is used
+     */
+    public int getProtocolVersion() {
+        return outputVersion;
+    }
+
+    public Packet readPacket() throws IOException, UnknownPacketException {
+        synchronized (inputLock) {
+            if (inputVersion == 0) {
+                return readObject();
+            }
+
+            int length = binaryInputStream.readInt();
+            if (length <= 0 || length > MAX_FRAME_LENGTH) {
+                throw new IOException("Invalid frame length %d".formatted(length));
+            }
+
+            byte[] frame = new byte[length];
+            binaryInputStream.readFully(frame);
+            return BinaryProtocol.decode(frame);
+        }
+    }
+
+    /**
+     * @return number of received bytes that can be read without blocking
+     */
+    public int available() throws IOException {
+        synchronized (inputLock) {
+            return inputVersion == 0 ? inputStream.available() : binaryInputStream.available();
+        }
+    }
+
+    private Packet readObject() throws IOException, UnknownPacketException {
+        if (objectInputStream == null) {
+            objectInputStream = new ObjectInputStream(inputStream);
+        }
+
+        try {
+            Object obj = objectInputStream.readObject();
+            if (obj instanceof Packet packet) {
+                return packet;
+            }
+        } catch (ClassNotFoundException e) {
+            throw new UnknownPacketException(e.getMessage(), e);
+        }
+
+        throw new UnknownPacketException("Received obj not instance of Packet!", null);
+    }
+
+    public synchronized void writePacket(Packet packet) throws IOException {
+        if (outputVersion == 0) {
+            objectOutputStream.writeObject(packet);
+            if (++writtenObjects % RESET_INTERVAL == 0) {
+                objectOutputStream.reset();
+            }
+            return;
+        }
+
+        frameBuffer.reset();
+        BinaryProtocol.encode(packet, frameOutputStream);
+        frameOutputStream.flush();
+
+        binaryOutputStream.writeInt(frameBuffer.size());
+        frameBuffer.writeTo(binaryOutputStream);
+        binaryOutputStream.flush();
+
+        if (frameBuffer.size() > MAX_RETAINED_FRAME_BUFFER) {
+            createFrameBuffer();
+        }
+    }
+
+    private void createFrameBuffer() {
+        frameBuffer = new ByteArrayOutputStream();
+        frameOutputStream = new DataOutputStream(frameBuffer);
+    }
+
+    public synchronized void flush() throws IOException {
+        if (outputVersion == 0) {
+            objectOutputStream.flush();
+        } else {
+            binaryOutputStream.flush();
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package gqserver.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testBurstAndRefill() {
+        TokenBucket bucket = new TokenBucket(4, 2, 0);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(bucket.tryAcquire(1, 0));
+        }
+        assertFalse(bucket.tryAcquire(1, 0));
+
+        assertTrue(bucket.tryAcquire(1, SECOND / 2));
+        assertFalse(bucket.tryAcquire(1, SECOND / 2));
+
+        assertFalse(bucket.isFull(SECOND));
+        assertTrue(bucket.isFull(10 * SECOND));
+        assertFalse(bucket.tryAcquire(5, 10 * SECOND));
+    }
+
+    @Test
+    public void testWait() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        assertEquals(0, bucket.getWaitNanos(10, 0));
+        assertTrue(bucket.tryAcquire(10, 0));
+        assertEquals(SECOND, bucket.getWaitNanos(5, 0));
+        assertEquals(0, bucket.getWaitNanos(5, SECOND));
+        assertTrue(bucket.tryAcquire(5, SECOND));
+    }
+
+}
@@ -0,0 +1,140 @@
+package gqserver.api.protocol;
+
+import gqserver.api.Packet;
+import gqserver.api.data.cluster.ClusterData;
+import gqserver.api.data.earthquake.ArchivedEventData;
+import gqserver.api.data.earthquake.ArchivedQuakeData;
+import gqserver.api.data.earthquake.ArchivedQuakeSummaryData;
+import gqserver.api.data.earthquake.HypocenterData;
+import gqserver.api.data.earthquake.advanced.*;
+import gqserver.api.data.station.StationInfoData;
+import gqserver.api.data.station.StationIntensityData;
+import gqserver.api.data.system.ServerClientConfig;
+import gqserver.api.data.system.SessionData;
+import gqserver.api.packets.data.DataRecordPacket;
+import gqserver.api.packets.earthquake.ArchiveDeltaPacket;
+import gqserver.api.packets.earthquake.ArchiveDeltaRequestPacket;
+import gqserver.api.packets.earthquake.ArchiveQueryPacket;
+import gqserver.api.packets.earthquake.ArchiveQueryResultPacket;
+import gqserver.api.packets.earthquake.ArchivedEventsPacket;
+import gqserver.api.packets.earthquake.ArchivedEventsRequestPacket;
+import gqserver.api.packets.earthquake.ArchivedQuakePacket;
+import gqserver.api.packets.earthquake.HypocenterDataPacket;
+import gqserver.api.packets.station.InputType;
+import gqserver.api.packets.station.StationsInfoEndPacket;
+import gqserver.api.packets.station.StationsInfoPacket;
+import gqserver.api.packets.station.StationsIntensityPacket;
+import gqserver.api.packets.system.HandshakePacket;
+import gqserver.api.packets.system.HeartbeatPacket;
+import gqserver.api.packets.system.TerminationPacket;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.net.Socket;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class BinaryProtocolTest {
+
+    private static Packet roundTrip(Packet packet) throws Throwable {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        BinaryProtocol.encode(packet, out);
+        out.flush();
+        return BinaryProtocol.decode(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+    }
+
+    @Test
+    public void testRoundTrip() throws Throwable {
+        UUID uuid = UUID.randomUUID();
+        List<Packet> packets = List.of(
+                new HeartbeatPacket(),
+                new TerminationPacket("Server is full!"),
+                new HypocenterDataPacket(new HypocenterData(uuid, 3, 50.5f, 15.2f, 10.0f, 123456789L, 5.5f),
+                        new AdvancedHypocenterData(new HypocenterQualityData(1, 2, 3, 4, 5, 0.5f),
+                                new DepthConfidenceIntervalData(5, 15),
+                                new LocationConfidenceIntervalData(List.of(new PolygonConfidenceIntervalData(3, 0.5f, List.of(1f, 2f, 3f)))),
+                                null, List.of(5.4f, 5.6f)),
+                        new ClusterData(uuid, 50.0, 15.0, 2)),
+                new HypocenterDataPacket(new HypocenterData(uuid, 1, 0, 0, 0, 0, 0), null, null),
+                new ArchivedQuakePacket(new ArchivedQuakeData(uuid, 1, 2, 3, 4, 5, (byte) 2),
+                        List.of(new ArchivedEventData(1, 2, 3, 4), new ArchivedEventData(5, 6, 7, 8))),
+                new ArchiveQueryPacket(1, 2, 3.5f, -10, 10, 170, -170, 50, 99L, uuid),
+                new ArchiveQueryPacket(0, Long.MAX_VALUE, 0, -90, 90, -180, 180, 50, 0, null),
+                new ArchiveQueryResultPacket(List.of(new ArchivedQuakeSummaryData(new ArchivedQuakeData(uuid, 1, 2, 3, 4, 5, (byte) 1), 12)), true),
+                new ArchivedEventsRequestPacket(uuid),
+                new ArchivedEventsPacket(uuid, List.of(new ArchivedEventData(1, 2, 3, 4))),
+                new ArchiveDeltaRequestPacket(42L),
+                new ArchiveDeltaPacket(List.of(new ArchivedQuakeSummaryData(new ArchivedQuakeData(uuid, 1, 2, 3, 4, 5, (byte) 1), 3)), 43L),
+                new StationsInfoPacket(uuid, List.of(new StationInfoData(7, 50, 15, "CZ", "PRA", "BHZ", "", 99L, 2.5f, true, InputType.VELOCITY))),
+                new StationsInfoEndPacket(uuid, 130),
+                new StationsIntensityPacket(null, 42L, List.of(new StationIntensityData(1, 3.5f, false))),
+                new HandshakePacket(8, new ServerClientConfig(true, false), 1, null),
+                new HandshakePacket(8, new ServerClientConfig(true, false), 1, new SessionData(uuid, uuid, 7L))
+        );
+
+        for (Packet packet : packets) {
+            assertEquals(packet, roundTrip(packet));
+        }
+
+        DataRecordPacket dataRecordPacket = new DataRecordPacket(5, new byte[]{1, 2, 3});
+        DataRecordPacket decoded = (DataRecordPacket) roundTrip(dataRecordPacket);
+        assertEquals(5, decoded.stationIndex());
+        assertArrayEquals(dataRecordPacket.data(), decoded.data());
+    }
+
+    @Test
+    public void testSharedFrame() throws Throwable {
+        Packet packet = new TerminationPacket("shared");
+        OutboundPacket outboundPacket = new OutboundPacket(packet);
+        ByteBuffer first = outboundPacket.getFrame();
+        ByteBuffer second = outboundPacket.getFrame();
+
+        first.position(first.limit());
+        assertEquals(0, second.position());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(toArray(second)));
+        assertEquals(second.remaining() - Integer.BYTES, in.readInt());
+        assertEquals(packet, BinaryProtocol.decode(in));
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] result = new byte[buffer.remaining()];
+        buffer.duplicate().get(result);
+        return result;
+    }
+
+    @Test(timeout = 10000)
+    public void testSwitchAfterHandshake() throws Throwable {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Socket client = new Socket("localhost", serverSocket.getLocalPort());
+            Socket server = serverSocket.accept();
+
+            PacketTransport clientTransport = new PacketTransport(client);
+            PacketTransport serverTransport = new PacketTransport(server);
+
+            clientTransport.writePacket(new HandshakePacket(8, new ServerClientConfig(true, true), BinaryProtocol.VERSION, null));
+            assertTrue(serverTransport.readPacket() instanceof HandshakePacket);
+
+            // the server may send binary frames right after the switch, before the client reads the handshake result
+            serverTransport.writePacket(new TerminationPacket("switch"));
+            serverTransport.enableBinaryProtocol(BinaryProtocol.VERSION);
+            serverTransport.writePacket(new HeartbeatPacket());
+
+            assertEquals(new TerminationPacket("switch"), clientTransport.readPacket());
+            clientTransport.enableBinaryProtocol(BinaryProtocol.VERSION);
+
+            assertEquals(new HeartbeatPacket(), clientTransport.readPacket());
+            clientTransport.writePacket(new TerminationPacket("bye"));
+            assertEquals(new TerminationPacket("bye"), serverTransport.readPacket());
+
+            client.close();
+            server.close();
+        }
+    }
+
+}
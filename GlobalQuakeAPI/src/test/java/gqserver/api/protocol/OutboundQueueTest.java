@@ -0,0 +1,83 @@
+package gqserver.api.protocol;
+
+import gqserver.api.Packet;
+import gqserver.api.data.earthquake.HypocenterData;
+import gqserver.api.data.station.StationIntensityData;
+import gqserver.api.packets.earthquake.HypocenterDataPacket;
+import gqserver.api.packets.station.StationsInfoEndPacket;
+import gqserver.api.packets.station.StationsInfoPacket;
+import gqserver.api.packets.station.StationsIntensityPacket;
+import gqserver.api.packets.system.HeartbeatPacket;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class OutboundQueueTest {
+
+    private static OutboundPacket outbound(Packet packet) {
+        return new OutboundPacket(packet);
+    }
+
+    private static StationsIntensityPacket intensity(int i) {
+        return new StationsIntensityPacket(null, i, List.of(new StationIntensityData(i, 1.0f, false)));
+    }
+
+    @Test
+    public void testPriority() {
+        OutboundQueue queue = new OutboundQueue();
+        queue.offer(outbound(intensity(0)));
+        queue.offer(outbound(new HeartbeatPacket()));
+
+        assertEquals(new HeartbeatPacket(), queue.poll().getPacket());
+        assertEquals(intensity(0), queue.poll().getPacket());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testStationsEnd() {
+        UUID indexing = UUID.randomUUID();
+        OutboundQueue queue = new OutboundQueue();
+        queue.offer(outbound(new StationsInfoPacket(indexing, List.of())));
+        queue.offer(outbound(new StationsInfoEndPacket(indexing, 0)));
+        queue.offer(outbound(new HeartbeatPacket()));
+
+        // the end of the list never overtakes its stations
+        assertEquals(new HeartbeatPacket(), queue.poll().getPacket());
+        assertEquals(new StationsInfoPacket(indexing, List.of()), queue.poll().getPacket());
+        assertEquals(new StationsInfoEndPacket(indexing, 0), queue.poll().getPacket());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testDropOldest() {
+        OutboundQueue queue = new OutboundQueue();
+        int count = 100000;
+        for (int i = 0; i < count; i++) {
+            assertTrue(queue.offer(outbound(intensity(i))));
+        }
+
+        assertTrue(queue.getDropped() > 0);
+        assertEquals(count - queue.getDropped(), queue.size());
+        assertEquals(intensity((int) queue.getDropped()), queue.poll().getPacket());
+    }
+
+    @Test
+    public void testCoalesce() {
+        OutboundQueue queue = new OutboundQueue();
+        UUID uuid = UUID.randomUUID();
+        queue.offer(outbound(new HypocenterDataPacket(new HypocenterData(uuid, 1, 0, 0, 0, 0, 4), null, null)));
+        queue.offer(outbound(new HeartbeatPacket()));
+        queue.offer(outbound(new HypocenterDataPacket(new HypocenterData(uuid, 2, 0, 0, 0, 0, 5), null, null)));
+
+        assertEquals(2, queue.size());
+        assertEquals(2, ((HypocenterDataPacket) queue.poll().getPacket()).data().revisionID());
+        assertEquals(new HeartbeatPacket(), queue.poll().getPacket());
+
+        queue.offer(outbound(new HypocenterDataPacket(new HypocenterData(uuid, 3, 0, 0, 0, 0, 5), null, null)));
+        assertEquals(3, ((HypocenterDataPacket) queue.poll().getPacket()).data().revisionID());
+    }
+
+}
@@ -0,0 +1,83 @@
+package globalquake.benchmarks;
+
+import edu.sc.seis.seisFile.mseed.DataRecord;
+import globalquake.core.analysis.Analysis;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    // ten minutes of data
+    private static final int SAMPLES = BenchmarkSupport.SAMPLE_RATE * 60 * 10;
+    private static final long SAMPLE_INTERVAL = 1000 / BenchmarkSupport.SAMPLE_RATE;
+
+    private Analysis sampleAnalysis;
+    private Analysis decodeAnalysis;
+
+    private int[] waveform;
+    private List<DataRecord> records;
+
+    private int index;
+    private long time;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkSupport.prepare();
+
+        waveform = BenchmarkSupport.createWaveform(SAMPLES, 0);
+
+        // the records have to be in the past, otherwise they are ignored
+        long start = System.currentTimeMillis() - 60 * 60 * 1000L;
+        records = BenchmarkSupport.createRecords(waveform, start);
+
+        // first record sets up the sample rate
+        sampleAnalysis = new BenchmarkStation(50, 15).getAnalysis();
+        sampleAnalysis.analyse(records.get(0));
+        time = start + SAMPLES * SAMPLE_INTERVAL;
+
+        decodeAnalysis = new BenchmarkStation(50, 15).getAnalysis();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.destroy();
+    }
+
+    /**
+     * Filter, STA/LTA and event detection for a single sample.
+     * Once per simulated second the analysis is also given a tick, like the runtime does.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void nextSample() {
+        sampleAnalysis.nextSample(waveform[index], time, time);
+
+        index = (index + 1) % waveform.length;
+        time += SAMPLE_INTERVAL;
+
+        if (index % BenchmarkSupport.SAMPLE_RATE == 0) {
+            sampleAnalysis.second(time);
+        }
+    }
+
+    /**
+     * Decompression and analysis of ten minutes of Steim1 records
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long decode() {
+        decodeAnalysis.fullReset();
+        for (DataRecord record : records) {
+            decodeAnalysis.analyse(record);
+        }
+        return decodeAnalysis.getNumRecords();
+    }
+
+}
@@ -0,0 +1,29 @@
+package globalquake.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all the benchmarks and writes the results as JSON, so that two releases can be compared.
+ * <p>
+ * Usage: {@code java -jar GlobalQuakeBenchmarks-<version>-jar-with-dependencies.jar [output.json] [benchmark regex]}
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String output = args.length > 0 ? args[0] : "benchmarks.json";
+        String include = args.length > 1 ? args[1] : "globalquake.benchmarks.*";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output)
+                .build();
+
+        new Runner(options).run();
+    }
+
+}
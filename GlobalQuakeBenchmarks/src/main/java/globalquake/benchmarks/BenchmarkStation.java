@@ -0,0 +1,20 @@
+package globalquake.benchmarks;
+
+import globalquake.core.station.AbstractStation;
+import gqserver.api.packets.station.InputType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BenchmarkStation extends AbstractStation {
+
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    public BenchmarkStation(double lat, double lon) {
+        super("XX", "BENCH", "HHZ", "", lat, lon, 0, nextId.getAndIncrement(), null, -1);
+    }
+
+    @Override
+    public InputType getInputType() {
+        return InputType.UNKNOWN;
+    }
+}
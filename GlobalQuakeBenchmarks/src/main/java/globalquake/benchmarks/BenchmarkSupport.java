@@ -0,0 +1,133 @@
+package globalquake.benchmarks;
+
+import edu.iris.dmc.seedcodec.Steim1;
+import edu.iris.dmc.seedcodec.SteimFrameBlock;
+import edu.sc.seis.seisFile.mseed.DataRecord;
+import globalquake.core.GlobalQuake;
+import globalquake.core.events.GlobalQuakeEventHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class BenchmarkSupport {
+
+    public static final File MAIN_FOLDER = new File("./.GlobalQuakeBenchmarks/");
+
+    public static final int SAMPLE_RATE = 100;
+
+    private static final int RECORD_LENGTH = 512;
+    private static final int DATA_OFFSET = 64;
+    private static final int STEIM_FRAMES = (RECORD_LENGTH - DATA_OFFSET) / 64;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Prepares the settings folder and a minimal {@link GlobalQuake} instance with a running event handler
+     */
+    public static void prepare() {
+        if (!MAIN_FOLDER.exists() && !MAIN_FOLDER.mkdirs()) {
+            throw new IllegalStateException("Unable to create " + MAIN_FOLDER.getAbsolutePath());
+        }
+        GlobalQuake.prepare(MAIN_FOLDER, null);
+        new BenchmarkGlobalQuake();
+    }
+
+    public static void destroy() {
+        if (GlobalQuake.instance != null) {
+            GlobalQuake.instance.getEventHandler().stopHandler();
+        }
+    }
+
+    private static final class BenchmarkGlobalQuake extends GlobalQuake {
+        private BenchmarkGlobalQuake() {
+            eventHandler = new GlobalQuakeEventHandler().runHandler();
+        }
+    }
+
+    /**
+     * Noise with occasional bursts, similar to what a broadband station records
+     */
+    public static int[] createWaveform(int samples, long seed) {
+        Random r = new Random(seed);
+        int[] result = new int[samples];
+        double burst = 0;
+        for (int i = 0; i < samples; i++) {
+            if (r.nextDouble() < 0.0005) {
+                burst = 20000;
+            }
+            burst *= 0.999;
+            result[i] = (int) (r.nextGaussian() * 500 + Math.sin(i * 0.3) * burst);
+        }
+        return result;
+    }
+
+    /**
+     * Creates continuous 512 byte Steim1 compressed records containing the given waveform
+     */
+    public static List<DataRecord> createRecords(int[] waveform, long startTime) throws Exception {
+        List<DataRecord> result = new ArrayList<>();
+        int offset = 0;
+        int sequence = 1;
+        while (offset < waveform.length) {
+            int[] rest = new int[waveform.length - offset];
+            System.arraycopy(waveform, offset, rest, 0, rest.length);
+
+            SteimFrameBlock block = Steim1.encode(rest, STEIM_FRAMES);
+            long time = startTime + offset * 1000L / SAMPLE_RATE;
+            result.add((DataRecord) DataRecord.read(createRecordBytes(sequence++, time, block)));
+
+            offset += block.getNumSamples();
+        }
+        return result;
+    }
+
+    // SEED fixed header, blockette 1000 and the data frames, everything big endian
+    private static byte[] createRecordBytes(int sequence, long time, SteimFrameBlock block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_LENGTH);
+        ZonedDateTime date = ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC);
+
+        buffer.put("%06dD ".formatted(sequence % 1000000).getBytes(StandardCharsets.US_ASCII));
+        buffer.put("BENCH  HHZXX".getBytes(StandardCharsets.US_ASCII));
+
+        buffer.putShort((short) date.getYear());
+        buffer.putShort((short) date.getDayOfYear());
+        buffer.put((byte) date.getHour());
+        buffer.put((byte) date.getMinute());
+        buffer.put((byte) date.getSecond());
+        buffer.put((byte) 0);
+        buffer.putShort((short) (date.getNano() / 100000));
+
+        buffer.putShort((short) block.getNumSamples());
+        buffer.putShort((short) SAMPLE_RATE);
+        buffer.putShort((short) 1);
+        buffer.put((byte) 0); // activity flags
+        buffer.put((byte) 0); // io flags
+        buffer.put((byte) 0); // quality flags
+        buffer.put((byte) 1); // number of blockettes
+        buffer.putInt(0); // time correction
+        buffer.putShort((short) DATA_OFFSET);
+        buffer.putShort((short) 48); // first blockette
+
+        // blockette 1000
+        buffer.putShort((short) 1000);
+        buffer.putShort((short) 0);
+        buffer.put((byte) 10); // steim1
+        buffer.put((byte) 1); // big endian
+        buffer.put((byte) 9); // 2^9 = 512 bytes
+        buffer.put((byte) 0);
+
+        buffer.position(DATA_OFFSET);
+        buffer.put(block.getEncodedData());
+        return buffer.array();
+    }
+
+}
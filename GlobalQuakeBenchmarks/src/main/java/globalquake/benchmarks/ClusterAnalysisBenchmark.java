@@ -0,0 +1,111 @@
+package globalquake.benchmarks;
+
+import globalquake.core.Settings;
+import globalquake.core.analysis.ActiveEventIndex;
+import globalquake.core.analysis.Event;
+import globalquake.core.earthquake.ClusterAnalysis;
+import globalquake.core.earthquake.EarthquakeAnalysis;
+import globalquake.core.earthquake.data.Earthquake;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.core.intensity.IntensityTable;
+import globalquake.core.regions.Regions;
+import globalquake.core.station.AbstractStation;
+import globalquake.core.station.GlobalStationManager;
+import globalquake.core.station.StationIndex;
+import globalquake.utils.GeoUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the cluster analysis on a synthetic global network with a few ongoing earthquakes.
+ * After the first run the events are already assigned to clusters, so this measures the steady state
+ * that the runtime sees every second during an event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClusterAnalysisBenchmark {
+
+    private static final int STATIONS = 5000;
+    private static final int EARTHQUAKES = 3;
+
+    // time since the origin of the earthquakes
+    private static final long ELAPSED = 5 * 60 * 1000;
+
+    private ClusterAnalysis clusterAnalysis;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.prepare();
+        Regions.enabled = false;
+        Settings.maxEvents = 30;
+
+        Random r = new Random(0);
+
+        List<AbstractStation> stations = new ArrayList<>();
+        for (int i = 0; i < STATIONS; i++) {
+            double dist = r.nextDouble() * 180.0 / 360.0 * GeoUtils.EARTH_CIRCUMFERENCE;
+            double[] latLon = GeoUtils.moveOnGlobe(0, 0, dist, r.nextDouble() * 360.0);
+            stations.add(new BenchmarkStation(latLon[0], latLon[1]));
+        }
+
+        StationIndex stationIndex = GlobalStationManager.createListOfClosestStations(stations);
+
+        ActiveEventIndex activeEvents = new ActiveEventIndex();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < EARTHQUAKES; i++) {
+            double dist = r.nextDouble() * 180.0 / 360.0 * GeoUtils.EARTH_CIRCUMFERENCE;
+            double[] latLon = GeoUtils.moveOnGlobe(0, 0, dist, r.nextDouble() * 360.0);
+            createEvents(stations, activeEvents, latLon[0], latLon[1], r.nextDouble() * 100.0, 6.0 + r.nextDouble() * 2.0,
+                    now - ELAPSED, now, r);
+        }
+
+        List<Earthquake> earthquakes = new CopyOnWriteArrayList<>();
+        clusterAnalysis = new ClusterAnalysis(earthquakes, stations);
+        clusterAnalysis.setStationIndex(stationIndex);
+        clusterAnalysis.setActiveEvents(activeEvents);
+    }
+
+    private static void createEvents(List<AbstractStation> stations, ActiveEventIndex activeEvents, double lat, double lon, double depth, double mag,
+                                     long origin, long time, Random r) {
+        for (AbstractStation station : stations) {
+            double distGC = GeoUtils.greatCircleDistance(lat, lon, station.getLatitude(), station.getLongitude());
+            double rawTravelP = TauPTravelTimeCalculator.getPWaveTravelTime(depth, TauPTravelTimeCalculator.toAngle(distGC));
+            if (rawTravelP == TauPTravelTimeCalculator.NO_ARRIVAL) {
+                continue;
+            }
+
+            long arrival = origin + (long) ((rawTravelP + EarthquakeAnalysis.getElevationCorrection(station.getAlt())) * 1000);
+            double expectedRatio = IntensityTable.getIntensity(mag, distGC);
+            if (arrival > time || expectedRatio <= 8.0) {
+                continue;
+            }
+
+            Event event = new Event(station.getAnalysis());
+            event.maxRatio = expectedRatio;
+            event.setpWave(arrival + r.nextLong(2000) - 1000);
+            station.getAnalysis().getDetectedEvents().add(event);
+            activeEvents.add(event);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.destroy();
+    }
+
+    @Benchmark
+    public int run() {
+        clusterAnalysis.run();
+        return clusterAnalysis.getClusters().size();
+    }
+
+}
@@ -0,0 +1,84 @@
+package globalquake.benchmarks;
+
+import globalquake.core.Settings;
+import globalquake.core.earthquake.EarthquakeAnalysis;
+import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.earthquake.data.HypocenterFinderSettings;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.core.training.EarthquakeAnalysisTraining;
+import globalquake.utils.GeoUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HypocenterBenchmark {
+
+    @Param({"10", "50", "200", "1000"})
+    public int stations;
+
+    @Param({"true", "false"})
+    public boolean searchKernel;
+
+    private final List<PickedEvent> pickedEvents = new ArrayList<>();
+    private Cluster cluster;
+    private HypocenterFinderSettings finderSettings;
+    private EarthquakeAnalysis earthquakeAnalysis;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.prepare();
+
+        Settings.hypocenterDetectionResolution = 40.0;
+        Settings.pWaveInaccuracyThreshold = 4000.0;
+        Settings.parallelHypocenterLocations = true;
+        Settings.useHypocenterSearchKernel = searchKernel;
+
+        Random r = new Random(888);
+
+        List<EarthquakeAnalysisTraining.FakeStation> fakeStations = new ArrayList<>();
+        for (int i = 0; i < stations; i++) {
+            double[] latLon = GeoUtils.moveOnGlobe(0, 0, r.nextDouble() * EarthquakeAnalysisTraining.DIST, r.nextDouble() * 360.0);
+            fakeStations.add(new EarthquakeAnalysisTraining.FakeStation(latLon[0], latLon[1]));
+        }
+
+        double lat = r.nextDouble() * 10;
+        double lon = r.nextDouble() * 10;
+        double depth = r.nextDouble() * 200;
+
+        for (EarthquakeAnalysisTraining.FakeStation fakeStation : fakeStations) {
+            double distGC = GeoUtils.greatCircleDistance(lat, lon, fakeStation.lat(), fakeStation.lon());
+            double travelTime = TauPTravelTimeCalculator.getPWaveTravelTime(depth, TauPTravelTimeCalculator.toAngle(distGC));
+
+            long time = (long) (travelTime * 1000.0) + (long) ((r.nextDouble() - 0.5) * 1000.0);
+            pickedEvents.add(new PickedEvent(time, fakeStation.lat(), fakeStation.lon(), 0, 100));
+        }
+
+        cluster = new Cluster();
+        cluster.calculateRoot(fakeStations);
+
+        finderSettings = EarthquakeAnalysis.createSettings();
+        earthquakeAnalysis = new EarthquakeAnalysis();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.destroy();
+    }
+
+    @Benchmark
+    public PreliminaryHypocenter runHypocenterFinder() {
+        return earthquakeAnalysis.runHypocenterFinder(pickedEvents, cluster, finderSettings, true);
+    }
+
+}
@@ -0,0 +1,47 @@
+package globalquake.benchmarks;
+
+import globalquake.core.regions.Regions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegionsBenchmark {
+
+    private static final int POINTS = 256;
+
+    private final double[] lats = new double[POINTS];
+    private final double[] lons = new double[POINTS];
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkSupport.prepare();
+        Regions.init();
+
+        Random r = new Random(0);
+        for (int i = 0; i < POINTS; i++) {
+            lats[i] = Math.toDegrees(Math.asin(r.nextDouble() * 2 - 1));
+            lons[i] = r.nextDouble() * 360.0 - 180.0;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.destroy();
+    }
+
+    @Benchmark
+    public String getRegion() {
+        index = (index + 1) % POINTS;
+        return Regions.getRegion(lats[index], lons[index]);
+    }
+
+}
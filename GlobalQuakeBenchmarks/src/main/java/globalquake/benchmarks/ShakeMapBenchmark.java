@@ -0,0 +1,47 @@
+package globalquake.benchmarks;
+
+import globalquake.core.earthquake.data.Hypocenter;
+import globalquake.core.regions.Regions;
+import globalquake.intensity.ShakeMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShakeMapBenchmark {
+
+    @Param({"4.5", "6.0", "8.0"})
+    public double magnitude;
+
+    private Hypocenter hypocenter;
+    private int resolution;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkSupport.prepare();
+        Regions.init();
+        ShakeMap.init();
+
+        hypocenter = new Hypocenter(35.0, 139.0, 20.0, System.currentTimeMillis(), 0, 0, null, null);
+        hypocenter.magnitude = magnitude;
+
+        // same as ShakemapService
+        resolution = magnitude < 5.2 ? 6 : magnitude < 6.4 ? 5 : magnitude < 8.5 ? 4 : 3;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.destroy();
+    }
+
+    @Benchmark
+    public ShakeMap generate() {
+        return new ShakeMap(hypocenter, resolution);
+    }
+
+}
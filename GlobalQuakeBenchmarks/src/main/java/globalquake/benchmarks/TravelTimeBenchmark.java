@@ -0,0 +1,82 @@
+package globalquake.benchmarks;
+
+import globalquake.core.geo.taup.FlatTravelTable;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Travel time lookups over a batch of random depths and distances
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TravelTimeBenchmark {
+
+    private static final int POINTS = 1024;
+
+    private final double[] depths = new double[POINTS];
+    private final double[] angles = new double[POINTS];
+    private final double[] times = new double[POINTS];
+
+    private FlatTravelTable flatTable;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        TauPTravelTimeCalculator.init();
+        flatTable = TauPTravelTimeCalculator.getPTravelTableFlat();
+
+        Random r = new Random(0);
+        for (int i = 0; i < POINTS; i++) {
+            depths[i] = r.nextDouble() * 700.0;
+            angles[i] = r.nextDouble() * 100.0;
+            times[i] = TauPTravelTimeCalculator.getPWaveTravelTime(depths[i], angles[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double pWaveTravelTime() {
+        double sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            sum += TauPTravelTimeCalculator.getPWaveTravelTime(depths[i], angles[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double pWaveTravelTimeFast() {
+        double sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            sum += TauPTravelTimeCalculator.getPWaveTravelTimeFast(depths[i], angles[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double pWaveTravelTimeFlat() {
+        double sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            sum += flatTable.getTravelTimeFast(depths[i], angles[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double pWaveTravelAngle() {
+        double sum = 0;
+        for (int i = 0; i < POINTS; i++) {
+            sum += TauPTravelTimeCalculator.getPWaveTravelAngle(depths[i], times[i]);
+        }
+        return sum;
+    }
+
+}
@@ -1,5 +1,12 @@
 package globalquake.client;
 
+import globalquake.core.client.ClientSocket;
+import globalquake.core.client.ClusterAnalysisClient;
+import globalquake.core.client.EarthquakeAnalysisClient;
+import globalquake.core.client.EarthquakeArchiveClient;
+import globalquake.core.client.GlobalStationManagerClient;
+import globalquake.core.client.SeedlinkNetworksReaderClient;
+import globalquake.core.client.data.ClientStation;
 import globalquake.events.GlobalQuakeLocalEventListener;
 import globalquake.events.specific.SocketReconnectEvent;
 import globalquake.events.specific.StationCreateEvent;
@@ -8,7 +15,6 @@ import globalquake.events.specific.StationMonitorOpenEvent;
 import globalquake.main.Main;
 import globalquake.ui.StationMonitor;
 import globalquake.ui.globalquake.GlobalQuakeFrame;
-import gqserver.api.Packet;
 import gqserver.api.packets.data.DataRequestPacket;
 import org.tinylog.Logger;
 
@@ -25,12 +31,18 @@ public class GlobalQuakeClient extends GlobalQuakeLocal {
     public GlobalQuakeClient(ClientSocket clientSocket) {
         instance = this;
 
-        super.globalStationManager = new GlobalStationManagerClient();
+        super.globalStationManager = new GlobalStationManagerClient() {
+            @Override
+            protected void onStationCreate(ClientStation station) {
+                getLocalEventHandler().fireEvent(new StationCreateEvent(station));
+            }
+        };
         super.earthquakeAnalysis = new EarthquakeAnalysisClient();
         super.clusterAnalysis = new ClusterAnalysisClient();
         super.archive = new EarthquakeArchiveClient();
         super.seedlinkNetworksReader = new SeedlinkNetworksReaderClient();
         this.clientSocket = clientSocket;
+        clientSocket.setConnectListener(() -> getLocalEventHandler().fireEvent(new SocketReconnectEvent()));
 
         getLocalEventHandler().registerEventListener(new GlobalQuakeLocalEventListener(){
             @Override
@@ -77,13 +89,6 @@ public class GlobalQuakeClient extends GlobalQuakeLocal {
         });
     }
 
-    public void processPacket(ClientSocket socket, Packet packet) throws IOException {
-        ((EarthquakeAnalysisClient)getEarthquakeAnalysis()).processPacket(socket, packet);
-        ((EarthquakeArchiveClient)getArchive()).processPacket(socket, packet);
-        ((GlobalStationManagerClient)getStationManager()).processPacket(socket, packet);
-        ((ClusterAnalysisClient)getClusterAnalysis()).processPacket(socket, packet);
-    }
-
     @Override
     public GlobalQuakeLocal createFrame() {
         try {
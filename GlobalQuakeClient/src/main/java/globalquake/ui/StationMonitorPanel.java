@@ -2,9 +2,9 @@ package globalquake.ui;
 
 import java.awt.*;
 import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
 
 import javax.swing.JPanel;
 
@@ -13,8 +13,7 @@ import globalquake.core.earthquake.data.Earthquake;
 import globalquake.core.earthquake.EarthquakeAnalysis;
 import globalquake.core.station.AbstractStation;
 import globalquake.core.analysis.Event;
-import globalquake.core.analysis.Log;
-import globalquake.core.analysis.AnalysisStatus;
+import globalquake.core.analysis.LogPyramid;
 import globalquake.core.analysis.BetterAnalysis;
 import globalquake.utils.GeoUtils;
 import globalquake.core.geo.taup.TauPTravelTimeCalculator;
@@ -33,6 +32,10 @@ public class StationMonitorPanel extends JPanel {
 		updateImage();
 	}
 
+	// traces that determine the vertical scale of the averages and ratios panels
+	private static final int[] SCALED_AVERAGES = {LogPyramid.SHORT_AVERAGE, LogPyramid.LONG_AVERAGE, LogPyramid.MEDIUM_AVERAGE, LogPyramid.SPECIAL_AVERAGE};
+	private static final int[] SCALED_RATIOS = {LogPyramid.RATIO, LogPyramid.MEDIUM_RATIO, LogPyramid.THIRD_RATIO, LogPyramid.SPECIAL_RATIO};
+
 	private static final Stroke dashed = new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0,
 			new float[] { 3 }, 0);
 
@@ -61,10 +64,9 @@ public class StationMonitorPanel extends JPanel {
 			g.draw(new Line2D.Double(x, 0, x, getHeight()));
 		}
 
-		ArrayList<Log> logs;
-		synchronized (station.getAnalysis().previousLogsLock) {
-			logs = new ArrayList<>(station.getAnalysis().getPreviousLogs());
-		}
+		long now = getTime();
+		LogPyramid.View logs = station.getAnalysis().getDecimatedLogs(
+				now - Settings.logsStoreTimeMinutes * 60 * 1000L, now, Math.max(1, w));
 
 		if (logs.size() > 1) {
 			double maxValue = -Double.MAX_VALUE;
@@ -73,54 +75,18 @@ public class StationMonitorPanel extends JPanel {
 			double minFilteredValue = Double.MAX_VALUE;
 			double maxAverage = 0;
 			double maxRatio = 0;
-			for (Log l : logs) {
-				int v = l.rawValue();
-				if (v > maxValue) {
-					maxValue = v;
-				}
-				if (v < minValue) {
-					minValue = v;
-				}
-
-				double fv = l.filteredV();
-				if (fv > maxFilteredValue) {
-					maxFilteredValue = fv;
-				}
-				if (fv < minFilteredValue) {
-					minFilteredValue = fv;
-				}
-				double shortAvg = l.shortAverage();
-				double longAvg = l.longAverage();
-				double medAvg = l.mediumAverage();
-				double specAvg = l.specialAverage();
-				if (shortAvg > maxAverage) {
-					maxAverage = shortAvg;
-				}
-				if (longAvg > maxAverage) {
-					maxAverage = longAvg;
-				}
-				if (medAvg > maxAverage) {
-					maxAverage = medAvg;
-				}
-				if (specAvg > maxAverage) {
-					maxAverage = specAvg;
+			for (int i = 0; i < logs.size(); i++) {
+				maxValue = Math.max(maxValue, logs.getMax(i, LogPyramid.RAW));
+				minValue = Math.min(minValue, logs.getMin(i, LogPyramid.RAW));
+				maxFilteredValue = Math.max(maxFilteredValue, logs.getMax(i, LogPyramid.FILTERED));
+				minFilteredValue = Math.min(minFilteredValue, logs.getMin(i, LogPyramid.FILTERED));
+
+				for (int trace : SCALED_AVERAGES) {
+					maxAverage = Math.max(maxAverage, logs.getMax(i, trace));
 				}
 
-				double ratio = l.getRatio();
-				double medRatio = l.getMediumRatio();
-				double thirdRatio = l.getThirdRatio();
-				double specRatio = l.getSpecialRatio();
-				if (ratio > maxRatio) {
-					maxRatio = ratio;
-				}
-				if (medRatio > maxRatio) {
-					maxRatio = medRatio;
-				}
-				if (thirdRatio > maxRatio) {
-					maxRatio = thirdRatio;
-				}
-				if (specRatio > maxRatio) {
-					maxRatio = specRatio;
+				for (int trace : SCALED_RATIOS) {
+					maxRatio = Math.max(maxRatio, logs.getMax(i, trace));
 				}
 			}
 
@@ -138,122 +104,37 @@ public class StationMonitorPanel extends JPanel {
 			maxAverage += 10.0;
 			maxAverage *= 1.25;
 
-			for (int i = 0; i < logs.size() - 1; i++) {
-				Log a = logs.get(i);
-				Log b = logs.get(i + 1);
-
-				boolean gap = (a.time() - b.time()) > (1000.0 / station.getAnalysis().getSampleRate()) * 2;
-				if (gap) {
-					continue;
-				}
-
-				double x1 = getX(a.time());
-				double x2 = getX(b.time());
-
-				double y1 = 0 + (getHeight() * 0.20) * (maxValue - a.rawValue()) / (maxValue - minValue);
-				double y2 = 0 + (getHeight() * 0.20) * (maxValue - b.rawValue()) / (maxValue - minValue);
-
-				double y3 = getHeight() * 0.20 + (getHeight() * 0.20) * (maxFilteredValue - a.filteredV())
-						/ (maxFilteredValue - minFilteredValue);
-				double y4 = getHeight() * 0.20 + (getHeight() * 0.20) * (maxFilteredValue - b.filteredV())
-						/ (maxFilteredValue - minFilteredValue);
-
-				double y5 = getHeight() * 0.40
-						+ (getHeight() * 0.30) * (maxAverage - a.shortAverage()) / (maxAverage);
-				double y6 = getHeight() * 0.40
-						+ (getHeight() * 0.30) * (maxAverage - b.shortAverage()) / (maxAverage);
-
-				double y7 = getHeight() * 0.40
-						+ (getHeight() * 0.30) * (maxAverage - a.longAverage()) / (maxAverage);
-				double y8 = getHeight() * 0.40
-						+ (getHeight() * 0.30) * (maxAverage - b.longAverage()) / (maxAverage);
-
-				double y9 = getHeight() * 0.40
-						+ (getHeight() * 0.30) * (maxAverage - a.mediumAverage()) / (maxAverage);
-				double y10 = getHeight() * 0.40
-						+ (getHeight() * 0.30) * (maxAverage - b.mediumAverage()) / (maxAverage);
-
-				double y9b = getHeight() * 0.40
-						+ (getHeight() * 0.30) * (maxAverage - a.thirdAverage()) / (maxAverage);
-				double y10b = getHeight() * 0.40
-						+ (getHeight() * 0.30) * (maxAverage - b.thirdAverage()) / (maxAverage);
-
-				double y9c = getHeight() * 0.40
-						+ (getHeight() * 0.30) * (maxAverage - a.specialAverage()) / (maxAverage);
-				double y10c = getHeight() * 0.40
-						+ (getHeight() * 0.30) * (maxAverage - b.specialAverage()) / (maxAverage);
-
-				double y11 = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - a.getRatio()) / (maxRatio);
-				double y12 = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - b.getRatio()) / (maxRatio);
+			double maxInterval = (1000.0 / station.getAnalysis().getSampleRate()) * 2;
 
-				double y13 = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - a.getMediumRatio()) / (maxRatio);
-				double y14 = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - b.getMediumRatio()) / (maxRatio);
+			drawTrace(g, logs, LogPyramid.RAW, maxInterval, 0, h * 0.20, minValue, maxValue, Color.blue, null, 1f);
+			drawTrace(g, logs, LogPyramid.FILTERED, maxInterval, h * 0.20, h * 0.20, minFilteredValue, maxFilteredValue, Color.orange, null, 1f);
 
-				double y13b = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - a.getThirdRatio()) / (maxRatio);
-				double y14b = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - b.getThirdRatio()) / (maxRatio);
+			drawTrace(g, logs, LogPyramid.LONG_AVERAGE, maxInterval, h * 0.40, h * 0.30, 0, maxAverage, Color.orange, null, 3f);
+			drawTrace(g, logs, LogPyramid.MEDIUM_AVERAGE, maxInterval, h * 0.40, h * 0.30, 0, maxAverage, Color.blue, null, 2f);
+			drawTrace(g, logs, LogPyramid.THIRD_AVERAGE, maxInterval, h * 0.40, h * 0.30, 0, maxAverage, Color.green, null, 2f);
+			drawTrace(g, logs, LogPyramid.SPECIAL_AVERAGE, maxInterval, h * 0.40, h * 0.30, 0, maxAverage, Color.red, null, 2f);
+			drawTrace(g, logs, LogPyramid.SHORT_AVERAGE, maxInterval, h * 0.40, h * 0.30, 0, maxAverage, Color.black, Color.green, 1f);
 
-				double y13c = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - a.getSpecialRatio()) / (maxRatio);
-				double y14c = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - b.getSpecialRatio()) / (maxRatio);
+			drawTrace(g, logs, LogPyramid.MEDIUM_RATIO, maxInterval, h * 0.70, h * 0.30, 0, maxRatio, Color.blue, null, 2f);
+			drawTrace(g, logs, LogPyramid.THIRD_RATIO, maxInterval, h * 0.70, h * 0.30, 0, maxRatio, Color.green, null, 2f);
+			drawTrace(g, logs, LogPyramid.SPECIAL_RATIO, maxInterval, h * 0.70, h * 0.30, 0, maxRatio, Color.red, null, 2f);
+			drawTrace(g, logs, LogPyramid.RATIO, maxInterval, h * 0.70, h * 0.30, 0, maxRatio, Color.black, Color.green, 1f);
 
-				double yA = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - 1.0) / (maxRatio);
+			double x1 = getX(logs.getTime(0));
+			double x2 = getX(logs.getTime(logs.size() - 1) + logs.getBucketWidth());
 
-				g.setColor(Color.blue);
-				g.setStroke(new BasicStroke(1f));
-				g.draw(new Line2D.Double(x1, y1, x2, y2));
+			double yA = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - 1.0) / (maxRatio);
+			g.setColor(Color.red);
+			g.setStroke(new BasicStroke(1f));
+			g.draw(new Line2D.Double(x1, yA, x2, yA));
 
-				g.setColor(Color.orange);
-				g.setStroke(new BasicStroke(1f));
-				g.draw(new Line2D.Double(x1, y3, x2, y4));
-
-				g.setColor(Color.orange);
-				g.setStroke(new BasicStroke(3f));
-				g.draw(new Line2D.Double(x1, y7, x2, y8));
-
-				g.setColor(Color.blue);
-				g.setStroke(new BasicStroke(2f));
-				g.draw(new Line2D.Double(x1, y9, x2, y10));
-
-				g.setColor(Color.green);
-				g.setStroke(new BasicStroke(2f));
-				g.draw(new Line2D.Double(x1, y9b, x2, y10b));
-
-				g.setColor(Color.red);
-				g.setStroke(new BasicStroke(2f));
-				g.draw(new Line2D.Double(x1, y9c, x2, y10c));
-
-				g.setColor(a.status() == AnalysisStatus.IDLE ? Color.black : Color.green);
-				g.setStroke(new BasicStroke(1f));
-				g.draw(new Line2D.Double(x1, y5, x2, y6));
-
-				g.setColor(Color.blue);
-				g.setStroke(new BasicStroke(2f));
-				g.draw(new Line2D.Double(x1, y13, x2, y14));
-
-				g.setColor(Color.green);
-				g.setStroke(new BasicStroke(2f));
-				g.draw(new Line2D.Double(x1, y13b, x2, y14b));
-
-				g.setColor(Color.red);
-				g.setStroke(new BasicStroke(2f));
-				g.draw(new Line2D.Double(x1, y13c, x2, y14c));
-
-				g.setColor(a.status() == AnalysisStatus.IDLE ? Color.black : Color.green);
-				g.setStroke(new BasicStroke(1f));
-				g.draw(new Line2D.Double(x1, y11, x2, y12));
-
-				g.setColor(Color.red);
-				g.setStroke(new BasicStroke(1f));
-				g.draw(new Line2D.Double(x1, yA, x2, yA));
-
-				for (double d : Event.RECALCULATE_P_WAVE_THRESHOLDS) {
-					double _y = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - d) / (maxRatio);
-					if (_y > getHeight() * 0.70) {
-						g.setColor(Color.magenta);
-						g.setStroke(new BasicStroke(1f));
-						g.draw(new Line2D.Double(x1, _y, x2, _y));
-					}
+			for (double d : Event.RECALCULATE_P_WAVE_THRESHOLDS) {
+				double _y = getHeight() * 0.70 + (getHeight() * 0.30) * (maxRatio - d) / (maxRatio);
+				if (_y > getHeight() * 0.70) {
+					g.setColor(Color.magenta);
+					g.setStroke(new BasicStroke(1f));
+					g.draw(new Line2D.Double(x1, _y, x2, _y));
 				}
-
 			}
 		}
 
@@ -310,6 +191,56 @@ public class StationMonitorPanel extends JPanel {
 		this.image = img;
 	}
 
+	/**
+	 * Draws the trace as a vertical line from the minimum to the maximum of every bucket, the buckets are connected
+	 * unless there is a gap in the data. Buckets containing an event are drawn with eventColor if it is set
+	 */
+	private void drawTrace(Graphics2D g, LogPyramid.View logs, int trace, double maxInterval, double top, double height,
+						   double min, double max, Color color, Color eventColor, float stroke) {
+		Path2D.Double path = new Path2D.Double();
+		Path2D.Double eventPath = eventColor == null ? path : new Path2D.Double();
+
+		Path2D.Double last = null;
+		double lastX = 0;
+		double lastY = 0;
+
+		for (int i = 0; i < logs.size(); i++) {
+			double low = logs.getMin(i, trace);
+			double high = logs.getMax(i, trace);
+			if (!(low <= high) || Double.isInfinite(low) || Double.isInfinite(high)) {
+				last = null;
+				continue;
+			}
+
+			double x = getX(logs.getTime(i) + logs.getBucketWidth() / 2);
+			double y1 = top + height * (max - low) / (max - min);
+			double y2 = top + height * (max - high) / (max - min);
+
+			Path2D.Double target = logs.isEvent(i) ? eventPath : path;
+			if (last == null || logs.isGap(i, maxInterval)) {
+				target.moveTo(x, y1);
+			} else {
+				if (target != last) {
+					target.moveTo(lastX, lastY);
+				}
+				target.lineTo(x, y1);
+			}
+			target.lineTo(x, y2);
+
+			last = target;
+			lastX = x;
+			lastY = y2;
+		}
+
+		g.setStroke(new BasicStroke(stroke));
+		g.setColor(color);
+		g.draw(path);
+		if (eventPath != path) {
+			g.setColor(eventColor);
+			g.draw(eventPath);
+		}
+	}
+
 	private long getTime() {
 		return GlobalQuake.instance != null ? GlobalQuake.instance.currentTimeMillis() : System.currentTimeMillis();
 	}
@@ -36,7 +36,7 @@ public class ArchivedQuakeAnimation extends JDialog {
         scheduler.schedule(new Runnable() {
             @Override
             public void run() {
-                mainPanel.repaint();
+                mainPanel.requestFrame();
                 scheduler.schedule(this, 1000 / Settings.fpsIdle, TimeUnit.MILLISECONDS);
             }
         }, 1, TimeUnit.SECONDS);
@@ -1,10 +1,10 @@
 package globalquake.ui.client;
 
-import globalquake.client.ClientSocket;
 import globalquake.client.GlobalQuakeClient;
 import globalquake.client.GlobalQuakeLocal;
 import globalquake.core.GlobalQuake;
 import globalquake.core.Settings;
+import globalquake.core.client.ClientSocket;
 import globalquake.core.exception.RuntimeApplicationException;
 import globalquake.core.geo.taup.TauPTravelTimeCalculator;
 import globalquake.intensity.ShakeMap;
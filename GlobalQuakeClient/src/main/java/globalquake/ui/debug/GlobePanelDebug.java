@@ -161,7 +161,8 @@ public class GlobePanelDebug extends GQFrame {
 		Timer timer = new Timer();
 		timer.scheduleAtFixedRate(new TimerTask() {
 			public void run() {
-				mainPanel.repaint();
+				panel.requestFrame();
+				list.repaint();
 			}
 		}, 0, 1000 / 40);
 	}
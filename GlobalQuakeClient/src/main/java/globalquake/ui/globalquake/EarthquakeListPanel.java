@@ -1,5 +1,6 @@
 package globalquake.ui.globalquake;
 
+import globalquake.core.GlobalQuake;
 import globalquake.core.archive.ArchivedQuake;
 import globalquake.core.earthquake.quality.QualityClass;
 import globalquake.core.intensity.IntensityScales;
@@ -7,6 +8,7 @@ import globalquake.core.intensity.Level;
 import globalquake.ui.archived.ArchivedQuakeAnimation;
 import globalquake.ui.archived.ArchivedQuakeUI;
 import globalquake.core.Settings;
+import org.tinylog.Logger;
 
 import javax.swing.*;
 import java.awt.*;
@@ -79,13 +81,19 @@ public class EarthquakeListPanel extends JPanel {
 
                 if (quake != null && e.getButton() == MouseEvent.BUTTON3 && !isMouseInGoUpRect) {
                     quake.setWrong(!quake.isWrong());
+                    GlobalQuake.instance.getArchive().updateQuake(quake);
                 }
 
                 if(e.getButton() == MouseEvent.BUTTON1) {
                     if(isMouseInGoUpRect) {
                         scroll = 0;
                     }else if (quake != null ) {
-                        new ArchivedQuakeUI(parent, quake).setVisible(true);
+                        GlobalQuake.instance.getArchive().loadDetails(quake).whenComplete((ignored, throwable) -> {
+                            if (throwable != null) {
+                                Logger.warn("Unable to load details of the quake: %s".formatted(throwable.getMessage()));
+                            }
+                            SwingUtilities.invokeLater(() -> new ArchivedQuakeUI(parent, quake).setVisible(true));
+                        });
                     }
                 }
 
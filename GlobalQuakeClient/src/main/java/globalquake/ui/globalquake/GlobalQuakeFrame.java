@@ -91,7 +91,8 @@ public class GlobalQuakeFrame extends GQFrame {
 		scheduler.schedule(new Runnable() {
 			@Override
 			public void run() {
-				mainPanel.repaint();
+				panel.requestFrame();
+				list.repaint();
 				scheduler.schedule(this, 1000 / Settings.fpsIdle, TimeUnit.MILLISECONDS);
 			}
 		}, 1, TimeUnit.SECONDS);
@@ -1,10 +1,10 @@
 package globalquake.ui.globalquake;
 
 import globalquake.alert.AlertManager;
-import globalquake.client.ClientSocket;
-import globalquake.client.ClientSocketStatus;
 import globalquake.client.GlobalQuakeClient;
 import globalquake.core.GlobalQuake;
+import globalquake.core.client.ClientSocket;
+import globalquake.core.client.ClientSocketStatus;
 import globalquake.core.earthquake.data.Cluster;
 import globalquake.core.earthquake.data.Earthquake;
 import globalquake.core.earthquake.data.Hypocenter;
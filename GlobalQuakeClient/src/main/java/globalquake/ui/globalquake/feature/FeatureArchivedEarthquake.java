@@ -3,11 +3,11 @@ package globalquake.ui.globalquake.feature;
 import globalquake.core.GlobalQuake;
 import globalquake.core.archive.ArchivedQuake;
 import globalquake.ui.globe.GlobeRenderer;
+import globalquake.ui.globe.MarkerAtlas;
 import globalquake.ui.globe.Point2D;
 import globalquake.ui.globe.RenderProperties;
-import globalquake.ui.globe.feature.RenderElement;
+import globalquake.ui.globe.feature.PointFeature;
 import globalquake.ui.globe.feature.RenderEntity;
-import globalquake.ui.globe.feature.RenderFeature;
 import globalquake.core.Settings;
 import globalquake.utils.Scale;
 
@@ -16,12 +16,11 @@ import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
-public class FeatureArchivedEarthquake extends RenderFeature<ArchivedQuake> {
+public class FeatureArchivedEarthquake extends PointFeature<ArchivedQuake> {
 
     private final List<ArchivedQuake> earthquakes;
 
     public FeatureArchivedEarthquake(List<ArchivedQuake> earthquakes) {
-        super(1);
         this.earthquakes = earthquakes;
     }
 
@@ -30,21 +29,9 @@ public class FeatureArchivedEarthquake extends RenderFeature<ArchivedQuake> {
         return earthquakes;
     }
 
-    @Override
-    public void createPolygon(GlobeRenderer renderer, RenderEntity<ArchivedQuake> entity, RenderProperties renderProperties) {
-        RenderElement element = entity.getRenderElement(0);
-
-        ArchivedQuake archivedQuake = entity.getOriginal();
-
-        renderer.createCircle(element.getPolygon(),
-                entity.getOriginal().getLat(),
-                entity.getOriginal().getLon(),
-                getSize(archivedQuake, renderer, renderProperties), 0, 12);
-    }
-
-    private double getSize(ArchivedQuake quake, GlobeRenderer renderer, RenderProperties renderProperties) {
+    private double getSize(ArchivedQuake quake, RenderProperties renderProperties) {
         double size = 3 + Math.pow(quake.getMag(), 2) * 0.8;
-        return Math.min(10 * size, renderer.pxToDeg(quake.getMag() < 0 ? 3 : size, renderProperties));
+        return Math.min(10 * size * renderProperties.getRenderPrecomputedValues().oneDegPx, quake.getMag() < 0 ? 3 : size);
     }
 
     @Override
@@ -58,46 +45,22 @@ public class FeatureArchivedEarthquake extends RenderFeature<ArchivedQuake> {
     }
 
     @Override
-    public boolean needsCreatePolygon(RenderEntity<ArchivedQuake> entity, boolean propertiesChanged) {
-        return propertiesChanged;
-    }
-
-    @Override
-    public boolean needsProject(RenderEntity<ArchivedQuake> entity, boolean propertiesChanged) {
-        return propertiesChanged;
+    public boolean isEntityVisible(RenderEntity<?> entity) {
+        ArchivedQuake quake = (ArchivedQuake) entity.getOriginal();
+        return !quake.isWrong() && quake.shouldBeDisplayed();
     }
 
     @Override
-    public void project(GlobeRenderer renderer, RenderEntity<ArchivedQuake> entity, RenderProperties renderProperties) {
-        RenderElement element = entity.getRenderElement(0);
-        boolean displayed = !entity.getOriginal().isWrong() && entity.getOriginal().shouldBeDisplayed();
-
-        if(displayed) {
-            element.getShape().reset();
-            element.shouldDraw = renderer.project3D(element.getShape(), element.getPolygon(), true, renderProperties);
-        }else {
-            element.shouldDraw = false;
-        }
-    }
+    public void renderPoint(GlobeRenderer renderer, Graphics2D graphics, RenderEntity<ArchivedQuake> entity, double x, double y, RenderProperties renderProperties) {
+        ArchivedQuake quake = entity.getOriginal();
 
-    @Override
-    public void render(GlobeRenderer renderer, Graphics2D graphics, RenderEntity<ArchivedQuake> entity, RenderProperties renderProperties) {
-        boolean displayed = !entity.getOriginal().isWrong();
-        if (!entity.getRenderElement(0).shouldDraw || !displayed) {
-            return;
-        }
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        graphics.setColor(getColor(entity.getOriginal()));
-        graphics.setStroke(new BasicStroke((float) Math.max(0.1, 1.4 + entity.getOriginal().getMag() * 0.4)));
-        graphics.draw(entity.getRenderElement(0).getShape());
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        MarkerAtlas.draw(graphics, MarkerAtlas.Shape.CIRCLE, getColor(quake), getSize(quake, renderProperties),
+                Math.max(0.1, 1.4 + quake.getMag() * 0.4), true, x, y);
 
-        boolean mouseNearby = renderer.isMouseNearby(getCenterCoords(entity), 10.0, true, renderProperties);
+        boolean mouseNearby = renderer.isMouseNearby(x, y, 10.0, true);
 
         if(mouseNearby && renderProperties.scroll < 1) {
-            var point3D = GlobeRenderer.createVec3D(getCenterCoords(entity));
-            var centerPonint = renderer.projectPoint(point3D, renderProperties);
-            drawDetails(graphics, centerPonint, entity.getOriginal());
+            drawDetails(graphics, new Point2D(x, y), quake);
         }
     }
 
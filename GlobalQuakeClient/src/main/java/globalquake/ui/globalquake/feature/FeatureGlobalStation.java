@@ -5,12 +5,11 @@ import globalquake.core.analysis.AnalysisStatus;
 import globalquake.core.analysis.Event;
 import globalquake.core.station.AbstractStation;
 import globalquake.ui.globe.GlobeRenderer;
+import globalquake.ui.globe.MarkerAtlas;
 import globalquake.ui.globe.Point2D;
-import globalquake.ui.globe.Polygon3D;
 import globalquake.ui.globe.RenderProperties;
-import globalquake.ui.globe.feature.RenderElement;
+import globalquake.ui.globe.feature.PointFeature;
 import globalquake.ui.globe.feature.RenderEntity;
-import globalquake.ui.globe.feature.RenderFeature;
 import globalquake.core.Settings;
 import globalquake.ui.settings.StationsShape;
 import globalquake.ui.stationselect.FeatureSelectableStation;
@@ -20,15 +19,16 @@ import gqserver.api.packets.station.InputType;
 import java.awt.*;
 import java.util.Collection;
 
-public class FeatureGlobalStation extends RenderFeature<AbstractStation> {
+public class FeatureGlobalStation extends PointFeature<AbstractStation> {
 
     private final Collection<AbstractStation> globalStations;
 
     public static final double RATIO_YELLOW = 2000.0;
     public static final double RATIO_RED = 20000.0;
 
+    private static final Font FONT = new Font("Calibri", Font.PLAIN, 13);
+
     public FeatureGlobalStation(Collection<AbstractStation> globalStations) {
-        super(2);
         this.globalStations = globalStations;
     }
 
@@ -37,20 +37,8 @@ public class FeatureGlobalStation extends RenderFeature<AbstractStation> {
         return globalStations;
     }
 
-    @Override
-    public void createPolygon(GlobeRenderer renderer, RenderEntity<AbstractStation> entity, RenderProperties renderProperties) {
-        RenderElement elementStationCircle = entity.getRenderElement(0);
-        RenderElement elementStationSquare = entity.getRenderElement(1);
-        if (elementStationCircle.getPolygon() == null) {
-            elementStationCircle.setPolygon(new Polygon3D());
-        }
-        if (elementStationSquare.getPolygon() == null) {
-            elementStationSquare.setPolygon(new Polygon3D());
-        }
-
-        double size = Math.min(36, renderer.pxToDeg(7.0, renderProperties)) * Settings.stationsSizeMul;
-
-        InputType inputType = entity.getOriginal().getInputType();
+    private static MarkerAtlas.Shape getShape(AbstractStation station) {
+        InputType inputType = station.getInputType();
 
         StationsShape shape = StationsShape.values()[Settings.stationsShapeIndex];
 
@@ -60,33 +48,12 @@ public class FeatureGlobalStation extends RenderFeature<AbstractStation> {
             inputType = InputType.VELOCITY;
         }
 
-        switch (inputType){
-            case UNKNOWN ->
-                    renderer.createCircle(elementStationCircle.getPolygon(),
-                            entity.getOriginal().getLatitude(),
-                            entity.getOriginal().getLongitude(),
-                            size, 0, 30);
-            case VELOCITY ->
-                    renderer.createTriangle(elementStationCircle.getPolygon(),
-                            entity.getOriginal().getLatitude(),
-                            entity.getOriginal().getLongitude(),
-                            size * 1.41, 0, 0);
-            case ACCELERATION ->
-                    renderer.createTriangle(elementStationCircle.getPolygon(),
-                            entity.getOriginal().getLatitude(),
-                            entity.getOriginal().getLongitude(),
-                            size * 1.41, 0, 180);
-            case DISPLACEMENT ->
-                    renderer.createSquare(elementStationCircle.getPolygon(),
-                            entity.getOriginal().getLatitude(),
-                            entity.getOriginal().getLongitude(),
-                            size * 1.41, 0);
-        }
-
-        renderer.createSquare(elementStationSquare.getPolygon(),
-                entity.getOriginal().getLatitude(),
-                entity.getOriginal().getLongitude(),
-                size * 2.0, 0);
+        return switch (inputType){
+            case UNKNOWN -> MarkerAtlas.Shape.CIRCLE;
+            case VELOCITY -> MarkerAtlas.Shape.TRIANGLE_UP;
+            case ACCELERATION -> MarkerAtlas.Shape.TRIANGLE_DOWN;
+            case DISPLACEMENT -> MarkerAtlas.Shape.SQUARE;
+        };
     }
 
     @Override
@@ -94,27 +61,6 @@ public class FeatureGlobalStation extends RenderFeature<AbstractStation> {
         return true;
     }
 
-    @Override
-    public boolean needsCreatePolygon(RenderEntity<AbstractStation> entity, boolean propertiesChanged) {
-        return propertiesChanged;
-    }
-
-    @Override
-    public boolean needsProject(RenderEntity<AbstractStation> entity, boolean propertiesChanged) {
-        return propertiesChanged;
-    }
-
-    @Override
-    public void project(GlobeRenderer renderer, RenderEntity<AbstractStation> entity, RenderProperties renderProperties) {
-        RenderElement elementStationCircle = entity.getRenderElement(0);
-        elementStationCircle.getShape().reset();
-        elementStationCircle.shouldDraw = renderer.project3D(elementStationCircle.getShape(), elementStationCircle.getPolygon(), true, renderProperties);
-
-        RenderElement elementStationSquare = entity.getRenderElement(1);
-        elementStationSquare.getShape().reset();
-        elementStationSquare.shouldDraw = renderer.project3D(elementStationSquare.getShape(), elementStationSquare.getPolygon(), true, renderProperties);
-    }
-
     @Override
     public boolean isEntityVisible(RenderEntity<?> entity) {
         AbstractStation station = (AbstractStation) entity.getOriginal();
@@ -127,53 +73,41 @@ public class FeatureGlobalStation extends RenderFeature<AbstractStation> {
     }
 
     @Override
-    public void render(GlobeRenderer renderer, Graphics2D graphics, RenderEntity<AbstractStation> entity, RenderProperties renderProperties) {
-        RenderElement elementStationCircle = entity.getRenderElement(0);
+    public void renderPoint(GlobeRenderer renderer, Graphics2D graphics, RenderEntity<AbstractStation> entity, double x, double y, RenderProperties renderProperties) {
+        AbstractStation station = entity.getOriginal();
 
-        if(!elementStationCircle.shouldDraw){
-            return;
-        }
+        double size = Math.min(36 * renderProperties.getRenderPrecomputedValues().oneDegPx, 7.0) * Settings.stationsSizeMul;
 
-        RenderElement elementStationSquare = entity.getRenderElement(1);
+        MarkerAtlas.Shape shape = getShape(station);
+        double radius = shape == MarkerAtlas.Shape.TRIANGLE_UP || shape == MarkerAtlas.Shape.TRIANGLE_DOWN ? size * 1.41 : size;
+        double squareRadius = size * 1.41;
 
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                Settings.antialiasing ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
-        graphics.setColor(getDisplayColor(entity.getOriginal()));
-        graphics.fill(elementStationCircle.getShape());
+        MarkerAtlas.draw(graphics, shape, getDisplayColor(station), radius, 0, Settings.antialiasing, x, y);
 
-        boolean mouseNearby = renderer.isMouseNearby(getCenterCoords(entity), 10.0, true, renderProperties);
+        boolean mouseNearby = renderer.isMouseNearby(x, y, 10.0, true);
 
         if (mouseNearby && renderProperties.scroll < 1) {
-            graphics.setColor(Color.yellow);
-            graphics.setStroke(new BasicStroke(2f));
-            graphics.draw(elementStationCircle.getShape());
+            MarkerAtlas.draw(graphics, shape, Color.yellow, radius, 2, Settings.antialiasing, x, y);
         }
 
-        graphics.setStroke(new BasicStroke(1f));
-
-        var point3D = GlobeRenderer.createVec3D(getCenterCoords(entity));
-        var centerPonint = renderer.projectPoint(point3D, renderProperties);
-
-        graphics.setFont(new Font("Calibri", Font.PLAIN, 13));
+        graphics.setFont(FONT);
 
         if(Settings.displayClusters){
-            int _y = (int) centerPonint.y + 4;
-            for(Event event2 : entity.getOriginal().getAnalysis().getDetectedEvents()){
+            int _y = (int) y + 4;
+            for(Event event2 : station.getAnalysis().getDetectedEvents()){
                 if(event2.assignedCluster != null){
                     Color c = !event2.isValid() ? Color.gray : event2.assignedCluster.color;
 
-                    graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
-
+                    MarkerAtlas.draw(graphics, MarkerAtlas.Shape.SQUARE, c, squareRadius, 1, false, x, y);
                     graphics.setColor(c);
-                    graphics.draw(elementStationSquare.getShape());
-                    graphics.drawString("Cluster #"+event2.assignedCluster.id, (int) centerPonint.x + 12, _y);
+                    graphics.drawString("Cluster #"+event2.assignedCluster.id, (int) x + 12, _y);
                     _y += 16;
                 }
             }
-        } else if (entity.getOriginal().isInEventMode() && ((System.currentTimeMillis() / 500) % 2 == 0)) {
+        } else if (station.isInEventMode() && ((System.currentTimeMillis() / 500) % 2 == 0)) {
             Color c = Color.green;
 
-            double maxRatio = entity.getOriginal().getMaxRatio60S();
+            double maxRatio = station.getMaxRatio60S();
 
             if (maxRatio >= RATIO_YELLOW) {
                 c = Color.yellow;
@@ -183,14 +117,11 @@ public class FeatureGlobalStation extends RenderFeature<AbstractStation> {
                 c = Color.red;
             }
 
-            graphics.setColor(c);
-            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            graphics.draw(elementStationSquare.getShape());
+            MarkerAtlas.draw(graphics, MarkerAtlas.Shape.SQUARE, c, squareRadius, 1, true, x, y);
         }
 
-
         graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
-        drawDetails(mouseNearby, renderProperties.scroll, (int) centerPonint.x, (int) centerPonint.y, graphics, entity.getOriginal());
+        drawDetails(mouseNearby, renderProperties.scroll, (int) x, (int) y, graphics, station);
     }
 
     private void drawDetails(boolean mouseNearby, double scroll, int x, int y, Graphics2D g, AbstractStation station) {
@@ -219,7 +150,7 @@ public class FeatureGlobalStation extends RenderFeature<AbstractStation> {
         if (scroll < Settings.stationIntensityVisibilityZoomLevel || (mouseNearby && scroll < 1)) {
             g.setColor(Color.white);
             String str = !station.hasDisplayableData() ? "-.-" : "%s".formatted((int) (station.getMaxRatio60S() * 10) / 10.0);
-            g.setFont(new Font("Calibri", Font.PLAIN, 13));
+            g.setFont(FONT);
             g.setColor(station.getAnalysis().getStatus() == AnalysisStatus.EVENT ? Color.green : Color.LIGHT_GRAY);
             g.drawString(str, x - g.getFontMetrics().stringWidth(str) / 2, y + _y + 9);
         }
@@ -73,6 +73,7 @@ public class GlobalQuake {
 
 	public GlobalQuake initStations() {
 		globalStationManager.initStations(stationDatabaseManager);
+		clusterAnalysis.setStationIndex(globalStationManager.getStationIndex());
 		return this;
 	}
 
@@ -90,6 +91,7 @@ public class GlobalQuake {
 		getEarthquakeAnalysis().getEarthquakes().clear();
 		getClusterAnalysis().getClusters().clear();
 		getStationManager().getStations().clear();
+		getStationManager().getActiveEvents().clear();
 	}
 
 	@SuppressWarnings("unused")
@@ -1,6 +1,9 @@
 package globalquake.core;
 
+import globalquake.core.metrics.Histogram;
+import globalquake.core.metrics.MetricsRegistry;
 import globalquake.core.station.AbstractStation;
+import globalquake.core.station.StationAnalysisScheduler;
 import globalquake.utils.NamedThreadFactory;
 import org.tinylog.Logger;
 
@@ -12,41 +15,43 @@ import java.util.concurrent.TimeUnit;
 public class GlobalQuakeRuntime {
 
     private long lastSecond;
-    private long lastAnalysis;
     private long lastGC;
     private long clusterAnalysisT;
     private long lastQuakesT;
-    private ScheduledExecutorService execAnalysis;
+    private volatile StationAnalysisScheduler stationAnalysisScheduler;
     private ScheduledExecutorService exec1Sec;
     private ScheduledExecutorService execQuake;
 
+    private final Histogram secondDuration = MetricsRegistry.getInstance().histogram("gq_second_loop_duration_seconds",
+            "Duration of the 1-second loop");
+    private final Histogram clusterDuration = MetricsRegistry.getInstance().histogram("gq_cluster_analysis_duration_seconds",
+            "Duration of one cluster analysis pass");
+    private final Histogram hypocenterDuration = MetricsRegistry.getInstance().histogram("gq_hypocenter_analysis_duration_seconds",
+            "Duration of one hypocenter analysis pass");
+
     public void runThreads() {
-        execAnalysis = Executors
-                .newSingleThreadScheduledExecutor(new NamedThreadFactory("Station Analysis Thread"));
+        registerStationMetrics();
+
         exec1Sec = Executors
                 .newSingleThreadScheduledExecutor(new NamedThreadFactory("1-Second Loop Thread"));
         execQuake = Executors
                 .newSingleThreadScheduledExecutor(new NamedThreadFactory("Hypocenter Location Thread"));
 
-        execAnalysis.scheduleAtFixedRate(() -> {
-            try {
-                long a = System.currentTimeMillis();
-                GlobalQuake.instance.getStationManager().getStations().parallelStream().forEach(AbstractStation::analyse);
-                lastAnalysis = System.currentTimeMillis() - a;
-            } catch (Exception e) {
-                Logger.error("Exception occurred in station analysis");
-                GlobalQuake.getErrorHandler().handleException(e);
-            }
-        }, 0, 100, TimeUnit.MILLISECONDS);
+        StationAnalysisScheduler scheduler = new StationAnalysisScheduler(StationAnalysisScheduler.getDefaultShardCount());
+        scheduler.start();
+        stationAnalysisScheduler = scheduler;
 
         exec1Sec.scheduleAtFixedRate(() -> {
             try {
                 long a = System.currentTimeMillis();
+                long start = System.nanoTime();
                 GlobalQuake.instance.getStationManager().getStations().parallelStream().forEach(station -> station.second(a));
+                scheduler.second();
                 if (GlobalQuake.instance.getEarthquakeAnalysis() != null) {
                     GlobalQuake.instance.getEarthquakeAnalysis().second();
                 }
                 lastSecond = System.currentTimeMillis() - a;
+                secondDuration.observeSince(start);
             } catch (Exception e) {
                 Logger.error("Exception occurred in 1-second loop");
                 GlobalQuake.getErrorHandler().handleException(e);
@@ -56,8 +61,12 @@ public class GlobalQuakeRuntime {
         execQuake.scheduleAtFixedRate(() -> {
             try {
                 long a = System.currentTimeMillis();
+                long start = System.nanoTime();
                 GlobalQuake.instance.getClusterAnalysis().run();
+                long clusters = System.nanoTime();
+                clusterDuration.observe((clusters - start) / 1_000_000_000.0);
                 GlobalQuake.instance.getEarthquakeAnalysis().run();
+                hypocenterDuration.observeSince(clusters);
                 lastQuakesT = System.currentTimeMillis() - a;
             } catch (Exception e) {
                 Logger.error("Exception occurred in hypocenter location loop");
@@ -66,9 +75,32 @@ public class GlobalQuakeRuntime {
         }, 0, 300, TimeUnit.MILLISECONDS);
     }
 
+    private static void registerStationMetrics() {
+        MetricsRegistry.getInstance().register("gq_station_delay_seconds",
+                "Time since the last sample received from the station", MetricsRegistry.Type.GAUGE, sink -> {
+                    for (AbstractStation station : GlobalQuake.instance.getStationManager().getStations()) {
+                        long delay = station.getDelayMS();
+                        if (delay != -1) {
+                            sink.sample(delay / 1000.0, "network", station.getNetworkCode(), "station", station.getStationCode(),
+                                    "channel", station.getChannelName(), "location", station.getLocationCode());
+                        }
+                    }
+                });
+    }
+
+    /**
+     * @return the scheduler of the station analysis, null if the runtime is not running
+     */
+    public StationAnalysisScheduler getStationAnalysisScheduler() {
+        return stationAnalysisScheduler;
+    }
+
     public void stop() {
         GlobalQuake.instance.stopService(execQuake);
-        GlobalQuake.instance.stopService(execAnalysis);
+        if (stationAnalysisScheduler != null) {
+            stationAnalysisScheduler.stop();
+            stationAnalysisScheduler = null;
+        }
         GlobalQuake.instance.stopService(exec1Sec);
     }
 }
@@ -41,6 +41,11 @@ public final class Settings {
 	public static Double hypocenterDetectionResolution;
 
 	public static Boolean parallelHypocenterLocations;
+
+	public static Boolean useHypocenterSearchKernel;
+
+	public static Boolean incrementalHypocenterRelocation;
+
 	public static final int minimumStationsForEEWDefault = 5;
 
 	public static Integer minimumStationsForEEW;
@@ -133,6 +138,7 @@ public final class Settings {
 
 	public static Integer lastServerPORT;
 	public static Integer maxClients;
+	public static Integer metricsPort;
 	public static Boolean displayShakemaps;
 
 	public static Integer stationsShapeIndex;
@@ -199,6 +205,8 @@ public final class Settings {
 
 		loadProperty("lastServerIP", "0.0.0.0");
 		loadProperty("lastServerPORT", "38000");
+		loadProperty("metricsPort", "0",
+				o -> validateInt(0, 65535, (Integer) o));
 
 		loadProperty("shakingLevelScale", "0",
 				o -> validateInt(0, IntensityScales.INTENSITY_SCALES.length - 1, (Integer) o));
@@ -270,6 +278,8 @@ public final class Settings {
 		loadProperty("minimumStationsForEEW", String.valueOf(minimumStationsForEEWDefault));
 		loadProperty("useOldColorScheme", "false");
 		loadProperty("parallelHypocenterLocations", "true");
+		loadProperty("useHypocenterSearchKernel", "true");
+		loadProperty("incrementalHypocenterRelocation", "true");
 		loadProperty("displayHomeLocation", "true");
 		loadProperty("antialiasing", "false");
 		loadProperty("fpsIdle", "30", o -> validateInt(1, 300, (Integer) o));
@@ -0,0 +1,121 @@
+package globalquake.core.analysis;
+
+import globalquake.utils.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Events that are currently held by the station analyses, bucketed by the location of their station.
+ * P wave picks are revised while the event is running, so P wave time is used as a filter inside the buckets.
+ */
+public class ActiveEventIndex {
+
+    private static final double CELL_SIZE = 5.0;
+    private static final int LAT_CELLS = (int) (180 / CELL_SIZE);
+    private static final int LON_CELLS = (int) (360 / CELL_SIZE);
+
+    private final Map<Integer, Set<Event>> cells = new ConcurrentHashMap<>();
+
+    public void add(Event event) {
+        cells.computeIfAbsent(getCell(event), k -> ConcurrentHashMap.newKeySet()).add(event);
+    }
+
+    public void remove(Event event) {
+        Set<Event> cell = cells.get(getCell(event));
+        if (cell != null) {
+            cell.remove(event);
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Set<Event> cell : cells.values()) {
+            size += cell.size();
+        }
+        return size;
+    }
+
+    public List<Event> getEvents() {
+        List<Event> result = new ArrayList<>();
+        for (Set<Event> cell : cells.values()) {
+            result.addAll(cell);
+        }
+        return result;
+    }
+
+    /**
+     * Calls the consumer for every event within radius km whose P wave is between pWaveFrom and pWaveTo, both inclusive
+     */
+    public void forEachWithin(double lat, double lon, double radius, long pWaveFrom, long pWaveTo, Consumer<Event> consumer) {
+        // slightly enlarged so that rounding never drops a cell on the boundary
+        double angle = Math.toDegrees(radius / GeoUtils.EARTH_RADIUS) + 1e-6;
+        double minLat = lat - angle;
+        double maxLat = lat + angle;
+
+        int fromLon;
+        int toLon;
+        if (angle >= 90.0 || minLat <= -90.0 || maxLat >= 90.0) {
+            // the cap contains a pole
+            minLat = Math.max(-90.0, minLat);
+            maxLat = Math.min(90.0, maxLat);
+            fromLon = 0;
+            toLon = LON_CELLS - 1;
+        } else {
+            double lonAngle = Math.toDegrees(Math.asin(Math.min(1.0,
+                    Math.sin(Math.toRadians(angle)) / Math.cos(Math.toRadians(lat)))));
+            fromLon = lonCell(lon - lonAngle);
+            toLon = lonCell(lon + lonAngle);
+            if (lonAngle >= 180.0 - CELL_SIZE) {
+                fromLon = 0;
+                toLon = LON_CELLS - 1;
+            } else if (toLon < fromLon) {
+                toLon += LON_CELLS;
+            }
+        }
+
+        int fromLat = latCell(minLat);
+        int toLat = latCell(maxLat);
+
+        for (int latCell = fromLat; latCell <= toLat; latCell++) {
+            for (int lonCell = fromLon; lonCell <= toLon; lonCell++) {
+                Set<Event> cell = cells.get(latCell * LON_CELLS + lonCell % LON_CELLS);
+                if (cell == null) {
+                    continue;
+                }
+
+                for (Event event : cell) {
+                    if (event.getpWave() < pWaveFrom || event.getpWave() > pWaveTo) {
+                        continue;
+                    }
+
+                    if (GeoUtils.greatCircleDistance(lat, lon, event.getLatFromStation(), event.getLonFromStation()) <= radius) {
+                        consumer.accept(event);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int getCell(Event event) {
+        return latCell(event.getLatFromStation()) * LON_CELLS + lonCell(event.getLonFromStation());
+    }
+
+    private static int latCell(double lat) {
+        return Math.max(0, Math.min(LAT_CELLS - 1, (int) Math.floor((lat + 90.0) / CELL_SIZE)));
+    }
+
+    private static int lonCell(double lon) {
+        int cell = (int) Math.floor((lon + 180.0) / CELL_SIZE) % LON_CELLS;
+        return cell < 0 ? cell + LON_CELLS : cell;
+    }
+
+}
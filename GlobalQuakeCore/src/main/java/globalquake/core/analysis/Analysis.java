@@ -1,11 +1,11 @@
 package globalquake.core.analysis;
 
 import globalquake.core.GlobalQuake;
+import globalquake.core.Settings;
 import globalquake.core.station.AbstractStation;
 import edu.sc.seis.seisFile.mseed.DataRecord;
 import org.tinylog.Logger;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -20,15 +20,20 @@ public abstract class Analysis {
     public double _maxCounts;
     public boolean _maxRatioReset;
     public final Object previousLogsLock;
-    private final ArrayList<Log> previousLogs;
+    private final LogBuffer previousLogs;
+    private LogPyramid logPyramid;
+    private long logPyramidAccess;
     private AnalysisStatus status;
 
+    // the decimated logs are dropped if nobody asked for them for this long
+    private static final long LOG_PYRAMID_TIMEOUT = 60 * 1000;
+
     public Analysis(AbstractStation station) {
         this.station = station;
         this.sampleRate = -1;
         detectedEvents = new CopyOnWriteArrayList<>();
         previousLogsLock = new Object();
-        previousLogs = new ArrayList<>();
+        previousLogs = new LogBuffer();
         status = AnalysisStatus.IDLE;
     }
 
@@ -43,6 +48,9 @@ public abstract class Analysis {
     public void analyse(DataRecord dr) {
         if (sampleRate <= 0) {
             sampleRate = dr.getSampleRate();
+            synchronized (previousLogsLock) {
+                previousLogs.ensureCapacity((int) (sampleRate * 60 * (Settings.logsStoreTimeMinutes + 1)));
+            }
             reset();
         }
 
@@ -96,6 +104,9 @@ public abstract class Analysis {
         lastRecord = 0;
         synchronized (previousLogsLock) {
             getPreviousLogs().clear();
+            if (logPyramid != null) {
+                logPyramid.clear();
+            }
         }
     }
 
@@ -118,10 +129,61 @@ public abstract class Analysis {
         return numRecords;
     }
 
-    public ArrayList<Log> getPreviousLogs() {
+    public LogBuffer getPreviousLogs() {
         return previousLogs;
     }
 
+    /**
+     * Appends to the previous logs, caller has to hold previousLogsLock
+     *
+     * @return false if the log was dropped because it is older than the newest previous log
+     */
+    protected boolean addPreviousLog(long time, int rawValue, float filteredV, float shortAverage, float mediumAverage,
+                                     float longAverage, float thirdAverage, float specialAverage, AnalysisStatus status) {
+        if (!previousLogs.add(time, rawValue, filteredV, shortAverage, mediumAverage, longAverage, thirdAverage, specialAverage, status)) {
+            return false;
+        }
+
+        if (logPyramid != null) {
+            logPyramid.add(time, rawValue, filteredV, shortAverage, mediumAverage, longAverage, thirdAverage, specialAverage, status);
+        }
+
+        return true;
+    }
+
+    protected void removePreviousLogsOlderThan(long oldestTime) {
+        synchronized (previousLogsLock) {
+            previousLogs.removeOlderThan(oldestTime);
+            if (logPyramid == null) {
+                return;
+            }
+
+            if (System.currentTimeMillis() - logPyramidAccess > LOG_PYRAMID_TIMEOUT) {
+                logPyramid = null;
+            } else {
+                logPyramid.removeOlderThan(oldestTime);
+            }
+        }
+    }
+
+    /**
+     * @return min/max decimated copy of the previous logs with about one bucket per column.
+     * The decimation is built on the first call and then kept up to date for as long as someone keeps asking for it
+     */
+    public LogPyramid.View getDecimatedLogs(long from, long to, int columns) {
+        synchronized (previousLogsLock) {
+            if (logPyramid == null) {
+                logPyramid = new LogPyramid();
+                for (int i = 0; i < previousLogs.size(); i++) {
+                    logPyramid.add(previousLogs, i);
+                }
+            }
+
+            logPyramidAccess = System.currentTimeMillis();
+            return logPyramid.view(from, to, columns);
+        }
+    }
+
     public AnalysisStatus getStatus() {
         return status;
     }
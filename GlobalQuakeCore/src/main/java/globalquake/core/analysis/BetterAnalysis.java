@@ -1,5 +1,6 @@
 package globalquake.core.analysis;
 
+import globalquake.core.GlobalQuake;
 import globalquake.core.Settings;
 import globalquake.core.station.AbstractStation;
 import globalquake.core.station.StationState;
@@ -128,11 +129,16 @@ public class BetterAnalysis extends Analysis {
             boolean cond2 = shortAverage / longAverage >= EVENT_THRESHOLD * 2.05 && time - eventTimer > 100;
             boolean condMain = shortAverage / thirdAverage > 3.0;
             if (condMain && (cond1 || cond2)) {
-                ArrayList<Log> _logs = createListOfLastLogs(time - EVENT_EXTENSION_TIME * 1000, time);
+                LogBuffer _logs = createListOfLastLogs(time - EVENT_EXTENSION_TIME * 1000, time);
                 if (!_logs.isEmpty()) {
                     setStatus(AnalysisStatus.EVENT);
                     Event event = new Event(this, time, _logs, !getStation().isSensitivityValid());
                     getDetectedEvents().add(0, event);
+
+                    ActiveEventIndex activeEvents = getActiveEvents();
+                    if (activeEvents != null) {
+                        activeEvents.add(event);
+                    }
                 }
             }
         }
@@ -198,32 +204,27 @@ public class BetterAnalysis extends Analysis {
 
         if (time - currentTime < 1000 * 10
                 && currentTime - time < 1000L * 60 * Settings.logsStoreTimeMinutes) {
-            Log currentLog = new Log(time, v, (float) filteredV, (float) shortAverage, (float) mediumAverage,
-                    (float) longAverage, (float) thirdAverage, (float) specialAverage, getStatus());
             synchronized (previousLogsLock) {
-                getPreviousLogs().add(0, currentLog);
-            }
-            // from latest event to the oldest event
-            for (Event e : getDetectedEvents()) {
-                if (e.isValid() && (!e.hasEnded() || time - e.getEnd() < EVENT_EXTENSION_TIME * 1000)) {
-                    e.log(currentLog, countsResult);
+                if (addPreviousLog(time, v, (float) filteredV, (float) shortAverage, (float) mediumAverage,
+                        (float) longAverage, (float) thirdAverage, (float) specialAverage, getStatus())) {
+                    LogBuffer logs = getPreviousLogs();
+
+                    // from latest event to the oldest event
+                    for (Event e : getDetectedEvents()) {
+                        if (e.isValid() && (!e.hasEnded() || time - e.getEnd() < EVENT_EXTENSION_TIME * 1000)) {
+                            e.log(logs, logs.size() - 1, countsResult);
+                        }
+                    }
                 }
             }
         }
         getStation().reportState(StationState.ACTIVE, time);
     }
 
-    private ArrayList<Log> createListOfLastLogs(long oldestLog, long newestLog) {
-        ArrayList<Log> logs = new ArrayList<>();
+    private LogBuffer createListOfLastLogs(long oldestLog, long newestLog) {
         synchronized (previousLogsLock) {
-            for (Log l : getPreviousLogs()) {
-                long time = l.time();
-                if (time >= oldestLog && time <= newestLog) {
-                    logs.add(l);
-                }
-            }
+            return getPreviousLogs().copyRange(oldestLog, newestLog);
         }
-        return logs;
     }
 
     @Override
@@ -279,15 +280,24 @@ public class BetterAnalysis extends Analysis {
         }
         getDetectedEvents().removeAll(toBeRemoved);
 
-        long oldestTime = (time - (Settings.logsStoreTimeMinutes * 60 * 1000));
-        synchronized (previousLogsLock) {
-            while (!getPreviousLogs().isEmpty() && getPreviousLogs().get(getPreviousLogs().size() - 1).time() < oldestTime) {
-                getPreviousLogs().remove(getPreviousLogs().size() - 1);
-            }
+        ActiveEventIndex activeEvents = getActiveEvents();
+        if (activeEvents != null) {
+            toBeRemoved.forEach(activeEvents::remove);
         }
+
+        long oldestTime = (time - (Settings.logsStoreTimeMinutes * 60 * 1000));
+        removePreviousLogsOlderThan(oldestTime);
     }
 
 
+    private static ActiveEventIndex getActiveEvents() {
+        if (GlobalQuake.instance == null || GlobalQuake.instance.getStationManager() == null) {
+            return null;
+        }
+
+        return GlobalQuake.instance.getStationManager().getActiveEvents();
+    }
+
     public long getLatestLogTime() {
         return latestLogTime;
     }
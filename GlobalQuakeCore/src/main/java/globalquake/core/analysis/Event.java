@@ -23,7 +23,7 @@ public class Event implements Serializable {
 	private long pWave;
 	private long firstLogTime;// first log time (now 90 seconds before event start)
 
-	private List<Log> logs;
+	private LogBuffer logs;
 
 	public double maxRatio;
 
@@ -39,11 +39,11 @@ public class Event implements Serializable {
 	private boolean isSWave;
 	private double maxCounts;
 
-	public Event(Analysis analysis, long start, List<Log> logs, boolean usingRatio) {
+	public Event(Analysis analysis, long start, LogBuffer logs, boolean usingRatio) {
 		this(analysis);
 		this.start = start;
 		this.logs = logs;
-		this.firstLogTime = logs.get(logs.size() - 1).time();
+		this.firstLogTime = logs.getOldestTime();
 		this.valid = true;
 		this.usingRatio = usingRatio;
 	}
@@ -136,10 +136,11 @@ public class Event implements Serializable {
 		return getAnalysis().getStation().getAlt();
 	}
 
-	public void log(Log currentLog, double counts) {
-		logs.add(0, currentLog);
-		if (currentLog.getRatio() > this.maxRatio) {
-			this.maxRatio = currentLog.getRatio();
+	public void log(LogBuffer source, int index, double counts) {
+		logs.add(source, index);
+		double ratio = source.getRatio(index);
+		if (ratio > this.maxRatio) {
+			this.maxRatio = ratio;
 		}
 
 		if(counts > this.maxCounts){
@@ -164,29 +165,29 @@ public class Event implements Serializable {
 		// 0 - when first detected
 		// 1 - first upgrade etc...
 		int strenghtLevel = nextPWaveCalc;
-		Log logAtStart = getClosestLog(getStart() - 1);
-		if (logAtStart == null) {
+		if (logs.getClosestIndex(getStart() - 1) < 0) {
 			return;
 		}
 		long lookBack = (getStart() - (long) ((60.0 / strenghtLevel) * 1000));
 
+		// logs between lookBack and start, both inclusive
+		int from = logs.lowerBound(lookBack);
+		int to = logs.upperBound(getStart());
+
 		List<Double> slows = new ArrayList<>();
 
 		double maxSpecial = -Double.MAX_VALUE;
 		double minSpecial = Double.MAX_VALUE;
 
-		for (Log l : logs) {
-			long time = l.time();
-			if (time >= lookBack && time <= getStart()) {
-				slows.add(l.getMediumRatio());
-				double spec = l.getSpecialRatio();
-				if (spec > 0) {
-					if (spec > maxSpecial) {
-						maxSpecial = spec;
-					}
-					if (spec < minSpecial) {
-						minSpecial = spec;
-					}
+		for (int i = from; i < to; i++) {
+			slows.add(logs.getMediumRatio(i));
+			double spec = logs.getSpecialRatio(i);
+			if (spec > 0) {
+				if (spec > maxSpecial) {
+					maxSpecial = spec;
+				}
+				if (spec < minSpecial) {
+					minSpecial = spec;
 				}
 			}
 		}
@@ -208,61 +209,25 @@ public class Event implements Serializable {
 
 		// DEPRECATED, again
 		long pWave = -1;
-		for (Log l : logs) {
-			long time = l.time();
+		// from the latest log to the oldest
+		for (int i = to - 1; i >= from; i--) {
 			// l.getMediumRatio() <= slowThreshold;
-			boolean ratioOK = l.getRatio() <= slow15Pct * (slowThresholdMultiplier * 1.25);
-			boolean specialOK = l.getSpecialRatio() <= specialThreshold;
-			if (time >= lookBack && time <= getStart()) {
-                if (ratioOK && specialOK) {
-                    pWave = time;
-                    break;
-                }
-            }
+			boolean ratioOK = logs.getRatio(i) <= slow15Pct * (slowThresholdMultiplier * 1.25);
+			boolean specialOK = logs.getSpecialRatio(i) <= specialThreshold;
+			if (ratioOK && specialOK) {
+				pWave = logs.getTime(i);
+				break;
+			}
 		}
 
 		setpWave(pWave);
 	}
 
-	// halving method
-	// this was supposed to be binary search probably
-	private Log getClosestLog(long time) {
-		if (logs.isEmpty()) {
-			return null;
-		}
-		if (time > logs.get(0).time()) {
-			return null;
-		}
-		if (time < logs.get(logs.size() - 1).time()) {
-			return null;
-		}
-
-		int lowerBound = 0;
-		int upperBound = logs.size() - 1;
-		while (upperBound - lowerBound > 1) {
-			int mid = (upperBound + lowerBound) / 2;
-			if (logs.get(mid).time() > time) {
-				upperBound = mid;
-			} else {
-				lowerBound = mid;
-			}
-		}
-		Log up = logs.get(upperBound);
-		Log down = logs.get(lowerBound);
-		int diff1 = (int) Math.abs(up.time() - time);
-		int diff2 = (int) Math.abs(down.time() - time);
-		if (diff1 < diff2) {
-			return up;
-		} else {
-			return down;
-		}
-	}
-
 	public int getUpdatesCount() {
 		return updatesCount;
 	}
 
-	public List<Log> getLogs() {
+	public LogBuffer getLogs() {
 		return logs;
 	}
 
@@ -0,0 +1,318 @@
+package globalquake.core.analysis;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Time ordered ring buffer of analysis logs stored in primitive columns.
+ * Index 0 is the oldest log and {@code size() - 1} the newest one.
+ * Logs are kept in non-decreasing order of time, which allows removing old logs
+ * and searching by time without shifting or allocating anything. Logs older than the newest one are dropped.
+ * The buffer is not thread safe, callers are expected to hold the appropriate lock.
+ */
+public class LogBuffer implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -2236153717203046571L;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final AnalysisStatus[] STATUSES = AnalysisStatus.values();
+
+    private long[] time;
+    private int[] rawValue;
+    private float[] filteredV;
+    private float[] shortAverage;
+    private float[] mediumAverage;
+    private float[] longAverage;
+    private float[] thirdAverage;
+    private float[] specialAverage;
+    private byte[] status;
+
+    private int head;
+    private int size;
+    private int mask;
+
+    public LogBuffer() {
+        this(MIN_CAPACITY);
+    }
+
+    public LogBuffer(int capacity) {
+        allocate(toPowerOfTwo(capacity));
+    }
+
+    private static int toPowerOfTwo(int capacity) {
+        int result = MIN_CAPACITY;
+        while (result < capacity) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    private void allocate(int capacity) {
+        time = new long[capacity];
+        rawValue = new int[capacity];
+        filteredV = new float[capacity];
+        shortAverage = new float[capacity];
+        mediumAverage = new float[capacity];
+        longAverage = new float[capacity];
+        thirdAverage = new float[capacity];
+        specialAverage = new float[capacity];
+        status = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > capacity()) {
+            resize(toPowerOfTwo(capacity));
+        }
+    }
+
+    private void resize(int capacity) {
+        LogBuffer copy = new LogBuffer(capacity);
+        copyTo(0, size, copy);
+
+        time = copy.time;
+        rawValue = copy.rawValue;
+        filteredV = copy.filteredV;
+        shortAverage = copy.shortAverage;
+        mediumAverage = copy.mediumAverage;
+        longAverage = copy.longAverage;
+        thirdAverage = copy.thirdAverage;
+        specialAverage = copy.specialAverage;
+        status = copy.status;
+        mask = copy.mask;
+        head = 0;
+    }
+
+    /**
+     * @return false if the log was dropped because it is older than the newest log
+     */
+    public boolean add(long time, int rawValue, float filteredV, float shortAverage, float mediumAverage, float longAverage,
+                       float thirdAverage, float specialAverage, AnalysisStatus status) {
+        if (!isEmpty() && time < getNewestTime()) {
+            return false;
+        }
+
+        if (size == capacity()) {
+            resize(capacity() * 2);
+        }
+
+        int i = (head + size) & mask;
+        this.time[i] = time;
+        this.rawValue[i] = rawValue;
+        this.filteredV[i] = filteredV;
+        this.shortAverage[i] = shortAverage;
+        this.mediumAverage[i] = mediumAverage;
+        this.longAverage[i] = longAverage;
+        this.thirdAverage[i] = thirdAverage;
+        this.specialAverage[i] = specialAverage;
+        this.status[i] = (byte) status.ordinal();
+        size++;
+        return true;
+    }
+
+    public boolean add(Log log) {
+        return add(log.time(), log.rawValue(), log.filteredV(), log.shortAverage(), log.mediumAverage(), log.longAverage(),
+                log.thirdAverage(), log.specialAverage(), log.status());
+    }
+
+    public boolean add(LogBuffer other, int index) {
+        int j = other.physical(index);
+        return add(other.time[j], other.rawValue[j], other.filteredV[j], other.shortAverage[j], other.mediumAverage[j],
+                other.longAverage[j], other.thirdAverage[j], other.specialAverage[j], STATUSES[other.status[j]]);
+    }
+
+    /**
+     * Removes all logs older than the given time
+     */
+    public void removeOlderThan(long oldestTime) {
+        int count = lowerBound(oldestTime);
+        head = (head + count) & mask;
+        size -= count;
+    }
+
+    private int physical(int index) {
+        return (head + index) & mask;
+    }
+
+    public long getTime(int index) {
+        return time[physical(index)];
+    }
+
+    public int getRawValue(int index) {
+        return rawValue[physical(index)];
+    }
+
+    public float getFilteredV(int index) {
+        return filteredV[physical(index)];
+    }
+
+    public float getShortAverage(int index) {
+        return shortAverage[physical(index)];
+    }
+
+    public float getMediumAverage(int index) {
+        return mediumAverage[physical(index)];
+    }
+
+    public float getLongAverage(int index) {
+        return longAverage[physical(index)];
+    }
+
+    public float getThirdAverage(int index) {
+        return thirdAverage[physical(index)];
+    }
+
+    public float getSpecialAverage(int index) {
+        return specialAverage[physical(index)];
+    }
+
+    public AnalysisStatus getStatus(int index) {
+        return STATUSES[status[physical(index)]];
+    }
+
+    public double getRatio(int index) {
+        int i = physical(index);
+        return shortAverage[i] / longAverage[i];
+    }
+
+    public double getMediumRatio(int index) {
+        int i = physical(index);
+        return mediumAverage[i] / longAverage[i];
+    }
+
+    public double getThirdRatio(int index) {
+        int i = physical(index);
+        return thirdAverage[i] / longAverage[i];
+    }
+
+    public double getSpecialRatio(int index) {
+        int i = physical(index);
+        return specialAverage[i] / longAverage[i];
+    }
+
+    public Log get(int index) {
+        int i = physical(index);
+        return new Log(time[i], rawValue[i], filteredV[i], shortAverage[i], mediumAverage[i], longAverage[i],
+                thirdAverage[i], specialAverage[i], STATUSES[status[i]]);
+    }
+
+    public long getOldestTime() {
+        return getTime(0);
+    }
+
+    public long getNewestTime() {
+        return getTime(size - 1);
+    }
+
+    /**
+     * @return index of the first log with time greater or equal to the given time, or size() if there is none
+     */
+    public int lowerBound(long t) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (getTime(mid) < t) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return index of the first log with time strictly greater than the given time, or size() if there is none
+     */
+    public int upperBound(long t) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (getTime(mid) <= t) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return index of the log closest to the given time or -1 if the time is outside of the stored range
+     */
+    public int getClosestIndex(long t) {
+        if (isEmpty() || t > getNewestTime() || t < getOldestTime()) {
+            return -1;
+        }
+
+        int upper = lowerBound(t);
+        if (upper == 0) {
+            return 0;
+        }
+
+        int lower = upper - 1;
+        return Math.abs(getTime(upper) - t) < Math.abs(t - getTime(lower)) ? upper : lower;
+    }
+
+    /**
+     * @return new buffer containing copy of all logs with time between the two values (inclusive)
+     */
+    public LogBuffer copyRange(long oldestTime, long newestTime) {
+        int from = lowerBound(oldestTime);
+        int to = upperBound(newestTime);
+        int count = Math.max(0, to - from);
+
+        LogBuffer result = new LogBuffer(count);
+        copyTo(from, count, result);
+        return result;
+    }
+
+    public LogBuffer snapshot() {
+        LogBuffer result = new LogBuffer(size);
+        copyTo(0, size, result);
+        return result;
+    }
+
+    // appends count logs starting at index to the target, in at most two contiguous segments
+    private void copyTo(int index, int count, LogBuffer target) {
+        while (count > 0) {
+            int src = physical(index);
+            int dst = (target.head + target.size) & target.mask;
+            int length = Math.min(count, Math.min(capacity() - src, target.capacity() - dst));
+
+            System.arraycopy(time, src, target.time, dst, length);
+            System.arraycopy(rawValue, src, target.rawValue, dst, length);
+            System.arraycopy(filteredV, src, target.filteredV, dst, length);
+            System.arraycopy(shortAverage, src, target.shortAverage, dst, length);
+            System.arraycopy(mediumAverage, src, target.mediumAverage, dst, length);
+            System.arraycopy(longAverage, src, target.longAverage, dst, length);
+            System.arraycopy(thirdAverage, src, target.thirdAverage, dst, length);
+            System.arraycopy(specialAverage, src, target.specialAverage, dst, length);
+            System.arraycopy(status, src, target.status, dst, length);
+
+            target.size += length;
+            index += length;
+            count -= length;
+        }
+    }
+
+}
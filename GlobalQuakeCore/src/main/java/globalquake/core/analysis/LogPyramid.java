@@ -0,0 +1,285 @@
+package globalquake.core.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Minimum and maximum of every log value in time buckets of doubling width, so that the logs can be drawn
+ * by reading about one bucket per pixel column instead of every single log.
+ * Logs have to be added in non-decreasing order of time, same as in {@link LogBuffer}.
+ * Not thread safe, callers are expected to hold the appropriate lock.
+ */
+public class LogPyramid {
+
+    public static final int RAW = 0;
+    public static final int FILTERED = 1;
+    public static final int SHORT_AVERAGE = 2;
+    public static final int MEDIUM_AVERAGE = 3;
+    public static final int LONG_AVERAGE = 4;
+    public static final int THIRD_AVERAGE = 5;
+    public static final int SPECIAL_AVERAGE = 6;
+    public static final int RATIO = 7;
+    public static final int MEDIUM_RATIO = 8;
+    public static final int THIRD_RATIO = 9;
+    public static final int SPECIAL_RATIO = 10;
+    public static final int TRACES = 11;
+
+    static final long BASE_WIDTH = 20;
+    static final int LEVELS = 12;
+
+    private final Level[] levels = new Level[LEVELS];
+    private final float[] values = new float[TRACES];
+
+    public LogPyramid() {
+        for (int i = 0; i < LEVELS; i++) {
+            levels[i] = new Level(BASE_WIDTH << i);
+        }
+    }
+
+    public void add(long time, int rawValue, float filteredV, float shortAverage, float mediumAverage, float longAverage,
+                    float thirdAverage, float specialAverage, AnalysisStatus status) {
+        values[RAW] = rawValue;
+        values[FILTERED] = filteredV;
+        values[SHORT_AVERAGE] = shortAverage;
+        values[MEDIUM_AVERAGE] = mediumAverage;
+        values[LONG_AVERAGE] = longAverage;
+        values[THIRD_AVERAGE] = thirdAverage;
+        values[SPECIAL_AVERAGE] = specialAverage;
+        values[RATIO] = shortAverage / longAverage;
+        values[MEDIUM_RATIO] = mediumAverage / longAverage;
+        values[THIRD_RATIO] = thirdAverage / longAverage;
+        values[SPECIAL_RATIO] = specialAverage / longAverage;
+
+        boolean event = status != AnalysisStatus.IDLE;
+        for (Level level : levels) {
+            level.add(time, values, event);
+        }
+    }
+
+    public void add(LogBuffer logs, int index) {
+        add(logs.getTime(index), logs.getRawValue(index), logs.getFilteredV(index), logs.getShortAverage(index),
+                logs.getMediumAverage(index), logs.getLongAverage(index), logs.getThirdAverage(index),
+                logs.getSpecialAverage(index), logs.getStatus(index));
+    }
+
+    /**
+     * Removes all buckets that end before the given time
+     */
+    public void removeOlderThan(long oldestTime) {
+        for (Level level : levels) {
+            level.removeOlderThan(oldestTime);
+        }
+    }
+
+    public void clear() {
+        for (Level level : levels) {
+            level.clear();
+        }
+    }
+
+    /**
+     * @return copy of the buckets between the two times, taken from the coarsest level
+     * that still has at least one bucket per column
+     */
+    public View view(long from, long to, int columns) {
+        double msPerColumn = (to - from) / (double) Math.max(1, columns);
+
+        int index = 0;
+        while (index + 1 < LEVELS && levels[index + 1].width <= msPerColumn) {
+            index++;
+        }
+
+        return levels[index].view(from, to);
+    }
+
+    private static final class Level {
+
+        private final long width;
+
+        private long[] start;
+        private float[] min;
+        private float[] max;
+        private boolean[] event;
+
+        private int head;
+        private int size;
+        private int mask;
+
+        Level(long width) {
+            this.width = width;
+            allocate(16);
+        }
+
+        private void allocate(int capacity) {
+            start = new long[capacity];
+            min = new float[capacity * TRACES];
+            max = new float[capacity * TRACES];
+            event = new boolean[capacity];
+            mask = capacity - 1;
+        }
+
+        private int physical(int index) {
+            return (head + index) & mask;
+        }
+
+        private void grow() {
+            long[] oldStart = start;
+            float[] oldMin = min;
+            float[] oldMax = max;
+            boolean[] oldEvent = event;
+            int oldHead = head;
+            int oldMask = mask;
+
+            allocate((mask + 1) * 2);
+            for (int i = 0; i < size; i++) {
+                int j = (oldHead + i) & oldMask;
+                start[i] = oldStart[j];
+                event[i] = oldEvent[j];
+                System.arraycopy(oldMin, j * TRACES, min, i * TRACES, TRACES);
+                System.arraycopy(oldMax, j * TRACES, max, i * TRACES, TRACES);
+            }
+            head = 0;
+        }
+
+        void add(long time, float[] values, boolean event) {
+            long bucket = Math.floorDiv(time, width) * width;
+
+            int i;
+            if (size > 0 && start[physical(size - 1)] >= bucket) {
+                i = physical(size - 1);
+            } else {
+                if (size == mask + 1) {
+                    grow();
+                }
+                i = physical(size);
+                size++;
+
+                start[i] = bucket;
+                this.event[i] = false;
+                Arrays.fill(min, i * TRACES, (i + 1) * TRACES, Float.POSITIVE_INFINITY);
+                Arrays.fill(max, i * TRACES, (i + 1) * TRACES, Float.NEGATIVE_INFINITY);
+            }
+
+            int offset = i * TRACES;
+            for (int trace = 0; trace < TRACES; trace++) {
+                float value = values[trace];
+                // NaN fails both comparisons and is skipped
+                if (value < min[offset + trace]) {
+                    min[offset + trace] = value;
+                }
+                if (value > max[offset + trace]) {
+                    max[offset + trace] = value;
+                }
+            }
+
+            this.event[i] |= event;
+        }
+
+        void removeOlderThan(long oldestTime) {
+            while (size > 0 && start[head] + width <= oldestTime) {
+                head = (head + 1) & mask;
+                size--;
+            }
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        // index of the first bucket with start + offset greater than t
+        private int search(long t, long offset) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (start[physical(mid)] + offset <= t) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        View view(long from, long to) {
+            int first = search(from, width);
+            int last = search(to, 0);
+            int count = Math.max(0, last - first);
+
+            View view = new View(width, count);
+            for (int i = 0; i < count; i++) {
+                int j = physical(first + i);
+                view.time[i] = start[j];
+                view.event[i] = event[j];
+                System.arraycopy(min, j * TRACES, view.min, i * TRACES, TRACES);
+                System.arraycopy(max, j * TRACES, view.max, i * TRACES, TRACES);
+            }
+
+            return view;
+        }
+    }
+
+    /**
+     * Copy of the buckets of one level, safe to use without holding any lock
+     */
+    public static final class View {
+
+        private final long bucketWidth;
+        private final long[] time;
+        private final float[] min;
+        private final float[] max;
+        private final boolean[] event;
+
+        private View(long bucketWidth, int size) {
+            this.bucketWidth = bucketWidth;
+            time = new long[size];
+            min = new float[size * TRACES];
+            max = new float[size * TRACES];
+            event = new boolean[size];
+        }
+
+        public int size() {
+            return time.length;
+        }
+
+        public long getBucketWidth() {
+            return bucketWidth;
+        }
+
+        /**
+         * @return start time of the bucket
+         */
+        public long getTime(int index) {
+            return time[index];
+        }
+
+        /**
+         * @return minimum of the trace in the bucket, or positive infinity if it had no valid value
+         */
+        public float getMin(int index, int trace) {
+            return min[index * TRACES + trace];
+        }
+
+        /**
+         * @return maximum of the trace in the bucket, or negative infinity if it had no valid value
+         */
+        public float getMax(int index, int trace) {
+            return max[index * TRACES + trace];
+        }
+
+        /**
+         * @return true if any of the logs in the bucket was not in the idle state
+         */
+        public boolean isEvent(int index) {
+            return event[index];
+        }
+
+        /**
+         * @return true if there were no logs for longer than the given interval before the bucket
+         */
+        public boolean isGap(int index, double maxInterval) {
+            return index == 0 || time[index] - time[index - 1] > Math.max(bucketWidth, maxInterval);
+        }
+    }
+
+}
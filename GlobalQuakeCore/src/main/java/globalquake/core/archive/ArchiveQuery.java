@@ -0,0 +1,26 @@
+package globalquake.core.archive;
+
+/**
+ * Filter of archived quakes by origin time, magnitude and area.
+ * The area crosses the antimeridian if minLon is greater than maxLon.
+ */
+public record ArchiveQuery(long from, long to, double minMagnitude,
+                           double minLat, double maxLat, double minLon, double maxLon) {
+
+    public static final ArchiveQuery ALL = new ArchiveQuery(Long.MIN_VALUE, Long.MAX_VALUE, Double.NEGATIVE_INFINITY,
+            -90, 90, -180, 180);
+
+    public boolean matches(ArchivedQuake archivedQuake) {
+        if (archivedQuake.getOrigin() < from || archivedQuake.getOrigin() > to || archivedQuake.getMag() < minMagnitude) {
+            return false;
+        }
+
+        if (archivedQuake.getLat() < minLat || archivedQuake.getLat() > maxLat) {
+            return false;
+        }
+
+        double lon = archivedQuake.getLon();
+        return minLon <= maxLon ? lon >= minLon && lon <= maxLon : lon >= minLon || lon <= maxLon;
+    }
+
+}
@@ -0,0 +1,544 @@
+package globalquake.core.archive;
+
+import globalquake.core.earthquake.quality.QualityClass;
+import org.tinylog.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only storage of archived quakes.
+ * Every change is one checksummed record appended to the last segment file. Compaction rewrites the live records
+ * ordered by origin time and writes an index of them, which is memory-mapped on startup, the events of a quake
+ * are only read from its segment when they are needed.
+ */
+public class ArchiveStore {
+
+    private static final int INDEX_MAGIC = 0x47514149;
+    private static final int INDEX_VERSION = 2;
+
+    private static final byte QUAKE = 1;
+    private static final byte REMOVED = 2;
+
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+    private static final long MAX_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private static final int MIN_COMPACTION_RECORDS = 64;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_FILE = "index.dat";
+    private static final String TEMP_INDEX_FILE = "index.tmp";
+
+    private static final QualityClass[] QUALITY_CLASSES = QualityClass.values();
+
+    private record Location(int segment, long offset, int length, long origin) {
+    }
+
+    private final File folder;
+
+    // newest record of every quake that wasn't removed
+    private final Map<UUID, Location> live = new HashMap<>();
+    private final Map<Integer, FileChannel> readers = new HashMap<>();
+
+    private int records = 0;
+    private int lastSegment = 0;
+    private FileChannel appendChannel;
+    private int appendSegment = -1;
+
+    public ArchiveStore(File folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * @return all live quakes, their events are loaded on first access
+     */
+    public synchronized List<ArchivedQuake> load() throws IOException {
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Unable to create archive folder %s".formatted(folder.getAbsolutePath()));
+        }
+
+        live.clear();
+        records = 0;
+
+        Map<UUID, ArchivedQuake> quakes = new LinkedHashMap<>();
+        List<Integer> segments = listSegments();
+        lastSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+
+        int baseSegment = 0;
+        int indexedSegment = 0;
+        long indexedOffset = 0;
+
+        File indexFile = new File(folder, INDEX_FILE);
+        if (indexFile.exists()) {
+            try {
+                long[] header = readIndex(indexFile, quakes);
+                baseSegment = (int) header[0];
+                indexedSegment = (int) header[1];
+                indexedOffset = header[2];
+            } catch (IOException e) {
+                Logger.warn("Archive index is damaged, rebuilding it from the segments: %s".formatted(e.getMessage()));
+                quakes.clear();
+                live.clear();
+                records = 0;
+            }
+        }
+
+        boolean clean = true;
+        for (int segment : segments) {
+            if (segment < baseSegment) {
+                // left behind by a compaction that didn't finish deleting
+                deleteSegment(segment);
+                continue;
+            }
+
+            if (segment < indexedSegment) {
+                continue;
+            }
+
+            clean = scanSegment(segment, segment == indexedSegment ? indexedOffset : 0, quakes);
+        }
+
+        // a damaged tail is never appended to
+        if (clean && !segments.isEmpty() && segmentFile(lastSegment).length() < MAX_SEGMENT_SIZE) {
+            appendSegment = lastSegment;
+        }
+
+        return new ArrayList<>(quakes.values());
+    }
+
+    public synchronized boolean isEmpty() {
+        return live.isEmpty() && records == 0;
+    }
+
+    public void append(ArchivedQuake archivedQuake) throws IOException {
+        // the events may have to be loaded from this store, so they are encoded before locking it
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(QUAKE);
+        List<ArchivedEvent> events = archivedQuake.getArchivedEvents();
+        writeSummary(out, archivedQuake, events.size());
+        for (ArchivedEvent event : events) {
+            out.writeDouble(event.lat());
+            out.writeDouble(event.lon());
+            out.writeDouble(event.maxRatio());
+            out.writeLong(event.pWave());
+        }
+
+        out.flush();
+        synchronized (this) {
+            live.put(archivedQuake.getUuid(), writeRecord(buffer.toByteArray(), archivedQuake.getOrigin()));
+        }
+    }
+
+    public synchronized void remove(UUID uuid) throws IOException {
+        if (!live.containsKey(uuid)) {
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(REMOVED);
+        writeUUID(out, uuid);
+        out.flush();
+
+        writeRecord(buffer.toByteArray(), 0);
+        live.remove(uuid);
+    }
+
+    /**
+     * Makes sure everything appended so far is on the disk
+     */
+    public synchronized void flush() throws IOException {
+        if (appendChannel != null) {
+            appendChannel.force(false);
+        }
+    }
+
+    /**
+     * @return true if enough records are outdated for a compaction to pay off
+     */
+    public synchronized boolean shouldCompact() {
+        return records - live.size() > Math.max(MIN_COMPACTION_RECORDS, live.size());
+    }
+
+    /**
+     * Copies the live records into a new segment ordered by origin time, writes the index and deletes the old segments
+     */
+    public synchronized void compact() throws IOException {
+        List<Map.Entry<UUID, Location>> entries = new ArrayList<>(live.entrySet());
+        entries.sort(Comparator.comparing(entry -> -entry.getValue().origin()));
+
+        closeAppendChannel();
+        int segment = ++lastSegment;
+
+        Map<UUID, Location> relocated = new LinkedHashMap<>();
+        try (FileChannel out = FileChannel.open(segmentFile(segment).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (Map.Entry<UUID, Location> entry : entries) {
+                Location location = entry.getValue();
+                ByteBuffer record = readRecord(location);
+                record.rewind();
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+
+                relocated.put(entry.getKey(), new Location(segment, offset, location.length(), location.origin()));
+                offset += RECORD_HEADER + location.length();
+            }
+            out.force(true);
+
+            writeIndex(relocated, segment, segment, offset);
+        }
+
+        closeReaders();
+        for (int old : listSegments()) {
+            if (old < segment) {
+                deleteSegment(old);
+            }
+        }
+
+        live.clear();
+        live.putAll(relocated);
+        records = live.size();
+        appendSegment = segment;
+
+        Logger.info("Archive compacted to %d quakes".formatted(live.size()));
+    }
+
+    /**
+     * @return events of the quake or an empty list if it's no longer stored
+     */
+    public synchronized ArrayList<ArchivedEvent> readEvents(UUID uuid) {
+        ArrayList<ArchivedEvent> result = new ArrayList<>();
+        Location location = live.get(uuid);
+        if (location == null) {
+            return result;
+        }
+
+        try {
+            ByteBuffer record = readRecord(location);
+            record.position(RECORD_HEADER + 1);
+            readSummary(record, null);
+
+            // the summary ends with the number of events
+            int count = record.getInt(record.position() - Integer.BYTES);
+            for (int i = 0; i < count; i++) {
+                result.add(new ArchivedEvent(record.getDouble(), record.getDouble(), record.getDouble(), record.getLong()));
+            }
+        } catch (IOException | RuntimeException e) {
+            Logger.error(e);
+        }
+
+        return result;
+    }
+
+    public synchronized void close() {
+        try {
+            closeAppendChannel();
+        } catch (IOException e) {
+            Logger.error(e);
+        }
+        closeReaders();
+    }
+
+    private Location writeRecord(byte[] payload, long origin) throws IOException {
+        if (appendChannel != null && appendChannel.size() >= MAX_SEGMENT_SIZE) {
+            closeAppendChannel();
+            appendSegment = -1;
+        }
+
+        if (appendChannel == null) {
+            if (appendSegment < 0) {
+                appendSegment = ++lastSegment;
+            }
+            appendChannel = FileChannel.open(segmentFile(appendSegment).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+
+        long offset = appendChannel.size();
+        while (record.hasRemaining()) {
+            appendChannel.write(record);
+        }
+
+        records++;
+        return new Location(appendSegment, offset, payload.length, origin);
+    }
+
+    private ByteBuffer readRecord(Location location) throws IOException {
+        FileChannel channel = readers.get(location.segment());
+        if (channel == null) {
+            channel = FileChannel.open(segmentFile(location.segment()).toPath(), StandardOpenOption.READ);
+            readers.put(location.segment(), channel);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + location.length());
+        long position = location.offset();
+        while (record.hasRemaining()) {
+            if (channel.read(record, position + record.position()) < 0) {
+                throw new EOFException("Archive record is truncated");
+            }
+        }
+
+        record.flip();
+        return record;
+    }
+
+    private boolean scanSegment(int segment, long start, Map<UUID, ArchivedQuake> quakes) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(segment).toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (start >= size) {
+                return true;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size - start);
+            while (buffer.remaining() >= RECORD_HEADER) {
+                int recordStart = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > MAX_RECORD_LENGTH || length > buffer.remaining()) {
+                    Logger.warn("Archive segment %d ends with an incomplete record".formatted(segment));
+                    return false;
+                }
+
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                CRC32 crc = new CRC32();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    Logger.warn("Archive segment %d has a damaged record".formatted(segment));
+                    return false;
+                }
+
+                byte type = payload.get();
+                if (type == QUAKE) {
+                    ArchivedQuake archivedQuake = readSummary(payload, this);
+                    live.put(archivedQuake.getUuid(), new Location(segment, start + recordStart, length, archivedQuake.getOrigin()));
+                    quakes.remove(archivedQuake.getUuid());
+                    quakes.put(archivedQuake.getUuid(), archivedQuake);
+                } else if (type == REMOVED) {
+                    UUID uuid = readUUID(payload);
+                    live.remove(uuid);
+                    quakes.remove(uuid);
+                }
+
+                records++;
+                buffer.position(recordStart + RECORD_HEADER + length);
+            }
+
+            if (buffer.hasRemaining()) {
+                Logger.warn("Archive segment %d ends with an incomplete record".formatted(segment));
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return base segment, last indexed segment and the offset where the indexed records end in it
+     */
+    private long[] readIndex(File indexFile, Map<UUID, ArchivedQuake> quakes) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 4 * Integer.BYTES + Long.BYTES + Integer.BYTES || buffer.getInt() != INDEX_MAGIC || buffer.getInt() != INDEX_VERSION) {
+                throw new IOException("Unknown index format");
+            }
+
+            ByteBuffer content = buffer.slice(buffer.position(), buffer.remaining() - Integer.BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(content.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES)) {
+                throw new IOException("Index checksum mismatch");
+            }
+
+            long baseSegment = content.getInt();
+            long indexedSegment = content.getInt();
+            long indexedOffset = content.getLong();
+            int count = content.getInt();
+
+            for (int i = 0; i < count; i++) {
+                int segment = content.getInt();
+                long offset = content.getLong();
+                int length = content.getInt();
+                ArchivedQuake archivedQuake = readSummary(content, this);
+                live.put(archivedQuake.getUuid(), new Location(segment, offset, length, archivedQuake.getOrigin()));
+                quakes.put(archivedQuake.getUuid(), archivedQuake);
+            }
+
+            records = count;
+            return new long[]{baseSegment, indexedSegment, indexedOffset};
+        }
+    }
+
+    private void writeIndex(Map<UUID, Location> locations, int baseSegment, int indexedSegment, long indexedOffset) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(baseSegment);
+        out.writeInt(indexedSegment);
+        out.writeLong(indexedOffset);
+        out.writeInt(locations.size());
+
+        for (Location location : locations.values()) {
+            ByteBuffer record = readRecord(location);
+            out.writeInt(location.segment());
+            out.writeLong(location.offset());
+            out.writeInt(location.length());
+
+            // the summary is the same as at the start of the record
+            record.position(RECORD_HEADER + 1);
+            int summaryStart = record.position();
+            readSummary(record, null);
+            out.write(record.array(), summaryStart, record.position() - summaryStart);
+        }
+        out.flush();
+
+        byte[] content = buffer.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        File temp = new File(folder, TEMP_INDEX_FILE);
+        try (DataOutputStream file = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            file.writeInt(INDEX_MAGIC);
+            file.writeInt(INDEX_VERSION);
+            file.write(content);
+            file.writeInt((int) crc.getValue());
+        }
+
+        Files.move(temp.toPath(), new File(folder, INDEX_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeSummary(DataOutputStream out, ArchivedQuake archivedQuake, int eventCount) throws IOException {
+        writeUUID(out, archivedQuake.getUuid());
+        out.writeLong(archivedQuake.getOrigin());
+        out.writeDouble(archivedQuake.getLat());
+        out.writeDouble(archivedQuake.getLon());
+        out.writeDouble(archivedQuake.getDepth());
+        out.writeDouble(archivedQuake.getMag());
+        out.writeByte(archivedQuake.getQualityClass() == null ? -1 : archivedQuake.getQualityClass().ordinal());
+        out.writeDouble(archivedQuake.getMaxRatio());
+        out.writeDouble(archivedQuake.getMaxPGA());
+        out.writeBoolean(archivedQuake.isWrong());
+
+        String region = archivedQuake.getRegion();
+        if (region == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = region.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        out.writeInt(eventCount);
+    }
+
+    /**
+     * @param store the store the events are loaded from later, if null only the position of the buffer is moved
+     */
+    private static ArchivedQuake readSummary(ByteBuffer in, ArchiveStore store) throws IOException {
+        UUID uuid = readUUID(in);
+        long origin = in.getLong();
+        double lat = in.getDouble();
+        double lon = in.getDouble();
+        double depth = in.getDouble();
+        double mag = in.getDouble();
+        int quality = in.get();
+        double maxRatio = in.getDouble();
+        double maxPGA = in.getDouble();
+        boolean wrong = in.get() != 0;
+
+        String region = null;
+        int regionLength = in.getInt();
+        if (regionLength > in.remaining()) {
+            throw new IOException("Invalid region length %d".formatted(regionLength));
+        }
+        if (regionLength >= 0) {
+            byte[] bytes = new byte[regionLength];
+            in.get(bytes);
+            region = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int eventCount = in.getInt();
+
+        if (store == null) {
+            return null;
+        }
+
+        QualityClass qualityClass = quality < 0 || quality >= QUALITY_CLASSES.length ? null : QUALITY_CLASSES[quality];
+        return new ArchivedQuake(uuid, lat, lon, depth, mag, origin, qualityClass, maxRatio, maxPGA, region, wrong,
+                eventCount, () -> store.readEvents(uuid));
+    }
+
+    private static void writeUUID(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUUID(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    private List<Integer> listSegments() {
+        List<Integer> result = new ArrayList<>();
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    result.add(Integer.parseInt(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    Logger.warn("Unknown file in the archive folder: %s".formatted(file.getName()));
+                }
+            }
+        }
+
+        Collections.sort(result);
+        return result;
+    }
+
+    private File segmentFile(int segment) {
+        return new File(folder, "%06d%s".formatted(segment, SEGMENT_SUFFIX));
+    }
+
+    private void deleteSegment(int segment) {
+        File file = segmentFile(segment);
+        if (file.exists() && !file.delete()) {
+            Logger.warn("Unable to delete old archive segment %s".formatted(file.getName()));
+        }
+    }
+
+    private void closeAppendChannel() throws IOException {
+        if (appendChannel != null) {
+            appendChannel.force(false);
+            appendChannel.close();
+            appendChannel = null;
+        }
+    }
+
+    private void closeReaders() {
+        for (FileChannel channel : readers.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Logger.error(e);
+            }
+        }
+        readers.clear();
+    }
+}
@@ -9,15 +9,20 @@ import globalquake.core.earthquake.quality.QualityClass;
 import globalquake.core.regions.RegionUpdater;
 import globalquake.core.regions.Regional;
 import globalquake.utils.GeoUtils;
+import org.tinylog.Logger;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 public class ArchivedQuake implements Serializable, Comparable<ArchivedQuake>, Regional {
 
@@ -35,11 +40,16 @@ public class ArchivedQuake implements Serializable, Comparable<ArchivedQuake>, R
 	private double maxPGA;
 	private String region;
 
-	private final ArrayList<ArchivedEvent> archivedEvents;
+	private ArrayList<ArchivedEvent> archivedEvents;
 
 	private boolean wrong;
 
 	private transient RegionUpdater regionUpdater;
+
+	// loads the events from the archive on first access
+	private transient Supplier<ArrayList<ArchivedEvent>> eventsLoader;
+	private transient int eventCount;
+	private transient Future<?> pgaCalculation;
 	private static final ExecutorService pgaService = Executors.newSingleThreadExecutor();
 
 	@Serial
@@ -49,6 +59,12 @@ public class ArchivedQuake implements Serializable, Comparable<ArchivedQuake>, R
 		regionUpdater = new RegionUpdater(this);
 	}
 
+	@Serial
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		getArchivedEvents();
+		out.defaultWriteObject();
+	}
+
 	public ArchivedQuake(Earthquake earthquake) {
 		this(earthquake.getUuid(), earthquake.getLat(), earthquake.getLon(), earthquake.getDepth(), earthquake.getMag(),
 				earthquake.getOrigin(),
@@ -94,9 +110,26 @@ public class ArchivedQuake implements Serializable, Comparable<ArchivedQuake>, R
 		regionUpdater = new RegionUpdater(this);
 		this.maxPGA = 0.0;
 
-		pgaService.submit(this::calculatePGA);
-
+		pgaCalculation = pgaService.submit(this::calculatePGA);
+	}
 
+	ArchivedQuake(UUID uuid, double lat, double lon, double depth, double mag, long origin, QualityClass qualityClass,
+				  double maxRatio, double maxPGA, String region, boolean wrong,
+				  int eventCount, Supplier<ArrayList<ArchivedEvent>> eventsLoader) {
+		this.uuid = uuid;
+		this.lat = lat;
+		this.lon = lon;
+		this.depth = depth;
+		this.mag = mag;
+		this.origin = origin;
+		this.qualityClass = qualityClass;
+		this.maxRatio = maxRatio;
+		this.maxPGA = maxPGA;
+		this.region = region;
+		this.wrong = wrong;
+		this.eventCount = eventCount;
+		this.eventsLoader = eventsLoader;
+		regionUpdater = new RegionUpdater(this);
 	}
 
 	private void calculatePGA() {
@@ -104,6 +137,24 @@ public class ArchivedQuake implements Serializable, Comparable<ArchivedQuake>, R
 		this.maxPGA = GeoUtils.pgaFunction(mag, distGEO, depth);
 	}
 
+	/**
+	 * Waits for the PGA calculation started by the constructor, so that the quake is not saved without it
+	 */
+	void awaitPGA() {
+		Future<?> calculation = pgaCalculation;
+		if (calculation == null) {
+			return;
+		}
+
+		try {
+			calculation.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Logger.error(e.getCause());
+		}
+	}
+
 	public double getDepth() {
 		return depth;
 	}
@@ -125,15 +176,34 @@ public class ArchivedQuake implements Serializable, Comparable<ArchivedQuake>, R
 	}
 
 	@SuppressWarnings("unused")
-    public int getAssignedStations() {
-		return archivedEvents == null ? 0 : archivedEvents.size();
+    public synchronized int getAssignedStations() {
+		return archivedEvents == null ? eventCount : archivedEvents.size();
 	}
 
 	@SuppressWarnings("unused")
-	public ArrayList<ArchivedEvent> getArchivedEvents() {
+	public synchronized ArrayList<ArchivedEvent> getArchivedEvents() {
+		if (archivedEvents == null) {
+			archivedEvents = eventsLoader == null ? new ArrayList<>() : eventsLoader.get();
+			eventsLoader = null;
+		}
 		return archivedEvents;
 	}
 
+	/**
+	 * Drops the events, they will be obtained from the loader on the next access
+	 * @param eventCount number of stations reported until then
+	 */
+	public synchronized void setEventsLoader(int eventCount, Supplier<ArrayList<ArchivedEvent>> eventsLoader) {
+		this.archivedEvents = null;
+		this.eventCount = eventCount;
+		this.eventsLoader = eventsLoader;
+	}
+
+	public synchronized void setArchivedEvents(ArrayList<ArchivedEvent> archivedEvents) {
+		this.archivedEvents = archivedEvents;
+		this.eventsLoader = null;
+	}
+
 	@SuppressWarnings("unused")
 	public double getMaxRatio() {
 		return maxRatio;
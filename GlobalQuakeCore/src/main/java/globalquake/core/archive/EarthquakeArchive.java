@@ -4,43 +4,71 @@ import globalquake.core.GlobalQuake;
 import globalquake.core.Settings;
 import globalquake.core.earthquake.data.Earthquake;
 import globalquake.core.events.specific.QuakeArchiveEvent;
+import globalquake.core.metrics.Histogram;
+import globalquake.core.metrics.MetricsRegistry;
 import globalquake.core.report.EarthquakeReporter;
 import globalquake.utils.monitorable.MonitorableCopyOnWriteArrayList;
 import org.tinylog.Logger;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class EarthquakeArchive {
 
 	public static final File ARCHIVE_FILE = new File(GlobalQuake.mainFolder,  "volume/archive.dat");
-	public static final File TEMP_ARCHIVE_FILE = new File(GlobalQuake.mainFolder, "volume/temp_archive.dat");
+	public static final File ARCHIVE_FOLDER = new File(GlobalQuake.mainFolder, "volume/archive/");
 	private final ExecutorService executor;
 
 	private List<ArchivedQuake> archivedQuakes = new MonitorableCopyOnWriteArrayList<>();
 
 	private final Map<UUID, ArchivedQuake> uuidArchivedQuakeMap = new ConcurrentHashMap<>();
 
+	private record IndexKey(long origin, UUID uuid) {
+	}
+
+	// newest first, the uuid keeps quakes with the same origin apart
+	private static final Comparator<IndexKey> INDEX_ORDER = Comparator.comparingLong(IndexKey::origin).reversed()
+			.thenComparing(IndexKey::uuid);
+
+	private static final UUID MIN_UUID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+	private final ConcurrentSkipListMap<IndexKey, ArchivedQuake> originIndex = new ConcurrentSkipListMap<>(INDEX_ORDER);
+
+	// quakes archived since the start, by their sequence number, so reconnecting clients only get what they missed
+	private final ConcurrentSkipListMap<Long, ArchivedQuake> archivedSequence = new ConcurrentSkipListMap<>();
+	private final AtomicLong sequence = new AtomicLong();
+
+	private ArchiveStore store;
+
+	// changes that are written to the store by the next save
+	private final Queue<ArchivedQuake> unsavedQuakes = new ConcurrentLinkedQueue<>();
+	private final Queue<UUID> removedQuakes = new ConcurrentLinkedQueue<>();
+
+	private final Histogram saveDuration = MetricsRegistry.getInstance().histogram("gq_archive_save_duration_seconds",
+			"Duration of writing the archive changes to disk");
+
 	public EarthquakeArchive() {
 		executor = Executors.newSingleThreadExecutor();
 	}
 
-	@SuppressWarnings("unchecked")
 	public EarthquakeArchive loadArchive() {
-		if (!ARCHIVE_FILE.exists()) {
-			Logger.info("Created new archive");
-		} else {
-			try {
-				ObjectInputStream oin = new ObjectInputStream(new FileInputStream(ARCHIVE_FILE));
-				archivedQuakes = (MonitorableCopyOnWriteArrayList<ArchivedQuake>) oin.readObject();
-				oin.close();
-				Logger.info("Loaded " + archivedQuakes.size() + " quakes from archive.");
-			} catch (Exception e) {
-				Logger.error(e);
+		try {
+			List<ArchivedQuake> loaded = openStore().load();
+			if (store.isEmpty() && ARCHIVE_FILE.exists()) {
+				loaded = importLegacyArchive();
 			}
+
+			archivedQuakes = new MonitorableCopyOnWriteArrayList<>(loaded);
+			Logger.info("Loaded " + archivedQuakes.size() + " quakes from archive.");
+		} catch (Exception e) {
+			Logger.error(e);
 		}
 
 		archivedQuakes.sort(Comparator.comparing(archivedQuake1 -> -archivedQuake1.getOrigin()));
@@ -49,29 +77,160 @@ public class EarthquakeArchive {
 		return this;
 	}
 
+	private ArchiveStore openStore() {
+		if (store == null) {
+			store = new ArchiveStore(ARCHIVE_FOLDER);
+		}
+		return store;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<ArchivedQuake> importLegacyArchive() throws IOException, ClassNotFoundException {
+		List<ArchivedQuake> legacy;
+		try (ObjectInputStream oin = new ObjectInputStream(new FileInputStream(ARCHIVE_FILE))) {
+			legacy = (List<ArchivedQuake>) oin.readObject();
+		}
+
+		for (ArchivedQuake archivedQuake : legacy) {
+			store.append(archivedQuake);
+		}
+		store.compact();
+
+		File backup = new File(ARCHIVE_FILE.getParentFile(), ARCHIVE_FILE.getName() + ".bak");
+		if (!ARCHIVE_FILE.renameTo(backup)) {
+			Logger.warn("Unable to rename the old archive file, it will be ignored from now on");
+		}
+
+		Logger.info("Imported " + legacy.size() + " quakes from the old archive file");
+		return legacy;
+	}
+
 	private void buildUUIDMap() {
 		for(ArchivedQuake archivedQuake : archivedQuakes){
 			uuidArchivedQuakeMap.put(archivedQuake.getUuid(), archivedQuake);
+			originIndex.put(indexKey(archivedQuake), archivedQuake);
 		}
 	}
 
-	public void saveArchive() {
-		if (archivedQuakes != null) {
-			try {
-				ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(TEMP_ARCHIVE_FILE));
-				Logger.info("Saving " + archivedQuakes.size() + " quakes to " + ARCHIVE_FILE.getName());
-				out.writeObject(archivedQuakes);
-				out.close();
-				boolean res = (!ARCHIVE_FILE.exists() || ARCHIVE_FILE.delete()) && TEMP_ARCHIVE_FILE.renameTo(ARCHIVE_FILE);
-				if(!res){
-					Logger.error("Unable to save archive!");
-				} else {
-					Logger.info("Archive saved");
-				}
-			} catch (Exception e) {
-				Logger.error(e);
+	private static IndexKey indexKey(ArchivedQuake archivedQuake) {
+		return new IndexKey(archivedQuake.getOrigin(), archivedQuake.getUuid());
+	}
+
+	/**
+	 * @param cursorUUID uuid of the last quake of the previous page, null to start from the newest quake
+	 * @return up to limit matching quakes, newest first, that are older than the cursor
+	 */
+	public List<ArchivedQuake> query(ArchiveQuery query, long cursorOrigin, UUID cursorUUID, int limit) {
+		NavigableMap<IndexKey, ArchivedQuake> candidates = cursorUUID == null ?
+				originIndex.tailMap(new IndexKey(query.to(), MIN_UUID), true) :
+				originIndex.tailMap(new IndexKey(cursorOrigin, cursorUUID), false);
+
+		List<ArchivedQuake> result = new ArrayList<>();
+		for (ArchivedQuake archivedQuake : candidates.values()) {
+			if (result.size() >= limit || archivedQuake.getOrigin() < query.from()) {
+				break;
+			}
+
+			if (query.matches(archivedQuake)) {
+				result.add(archivedQuake);
 			}
 		}
+
+		return result;
+	}
+
+	/**
+	 * @return sequence number of the last quake archived since the start
+	 */
+	public long getSequence() {
+		return sequence.get();
+	}
+
+	/**
+	 * @return quakes archived after the first sequence number up to the second one, that are still in the archive
+	 */
+	public List<ArchivedQuake> getArchivedQuakes(long afterSequence, long upToSequence) {
+		if (afterSequence >= upToSequence) {
+			return List.of();
+		}
+
+		return new ArrayList<>(archivedSequence.subMap(afterSequence, false, upToSequence, true).values());
+	}
+
+	/**
+	 * Makes sure the events of the quake are available, they always are for a local archive
+	 */
+	public CompletableFuture<ArchivedQuake> loadDetails(ArchivedQuake archivedQuake) {
+		return CompletableFuture.completedFuture(archivedQuake);
+	}
+
+	/**
+	 * @return true if this archive is stored on disk, changes are only queued for saving then
+	 */
+	protected boolean isPersistent() {
+		return true;
+	}
+
+	/**
+	 * Appends the quakes archived or changed since the last save, the rest of the archive is not touched
+	 */
+	public synchronized void saveArchive() {
+		if (!isPersistent()) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			if (store == null) {
+				openStore().load();
+			}
+
+			int saved = 0;
+			ArchivedQuake archivedQuake;
+			while ((archivedQuake = unsavedQuakes.poll()) != null) {
+				// records are appended only once, so the PGA has to be known by now
+				archivedQuake.awaitPGA();
+				store.append(archivedQuake);
+				saved++;
+			}
+
+			UUID uuid;
+			while ((uuid = removedQuakes.poll()) != null) {
+				store.remove(uuid);
+			}
+
+			store.flush();
+			if (saved > 0) {
+				Logger.info("Saved " + saved + " quakes to the archive");
+			}
+
+			if (store.shouldCompact()) {
+				executor.submit(this::compactArchive);
+			}
+		} catch (Exception e) {
+			Logger.error(e);
+		} finally {
+			saveDuration.observeSince(start);
+		}
+	}
+
+	private synchronized void compactArchive() {
+		try {
+			if (store.shouldCompact()) {
+				store.compact();
+			}
+		} catch (Exception e) {
+			Logger.error(e);
+		}
+	}
+
+	/**
+	 * Marks the quake to be written again by the next save, after it was changed
+	 */
+	public void updateQuake(ArchivedQuake archivedQuake) {
+		if (isPersistent() && uuidArchivedQuakeMap.containsKey(archivedQuake.getUuid())) {
+			unsavedQuakes.add(archivedQuake);
+		}
 	}
 
 	public List<ArchivedQuake> getArchivedQuakes() {
@@ -116,6 +275,11 @@ public class EarthquakeArchive {
 		archivedQuake.updateRegion();
 		archivedQuakes.add(0, archivedQuake);
 		uuidArchivedQuakeMap.put(archivedQuake.getUuid(), archivedQuake);
+		originIndex.put(indexKey(archivedQuake), archivedQuake);
+		archivedSequence.put(sequence.incrementAndGet(), archivedQuake);
+		if (isPersistent()) {
+			unsavedQuakes.add(archivedQuake);
+		}
 		archivedQuakes.sort(Comparator.comparing(archivedQuake1 -> -archivedQuake1.getOrigin()));
 
 		if(GlobalQuake.instance != null && earthquake != null) {
@@ -126,6 +290,12 @@ public class EarthquakeArchive {
 			ArchivedQuake toRemove = archivedQuakes.get(archivedQuakes.size() - 1);
 			archivedQuakes.remove(toRemove);
 			uuidArchivedQuakeMap.remove(toRemove.getUuid());
+			originIndex.remove(indexKey(toRemove), toRemove);
+			archivedSequence.values().remove(toRemove);
+			if (isPersistent()) {
+				unsavedQuakes.remove(toRemove);
+				removedQuakes.add(toRemove.getUuid());
+			}
 		}
 	}
 
@@ -135,6 +305,9 @@ public class EarthquakeArchive {
 
 	public void destroy(){
 		GlobalQuake.instance.stopService(executor);
+		if (store != null) {
+			store.close();
+		}
 	}
 
 }
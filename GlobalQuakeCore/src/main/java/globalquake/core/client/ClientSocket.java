@@ -1,11 +1,12 @@
-package globalquake.client;
+package globalquake.core.client;
 
 import globalquake.core.GlobalQuake;
 import globalquake.core.exception.RuntimeApplicationException;
-import globalquake.events.specific.SocketReconnectEvent;
 import gqserver.api.GQApi;
 import gqserver.api.Packet;
+import gqserver.api.exception.UnknownPacketException;
 import gqserver.api.data.system.ServerClientConfig;
+import gqserver.api.data.system.SessionData;
 import gqserver.api.packets.earthquake.ArchivedQuakesRequestPacket;
 import gqserver.api.packets.earthquake.EarthquakesRequestPacket;
 import gqserver.api.packets.station.StationsRequestPacket;
@@ -13,11 +14,11 @@ import gqserver.api.packets.system.HandshakePacket;
 import gqserver.api.packets.system.HandshakeSuccessfulPacket;
 import gqserver.api.packets.system.HeartbeatPacket;
 import gqserver.api.packets.system.TerminationPacket;
+import gqserver.api.protocol.BinaryProtocol;
+import gqserver.api.protocol.PacketTransport;
 import org.tinylog.Logger;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -32,9 +33,7 @@ public class ClientSocket {
     private Socket socket;
     private ScheduledExecutorService heartbeatService;
 
-    private ObjectInputStream inputStream;
-
-    private ObjectOutputStream outputStream;
+    private PacketTransport transport;
     private ScheduledExecutorService quakeCheckService;
     private ScheduledExecutorService reconnectService;
     private String ip;
@@ -42,6 +41,11 @@ public class ClientSocket {
 
     private ClientSocketStatus status = ClientSocketStatus.DISCONNECTED;
 
+    // state of the server from the last handshake, null if the server doesn't support resuming
+    private SessionData session;
+
+    private volatile Runnable connectListener;
+
     public void connect(String ip, int port) throws IOException, ClassNotFoundException {
         this.ip = ip;
         this.port = port;
@@ -51,10 +55,9 @@ public class ClientSocket {
             socket.setSoTimeout(SO_TIMEOUT);
             socket.connect(new InetSocketAddress(ip, port), CONNECT_TIMEOUT);
 
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            inputStream = new ObjectInputStream(socket.getInputStream());
+            transport = new PacketTransport(socket);
 
-            handshake();
+            boolean resumed = handshake();
 
             inputService = Executors.newSingleThreadExecutor();
             inputService.submit(this::runReader);
@@ -64,9 +67,23 @@ public class ClientSocket {
             quakeCheckService = Executors.newSingleThreadScheduledExecutor();
             quakeCheckService.scheduleAtFixedRate(this::sendQuakeRequest, 0, 20, TimeUnit.SECONDS);
 
-            sendPacket(new ArchivedQuakesRequestPacket());
-            sendPacket(new StationsRequestPacket());
-            GlobalQuakeClient.instance.getLocalEventHandler().fireEvent(new SocketReconnectEvent());
+            EarthquakeArchiveClient archive = (EarthquakeArchiveClient) GlobalQuake.instance.getArchive();
+            if(resumed) {
+                archive.requestDelta(this);
+            } else if(transport.getProtocolVersion() >= BinaryProtocol.ARCHIVE_QUERY_VERSION) {
+                archive.requestArchive(this, session == null ? 0 : session.archiveSequence());
+            } else {
+                sendPacket(new ArchivedQuakesRequestPacket());
+            }
+
+            GlobalStationManagerClient stationManager = (GlobalStationManagerClient) GlobalQuake.instance.getStationManager();
+            if(stationManager.prepareStations(session == null ? null : session.stationsIndexing())) {
+                sendPacket(new StationsRequestPacket());
+            }
+            Runnable listener = connectListener;
+            if(listener != null) {
+                listener.run();
+            }
             status = ClientSocketStatus.CONNECTED;
         } catch(ConnectException | SocketTimeoutException ce){
             Logger.trace(ce);
@@ -79,6 +96,13 @@ public class ClientSocket {
         }
     }
 
+    /**
+     * @param connectListener called after every successful connect, including the reconnects
+     */
+    public void setConnectListener(Runnable connectListener) {
+        this.connectListener = connectListener;
+    }
+
     public void runReconnectService(){
         reconnectService = Executors.newSingleThreadScheduledExecutor();
         reconnectService.scheduleAtFixedRate(this::checkReconnect, 0, 10, TimeUnit.SECONDS);
@@ -152,33 +176,58 @@ public class ClientSocket {
     private void runReader() {
         try {
             while (isConnected()) {
-                Packet packet = (Packet) inputStream.readObject();
+                Packet packet = transport.readPacket();
                 Logger.trace("Received packet: %s".formatted(packet.toString()));
-                ((GlobalQuakeClient) GlobalQuakeClient.instance).processPacket(this, packet);
+                processPacket(packet);
             }
         } catch(SocketTimeoutException | SocketException se){
             Logger.trace(se);
-        }catch (Exception e){
+        }catch (Exception | UnknownPacketException e){
             Logger.error(e);
         } finally {
             onClose();
         }
     }
 
+    private void processPacket(Packet packet) throws IOException {
+        GlobalQuake globalQuake = GlobalQuake.instance;
+        ((EarthquakeAnalysisClient) globalQuake.getEarthquakeAnalysis()).processPacket(this, packet);
+        ((EarthquakeArchiveClient) globalQuake.getArchive()).processPacket(this, packet);
+        ((GlobalStationManagerClient) globalQuake.getStationManager()).processPacket(this, packet);
+        ((ClusterAnalysisClient) globalQuake.getClusterAnalysis()).processPacket(this, packet);
+    }
+
     public synchronized void sendPacket(Packet packet) throws IOException {
-        if(outputStream == null){
+        if(transport == null){
             return;
         }
 
         Logger.trace("Sending packet: %s".formatted(packet.toString()));
 
-        outputStream.writeObject(packet);
+        transport.writePacket(packet);
     }
 
-    private void handshake() throws IOException, ClassNotFoundException {
-        sendPacket(new HandshakePacket(GQApi.COMPATIBILITY_VERSION, new ServerClientConfig(true, true)));
-        Packet packet = (Packet) inputStream.readObject();
-        if(!(packet instanceof HandshakeSuccessfulPacket)) {
+    /**
+     * @return true if the previous session was resumed, so only the changes since then have to be requested
+     */
+    private boolean handshake() throws IOException {
+        sendPacket(new HandshakePacket(GQApi.COMPATIBILITY_VERSION, new ServerClientConfig(true, true), BinaryProtocol.VERSION, createResumeData()));
+        Packet packet;
+        try {
+            packet = transport.readPacket();
+        } catch (UnknownPacketException e) {
+            throw new RuntimeApplicationException("Unknown", e);
+        }
+
+        if(packet instanceof HandshakeSuccessfulPacket handshakeSuccessfulPacket) {
+            if(handshakeSuccessfulPacket.binaryProtocolVersion() > 0) {
+                transport.enableBinaryProtocol(handshakeSuccessfulPacket.binaryProtocolVersion());
+            }
+
+            SessionData previous = session;
+            session = handshakeSuccessfulPacket.session();
+            return previous != null && session != null && previous.serverSession().equals(session.serverSession());
+        } else {
             if(packet instanceof TerminationPacket terminationPacket){
                 throw new RuntimeApplicationException(terminationPacket.cause());
             } else {
@@ -187,6 +236,15 @@ public class ClientSocket {
         }
     }
 
+    private SessionData createResumeData() {
+        if(session == null) {
+            return null;
+        }
+
+        return new SessionData(session.serverSession(), GlobalQuake.instance.getStationManager().getIndexing(),
+                ((EarthquakeArchiveClient) GlobalQuake.instance.getArchive()).getArchiveSequence());
+    }
+
     public ClientSocketStatus getStatus() {
         return status;
     }
@@ -1,4 +1,4 @@
-package globalquake.client;
+package globalquake.core.client;
 
 import java.awt.*;
 
@@ -1,9 +1,10 @@
-package globalquake.client;
+package globalquake.core.client;
 
 import globalquake.core.GlobalQuake;
 import globalquake.core.earthquake.ClusterAnalysis;
 import globalquake.core.earthquake.data.Cluster;
 import globalquake.core.events.specific.ClusterCreateEvent;
+import globalquake.core.events.specific.ClusterLevelUpEvent;
 import globalquake.utils.monitorable.MonitorableCopyOnWriteArrayList;
 import gqserver.api.Packet;
 import gqserver.api.data.cluster.ClusterData;
@@ -54,11 +55,16 @@ public class ClusterAnalysisClient extends ClusterAnalysis {
     public Cluster getCluster(ClusterData clusterData) {
         Cluster existing = findCluster(clusterData.uuid());
         if(existing != null) {
+            int previousLevel = existing.getLevel();
             existing.updateLevel(clusterData.level());
             existing.updateRoot(clusterData.rootLat(), clusterData.rootLon());
+            if(existing.getLevel() > previousLevel) {
+                GlobalQuake.instance.getEventHandler().fireEvent(new ClusterLevelUpEvent(existing));
+            }
         } else {
             clusters.add(existing = new Cluster(clusterData.uuid(), clusterData.rootLat(), clusterData.rootLon(), clusterData.level()));
             GlobalQuake.instance.getEventHandler().fireEvent(new ClusterCreateEvent(existing));
+            GlobalQuake.instance.getEventHandler().fireEvent(new ClusterLevelUpEvent(existing));
         }
         return existing;
     }
@@ -1,4 +1,4 @@
-package globalquake.client;
+package globalquake.core.client;
 
 import globalquake.core.GlobalQuake;
 import globalquake.core.earthquake.EarthquakeAnalysis;
@@ -76,7 +76,7 @@ public class EarthquakeAnalysisClient extends EarthquakeAnalysis {
         if (existingQuake != null) {
             clientEarthquakeMap.remove(uuid);
             getEarthquakes().remove(existingQuake);
-            ((EarthquakeArchiveClient)GlobalQuakeClient.instance.getArchive()).archiveQuake(archivedQuakePacket, existingQuake);
+            ((EarthquakeArchiveClient)GlobalQuake.instance.getArchive()).archiveQuake(archivedQuakePacket, existingQuake);
         }
     }
 
@@ -128,7 +128,7 @@ public class EarthquakeAnalysisClient extends EarthquakeAnalysis {
 
         hypocenter.magnitude = hypocenterData.magnitude();
 
-        Cluster cluster = ((ClusterAnalysisClient)GlobalQuakeClient.instance.getClusterAnalysis()).getCluster(clusterData);
+        Cluster cluster = ((ClusterAnalysisClient)GlobalQuake.instance.getClusterAnalysis()).getCluster(clusterData);
 
         if(advancedHypocenterData != null){
             hypocenter.quality = createQuality(advancedHypocenterData.qualityData());
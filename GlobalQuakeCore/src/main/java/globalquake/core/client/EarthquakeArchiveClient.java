@@ -0,0 +1,183 @@
+package globalquake.core.client;
+
+import globalquake.core.Settings;
+import globalquake.core.archive.ArchivedEvent;
+import globalquake.core.archive.EarthquakeArchive;
+import globalquake.core.archive.ArchivedQuake;
+import globalquake.core.earthquake.data.Earthquake;
+import globalquake.core.earthquake.quality.QualityClass;
+import gqserver.api.Packet;
+import gqserver.api.data.earthquake.ArchivedEventData;
+import gqserver.api.data.earthquake.ArchivedQuakeData;
+import gqserver.api.data.earthquake.ArchivedQuakeSummaryData;
+import gqserver.api.packets.earthquake.ArchiveDeltaPacket;
+import gqserver.api.packets.earthquake.ArchiveDeltaRequestPacket;
+import gqserver.api.packets.earthquake.ArchiveQueryPacket;
+import gqserver.api.packets.earthquake.ArchiveQueryResultPacket;
+import gqserver.api.packets.earthquake.ArchivedEventsPacket;
+import gqserver.api.packets.earthquake.ArchivedEventsRequestPacket;
+import gqserver.api.packets.earthquake.ArchivedQuakePacket;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class EarthquakeArchiveClient extends EarthquakeArchive {
+
+    private static final int ARCHIVE_PAGE_SIZE = 100;
+    private static final long DETAILS_TIMEOUT = 10;
+
+    // quakes received without their events, those are requested when the quake is opened
+    private final Set<UUID> summaryOnlyQuakes = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, CompletableFuture<ArchivedQuake>> pendingDetails = new ConcurrentHashMap<>();
+
+    private volatile int receivedQuakes = 0;
+
+    // socket the archive is received from, the details of summarised quakes are requested through it
+    private volatile ClientSocket socket;
+
+    // last archive change received from the server, a reconnect within the same server session continues from it
+    private volatile long archiveSequence = 0;
+
+    // the archive of a client lives on the server, nothing is saved locally
+    @Override
+    protected boolean isPersistent() {
+        return false;
+    }
+
+    public void processPacket(ClientSocket socket, Packet packet) throws IOException {
+        this.socket = socket;
+        if(packet instanceof ArchivedQuakePacket quakePacket) {
+            if(getArchivedQuakeByUUID(quakePacket.archivedQuakeData().uuid()) == null) {
+                archiveQuake(quakePacket, null);
+            }
+        } else if(packet instanceof ArchiveQueryResultPacket resultPacket) {
+            processQueryResult(socket, resultPacket);
+        } else if(packet instanceof ArchivedEventsPacket eventsPacket) {
+            processEvents(eventsPacket);
+        } else if(packet instanceof ArchiveDeltaPacket deltaPacket) {
+            addSummaries(deltaPacket.quakes());
+            archiveSequence = deltaPacket.archiveSequence();
+        }
+    }
+
+    /**
+     * Requests the archive of the server page by page, up to the number of quakes kept in the archive
+     * @param archiveSequence sequence number of the server archive at the time of the request
+     */
+    public void requestArchive(ClientSocket socket, long archiveSequence) throws IOException {
+        receivedQuakes = 0;
+        this.archiveSequence = archiveSequence;
+        socket.sendPacket(createQuery(0, null));
+    }
+
+    /**
+     * Requests only the quakes archived since the last change received in the same server session
+     */
+    public void requestDelta(ClientSocket socket) throws IOException {
+        socket.sendPacket(new ArchiveDeltaRequestPacket(archiveSequence));
+    }
+
+    public long getArchiveSequence() {
+        return archiveSequence;
+    }
+
+    private static ArchiveQueryPacket createQuery(long cursorOrigin, UUID cursorUUID) {
+        return new ArchiveQueryPacket(Long.MIN_VALUE, Long.MAX_VALUE, Float.NEGATIVE_INFINITY,
+                -90, 90, -180, 180, ARCHIVE_PAGE_SIZE, cursorOrigin, cursorUUID);
+    }
+
+    private void processQueryResult(ClientSocket socket, ArchiveQueryResultPacket resultPacket) throws IOException {
+        List<ArchivedQuakeSummaryData> quakes = resultPacket.quakes();
+        addSummaries(quakes);
+        receivedQuakes += quakes.size();
+
+        if(resultPacket.hasMore() && !quakes.isEmpty() && receivedQuakes < Settings.maxArchivedQuakes) {
+            ArchivedQuakeData last = quakes.get(quakes.size() - 1).archivedQuakeData();
+            socket.sendPacket(createQuery(last.origin(), last.uuid()));
+        }
+    }
+
+    private void addSummaries(List<ArchivedQuakeSummaryData> quakes) {
+        for(ArchivedQuakeSummaryData summary : quakes) {
+            if(getArchivedQuakeByUUID(summary.archivedQuakeData().uuid()) == null) {
+                ArchivedQuake archivedQuake = createArchivedQuake(summary.archivedQuakeData());
+                archivedQuake.setEventsLoader(summary.assignedStations(), ArrayList::new);
+                summaryOnlyQuakes.add(archivedQuake.getUuid());
+                archiveQuake(archivedQuake, null);
+            }
+        }
+
+        summaryOnlyQuakes.removeIf(uuid -> getArchivedQuakeByUUID(uuid) == null);
+    }
+
+    private void processEvents(ArchivedEventsPacket eventsPacket) {
+        ArchivedQuake archivedQuake = getArchivedQuakeByUUID(eventsPacket.uuid());
+        if(archivedQuake != null) {
+            archivedQuake.setArchivedEvents(createArchivedEvents(eventsPacket.archivedEventDataList()));
+            summaryOnlyQuakes.remove(archivedQuake.getUuid());
+        }
+
+        CompletableFuture<ArchivedQuake> future = pendingDetails.remove(eventsPacket.uuid());
+        if(future != null) {
+            future.complete(archivedQuake);
+        }
+    }
+
+    @Override
+    public CompletableFuture<ArchivedQuake> loadDetails(ArchivedQuake archivedQuake) {
+        UUID uuid = archivedQuake.getUuid();
+        if(!summaryOnlyQuakes.contains(uuid)) {
+            return CompletableFuture.completedFuture(archivedQuake);
+        }
+
+        CompletableFuture<ArchivedQuake> future = new CompletableFuture<>();
+        CompletableFuture<ArchivedQuake> pending = pendingDetails.putIfAbsent(uuid, future);
+        if(pending != null) {
+            return pending;
+        }
+
+        future.orTimeout(DETAILS_TIMEOUT, TimeUnit.SECONDS).whenComplete((ignored, throwable) -> pendingDetails.remove(uuid, future));
+
+        ClientSocket socket = this.socket;
+        try {
+            if(socket == null) {
+                throw new IOException("Archive details requested before connecting");
+            }
+            socket.sendPacket(new ArchivedEventsRequestPacket(uuid));
+        } catch (IOException e) {
+            Logger.trace(e);
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    public void archiveQuake(ArchivedQuakePacket quakePacket, Earthquake earthquake){
+        ArchivedQuake archivedQuake = createArchivedQuake(quakePacket.archivedQuakeData());
+        archivedQuake.setArchivedEvents(createArchivedEvents(quakePacket.archivedEventDataList()));
+        summaryOnlyQuakes.remove(archivedQuake.getUuid());
+        archiveQuake(archivedQuake, earthquake);
+    }
+
+    private ArchivedQuake createArchivedQuake(ArchivedQuakeData data) {
+        return new ArchivedQuake(
+                data.uuid(), data.lat(), data.lon(), data.depth(), data.magnitude(), data.origin(), QualityClass.values()[data.qualityID()]
+        );
+    }
+
+    private ArrayList<ArchivedEvent> createArchivedEvents(List<ArchivedEventData> archivedEventDataList) {
+        ArrayList<ArchivedEvent> result = new ArrayList<>();
+        archivedEventDataList.forEach(archivedEventData -> result.add(new ArchivedEvent(
+                archivedEventData.lat(), archivedEventData.lon(), archivedEventData.maxRatio(), archivedEventData.pWave()
+        )));
+        return result;
+    }
+}
@@ -1,16 +1,18 @@
-package globalquake.client;
+package globalquake.core.client;
 
 import edu.sc.seis.seisFile.mseed.DataRecord;
 import edu.sc.seis.seisFile.mseed.SeedFormatException;
-import globalquake.client.data.ClientStation;
+import globalquake.core.client.data.ClientStation;
+import globalquake.core.GlobalQuake;
 import globalquake.core.database.StationDatabaseManager;
+import globalquake.core.events.specific.SeedlinkDataEvent;
 import globalquake.core.station.AbstractStation;
 import globalquake.core.station.GlobalStationManager;
-import globalquake.events.specific.StationCreateEvent;
 import gqserver.api.Packet;
 import gqserver.api.data.station.StationInfoData;
 import gqserver.api.data.station.StationIntensityData;
 import gqserver.api.packets.data.DataRecordPacket;
+import gqserver.api.packets.station.StationsInfoEndPacket;
 import gqserver.api.packets.station.StationsInfoPacket;
 import gqserver.api.packets.station.StationsIntensityPacket;
 import gqserver.api.packets.station.StationsRequestPacket;
@@ -30,6 +32,9 @@ public class GlobalStationManagerClient extends GlobalStationManager {
 
     private final Map<Integer, ClientStation> stationsIdMap = new ConcurrentHashMap<>();
 
+    // whether the last station list was received up to its end, a disconnect can cut it off
+    private volatile boolean stationsComplete = false;
+
     public GlobalStationManagerClient(){
         stations = new CopyOnWriteArrayList<>();
     }
@@ -44,9 +49,16 @@ public class GlobalStationManagerClient extends GlobalStationManager {
         return stations;
     }
 
+    @Override
+    public AbstractStation getStationByIdentifier(String identifier) {
+        return stations.stream().filter(station -> station.getIdentifier().equals(identifier)).findFirst().orElse(null);
+    }
+
     public void processPacket(ClientSocket socket, Packet packet) {
         if(packet instanceof StationsInfoPacket stationsInfoPacket){
             processStationsInfoPacket(socket, stationsInfoPacket);
+        } else if (packet instanceof StationsInfoEndPacket stationsInfoEndPacket) {
+            processStationsInfoEndPacket(stationsInfoEndPacket);
         } else if (packet instanceof StationsIntensityPacket stationsIntensityPacket) {
             processStationsIntensityPacket(socket, stationsIntensityPacket);
         } else if (packet instanceof DataRecordPacket dataRecordPacket){
@@ -64,7 +76,8 @@ public class GlobalStationManagerClient extends GlobalStationManager {
         try {
             DataRecord dataRecord = (DataRecord) DataRecord.read(dataRecordPacket.data());
             station.getAnalysis().analyse(dataRecord);
-            station.getAnalysis().second(GlobalQuakeLocal.instance.currentTimeMillis());
+            station.getAnalysis().second(GlobalQuake.instance.currentTimeMillis());
+            GlobalQuake.instance.getEventHandler().fireEvent(new SeedlinkDataEvent(station, dataRecord));
         } catch (IOException | SeedFormatException e) {
             Logger.error(e);
         }
@@ -101,13 +114,51 @@ public class GlobalStationManagerClient extends GlobalStationManager {
                         infoData.sensorType()));
                 station.setIntensity(infoData.maxIntensity(), infoData.time(), infoData.eventMode());
                 stationsIdMap.put(infoData.index(), station);
-                GlobalQuakeLocal.instance.getLocalEventHandler().fireEvent(new StationCreateEvent(station));
+                onStationCreate(station);
             }
         }
 
         getStations().addAll(list);
     }
 
+    private void processStationsInfoEndPacket(StationsInfoEndPacket stationsInfoEndPacket) {
+        if(getIndexing() == null || !getIndexing().equals(stationsInfoEndPacket.stationsIndexing())){
+            return;
+        }
+
+        stationsComplete = stationsIdMap.size() == stationsInfoEndPacket.stationCount();
+        if(!stationsComplete) {
+            Logger.warn("Received %d stations but the server has %d".formatted(stationsIdMap.size(), stationsInfoEndPacket.stationCount()));
+        }
+    }
+
+    /**
+     * Called for every station received from the server that wasn't known before
+     */
+    protected void onStationCreate(ClientStation station) {
+    }
+
+    /**
+     * Called after a connect with the indexing of the server, null if the server didn't tell it
+     * @return true if the station list has to be requested, because the last one wasn't received whole or the indexing has changed.
+     * Servers that don't mark the end of the list are always asked again.
+     */
+    public boolean prepareStations(UUID stationsIndexing) {
+        if(stationsIndexing != null && !stationsIndexing.equals(getIndexing())) {
+            super.indexing = stationsIndexing;
+            stations.clear();
+            stationsIdMap.clear();
+            stationsComplete = false;
+        }
+
+        if(stationsIndexing != null && stationsComplete) {
+            return false;
+        }
+
+        stationsComplete = false;
+        return true;
+    }
+
     private void resetIndexing(ClientSocket socket, UUID uuid) {
         if(super.indexing != null) {
             Logger.info("Station indexing has changed, probably because the server has been restarted");
@@ -121,5 +172,6 @@ public class GlobalStationManagerClient extends GlobalStationManager {
         super.indexing = uuid;
         stations.clear();
         stationsIdMap.clear();
+        stationsComplete = false;
     }
 }
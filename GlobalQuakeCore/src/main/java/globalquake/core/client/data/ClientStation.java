@@ -1,4 +1,4 @@
-package globalquake.client.data;
+package globalquake.core.client.data;
 
 import globalquake.core.GlobalQuake;
 import gqserver.api.packets.station.InputType;
@@ -1,32 +1,33 @@
 package globalquake.core.database;
 
 import globalquake.core.exception.FdnwsDownloadException;
+import globalquake.utils.NamedThreadFactory;
 import gqserver.api.packets.station.InputType;
 import org.tinylog.Logger;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.InputStream;
-import java.io.StringReader;
-import java.math.BigDecimal;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 public class FDSNWSDownloader {
 
     private static final DateTimeFormatter format1 = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneId.systemDefault());
     private static final int TIMEOUT_SECONDS = 120;
+    public static final int MAX_PARALLEL_DOWNLOADS = 6;
 
     public static final List<Character> SUPPORTED_BANDS = List.of('E', 'S', 'H', 'B', 'C');
     public static final List<Character> SUPPORTED_INSTRUMENTS = List.of('H', 'L', 'G', 'M', 'N');
@@ -57,14 +58,63 @@ public class FDSNWSDownloader {
     }
 
     public static List<Network> downloadFDSNWS(StationSource stationSource) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_PARALLEL_DOWNLOADS, new NamedThreadFactory("FDSNWS Download"));
+        try {
+            return downloadFDSNWS(stationSource, executor).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Downloads all the stations of the source, the longitude slices the server asks to split into are downloaded concurrently
+     *
+     * @param executor runs the downloads, its size limits how many run at once
+     */
+    public static CompletableFuture<List<Network>> downloadFDSNWS(StationSource stationSource, ExecutorService executor) {
         List<Network> result = new ArrayList<>();
-        downloadFDSNWS(stationSource, result, -180, 180);
-        Logger.info("%d Networks downloaded".formatted(result.size()));
-        return result;
+        AtomicLong downloaded = new AtomicLong();
+        return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return downloadWadl(stationSource);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor)
+                .thenCompose(supportedAttributes -> downloadSlice(stationSource, supportedAttributes, result, downloaded, -180, 180, executor))
+                .thenApply(ignored -> {
+                    Logger.info("%d Networks downloaded".formatted(result.size()));
+                    return result;
+                });
+    }
+
+    private static CompletableFuture<Void> downloadSlice(StationSource stationSource, List<String> supportedAttributes, List<Network> result,
+                                                         AtomicLong downloaded, double minLon, double maxLon, ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return downloadFDSNWS(stationSource, supportedAttributes, result, downloaded, minLon, maxLon);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor).thenCompose(split -> {
+            if (!split) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            double midLon = (minLon + maxLon) / 2.0;
+            return CompletableFuture.allOf(
+                    downloadSlice(stationSource, supportedAttributes, result, downloaded, minLon, midLon, executor),
+                    downloadSlice(stationSource, supportedAttributes, result, downloaded, midLon, maxLon, executor));
+        });
     }
 
-    public static void downloadFDSNWS(StationSource stationSource, List<Network> result, double minLon, double maxLon) throws Exception {
-        List<String> supportedAttributes = downloadWadl(stationSource);
+    /**
+     * @return true if the server refused the request as too large and the slice has to be split
+     */
+    private static boolean downloadFDSNWS(StationSource stationSource, List<String> supportedAttributes, List<Network> result,
+                                          AtomicLong downloaded, double minLon, double maxLon) throws Exception {
         URL url;
         if(supportedAttributes.contains("endafter")){
             url = new URL("%squery?minlongitude=%s&maxlongitude=%s&level=channel&endafter=%s&format=xml&channel=??Z".formatted(stationSource.getUrl(), minLon, maxLon, format1.format(Instant.now())));
@@ -78,81 +128,39 @@ public class FDSNWSDownloader {
         HttpURLConnection con = (HttpURLConnection) url.openConnection();
         con.setConnectTimeout(TIMEOUT_SECONDS * 1000);
         con.setReadTimeout(TIMEOUT_SECONDS * 1000);
+        con.setRequestProperty("Accept-Encoding", "gzip");
 
         int response = con.getResponseCode();
 
         if (response == 413) {
             Logger.debug("413! Splitting...");
             stationSource.getStatus().setString("Splitting...");
-            if(maxLon - minLon < 0.1){
-                return;
-            }
-
-            downloadFDSNWS(stationSource, result, minLon, (minLon + maxLon) / 2.0);
-            downloadFDSNWS(stationSource, result, (minLon + maxLon) / 2.0, maxLon);
+            return maxLon - minLon >= 0.1;
         } else if(response / 100 == 2) {
-            InputStream inp = con.getInputStream();
-            downloadFDSNWS(stationSource, result, inp);
+            try (InputStream inp = con.getInputStream()) {
+                downloadFDSNWS(stationSource, result, downloaded, inp, con.getContentEncoding());
+            }
+            return false;
         } else {
             throw new FdnwsDownloadException("HTTP Status %d!".formatted(response));
         }
     }
 
-    private static void downloadFDSNWS(StationSource stationSource, List<Network> result, InputStream inp) throws Exception {
-        DocumentBuilderFactory f = DocumentBuilderFactory.newInstance();
-        f.setNamespaceAware(false);
-        f.setValidating(false);
+    private static void downloadFDSNWS(StationSource stationSource, List<Network> result, AtomicLong downloaded,
+                                       InputStream inp, String contentEncoding) throws Exception {
         final CountInputStream in = new CountInputStream(inp);
-
-        in.setEvent(() ->  stationSource.getStatus().setString("Downloading %dkB".formatted(in.getCount() / 1024)));
-
-        String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
-
-        // some FDSNWS providers send empty document if no stations found by given parameters
-        if(text.isEmpty()){
-            return;
-        }
-
-        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(text)));
-
-        doc.getDocumentElement().normalize();
-
-        Element root = doc.getDocumentElement();
-        parseNetworks(result, stationSource, root);
-    }
-
-    private static void parseNetworks(List<Network> result, StationSource stationSource, Element root) {
-        NodeList networks = root.getElementsByTagName("Network");
-        for (int i = 0; i < networks.getLength(); i++) {
-            String networkCode = obtainAttribute(networks.item(i), "code", "unknown");
-            if (networkCode.equalsIgnoreCase("unknown")) {
-                Logger.debug("ERR: no network code wtf.");
-                continue;
-            }
-            String networkDescription = obtainElement(networks.item(i), "Description", "");
-            parseStations(result, stationSource, networks, i, networkCode, networkDescription);
-        }
-    }
-
-    private static void parseStations(List<Network> result, StationSource stationSource, NodeList networks, int i, String networkCode, String networkDescription) {
-        NodeList stations = ((Element) networks.item(i)).getElementsByTagName("Station");
-        for (int j = 0; j < stations.getLength(); j++) {
-            Node stationNode = stations.item(j);
-            String stationCode = stationNode.getAttributes().getNamedItem("code").getNodeValue();
-            String stationSite = ((Element) stationNode).getElementsByTagName("Site").item(0).getTextContent();
-
-            double lat = Double.parseDouble(
-                    ((Element) stationNode).getElementsByTagName("Latitude").item(0).getTextContent());
-            double lon = Double.parseDouble(
-                    ((Element) stationNode).getElementsByTagName("Longitude").item(0).getTextContent());
-            double alt = Double.parseDouble(
-                    ((Element) stationNode).getElementsByTagName("Elevation").item(0).getTextContent());
-
-            parseChannels(result, stationSource, networkCode, networkDescription, (Element) stationNode, stationCode, stationSite, lat, lon, alt);
-        }
+        long[] counted = {0};
+        in.setEvent(() -> {
+            long total = downloaded.addAndGet(in.getCount() - counted[0]);
+            counted[0] = in.getCount();
+            stationSource.getStatus().setString("Downloading %dkB".formatted(total / 1024));
+        });
+
+        InputStream data = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(in) : in;
+        new StationXMLParser(stationSource, result).parse(data);
     }
 
-    private static boolean isWithinDateRange(String startDateStr, String endDateStr) {
+    static boolean isWithinDateRange(String startDateStr, String endDateStr) {
         // Try parsing with 'Z' and without 'Z'
         SimpleDateFormat dateFormatWithZ = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
         SimpleDateFormat dateFormatWithoutZ = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
@@ -188,75 +196,7 @@ public class FDSNWSDownloader {
         throw new ParseException("Unparseable date: " + dateString, 0);
     }
 
-    private static void parseChannels(
-            List<Network> result, StationSource stationSource, String networkCode, String networkDescription,
-            Element stationNode, String stationCode, String stationSite,
-            double stationLat, double stationLon, double stationAlt) {
-        NodeList channels = stationNode.getElementsByTagName("Channel");
-        for (int k = 0; k < channels.getLength(); k++) {
-                // Necessary values: lat lon alt sampleRate, Other can fail
-
-            Node channelNode = channels.item(k);
-            String channel = channelNode.getAttributes().getNamedItem("code").getNodeValue();
-
-            String startDateStr = channelNode.getAttributes().getNamedItem("startDate") != null ?
-                    channelNode.getAttributes().getNamedItem("startDate").getNodeValue() : null;
-
-            // Get the "endDate" attribute if available
-            String endDateStr = channelNode.getAttributes().getNamedItem("endDate") != null ?
-                    channelNode.getAttributes().getNamedItem("endDate").getNodeValue() : null;
-
-            if(!isWithinDateRange(startDateStr, endDateStr)){
-                continue;
-            }
-
-            String locationCode = channelNode.getAttributes().getNamedItem("locationCode")
-                    .getNodeValue();
-            double lat = Double.parseDouble(
-                    ((Element) channelNode).getElementsByTagName("Latitude").item(0).getTextContent());
-            double lon = Double.parseDouble(
-                    ((Element) channelNode).getElementsByTagName("Longitude").item(0).getTextContent());
-            double alt = Double.parseDouble(
-                    ((Element) channelNode).getElementsByTagName("Elevation").item(0).getTextContent());
-
-            double sensitivity = -1;
-            InputType inputType = InputType.UNKNOWN;
-            try {
-                sensitivity = new BigDecimal(((Element) ((Element) (channelNode.getChildNodes()))
-                        .getElementsByTagName("InstrumentSensitivity").item(0))
-                        .getElementsByTagName("Value").item(0).getTextContent()).doubleValue();
-
-                String inputUnits = ((Element)((Element) ((Element) (channelNode.getChildNodes()))
-                        .getElementsByTagName("InstrumentSensitivity").item(0))
-                        .getElementsByTagName("InputUnits").item(0)).getElementsByTagName("Name").item(0).getTextContent();
-
-                sensitivity *= getInputUnitsMultiplier(inputUnits);
-                inputType = getInputType(inputUnits);
-            } catch (NullPointerException e) {
-                Logger.debug(
-                        "No Sensitivity!!!! " + stationCode + " " + networkCode + " " + channel+" @ "+stationSource.getUrl());
-            }
-
-            var item = ((Element) channelNode)
-                    .getElementsByTagName("SampleRate").item(0);
-
-            // sample rate is not actually required as it is provided by the seedlink protocol itself
-            double sampleRate = -1;
-            if(item != null){
-                sampleRate = Double.parseDouble(((Element) channelNode)
-                        .getElementsByTagName("SampleRate").item(0).getTextContent());
-            }
-
-            if(!isSupported(channel)){
-                continue;
-            }
-
-            addChannel(result, stationSource, networkCode, networkDescription, stationCode, stationSite, channel,
-                    locationCode, lat, lon, alt, sampleRate, stationLat, stationLon, stationAlt, sensitivity, inputType);
-        }
-    }
-
-    private static final Set<String> unknownUnits = new HashSet<>();
+    private static final Set<String> unknownUnits = ConcurrentHashMap.newKeySet();
 
     private static final Map<String, InputType> unitTypeMap = new HashMap<>();
     private static final Map<String, Double> unitMultiplierMap = new HashMap<>();
@@ -288,7 +228,7 @@ public class FDSNWSDownloader {
         // other unidentified units: [volts, , m/s/s, counts, nt, none.specified, g, count, m/m, none, radians, rad/s, 1m/s**2, rad/sec, t, v, volt, r/s, kpa]
     }
 
-    private static InputType getInputType(String inputUnits) {
+    static InputType getInputType(String inputUnits) {
         InputType inputType = unitTypeMap.getOrDefault(inputUnits.toLowerCase(), InputType.UNKNOWN);
 
         if (inputType == InputType.UNKNOWN) {
@@ -299,11 +239,11 @@ public class FDSNWSDownloader {
         return inputType;
     }
 
-    private static double getInputUnitsMultiplier(String inputUnits) {
+    static double getInputUnitsMultiplier(String inputUnits) {
         return unitMultiplierMap.getOrDefault(inputUnits.toLowerCase(), 1.0);
     }
 
-    private static boolean isSupported(String channel) {
+    static boolean isSupported(String channel) {
         char band = channel.charAt(0);
         char instrument = channel.charAt(1);
 
@@ -314,16 +254,6 @@ public class FDSNWSDownloader {
         return SUPPORTED_INSTRUMENTS.contains(instrument);
     }
 
-    private static void addChannel(
-            List<Network> result, StationSource stationSource, String networkCode, String networkDescription,
-            String stationCode, String stationSite, String channelCode, String locationCode,
-            double lat, double lon, double alt, double sampleRate,
-            double stationLat, double stationLon, double stationAlt, double sensitivity, InputType inputType) {
-        Network network = StationDatabase.getOrCreateNetwork(result, networkCode, networkDescription);
-        Station station = StationDatabase.getOrCreateStation(network, stationCode, stationSite, stationLat, stationLon, stationAlt);
-        StationDatabase.getOrCreateChannel(station, channelCode, locationCode, lat, lon, alt, sampleRate, stationSource, sensitivity, inputType);
-    }
-
     public static String obtainElement(Node item, String name, String defaultValue) {
         try {
             return ((Element) item).getElementsByTagName(name).item(0).getTextContent();
@@ -3,15 +3,12 @@ package globalquake.core.database;
 import edu.sc.seis.seisFile.seedlink.SeedlinkReader;
 import gqserver.api.packets.station.InputType;
 import org.tinylog.Logger;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 import java.io.StringReader;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
@@ -41,50 +38,69 @@ public class SeedlinkCommunicator {
     private static void parseAvailability(String infoString, StationDatabase stationDatabase, SeedlinkNetwork seedlinkNetwork) throws Exception {
         seedlinkNetwork.availableStations = 0;
 
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        DocumentBuilder db = dbf.newDocumentBuilder();
-        Document doc = db.parse(new InputSource(new StringReader(infoString)));
-        doc.getDocumentElement().normalize();
-        NodeList nodeList = doc.getElementsByTagName("station");
-        Logger.info("Found %d available stations in seedlink %s".formatted(nodeList.getLength(), seedlinkNetwork.getName()));
-        for (int itr = 0; itr < nodeList.getLength(); itr++) {
-            Node node = nodeList.item(itr);
-            String stationCode = node.getAttributes().getNamedItem("name").getTextContent();
-            String networkCode = node.getAttributes().getNamedItem("network").getTextContent();
-            NodeList channelList = ((Element) node).getElementsByTagName("stream");
-            for (int k = 0; k < channelList.getLength(); k++) {
-                Node channel = channelList.item(k);
-                String locationCode = channel.getAttributes().getNamedItem("location").getTextContent();
-                String channelName = channel.getAttributes().getNamedItem("seedname").getTextContent();
-                String endDate = channel.getAttributes().getNamedItem("end_time").getTextContent();
-
-                long delay = UNKNOWN_DELAY;
-
-                try {
-                    if(FORMAT_UTC_LONG.get() == null || FORMAT_UTC_SHORT.get() == null){
-                        FORMAT_UTC_SHORT.set(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
-                        FORMAT_UTC_SHORT.get().setTimeZone(TimeZone.getTimeZone("UTC"));
-
-                        FORMAT_UTC_LONG.set(new SimpleDateFormat("yyyy/MM/dd HH:mm:ss.SSSS"));
-                        FORMAT_UTC_LONG.get().setTimeZone(TimeZone.getTimeZone("UTC"));
-                    }
-
-                    Calendar end = Calendar.getInstance();
-                    end.setTime(endDate.contains("-") ? FORMAT_UTC_SHORT.get().parse(endDate) : FORMAT_UTC_LONG.get().parse(endDate));
-
-                    delay = System.currentTimeMillis() - end.getTimeInMillis();
-
-                    if (delay > MAX_DELAY_MS) {
-                        continue;
-                    }
-
-                } catch(NumberFormatException e){
-                    Logger.warn(new RuntimeException("Failed to get delay from %s, %s: %s".formatted(stationCode, seedlinkNetwork.getName(), e.getMessage())));
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(infoString));
+        int stations = 0;
+        String stationCode = null;
+        String networkCode = null;
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
                 }
 
-                addAvailableChannel(networkCode, stationCode, channelName, locationCode, delay, seedlinkNetwork, stationDatabase);
+                if (reader.getLocalName().equals("station")) {
+                    stationCode = reader.getAttributeValue(null, "name");
+                    networkCode = reader.getAttributeValue(null, "network");
+                    stations++;
+                } else if (reader.getLocalName().equals("stream") && stationCode != null && networkCode != null) {
+                    parseStream(reader, networkCode, stationCode, stationDatabase, seedlinkNetwork);
+                }
             }
+        } finally {
+            reader.close();
         }
+
+        Logger.info("Found %d available stations in seedlink %s".formatted(stations, seedlinkNetwork.getName()));
+    }
+
+    private static void parseStream(XMLStreamReader reader, String networkCode, String stationCode,
+                                    StationDatabase stationDatabase, SeedlinkNetwork seedlinkNetwork) throws ParseException {
+        String locationCode = reader.getAttributeValue(null, "location");
+        String channelName = reader.getAttributeValue(null, "seedname");
+        String endDate = reader.getAttributeValue(null, "end_time");
+        if (locationCode == null || channelName == null || endDate == null) {
+            return;
+        }
+
+        long delay = UNKNOWN_DELAY;
+
+        try {
+            if(FORMAT_UTC_LONG.get() == null || FORMAT_UTC_SHORT.get() == null){
+                FORMAT_UTC_SHORT.set(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
+                FORMAT_UTC_SHORT.get().setTimeZone(TimeZone.getTimeZone("UTC"));
+
+                FORMAT_UTC_LONG.set(new SimpleDateFormat("yyyy/MM/dd HH:mm:ss.SSSS"));
+                FORMAT_UTC_LONG.get().setTimeZone(TimeZone.getTimeZone("UTC"));
+            }
+
+            Calendar end = Calendar.getInstance();
+            end.setTime(endDate.contains("-") ? FORMAT_UTC_SHORT.get().parse(endDate) : FORMAT_UTC_LONG.get().parse(endDate));
+
+            delay = System.currentTimeMillis() - end.getTimeInMillis();
+
+            if (delay > MAX_DELAY_MS) {
+                return;
+            }
+
+        } catch(NumberFormatException e){
+            Logger.warn(new RuntimeException("Failed to get delay from %s, %s: %s".formatted(stationCode, seedlinkNetwork.getName(), e.getMessage())));
+        }
+
+        addAvailableChannel(networkCode, stationCode, channelName, locationCode, delay, seedlinkNetwork, stationDatabase);
     }
 
     private static void addAvailableChannel(String networkCode, String stationCode, String channelName, String locationCode, long delay, SeedlinkNetwork seedlinkNetwork, StationDatabase stationDatabase) {
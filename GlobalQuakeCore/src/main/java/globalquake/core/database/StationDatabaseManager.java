@@ -3,6 +3,7 @@ package globalquake.core.database;
 import globalquake.core.GlobalQuake;
 import globalquake.core.exception.FatalIOException;
 import globalquake.core.exception.FdnwsDownloadException;
+import globalquake.utils.NamedThreadFactory;
 import org.tinylog.Logger;
 
 import java.io.*;
@@ -115,46 +116,24 @@ public class StationDatabaseManager {
                 stationSource.getStatus().setString("Queued...");
                 stationSource.getStatus().setValue(0);
             });
-            toBeUpdated.parallelStream().forEach(stationSource -> {
-                try {
-                    synchronized (statusSync) {
-                        stationSource.getStatus().setString("Updating...");
-                    }
-                    List<Network> networkList = FDSNWSDownloader.downloadFDSNWS(stationSource);
 
+            // sources and the longitude slices of each of them share the same downloads limit
+            ExecutorService executor = Executors.newFixedThreadPool(FDSNWSDownloader.MAX_PARALLEL_DOWNLOADS, new NamedThreadFactory("FDSNWS Download"));
+            try {
+                CompletableFuture.allOf(toBeUpdated.stream().map(stationSource -> {
                     synchronized (statusSync) {
-                        stationSource.getStatus().setString("Updating database...");
+                        stationSource.getStatus().setString("Updating...");
                     }
 
-                    StationDatabaseManager.this.acceptNetworks(networkList);
-
-                    synchronized (statusSync) {
-                        stationSource.getStatus().setString(networkList.size() + " Networks Downloaded");
-                        stationSource.getStatus().setValue(100);
-                        stationSource.setLastUpdate(LocalDateTime.now());
-                    }
-                } catch (SocketTimeoutException e) {
-                    Logger.error(e);
-                    synchronized (statusSync) {
-                        stationSource.getStatus().setString("Timed out!");
-                        stationSource.getStatus().setValue(0);
-                    }
-                } catch (FdnwsDownloadException e) {
-                    Logger.error(e);
-                    synchronized (statusSync) {
-                        stationSource.getStatus().setString(e.getUserMessage());
-                        stationSource.getStatus().setValue(0);
-                    }
-                } catch (Exception e) {
-                    Logger.error(e);
-                    synchronized (statusSync) {
-                        stationSource.getStatus().setString("Error!");
-                        stationSource.getStatus().setValue(0);
-                    }
-                } finally {
-                    fireUpdateEvent();
-                }
-            });
+                    return FDSNWSDownloader.downloadFDSNWS(stationSource, executor)
+                            .handle((networkList, throwable) -> {
+                                finishUpdate(stationSource, networkList, throwable, statusSync);
+                                return null;
+                            });
+                }).toArray(CompletableFuture[]::new)).join();
+            } finally {
+                executor.shutdownNow();
+            }
 
             this.updating = false;
             fireStatusChangeEvent();
@@ -164,6 +143,56 @@ public class StationDatabaseManager {
         }).start();
     }
 
+    private void finishUpdate(StationSource stationSource, List<Network> networkList, Throwable throwable, Object statusSync) {
+        try {
+            if (throwable != null) {
+                throw toException(throwable);
+            }
+
+            synchronized (statusSync) {
+                stationSource.getStatus().setString("Updating database...");
+            }
+
+            StationDatabaseManager.this.acceptNetworks(networkList);
+
+            synchronized (statusSync) {
+                stationSource.getStatus().setString(networkList.size() + " Networks Downloaded");
+                stationSource.getStatus().setValue(100);
+                stationSource.setLastUpdate(LocalDateTime.now());
+            }
+        } catch (SocketTimeoutException e) {
+            Logger.error(e);
+            synchronized (statusSync) {
+                stationSource.getStatus().setString("Timed out!");
+                stationSource.getStatus().setValue(0);
+            }
+        } catch (FdnwsDownloadException e) {
+            Logger.error(e);
+            synchronized (statusSync) {
+                stationSource.getStatus().setString(e.getUserMessage());
+                stationSource.getStatus().setValue(0);
+            }
+        } catch (Exception e) {
+            Logger.error(e);
+            synchronized (statusSync) {
+                stationSource.getStatus().setString("Error!");
+                stationSource.getStatus().setValue(0);
+            }
+        } finally {
+            fireUpdateEvent();
+        }
+    }
+
+    // errors are not handled here, they propagate to the update thread
+    private static Exception toException(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (cause instanceof Error error) {
+            throw error;
+        }
+
+        return (Exception) cause;
+    }
+
     protected void acceptNetworks(List<Network> networkList) {
         stationDatabase.getDatabaseWriteLock().lock();
         try {
@@ -0,0 +1,216 @@
+package globalquake.core.database;
+
+import gqserver.api.packets.station.InputType;
+import org.tinylog.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Reads FDSNWS StationXML as it arrives, only the channels that are kept are ever held in memory
+ */
+public class StationXMLParser {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final StationSource stationSource;
+    private final List<Network> result;
+
+    private final Deque<String> path = new ArrayDeque<>();
+    private final StringBuilder text = new StringBuilder();
+
+    private String networkCode;
+    private String networkDescription;
+
+    private String stationCode;
+    private String stationSite;
+    private double stationLat;
+    private double stationLon;
+    private double stationAlt;
+
+    private boolean channelValid;
+    private String channelCode;
+    private String locationCode;
+    private double channelLat;
+    private double channelLon;
+    private double channelAlt;
+    private double sampleRate;
+    private String sensitivity;
+    private String inputUnits;
+
+    /**
+     * @param result the parsed channels are added here, synchronized on the list so that more documents can be parsed at once
+     */
+    public StationXMLParser(StationSource stationSource, List<Network> result) {
+        this.stationSource = stationSource;
+        this.result = result;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        return factory;
+    }
+
+    public void parse(InputStream inputStream) throws IOException, XMLStreamException {
+        BufferedInputStream in = new BufferedInputStream(inputStream);
+
+        // some FDSNWS providers send empty document if no stations found by given parameters
+        in.mark(1);
+        if (in.read() == -1) {
+            return;
+        }
+        in.reset();
+
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> startElement(reader);
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> text.append(reader.getText());
+                    case XMLStreamConstants.END_ELEMENT -> endElement();
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void startElement(XMLStreamReader reader) {
+        String name = localName(reader.getLocalName());
+        text.setLength(0);
+
+        switch (name) {
+            case "Network" -> {
+                networkCode = reader.getAttributeValue(null, "code");
+                networkDescription = "";
+                if (networkCode == null) {
+                    Logger.debug("ERR: no network code wtf.");
+                }
+            }
+            case "Station" -> {
+                stationCode = reader.getAttributeValue(null, "code");
+                stationSite = "";
+                stationLat = stationLon = stationAlt = Double.NaN;
+            }
+            case "Channel" -> {
+                channelCode = reader.getAttributeValue(null, "code");
+                locationCode = reader.getAttributeValue(null, "locationCode");
+                channelValid = channelCode != null && locationCode != null && FDSNWSDownloader.isWithinDateRange(
+                        reader.getAttributeValue(null, "startDate"), reader.getAttributeValue(null, "endDate"));
+                channelLat = channelLon = channelAlt = Double.NaN;
+                sampleRate = -1;
+                sensitivity = null;
+                inputUnits = null;
+            }
+        }
+
+        path.push(name);
+    }
+
+    private void endElement() {
+        String name = path.pop();
+        String parent = path.peek();
+        String value = text.toString().trim();
+        text.setLength(0);
+
+        if (parent == null) {
+            return;
+        }
+
+        switch (parent) {
+            case "Network" -> {
+                if (name.equals("Description")) {
+                    networkDescription = value;
+                }
+            }
+            case "Station" -> {
+                switch (name) {
+                    case "Latitude" -> stationLat = Double.parseDouble(value);
+                    case "Longitude" -> stationLon = Double.parseDouble(value);
+                    case "Elevation" -> stationAlt = Double.parseDouble(value);
+                }
+            }
+            case "Site" -> {
+                if (name.equals("Name") && "Station".equals(grandParent())) {
+                    stationSite = value;
+                }
+            }
+            case "Channel" -> {
+                switch (name) {
+                    case "Latitude" -> channelLat = Double.parseDouble(value);
+                    case "Longitude" -> channelLon = Double.parseDouble(value);
+                    case "Elevation" -> channelAlt = Double.parseDouble(value);
+                    case "SampleRate" -> sampleRate = Double.parseDouble(value);
+                }
+            }
+            case "InstrumentSensitivity" -> {
+                if (name.equals("Value")) {
+                    sensitivity = value;
+                }
+            }
+            case "InputUnits" -> {
+                if (name.equals("Name") && "InstrumentSensitivity".equals(grandParent())) {
+                    inputUnits = value;
+                }
+            }
+        }
+
+        if (name.equals("Channel") && parent.equals("Station")) {
+            endChannel();
+        }
+    }
+
+    private String grandParent() {
+        var iterator = path.iterator();
+        iterator.next();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private void endChannel() {
+        // Necessary values: lat lon alt, other can fail
+        if (!channelValid || networkCode == null || stationCode == null
+                || Double.isNaN(stationLat) || Double.isNaN(stationLon) || Double.isNaN(stationAlt)
+                || Double.isNaN(channelLat) || Double.isNaN(channelLon) || Double.isNaN(channelAlt)) {
+            return;
+        }
+
+        if (!FDSNWSDownloader.isSupported(channelCode)) {
+            return;
+        }
+
+        double channelSensitivity = -1;
+        InputType inputType = InputType.UNKNOWN;
+        if (sensitivity != null && inputUnits != null) {
+            channelSensitivity = new BigDecimal(sensitivity).doubleValue() * FDSNWSDownloader.getInputUnitsMultiplier(inputUnits);
+            inputType = FDSNWSDownloader.getInputType(inputUnits);
+        } else {
+            Logger.debug(
+                    "No Sensitivity!!!! " + stationCode + " " + networkCode + " " + channelCode + " @ " + stationSource.getUrl());
+        }
+
+        synchronized (result) {
+            Network network = StationDatabase.getOrCreateNetwork(result, networkCode, networkDescription);
+            Station station = StationDatabase.getOrCreateStation(network, stationCode, stationSite, stationLat, stationLon, stationAlt);
+            StationDatabase.getOrCreateChannel(station, channelCode, locationCode, channelLat, channelLon, channelAlt,
+                    sampleRate, stationSource, channelSensitivity, inputType);
+        }
+    }
+
+    private static String localName(String name) {
+        int colon = name.indexOf(':');
+        return colon == -1 ? name : name.substring(colon + 1);
+    }
+
+}
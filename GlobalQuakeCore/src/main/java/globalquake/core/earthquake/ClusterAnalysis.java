@@ -9,8 +9,10 @@ import globalquake.core.geo.taup.TauPTravelTimeCalculator;
 import globalquake.core.intensity.IntensityTable;
 import globalquake.core.station.AbstractStation;
 import globalquake.core.earthquake.data.*;
+import globalquake.core.analysis.ActiveEventIndex;
 import globalquake.core.analysis.Event;
 import globalquake.core.station.NearbyStationDistanceInfo;
+import globalquake.core.station.StationIndex;
 import globalquake.utils.GeoUtils;
 import org.tinylog.Logger;
 
@@ -35,6 +37,16 @@ public class ClusterAnalysis {
 
     private static final double MERGE_THRESHOLD = 0.45;
 
+    // arrivals are only considered where the expected intensity reaches this value
+    private static final double MIN_EXPECTED_INTENSITY = 3.0;
+
+    // P wave times relative to the origin that can still be matched to the earthquake
+    private static final long ARRIVAL_WINDOW_BEFORE = 60 * 1000;
+    private static final long ARRIVAL_WINDOW_AFTER = 60 * 60 * 1000;
+
+    private volatile StationIndex stationIndex;
+    private volatile ActiveEventIndex activeEvents;
+
     public ClusterAnalysis(List<Earthquake> earthquakes, Collection<AbstractStation> stations) {
         this.earthquakes = earthquakes;
         this.stations = stations;
@@ -43,6 +55,15 @@ public class ClusterAnalysis {
 
     public ClusterAnalysis() {
         this(GlobalQuake.instance.getEarthquakeAnalysis().getEarthquakes(), GlobalQuake.instance.getStationManager().getStations());
+        activeEvents = GlobalQuake.instance.getStationManager().getActiveEvents();
+    }
+
+    public void setStationIndex(StationIndex stationIndex) {
+        this.stationIndex = stationIndex;
+    }
+
+    public void setActiveEvents(ActiveEventIndex activeEvents) {
+        this.activeEvents = activeEvents;
     }
 
     public Lock getClustersReadLock() {
@@ -71,21 +92,20 @@ public class ClusterAnalysis {
 
     private void stealEvents() {
         java.util.Map<Event, EventIntensityInfo> map = new HashMap<>();
+        Collection<Event> events = getEvents();
         for(Cluster cluster : clusters) {
             if (cluster.getEarthquake() == null) {
                 continue;
             }
 
-            for (AbstractStation station : stations) {
-                for (Event event : station.getAnalysis().getDetectedEvents()) {
-                    if (event.isValid() && event.isSWave() && !couldBeArrival(event, cluster.getEarthquake(), true, false, true)) {
-                        double distGC = GeoUtils.greatCircleDistance(event.getLatFromStation(), event.getLonFromStation(), cluster.getEarthquake().getLat(), cluster.getEarthquake().getLon());
-                        double expectedIntensity = IntensityTable.getIntensity(cluster.getEarthquake().getMag(), GeoUtils.gcdToGeo(distGC));
-                        EventIntensityInfo eventIntensityInfo = new EventIntensityInfo(cluster, station, expectedIntensity);
-                        EventIntensityInfo old = map.putIfAbsent(event, eventIntensityInfo);
-                        if(old != null && eventIntensityInfo.expectedIntensity > old.expectedIntensity){
-                            map.put(event, eventIntensityInfo);
-                        }
+            for (Event event : events) {
+                if (event.isValid() && event.isSWave() && !couldBeArrival(event, cluster.getEarthquake(), true, false, true)) {
+                    double distGC = GeoUtils.greatCircleDistance(event.getLatFromStation(), event.getLonFromStation(), cluster.getEarthquake().getLat(), cluster.getEarthquake().getLon());
+                    double expectedIntensity = IntensityTable.getIntensity(cluster.getEarthquake().getMag(), GeoUtils.gcdToGeo(distGC));
+                    EventIntensityInfo eventIntensityInfo = new EventIntensityInfo(cluster, event.getAnalysis().getStation(), expectedIntensity);
+                    EventIntensityInfo old = map.putIfAbsent(event, eventIntensityInfo);
+                    if(old != null && eventIntensityInfo.expectedIntensity > old.expectedIntensity){
+                        map.put(event, eventIntensityInfo);
                     }
                 }
             }
@@ -109,16 +129,15 @@ public class ClusterAnalysis {
     }
 
     private void clearSWaves() {
+        Collection<Event> events = getEvents();
         for(Cluster cluster : clusters) {
             if(cluster.getEarthquake() == null){
                 continue;
             }
 
-            for (AbstractStation station : stations) {
-                for (Event event : station.getAnalysis().getDetectedEvents()) {
-                    if (event.isValid() && event.isSWave() && !couldBeSArrival(event, cluster.getEarthquake())) {
-                        event.setAsSWave(false);
-                    }
+            for (Event event : events) {
+                if (event.isValid() && event.isSWave() && !couldBeSArrival(event, cluster.getEarthquake())) {
+                    event.setAsSWave(false);
                 }
             }
         }
@@ -231,7 +250,7 @@ public class ClusterAnalysis {
 
 
         double expectedIntensity = IntensityTable.getIntensity(earthquake.getMag(), GeoUtils.gcdToGeo(distGC));
-        if (expectedIntensity < 3.0) {
+        if (expectedIntensity < MIN_EXPECTED_INTENSITY) {
             return false;
         }
 
@@ -246,7 +265,6 @@ public class ClusterAnalysis {
         return false;
     }
 
-    @SuppressWarnings("unused")
     public static boolean couldBeArrival(PickedEvent pickedEvent, PreliminaryHypocenter bestHypocenter,
                                          boolean considerIntensity, boolean increasingPWindow, boolean pWaveOnly) {
         if (pickedEvent == null || bestHypocenter == null) {
@@ -298,7 +316,7 @@ public class ClusterAnalysis {
 
         if(considerIntensity) {
             double expectedIntensity = IntensityTable.getIntensity(quakeMag, GeoUtils.gcdToGeo(distGC));
-            if (expectedIntensity < 3.0) {
+            if (expectedIntensity < MIN_EXPECTED_INTENSITY) {
                 return false;
             }
         }
@@ -384,18 +402,21 @@ public class ClusterAnalysis {
     }
 
     private void markPossibleSWaves(Cluster cluster) {
-        for (AbstractStation station : stations) {
-            for (Event event : station.getAnalysis().getDetectedEvents()) {
-                if (event.isValid() && couldBeSArrival(event, cluster.getEarthquake())) {
-                    event.setAsSWave(true);
-                }
+        for (Event event : getEventsInRange(cluster.getEarthquake())) {
+            if (event.isValid() && couldBeSArrival(event, cluster.getEarthquake())) {
+                event.setAsSWave(true);
             }
         }
     }
 
     private void expandPWaves(Cluster cluster) {
+        Set<AbstractStation> candidates = new LinkedHashSet<>();
+        for (Event event : getEventsInRange(cluster.getEarthquake())) {
+            candidates.add(event.getAnalysis().getStation());
+        }
+
         mainLoop:
-        for (AbstractStation station : stations) {
+        for (AbstractStation station : candidates) {
             for (Event event : station.getAnalysis().getDetectedEvents()) {
                 if (event.isValid() && !cluster.containsStation(station) && couldBeArrival(event, cluster.getEarthquake(), true, true, false)) {
                     if (cluster.getAssignedEvents().putIfAbsent(station, event) == null) {
@@ -407,6 +428,74 @@ public class ClusterAnalysis {
         }
     }
 
+    /**
+     * Events held by the stations, only the active ones are visited if there is an event index
+     */
+    private Collection<Event> getEvents() {
+        ActiveEventIndex index = activeEvents;
+        if (index != null) {
+            return index.getEvents();
+        }
+
+        List<Event> result = new ArrayList<>();
+        for (AbstractStation station : stations) {
+            result.addAll(station.getAnalysis().getDetectedEvents());
+        }
+        return result;
+    }
+
+    /**
+     * Events at stations where the earthquake can reach the minimal expected intensity
+     */
+    private Collection<Event> getEventsInRange(Earthquake earthquake) {
+        double radius = getMaxIntensityDistance(earthquake.getMag());
+        List<Event> result = new ArrayList<>();
+
+        ActiveEventIndex index = activeEvents;
+        if (index != null) {
+            index.forEachWithin(earthquake.getLat(), earthquake.getLon(), radius,
+                    earthquake.getOrigin() - ARRIVAL_WINDOW_BEFORE, earthquake.getOrigin() + ARRIVAL_WINDOW_AFTER, result::add);
+            return result;
+        }
+
+        for (AbstractStation station : getStationsInRange(earthquake.getLat(), earthquake.getLon(), radius)) {
+            result.addAll(station.getAnalysis().getDetectedEvents());
+        }
+        return result;
+    }
+
+    /**
+     * Stations within the radius, all stations if there is no index
+     */
+    private Collection<AbstractStation> getStationsInRange(double lat, double lon, double radius) {
+        StationIndex index = stationIndex;
+        if (index == null) {
+            return stations;
+        }
+
+        return index.getStationsWithin(lat, lon, radius);
+    }
+
+    static double getMaxIntensityDistance(double mag) {
+        double max = GeoUtils.EARTH_CIRCUMFERENCE / 2.0;
+        if (IntensityTable.getIntensity(mag, GeoUtils.gcdToGeo(max)) >= MIN_EXPECTED_INTENSITY) {
+            return max;
+        }
+
+        // expected intensity decreases with distance, so the upper bound always stays out of range
+        double min = 0;
+        for (int i = 0; i < 32; i++) {
+            double mid = (min + max) / 2.0;
+            if (IntensityTable.getIntensity(mag, GeoUtils.gcdToGeo(mid)) >= MIN_EXPECTED_INTENSITY) {
+                min = mid;
+            } else {
+                max = mid;
+            }
+        }
+
+        return max;
+    }
+
     @SuppressWarnings("RedundantIfStatement")
     private boolean potentialArrival(Event ev, Event e, double dist) {
         if (e.isValid() && ev.isValid() && ev.getpWave() > 0 && ev.assignedCluster == null) {
@@ -433,7 +522,18 @@ public class ClusterAnalysis {
     }
 
     private void createNewClusters() {
-        for (AbstractStation station : stations) {
+        Set<AbstractStation> candidates = new LinkedHashSet<>();
+        for (Event event : getEvents()) {
+            if (event.isValid() && event.getpWave() > 0 && event.assignedCluster == null) {
+                candidates.add(event.getAnalysis().getStation());
+            }
+        }
+
+        // keep the order of the station list so that the same events start the clusters
+        List<AbstractStation> sortedCandidates = new ArrayList<>(candidates);
+        sortedCandidates.sort(Comparator.comparingInt(AbstractStation::getId));
+
+        for (AbstractStation station : sortedCandidates) {
             for (Event event : station.getAnalysis().getDetectedEvents()) {
                 if (event.isValid() && event.getpWave() > 0 && event.assignedCluster == null) {
                     // so we have eligible event
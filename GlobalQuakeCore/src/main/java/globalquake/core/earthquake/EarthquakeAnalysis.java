@@ -240,9 +240,31 @@ public class EarthquakeAnalysis {
         double _lat = cluster.getAnchorLat();
         double _lon = cluster.getAnchorLon();
 
+        // station data and travel table are prepared once and shared by all the phases
+        HypocenterSearchKernel kernel = Settings.useHypocenterSearchKernel ? new HypocenterSearchKernel(selectedEvents) : null;
+
+        if (kernel != null && Settings.incrementalHypocenterRelocation && previousHypocenter != null) {
+            // start from the previous solution and only do the full scan if it got noticeably worse
+            PreliminaryHypocenter refined = kernel.refine(previousHypocenter.lat, previousHypocenter.lon, previousHypocenter.depth,
+                    maxDepth, finderSettings, HypocsSettings.getOrDefaultInt("incrementalIterations", 200));
+            Logger.tag("Hypocs").debug("INCREMENTAL: " + (System.currentTimeMillis() - timeMillis));
+
+            // the error of the previous hypocenter was calculated only over the events left after the reduction
+            if (refined != null && isIncrementalAcceptable(countPossibleArrivals(selectedEvents, refined), selectedEvents.size(),
+                    kernel.getReducedError(refined, previousHypocenter.reducedEvents, finderSettings), previousHypocenter,
+                    HypocsSettings.getOrDefault("incrementalCorrectnessDrop", 0.05f),
+                    HypocsSettings.getOrDefault("incrementalErrorGrowth", 1.5f),
+                    HypocsSettings.getOrDefault("incrementalErrorMargin", 0.01f))) {
+                Logger.tag("Hypocs").debug(refined.correctStations + " / " + refined.err);
+                return refined;
+            }
+
+            Logger.tag("Hypocs").debug("Incremental relocation is not good enough, running full scan");
+        }
+
         if (far && (previousHypocenter == null || previousHypocenter.correctEvents < 24 || previousHypocenter.getCorrectness() < 0.8)) {
             // phase 1 search far from ANCHOR (it's not very certain)
-            bestHypocenter = scanArea(selectedEvents, 90.0 / 360.0 * GeoUtils.EARTH_CIRCUMFERENCE, (int) (40000 * pointMultiplier), _lat, _lon, 6 + iterationsDifference, maxDepth, finderSettings);
+            bestHypocenter = scanArea(selectedEvents, kernel, 90.0 / 360.0 * GeoUtils.EARTH_CIRCUMFERENCE, (int) (40000 * pointMultiplier), _lat, _lon, 6 + iterationsDifference, maxDepth, finderSettings);
             Logger.tag("Hypocs").debug("FAR: " + (System.currentTimeMillis() - timeMillis));
             Logger.tag("Hypocs").debug(bestHypocenter.correctStations + " / " + bestHypocenter.err);
             _lat = bestHypocenter.lat;
@@ -252,7 +274,7 @@ public class EarthquakeAnalysis {
         if (previousHypocenter == null || previousHypocenter.correctEvents < 42 || previousHypocenter.getCorrectness() < 0.9) {
             // phase 2A search region near BEST or ANCHOR (it's quite certain)
             timeMillis = System.currentTimeMillis();
-            PreliminaryHypocenter hyp = scanArea(selectedEvents, 2500.0, (int) (20000 * pointMultiplier), _lat, _lon, 7 + iterationsDifference, maxDepth, finderSettings);
+            PreliminaryHypocenter hyp = scanArea(selectedEvents, kernel, 2500.0, (int) (20000 * pointMultiplier), _lat, _lon, 7 + iterationsDifference, maxDepth, finderSettings);
             bestHypocenter = selectBetterHypocenter(hyp, bestHypocenter);
             _lat = bestHypocenter.lat;
             _lon = bestHypocenter.lon;
@@ -261,7 +283,7 @@ public class EarthquakeAnalysis {
         } else {
             // phase 2B search region closer BEST or ANCHOR (it assumes it's almost right)
             timeMillis = System.currentTimeMillis();
-            PreliminaryHypocenter hyp = scanArea(selectedEvents, 1000.0, (int) (10000 * pointMultiplier), _lat, _lon, 7 + iterationsDifference, maxDepth, finderSettings);
+            PreliminaryHypocenter hyp = scanArea(selectedEvents, kernel, 1000.0, (int) (10000 * pointMultiplier), _lat, _lon, 7 + iterationsDifference, maxDepth, finderSettings);
             bestHypocenter = selectBetterHypocenter(hyp, bestHypocenter);
             _lat = bestHypocenter.lat;
             _lon = bestHypocenter.lon;
@@ -271,7 +293,7 @@ public class EarthquakeAnalysis {
 
         // phase 3 find exact area
         timeMillis = System.currentTimeMillis();
-        PreliminaryHypocenter hyp = scanArea(selectedEvents, 100.0, (int) (4000 * pointMultiplier), _lat, _lon, 8 + iterationsDifference, maxDepth, finderSettings);
+        PreliminaryHypocenter hyp = scanArea(selectedEvents, kernel, 100.0, (int) (4000 * pointMultiplier), _lat, _lon, 8 + iterationsDifference, maxDepth, finderSettings);
         bestHypocenter = selectBetterHypocenter(hyp, bestHypocenter);
         Logger.tag("Hypocs").debug("EXACT: " + (System.currentTimeMillis() - timeMillis));
         Logger.tag("Hypocs").debug(bestHypocenter.correctStations + " / " + bestHypocenter.err);
@@ -280,7 +302,7 @@ public class EarthquakeAnalysis {
         timeMillis = System.currentTimeMillis();
         _lat = bestHypocenter.lat;
         _lon = bestHypocenter.lon;
-        hyp = scanArea(selectedEvents, 10.0, (int) (4000 * pointMultiplier), _lat, _lon, 10 + iterationsDifference, maxDepth, finderSettings);
+        hyp = scanArea(selectedEvents, kernel, 10.0, (int) (4000 * pointMultiplier), _lat, _lon, 10 + iterationsDifference, maxDepth, finderSettings);
         bestHypocenter = selectBetterHypocenter(hyp, bestHypocenter);
         Logger.tag("Hypocs").debug("DEPTH: " + (System.currentTimeMillis() - timeMillis));
         Logger.tag("Hypocs").debug(bestHypocenter.correctStations + " / " + bestHypocenter.err);
@@ -290,6 +312,37 @@ public class EarthquakeAnalysis {
         return bestHypocenter;
     }
 
+    /**
+     * @param correctEvents number of the events that could be arrivals from the refined hypocenter, counted
+     *                      the same way as the correct events of the previous hypocenter
+     * @param reducedErr error of the refined hypocenter over the same number of best fitting events
+     *                   as the previous hypocenter was reduced to, see {@link HypocenterSearchKernel#getReducedError}
+     */
+    static boolean isIncrementalAcceptable(int correctEvents, int events, double reducedErr, Hypocenter previousHypocenter,
+                                           double maxCorrectnessDrop, double maxErrorGrowth, double errorMargin) {
+        if (events == 0 || previousHypocenter.usedEvents == 0 || previousHypocenter.reducedEvents == 0) {
+            return false;
+        }
+
+        double correctness = correctEvents / (double) events;
+        double meanErr = reducedErr / Math.min(events, previousHypocenter.reducedEvents);
+        double previousMeanErr = previousHypocenter.totalErr / previousHypocenter.reducedEvents;
+
+        return correctness >= previousHypocenter.getCorrectness() - maxCorrectnessDrop
+                && meanErr <= previousMeanErr * maxErrorGrowth + errorMargin;
+    }
+
+    private static int countPossibleArrivals(List<PickedEvent> selectedEvents, PreliminaryHypocenter hypocenter) {
+        int correct = 0;
+        for (PickedEvent event : selectedEvents) {
+            if (ClusterAnalysis.couldBeArrival(event, hypocenter, false, false, false)) {
+                correct++;
+            }
+        }
+
+        return correct;
+    }
+
     public void findHypocenter(List<PickedEvent> selectedEvents, Cluster cluster, HypocenterFinderSettings finderSettings) {
         long startTime = System.currentTimeMillis();
 
@@ -692,8 +745,12 @@ public class EarthquakeAnalysis {
 
     public static final double PHI = 1.61803398875;
 
-    private PreliminaryHypocenter scanArea(List<PickedEvent> events, double maxDist, int points, double _lat, double _lon, int depthIterations,
+    private PreliminaryHypocenter scanArea(List<PickedEvent> events, HypocenterSearchKernel kernel, double maxDist, int points, double _lat, double _lon, int depthIterations,
                                            double maxDepth, HypocenterFinderSettings finderSettings) {
+        if (kernel != null) {
+            return kernel.scanArea(maxDist, points, _lat, _lon, depthIterations, maxDepth, finderSettings);
+        }
+
         int CPUS = Runtime.getRuntime().availableProcessors();
         double c = maxDist / Math.sqrt(points);
         double one = points / (double) CPUS;
@@ -754,7 +811,7 @@ public class EarthquakeAnalysis {
         return (hypocenter.correctStations) / (hypocenter.err);
     }
 
-    private static PreliminaryHypocenter selectBetterHypocenter(PreliminaryHypocenter hypocenter1, PreliminaryHypocenter hypocenter2) {
+    static PreliminaryHypocenter selectBetterHypocenter(PreliminaryHypocenter hypocenter1, PreliminaryHypocenter hypocenter2) {
         if (hypocenter1 == null) {
             return hypocenter2;
         } else if (hypocenter2 == null) {
@@ -0,0 +1,464 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.Settings;
+import globalquake.core.earthquake.data.HypocenterFinderSettings;
+import globalquake.core.earthquake.data.HypocenterFinderThreadData;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import globalquake.core.geo.taup.FlatTravelTable;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.utils.GeoUtils;
+import org.apache.commons.math3.util.FastMath;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * CPU implementation of {@link EarthquakeAnalysis} area scan that keeps the stations in flat primitive arrays.
+ * Station unit vectors are computed once per cluster revision and the same instance is reused by all the
+ * search phases, so each grid point only needs a dot product per station. Travel times are read from
+ * the flattened P wave table and the median origin is found by selection instead of sorting.
+ * Inner loops are kept free of allocations and object access so that the JIT can unroll and vectorize them.
+ */
+public class HypocenterSearchKernel {
+
+    // same scaling as TauPTravelTimeCalculator.toAngle(GeoUtils.greatCircleDistance(...))
+    private static final double ANGLE_PER_RADIAN = GeoUtils.EARTH_RADIUS / GeoUtils.EARTH_CIRCUMFERENCE * 360.0;
+
+    // initial simplex size and the size at which the refinement stops, in km
+    private static final double REFINE_STEP_HORIZONTAL = 20.0;
+    private static final double REFINE_STEP_DEPTH = 10.0;
+    private static final double REFINE_TOLERANCE = 0.05;
+    private static final int REFINE_RESTARTS = 4;
+
+    private final int count;
+
+    private final double[] stationX;
+    private final double[] stationY;
+    private final double[] stationZ;
+    private final double[] elevationCorrection;
+    private final long[] pWave;
+
+    private final FlatTravelTable travelTable;
+
+    public HypocenterSearchKernel(List<PickedEvent> events) {
+        this(events, TauPTravelTimeCalculator.getPTravelTableFlat());
+    }
+
+    public HypocenterSearchKernel(List<PickedEvent> events, FlatTravelTable travelTable) {
+        this.travelTable = travelTable;
+        count = events.size();
+        stationX = new double[count];
+        stationY = new double[count];
+        stationZ = new double[count];
+        elevationCorrection = new double[count];
+        pWave = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            PickedEvent event = events.get(i);
+            double lat = Math.toRadians(event.lat());
+            double lon = Math.toRadians(event.lon());
+            double cosLat = FastMath.cos(lat);
+            stationX[i] = cosLat * FastMath.cos(lon);
+            stationY[i] = cosLat * FastMath.sin(lon);
+            stationZ[i] = FastMath.sin(lat);
+            elevationCorrection[i] = EarthquakeAnalysis.getElevationCorrection(event.elevation());
+            pWave[i] = event.pWave();
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public PreliminaryHypocenter scanArea(double maxDist, int points, double _lat, double _lon, int depthIterations,
+                                          double maxDepth, HypocenterFinderSettings finderSettings) {
+        int CPUS = Runtime.getRuntime().availableProcessors();
+        double c = maxDist / Math.sqrt(points);
+        double one = points / (double) CPUS;
+
+        double theta = Math.toRadians(_lat);
+        double phi = Math.toRadians(_lon);
+        double cTheta = FastMath.cos(theta);
+        double sTheta = FastMath.sin(theta);
+        double cPhi = FastMath.cos(phi);
+        double sPhi = FastMath.sin(phi);
+
+        IntStream cpus = IntStream.range(0, CPUS);
+        return (Settings.parallelHypocenterLocations ? cpus.parallel() : cpus).mapToObj(
+                cpu -> {
+                    Worker worker = new Worker();
+
+                    int start = (int) (cpu * one);
+                    int end = (int) ((cpu + 1) * one);
+
+                    for (int n = start; n < end; n++) {
+                        double delta = Math.sqrt(n) * c / GeoUtils.EARTH_RADIUS;
+                        double gamma = Math.toRadians(360.0 / (EarthquakeAnalysis.PHI * EarthquakeAnalysis.PHI) * n);
+
+                        double cDelta = FastMath.cos(delta);
+                        double sDelta = FastMath.sin(delta);
+                        double cGamma = FastMath.cos(gamma);
+                        double sGamma = FastMath.sin(gamma);
+
+                        double x = cDelta * cTheta * cPhi - sDelta * (sTheta * cPhi * cGamma + sPhi * sGamma);
+                        double y = cDelta * cTheta * sPhi - sDelta * (sTheta * sPhi * cGamma - cPhi * sGamma);
+                        double z = sDelta * cTheta * cGamma + cDelta * sTheta;
+
+                        worker.calculateAngles(x, y, z);
+                        worker.getBestAtDepth(depthIterations, maxDepth, finderSettings,
+                                FastMath.toDegrees(FastMath.asin(z)), FastMath.toDegrees(FastMath.atan2(y, x)));
+                    }
+
+                    return worker.threadData.bestHypocenter;
+                }
+        ).reduce(EarthquakeAnalysis::selectBetterHypocenter).orElse(null);
+    }
+
+    /**
+     * Refines the given starting point with Nelder-Mead simplex search, minimising the same error as the grid scan.
+     * The simplex lives in local coordinates around the starting point (north and east offset in km, depth in km),
+     * which keeps all three dimensions in similar units.
+     */
+    public PreliminaryHypocenter refine(double lat, double lon, double depth, double maxDepth,
+                                       HypocenterFinderSettings finderSettings, int maxIterations) {
+        Worker worker = new Worker();
+        double[] best = {0, 0, depth};
+        PreliminaryHypocenter result = null;
+
+        // the simplex can collapse before reaching the minimum, restarting it around the best point fixes that
+        for (int restart = 0; restart < REFINE_RESTARTS; restart++) {
+            PreliminaryHypocenter hypocenter = runSimplex(worker, lat, lon, best, maxDepth, finderSettings, maxIterations);
+            if (result != null && hypocenter.err >= result.err) {
+                break;
+            }
+            result = hypocenter;
+        }
+
+        return result;
+    }
+
+    /**
+     * Error of the hypocenter over only the given number of events with the smallest residuals, comparable to the error
+     * of a hypocenter that was located after the events with the largest residuals had been removed
+     */
+    public double getReducedError(PreliminaryHypocenter hypocenter, int events, HypocenterFinderSettings finderSettings) {
+        return new Worker().reducedError(hypocenter, Math.min(events, count), finderSettings);
+    }
+
+    // runs the simplex search starting at the given point and stores the best point found back in it
+    private PreliminaryHypocenter runSimplex(Worker worker, double lat, double lon, double[] start, double maxDepth,
+                                             HypocenterFinderSettings finderSettings, int maxIterations) {
+        double depth = start[2];
+        double depthStep = depth + REFINE_STEP_DEPTH > maxDepth ? -REFINE_STEP_DEPTH : REFINE_STEP_DEPTH;
+        double[][] simplex = {
+                {start[0], start[1], depth},
+                {start[0] + REFINE_STEP_HORIZONTAL, start[1], depth},
+                {start[0], start[1] + REFINE_STEP_HORIZONTAL, depth},
+                {start[0], start[1], depth + depthStep}
+        };
+
+        PreliminaryHypocenter[] hypocenters = new PreliminaryHypocenter[simplex.length];
+        for (int i = 0; i < simplex.length; i++) {
+            hypocenters[i] = worker.evaluate(lat, lon, simplex[i], maxDepth, finderSettings);
+        }
+
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            sortSimplex(simplex, hypocenters);
+
+            if (simplexSize(simplex) < REFINE_TOLERANCE) {
+                break;
+            }
+
+            int worst = simplex.length - 1;
+            double[] centroid = new double[3];
+            for (int i = 0; i < worst; i++) {
+                for (int d = 0; d < 3; d++) {
+                    centroid[d] += simplex[i][d] / worst;
+                }
+            }
+
+            double[] reflected = interpolate(centroid, simplex[worst], -1.0);
+            PreliminaryHypocenter reflectedHypocenter = worker.evaluate(lat, lon, reflected, maxDepth, finderSettings);
+
+            if (reflectedHypocenter.err < hypocenters[0].err) {
+                double[] expanded = interpolate(centroid, simplex[worst], -2.0);
+                PreliminaryHypocenter expandedHypocenter = worker.evaluate(lat, lon, expanded, maxDepth, finderSettings);
+                if (expandedHypocenter.err < reflectedHypocenter.err) {
+                    simplex[worst] = expanded;
+                    hypocenters[worst] = expandedHypocenter;
+                } else {
+                    simplex[worst] = reflected;
+                    hypocenters[worst] = reflectedHypocenter;
+                }
+            } else if (reflectedHypocenter.err < hypocenters[worst - 1].err) {
+                simplex[worst] = reflected;
+                hypocenters[worst] = reflectedHypocenter;
+            } else {
+                double[] contracted = interpolate(centroid, simplex[worst], 0.5);
+                PreliminaryHypocenter contractedHypocenter = worker.evaluate(lat, lon, contracted, maxDepth, finderSettings);
+                if (contractedHypocenter.err < hypocenters[worst].err) {
+                    simplex[worst] = contracted;
+                    hypocenters[worst] = contractedHypocenter;
+                } else {
+                    // shrink towards the best point
+                    for (int i = 1; i < simplex.length; i++) {
+                        simplex[i] = interpolate(simplex[0], simplex[i], 0.5);
+                        hypocenters[i] = worker.evaluate(lat, lon, simplex[i], maxDepth, finderSettings);
+                    }
+                }
+            }
+        }
+
+        sortSimplex(simplex, hypocenters);
+        System.arraycopy(simplex[0], 0, start, 0, 3);
+        return hypocenters[0];
+    }
+
+    // a + (b - a) * t
+    private static double[] interpolate(double[] a, double[] b, double t) {
+        return new double[]{a[0] + (b[0] - a[0]) * t, a[1] + (b[1] - a[1]) * t, a[2] + (b[2] - a[2]) * t};
+    }
+
+    private static void sortSimplex(double[][] simplex, PreliminaryHypocenter[] hypocenters) {
+        for (int i = 1; i < simplex.length; i++) {
+            for (int j = i; j > 0 && hypocenters[j].err < hypocenters[j - 1].err; j--) {
+                double[] point = simplex[j];
+                simplex[j] = simplex[j - 1];
+                simplex[j - 1] = point;
+
+                PreliminaryHypocenter hypocenter = hypocenters[j];
+                hypocenters[j] = hypocenters[j - 1];
+                hypocenters[j - 1] = hypocenter;
+            }
+        }
+    }
+
+    private static double simplexSize(double[][] simplex) {
+        double result = 0;
+        for (int i = 1; i < simplex.length; i++) {
+            double dx = simplex[i][0] - simplex[0][0];
+            double dy = simplex[i][1] - simplex[0][1];
+            double dz = simplex[i][2] - simplex[0][2];
+            result = Math.max(result, Math.sqrt(dx * dx + dy * dy + dz * dz));
+        }
+        return result;
+    }
+
+    private final class Worker {
+
+        private final double[] angles = new double[count];
+        private final HypocenterFinderThreadData threadData = new HypocenterFinderThreadData(count);
+
+        private PreliminaryHypocenter evaluate(double originLat, double originLon, double[] point, double maxDepth,
+                                               HypocenterFinderSettings finderSettings) {
+            point[2] = Math.max(0, Math.min(maxDepth, point[2]));
+
+            double dist = Math.sqrt(point[0] * point[0] + point[1] * point[1]);
+            double[] latLon = GeoUtils.moveOnGlobe(originLat, originLon, dist, Math.toDegrees(Math.atan2(point[1], point[0])));
+
+            double lat = Math.toRadians(latLon[0]);
+            double lon = Math.toRadians(latLon[1]);
+            double cosLat = FastMath.cos(lat);
+            calculateAngles(cosLat * FastMath.cos(lon), cosLat * FastMath.sin(lon), FastMath.sin(lat));
+
+            PreliminaryHypocenter hypocenter = new PreliminaryHypocenter();
+            analyseHypocenter(hypocenter, latLon[0], latLon[1], point[2], finderSettings);
+            return hypocenter;
+        }
+
+        private double reducedError(PreliminaryHypocenter hypocenter, int events, HypocenterFinderSettings finderSettings) {
+            if (events <= 0) {
+                return Double.MAX_VALUE;
+            }
+
+            double lat = Math.toRadians(hypocenter.lat);
+            double lon = Math.toRadians(hypocenter.lon);
+            double cosLat = FastMath.cos(lat);
+            calculateAngles(cosLat * FastMath.cos(lon), cosLat * FastMath.sin(lon), FastMath.sin(lat));
+
+            long[] origins = threadData.origins;
+            if (!calculateOrigins(origins, hypocenter.depth)) {
+                return Double.MAX_VALUE;
+            }
+
+            long origin = selectKth(origins.clone(), count, (count - 1) / 2);
+            long[] residuals = new long[count];
+            for (int i = 0; i < count; i++) {
+                residuals[i] = Math.abs(origins[i] - origin);
+            }
+
+            // keep the events with the smallest residuals and find their own origin, as if the others were never there
+            long maxResidual = selectKth(residuals.clone(), count, events - 1);
+            long[] reduced = new long[events];
+            int size = 0;
+            for (int i = 0; i < count && size < events; i++) {
+                if (residuals[i] <= maxResidual) {
+                    reduced[size++] = origins[i];
+                }
+            }
+
+            long reducedOrigin = EarthquakeAnalysis.USE_MEDIAN_FOR_ORIGIN ? selectKth(reduced.clone(), events, (events - 1) / 2) : reduced[0];
+
+            double threshold = finderSettings.pWaveInaccuracyThreshold();
+            double err = 0;
+            for (int i = 0; i < events; i++) {
+                err += error(Math.abs(reduced[i] - reducedOrigin), threshold);
+            }
+
+            return err;
+        }
+
+        // origins of all the events for the current angles, false if any of them has no arrival
+        private boolean calculateOrigins(long[] origins, double depth) {
+            double x = travelTable.depthToRow(depth);
+            if (x < 0) {
+                return false;
+            }
+
+            int x0 = (int) x;
+            int rowOffset = x0 * travelTable.stride;
+            double tx = x - x0;
+
+            for (int i = 0; i < count; i++) {
+                double travelTime = travelTable.interpolate(rowOffset, tx, angles[i]);
+                if (travelTime == TauPTravelTimeCalculator.NO_ARRIVAL) {
+                    return false;
+                }
+
+                origins[i] = pWave[i] - ((long) ((travelTime + elevationCorrection[i]) * 1000));
+            }
+
+            return true;
+        }
+
+        private void calculateAngles(double x, double y, double z) {
+            for (int i = 0; i < count; i++) {
+                double dot = x * stationX[i] + y * stationY[i] + z * stationZ[i];
+                angles[i] = Math.acos(Math.max(-1.0, Math.min(1.0, dot))) * ANGLE_PER_RADIAN;
+            }
+        }
+
+        private void getBestAtDepth(int depthIterations, double depthEnd, HypocenterFinderSettings finderSettings,
+                                    double lat, double lon) {
+            double lowerBound = 0;
+            double upperBound = depthEnd;
+
+            double depthA = lowerBound + (upperBound - lowerBound) * (1 / 3.0);
+            double depthB = lowerBound + (upperBound - lowerBound) * (2 / 3.0);
+
+            analyseHypocenter(threadData.hypocenterA, lat, lon, depthA, finderSettings);
+            analyseHypocenter(threadData.hypocenterB, lat, lon, depthB, finderSettings);
+
+            PreliminaryHypocenter upperHypocenter = threadData.hypocenterA;
+            PreliminaryHypocenter lowerHypocenter = threadData.hypocenterB;
+
+            for (int iteration = 0; iteration < depthIterations; iteration++) {
+                PreliminaryHypocenter better = EarthquakeAnalysis.selectBetterHypocenter(upperHypocenter, lowerHypocenter);
+                boolean goUp = better == upperHypocenter;
+
+                PreliminaryHypocenter temp = lowerHypocenter;
+                lowerHypocenter = upperHypocenter;
+                upperHypocenter = temp;
+
+                if (goUp) {
+                    upperBound = (upperBound + lowerBound) / 2.0;
+                    depthA = lowerBound + (upperBound - lowerBound) * (1 / 3.0);
+
+                    analyseHypocenter(upperHypocenter, lat, lon, depthA, finderSettings);
+                    threadData.setBest(EarthquakeAnalysis.selectBetterHypocenter(threadData.bestHypocenter, upperHypocenter));
+                } else {
+                    lowerBound = (upperBound + lowerBound) / 2.0;
+                    depthB = lowerBound + (upperBound - lowerBound) * (2 / 3.0);
+
+                    analyseHypocenter(lowerHypocenter, lat, lon, depthB, finderSettings);
+                    threadData.setBest(EarthquakeAnalysis.selectBetterHypocenter(threadData.bestHypocenter, lowerHypocenter));
+                }
+            }
+
+            // additionally check 0km and 10 km
+            analyseHypocenter(threadData.hypocenterA, lat, lon, 0, finderSettings);
+            threadData.setBest(EarthquakeAnalysis.selectBetterHypocenter(threadData.bestHypocenter, threadData.hypocenterA));
+            analyseHypocenter(threadData.hypocenterA, lat, lon, 10, finderSettings);
+            threadData.setBest(EarthquakeAnalysis.selectBetterHypocenter(threadData.bestHypocenter, threadData.hypocenterA));
+        }
+
+        private void analyseHypocenter(PreliminaryHypocenter hypocenter, double lat, double lon, double depth,
+                                       HypocenterFinderSettings finderSettings) {
+            long[] origins = threadData.origins;
+            if (!calculateOrigins(origins, depth)) {
+                hypocenter.correctStations = 0;
+                hypocenter.err = Double.MAX_VALUE;
+                return;
+            }
+
+            long bestOrigin = EarthquakeAnalysis.USE_MEDIAN_FOR_ORIGIN ? selectKth(origins, count, (count - 1) / 2) : origins[0];
+
+            double threshold = finderSettings.pWaveInaccuracyThreshold();
+            double err = 0;
+            int acc = 0;
+
+            for (int i = 0; i < count; i++) {
+                long residual = Math.abs(origins[i] - bestOrigin);
+                acc += residual < threshold ? 1 : 0;
+                err += error(residual, threshold);
+            }
+
+            hypocenter.lat = lat;
+            hypocenter.lon = lon;
+            hypocenter.depth = depth;
+            hypocenter.origin = bestOrigin;
+            hypocenter.err = err;
+            hypocenter.correctStations = acc;
+        }
+    }
+
+    // squared error in seconds, residuals above the threshold count less so that a few outliers don't dominate
+    private static double error(long residual, double threshold) {
+        double _err = residual < threshold ? residual : (residual - threshold) * 0.2 + threshold;
+        _err /= 1000;
+        return _err * _err;
+    }
+
+    /**
+     * Finds the k-th smallest of the first {@code length} values in O(n) average time.
+     * The array is partially reordered in the process.
+     */
+    public static long selectKth(long[] values, int length, int k) {
+        int left = 0;
+        int right = length - 1;
+
+        while (left < right) {
+            long pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long tmp = values[i];
+                    values[i] = values[j];
+                    values[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return values[k];
+            }
+        }
+
+        return values[k];
+    }
+
+}
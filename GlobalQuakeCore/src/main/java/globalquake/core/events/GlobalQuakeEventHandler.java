@@ -3,27 +3,41 @@ package globalquake.core.events;
 import globalquake.core.GlobalQuake;
 import globalquake.core.events.specific.GlobalQuakeEvent;
 import globalquake.core.events.specific.SeedlinkEvent;
+import globalquake.core.metrics.MetricsRegistry;
 import org.tinylog.Logger;
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class GlobalQuakeEventHandler {
 
     private Queue<GlobalQuakeEventListener> eventListeners;
 
-    private ExecutorService defaultExecutor;
-    private ExecutorService seedlinkExecutor;
+    private ThreadPoolExecutor defaultExecutor;
+    private ThreadPoolExecutor seedlinkExecutor;
 
     public GlobalQuakeEventHandler runHandler() {
         eventListeners = new ConcurrentLinkedQueue<>();
-        defaultExecutor = Executors.newSingleThreadExecutor();
-        seedlinkExecutor = Executors.newSingleThreadExecutor();
+        defaultExecutor = createExecutor();
+        seedlinkExecutor = createExecutor();
+
+        MetricsRegistry.getInstance().register("gq_event_queue_depth", "Number of events waiting to be delivered to the listeners",
+                MetricsRegistry.Type.GAUGE, sink -> {
+                    sink.sample(defaultExecutor.getQueue().size(), "executor", "default");
+                    sink.sample(seedlinkExecutor.getQueue().size(), "executor", "seedlink");
+                });
         return this;
     }
 
+    private static ThreadPoolExecutor createExecutor() {
+        // same as a single thread executor, but the queue stays visible for the metrics
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
     public void stopHandler(){
         GlobalQuake.instance.stopService(defaultExecutor);
         GlobalQuake.instance.stopService(seedlinkExecutor);
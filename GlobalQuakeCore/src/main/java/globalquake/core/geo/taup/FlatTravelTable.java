@@ -0,0 +1,82 @@
+package globalquake.core.geo.taup;
+
+/**
+ * Copy of a travel time table stored in a single float array, one contiguous row per depth slice.
+ * The table is padded with one extra row and column that repeat the last values, so that the
+ * bilinear interpolation never has to check the upper edges.
+ */
+public class FlatTravelTable {
+
+    public final float[] data;
+
+    // number of depth slices and angles of the original table
+    public final int rows;
+    public final int columns;
+
+    // length of one padded row
+    public final int stride;
+
+    public final double minAngle;
+    public final double maxAngle;
+
+    public FlatTravelTable(float[][] table, double minAngle, double maxAngle) {
+        this.rows = table.length;
+        this.columns = table[0].length;
+        this.stride = columns + 1;
+        this.minAngle = minAngle;
+        this.maxAngle = maxAngle;
+
+        data = new float[(rows + 1) * stride];
+        for (int row = 0; row <= rows; row++) {
+            float[] source = table[Math.min(row, rows - 1)];
+            System.arraycopy(source, 0, data, row * stride, columns);
+            data[row * stride + columns] = source[columns - 1];
+        }
+    }
+
+    /**
+     * @return fractional row of the given depth, or a negative value if the depth is out of range
+     */
+    public double depthToRow(double depth) {
+        double x = (depth / TauPTravelTimeCalculator.MAX_DEPTH) * (rows - 1);
+        return x < 0 || x > rows - 1 ? -1 : x;
+    }
+
+    /**
+     * Same as {@link TauPTravelTimeCalculator#getPWaveTravelTimeFast(double, double)}
+     */
+    public double getTravelTimeFast(double depth, double angle) {
+        double x = depthToRow(depth);
+        if (x < 0) {
+            return TauPTravelTimeCalculator.NO_ARRIVAL;
+        }
+
+        int x0 = (int) x;
+        return interpolate(x0 * stride, x - x0, angle);
+    }
+
+    /**
+     * Interpolates between the depth slice starting at rowOffset and the next one
+     *
+     * @param rowOffset offset of the upper depth slice in {@link #data}
+     * @param tx        fraction of the way to the next depth slice
+     */
+    public double interpolate(int rowOffset, double tx, double angle) {
+        double y = ((angle - minAngle) / (maxAngle - minAngle)) * (columns - 1);
+        if (y < 0 || y > columns - 1) {
+            return TauPTravelTimeCalculator.NO_ARRIVAL;
+        }
+
+        int y0 = (int) y;
+        double ty = y - y0;
+
+        int i = rowOffset + y0;
+        float q11 = data[i];
+        float q12 = data[i + 1];
+        float q21 = data[i + stride];
+        float q22 = data[i + stride + 1];
+
+        return (1 - tx) * (1 - ty) * q11 + tx * (1 - ty) * q21 + (1 - tx) * ty * q12 + tx * ty * q22;
+    }
+
+}
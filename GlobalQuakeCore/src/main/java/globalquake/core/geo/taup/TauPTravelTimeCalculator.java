@@ -16,14 +16,20 @@ public class TauPTravelTimeCalculator {
     public static final double MAX_DEPTH = 750.0;
     public static final float NO_ARRIVAL = -999.0f;
     private static TauPTravelTable travelTable;
+    private static FlatTravelTable pTravelTableFlat;
 
     public static TauPTravelTable getTravelTable() {
         return travelTable;
     }
 
+    public static FlatTravelTable getPTravelTableFlat() {
+        return pTravelTableFlat;
+    }
+
     public static void init() throws FatalApplicationException {
         try {
             travelTable = loadTravelTable("travel_table/travel_table.dat");
+            pTravelTableFlat = new FlatTravelTable(travelTable.p_travel_table, TauPTravelTable.P_S_MIN_ANGLE, TauPTravelTable.P_S_MAX_ANGLE);
         }catch(Exception e){
             throw new FatalApplicationException(e);
         }
@@ -0,0 +1,28 @@
+package globalquake.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Counter implements Metric {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    public void inc() {
+        value.increment();
+    }
+
+    public void inc(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    @Override
+    public void write(MetricsWriter writer, String name, String labels) {
+        writer.sample(name, labels, get());
+    }
+}
@@ -0,0 +1,29 @@
+package globalquake.core.metrics;
+
+import java.util.function.DoubleSupplier;
+
+public final class Gauge implements Metric {
+
+    private volatile double value;
+    private final DoubleSupplier supplier;
+
+    Gauge(DoubleSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Has no effect on gauges that read their value from a supplier
+     */
+    public void set(double value) {
+        this.value = value;
+    }
+
+    public double get() {
+        return supplier == null ? value : supplier.getAsDouble();
+    }
+
+    @Override
+    public void write(MetricsWriter writer, String name, String labels) {
+        writer.sample(name, labels, get());
+    }
+}
@@ -0,0 +1,65 @@
+package globalquake.core.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of observed values over fixed buckets, meant for durations in seconds
+ */
+public final class Histogram implements Metric {
+
+    public static final double[] DEFAULT_BUCKETS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final double[] bounds;
+    // the last one counts the values above the highest bound
+    private final LongAdder[] counts;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(double[] bounds) {
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        counts = new LongAdder[this.bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void observe(double value) {
+        int index = Arrays.binarySearch(bounds, value);
+        counts[index < 0 ? -index - 1 : index].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Observes the time passed since the given {@link System#nanoTime()}, in seconds
+     */
+    public void observeSince(long startNanos) {
+        observe((System.nanoTime() - startNanos) / 1_000_000_000.0);
+    }
+
+    public long getCount() {
+        long result = 0;
+        for (LongAdder count : counts) {
+            result += count.sum();
+        }
+        return result;
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    @Override
+    public void write(MetricsWriter writer, String name, String labels) {
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i].sum();
+            String le = i < bounds.length ? MetricsWriter.formatValue(bounds[i]) : "+Inf";
+            writer.sample(name + "_bucket", MetricsWriter.appendLabel(labels, "le", le), cumulative);
+        }
+
+        writer.sample(name + "_sum", labels, getSum());
+        writer.sample(name + "_count", labels, cumulative);
+    }
+}
@@ -0,0 +1,10 @@
+package globalquake.core.metrics;
+
+/**
+ * One labelled series of a metric family
+ */
+interface Metric {
+
+    void write(MetricsWriter writer, String name, String labels);
+
+}
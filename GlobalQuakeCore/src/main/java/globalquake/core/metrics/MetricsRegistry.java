@@ -0,0 +1,124 @@
+package globalquake.core.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * Counters, gauges and histograms of the running application, rendered in the Prometheus text format.
+ * Series are identified by the metric name and pairs of label names and values.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    public enum Type {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    /**
+     * Produces the series of a metric whose labels are only known at scrape time, like one per station
+     */
+    public interface Collector {
+        void collect(Sink sink);
+    }
+
+    public interface Sink {
+        void sample(double value, String... labels);
+    }
+
+    private static final class Family {
+        private final String help;
+        private final Type type;
+        private final Map<String, Metric> series = new ConcurrentSkipListMap<>();
+        private volatile Collector collector;
+
+        private Family(String help, Type type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) getOrCreate(name, help, Type.COUNTER, labels, ignored -> new Counter());
+    }
+
+    public Gauge gauge(String name, String help, String... labels) {
+        return (Gauge) getOrCreate(name, help, Type.GAUGE, labels, ignored -> new Gauge(null));
+    }
+
+    /**
+     * Registers a gauge reading its value from the supplier on every scrape, replacing the previous one
+     */
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        getFamily(name, help, Type.GAUGE).series.put(MetricsWriter.formatLabels(labels), new Gauge(supplier));
+    }
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return histogram(name, help, Histogram.DEFAULT_BUCKETS, labels);
+    }
+
+    public Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        return (Histogram) getOrCreate(name, help, Type.HISTOGRAM, labels, ignored -> new Histogram(buckets));
+    }
+
+    /**
+     * Sets the collector of the metric, replacing the previous one
+     */
+    public void register(String name, String help, Type type, Collector collector) {
+        if (type == Type.HISTOGRAM) {
+            throw new IllegalArgumentException("Histograms can't be collected");
+        }
+
+        getFamily(name, help, type).collector = collector;
+    }
+
+    public void remove(String name) {
+        families.remove(name);
+    }
+
+    public void remove(String name, String... labels) {
+        Family family = families.get(name);
+        if (family != null) {
+            family.series.remove(MetricsWriter.formatLabels(labels));
+        }
+    }
+
+    private Metric getOrCreate(String name, String help, Type type, String[] labels, Function<String, Metric> factory) {
+        return getFamily(name, help, type).series.computeIfAbsent(MetricsWriter.formatLabels(labels), factory);
+    }
+
+    private Family getFamily(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, ignored -> new Family(help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric %s is already registered as %s".formatted(name, family.type));
+        }
+        return family;
+    }
+
+    /**
+     * @return all metrics in the Prometheus text exposition format
+     */
+    public String scrape() {
+        MetricsWriter writer = new MetricsWriter();
+        families.forEach((name, family) -> {
+            writer.header(name, family.help, family.type);
+            family.series.forEach((labels, metric) -> metric.write(writer, name, labels));
+
+            Collector collector = family.collector;
+            if (collector != null) {
+                collector.collect((value, labels) -> writer.sample(name, MetricsWriter.formatLabels(labels), value));
+            }
+        });
+        return writer.toString();
+    }
+
+}
@@ -0,0 +1,69 @@
+package globalquake.core.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import globalquake.utils.NamedThreadFactory;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plain HTTP endpoint serving {@link MetricsRegistry#scrape()} at /metrics
+ */
+public class MetricsServer {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MetricsServer(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public synchronized void start(String ip, int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Metrics server is already running");
+        }
+
+        executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("Metrics Server"));
+        server = HttpServer.create(new InetSocketAddress(ip, port), 0);
+        server.createContext("/metrics", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        Logger.info("Metrics available at http://%s:%d/metrics".formatted(ip, port));
+    }
+
+    private void handle(HttpExchange exchange) {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (Exception e) {
+            Logger.error(e);
+        }
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+}
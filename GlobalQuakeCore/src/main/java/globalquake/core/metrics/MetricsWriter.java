@@ -0,0 +1,68 @@
+package globalquake.core.metrics;
+
+/**
+ * Writes the samples in the Prometheus text exposition format
+ */
+final class MetricsWriter {
+
+    private final StringBuilder out = new StringBuilder();
+
+    void header(String name, String help, MetricsRegistry.Type type) {
+        out.append("# HELP ").append(name).append(' ').append(escapeHelp(help)).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type.name().toLowerCase()).append('\n');
+    }
+
+    void sample(String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(formatValue(value)).append('\n');
+    }
+
+    static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * @param labels pairs of label names and values
+     */
+    static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs");
+        }
+
+        String result = "";
+        for (int i = 0; i < labels.length; i += 2) {
+            result = appendLabel(result, labels[i], labels[i + 1]);
+        }
+        return result;
+    }
+
+    static String appendLabel(String labels, String name, String value) {
+        String label = name + "=\"" + escapeLabel(value) + '"';
+        return labels.isEmpty() ? label : labels + ',' + label;
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -7,6 +7,8 @@ import edu.sc.seis.seisFile.seedlink.SeedlinkReader;
 import globalquake.core.GlobalQuake;
 import globalquake.core.database.SeedlinkNetwork;
 import globalquake.core.database.SeedlinkStatus;
+import globalquake.core.metrics.Counter;
+import globalquake.core.metrics.MetricsRegistry;
 import globalquake.core.station.AbstractStation;
 import globalquake.core.station.GlobalStation;
 import org.tinylog.Logger;
@@ -56,6 +58,7 @@ public class SeedlinkNetworksReader {
 
 	public void run() {
 		createCache();
+		registerMetrics();
 		seedlinkReaderService = Executors.newCachedThreadPool();
 		GlobalQuake.instance.getStationDatabaseManager().getStationDatabase().getDatabaseReadLock().lock();
 
@@ -69,6 +72,24 @@ public class SeedlinkNetworksReader {
 
 	private final Map<String, GlobalStation> stationCache = new HashMap<>();
 
+	private void registerMetrics() {
+		MetricsRegistry metrics = MetricsRegistry.getInstance();
+		metrics.register("gq_seedlink_connected_stations", "Number of stations selected on the seedlink network",
+				MetricsRegistry.Type.GAUGE, sink -> {
+					var database = GlobalQuake.instance.getStationDatabaseManager().getStationDatabase();
+					database.getDatabaseReadLock().lock();
+					try {
+						for (SeedlinkNetwork seedlinkNetwork : database.getSeedlinkNetworks()) {
+							sink.sample(seedlinkNetwork.connectedStations, "network", seedlinkNetwork.getName());
+						}
+					} finally {
+						database.getDatabaseReadLock().unlock();
+					}
+				});
+		metrics.gauge("gq_seedlink_last_record_age_seconds", "Time since the end of the newest record received from any seedlink network",
+				() -> lastReceivedRecord == 0 ? Double.NaN : (GlobalQuake.instance.currentTimeMillis() - lastReceivedRecord) / 1000.0);
+	}
+
 	private void createCache() {
 		for (AbstractStation s : GlobalQuake.instance.getStationManager().getStations()) {
 			if (s instanceof GlobalStation) {
@@ -114,8 +135,11 @@ public class SeedlinkNetworksReader {
 			reader.startData();
 			seedlinkNetwork.status = SeedlinkStatus.RUNNING;
 
+			Counter receivedRecords = MetricsRegistry.getInstance().counter("gq_seedlink_records_total",
+					"Number of records received from the seedlink network", "network", seedlinkNetwork.getName());
 			while (reader.hasNext()) {
 				SeedlinkPacket slp = reader.readPacket();
+				receivedRecords.inc();
 				try {
 					newPacket(slp.getMiniSeed());
 				} catch(SocketException | SeedFormatException se){
@@ -2,73 +2,85 @@ package globalquake.core.station;
 
 import edu.sc.seis.seisFile.mseed.DataRecord;
 import globalquake.core.GlobalQuake;
+import globalquake.core.GlobalQuakeRuntime;
 import globalquake.core.Settings;
 import globalquake.core.analysis.Event;
 import globalquake.core.database.SeedlinkNetwork;
 import globalquake.core.events.specific.SeedlinkDataEvent;
 import gqserver.api.packets.station.InputType;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.Comparator;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class GlobalStation extends AbstractStation {
 
 	private static final long MAX_STRETCH_SECONDS = 60;
-	private final Object recordsQueueLock = new Object();
+	private static final long NO_EXPECTED_LOG = Long.MIN_VALUE;
 
-	private final SortedSet<DataRecord> records;
+	// records from the seedlink threads, only the analysis thread takes them out
+	private final Queue<QueuedRecord> incomingRecords = new ConcurrentLinkedQueue<>();
+
+	// reordering buffer keyed by start time, only accessed by the analysis thread
+	private final NavigableMap<Long, QueuedRecord> records = new TreeMap<>();
 	private final InputType inputType;
 
-	private Instant nextExpectedLog = null;
+	private long nextExpectedLog = NO_EXPECTED_LOG;
 
+	private record QueuedRecord(long startTime, long predictedNextStartTime, DataRecord dataRecord) {
+	}
 
 	public GlobalStation(String networkCode, String stationCode, String channelName,
 						 String locationCode, double lat, double lon, double alt,
 						 int id, SeedlinkNetwork seedlinkNetwork, double sensitivity, InputType inputType) {
 		super(networkCode, stationCode, channelName, locationCode, lat, lon, alt, id, seedlinkNetwork, sensitivity);
-		this.records = new TreeSet<>(Comparator.comparing(dataRecord -> dataRecord.getStartBtime().toInstant().toEpochMilli()));
 		this.inputType = inputType;
 	}
 
 	public void addRecord(DataRecord dr) {
-		synchronized (recordsQueueLock) {
-			records.add(dr);
+		incomingRecords.add(new QueuedRecord(dr.getStartBtime().toInstant().toEpochMilli(),
+				dr.getPredictedNextStartBtime().toInstant().toEpochMilli(), dr));
+
+		GlobalQuakeRuntime runtime = GlobalQuake.instance == null ? null : GlobalQuake.instance.getGlobalQuakeRuntime();
+		StationAnalysisScheduler scheduler = runtime == null ? null : runtime.getStationAnalysisScheduler();
+		if (scheduler != null) {
+			scheduler.schedule(this);
 		}
 	}
 
 	@Override
 	public void analyse() {
-		synchronized (recordsQueueLock){
-			while(!records.isEmpty()){
-				DataRecord oldest = records.first();
+		QueuedRecord incoming;
+		while ((incoming = incomingRecords.poll()) != null) {
+			records.putIfAbsent(incoming.startTime(), incoming);
+		}
 
-				Instant startTime = oldest.getStartBtime().toInstant();
+		while (!records.isEmpty()) {
+			QueuedRecord oldest = records.firstEntry().getValue();
+			long startTime = oldest.startTime();
 
-				if(nextExpectedLog == null){
-					records.remove(oldest);
+			if (nextExpectedLog == NO_EXPECTED_LOG) {
+				records.pollFirstEntry();
+				process(oldest);
+				continue;
+			}
+
+			if (Math.abs(startTime - nextExpectedLog) < 60) {
+				records.pollFirstEntry();
+				process(oldest);
+			} else if (startTime < nextExpectedLog) {
+				records.pollFirstEntry();
+			} else {
+				long gapSeconds = (startTime - nextExpectedLog) / 1000;
+				long stretchSeconds = (records.lastEntry().getValue().predictedNextStartTime() - startTime) / 1000;
+				if (gapSeconds > MAX_STRETCH_SECONDS || stretchSeconds > MAX_STRETCH_SECONDS) {
+					records.pollFirstEntry();
 					process(oldest);
 					continue;
 				}
 
-				if(Math.abs(ChronoUnit.MILLIS.between(startTime, nextExpectedLog)) < 60) {
-					records.remove(oldest);
-					process(oldest);
-				}else if(startTime.isBefore(nextExpectedLog)){
-					records.remove(oldest);
-                } else {
-					long gapSeconds = nextExpectedLog.until(startTime, ChronoUnit.SECONDS);
-					long stretchSeconds = startTime.until(records.last().getPredictedNextStartBtime().toInstant(), ChronoUnit.SECONDS);
-					if(gapSeconds > MAX_STRETCH_SECONDS || stretchSeconds > MAX_STRETCH_SECONDS){
-						records.remove(oldest);
-						process(oldest);
-						continue;
-					}
-
-					break;
-				}
+				break;
 			}
 		}
 	}
@@ -78,23 +90,25 @@ public class GlobalStation extends AbstractStation {
 		return inputType;
 	}
 
-	private void process(DataRecord record) {
-		nextExpectedLog = record.getPredictedNextStartBtime().toInstant();
+	private void process(QueuedRecord queuedRecord) {
+		nextExpectedLog = queuedRecord.predictedNextStartTime();
 
-		if (!isTimeValid(record)) {
+		if (!isTimeValid(queuedRecord.startTime())) {
 			return;
 		}
 
+		DataRecord record = queuedRecord.dataRecord();
 		getAnalysis().analyse(record);
 		GlobalQuake.instance.getEventHandler().fireEvent(new SeedlinkDataEvent(this, record));
 		GlobalQuake.instance.getSeedlinkReader().logRecord(record.getLastSampleBtime().toInstant().toEpochMilli());
 	}
 
 
-	private boolean isTimeValid(DataRecord record) {
-		Instant latest = Instant.now().plus(16, ChronoUnit.SECONDS);
-		Instant earliest = Instant.now().minus(Settings.logsStoreTimeMinutes, ChronoUnit.MINUTES);
-		return record.getStartBtime().toInstant().isAfter(earliest) & record.getStartBtime().toInstant().isBefore(latest);
+	private boolean isTimeValid(long startTime) {
+		long now = System.currentTimeMillis();
+		long latest = now + 16 * 1000;
+		long earliest = now - Settings.logsStoreTimeMinutes * 60 * 1000L;
+		return startTime > earliest && startTime < latest;
 	}
 
 	@Override
@@ -1,5 +1,6 @@
 package globalquake.core.station;
 
+import globalquake.core.analysis.ActiveEventIndex;
 import globalquake.core.database.*;
 import globalquake.utils.GeoUtils;
 import org.tinylog.Logger;
@@ -12,11 +13,16 @@ public class GlobalStationManager {
 
     private static final int RAYS = 9;
     private static final int STATIONS_PER_RAY = 3;
+
+    // nearby stations are searched in growing radii, the last one is the hard limit
+    private static final double[] SEARCH_RADII = {500, 1000, 2000, 4000};
     private final Collection<AbstractStation> stations = new ConcurrentLinkedQueue<>();
 
 
     private final AtomicInteger nextID = new AtomicInteger(0);
     protected UUID indexing;
+    private volatile StationIndex stationIndex;
+    private final ActiveEventIndex activeEvents = new ActiveEventIndex();
 
     public void initStations(StationDatabaseManager databaseManager) {
         if(databaseManager == null){
@@ -24,6 +30,7 @@ public class GlobalStationManager {
         }
         indexing = UUID.randomUUID();
         stations.clear();
+        activeEvents.clear();
         nextID.set(0);
 
         databaseManager.getStationDatabase().getDatabaseReadLock().lock();
@@ -43,63 +50,85 @@ public class GlobalStationManager {
             databaseManager.getStationDatabase().getDatabaseReadLock().unlock();
         }
 
-        createListOfClosestStations(stations);
+        stationIndex = createListOfClosestStations(stations);
         Logger.info("Initialized " + stations.size() + " Stations.");
     }
 
-    public static void createListOfClosestStations(Collection<AbstractStation> stations){
+    public static StationIndex createListOfClosestStations(Collection<AbstractStation> stations){
+        StationIndex stationIndex = new StationIndex(stations);
+
         stations.parallelStream().forEach(station -> {
-            @SuppressWarnings("unchecked") Queue<NearbyStationDistanceInfo>[] rays = new Queue[RAYS];
-            for (int i = 0; i < RAYS; i++) {
-                rays[i] = new PriorityQueue<>(Comparator.comparing(NearbyStationDistanceInfo::dist));
+            Set<NearbyStationDistanceInfo> result = null;
+            for (int i = 0; i < SEARCH_RADII.length && result == null; i++) {
+                result = findNearbyStations(stationIndex, station, SEARCH_RADII[i], i == SEARCH_RADII.length - 1);
             }
 
-            for (AbstractStation station2 : stations) {
-                if (!(station2.getId() == station.getId())) {
-                    double dist = GeoUtils.greatCircleDistance(station.getLatitude(), station.getLongitude(), station2.getLatitude(),
-                            station2.getLongitude());
+            station.setNearbyStations(result);
+        });
 
-                    if(dist > 4000){
-                        continue;
-                    }
+        return stationIndex;
+    }
 
-                    double ang = GeoUtils.calculateAngle(station.getLatitude(), station.getLongitude(), station2.getLatitude(),
-                            station2.getLongitude());
-                    int ray = (int) ((ang / 360.0) * (RAYS - 1.0));
+    /**
+     * Selects the closest stations in each ray from the stations within the radius.
+     * Returns null if some ray ran out of candidates before it was filled, because a larger radius could then change the result.
+     */
+    private static Set<NearbyStationDistanceInfo> findNearbyStations(StationIndex stationIndex, AbstractStation station,
+                                                                     double radius, boolean lastRadius) {
+        @SuppressWarnings("unchecked") Queue<NearbyStationDistanceInfo>[] rays = new Queue[RAYS];
+        for (int i = 0; i < RAYS; i++) {
+            rays[i] = new PriorityQueue<>(Comparator.comparing(NearbyStationDistanceInfo::dist)
+                    .thenComparing(info -> info.station().getId()));
+        }
 
-                    NearbyStationDistanceInfo nearbyStationDistanceInfo = new NearbyStationDistanceInfo(station2, (float) dist, (float) ang);
+        stationIndex.forEachWithin(station.getLatitude(), station.getLongitude(), radius, station2 -> {
+            if (station2.getId() == station.getId()) {
+                return;
+            }
 
-                    rays[ray].add(nearbyStationDistanceInfo);
-                    int ray2 = ray + 1;
-                    if (ray2 == RAYS) {
-                        ray2 = 0;
-                    }
-                    int ray3 = ray - 1;
-                    if (ray3 == -1) {
-                        ray3 = RAYS - 1;
-                    }
-                    rays[ray2].add(nearbyStationDistanceInfo);
-                    rays[ray3].add(nearbyStationDistanceInfo);
-                }
+            double dist = GeoUtils.greatCircleDistance(station.getLatitude(), station.getLongitude(), station2.getLatitude(),
+                    station2.getLongitude());
+            double ang = GeoUtils.calculateAngle(station.getLatitude(), station.getLongitude(), station2.getLatitude(),
+                    station2.getLongitude());
+            int ray = (int) ((ang / 360.0) * (RAYS - 1.0));
+
+            NearbyStationDistanceInfo nearbyStationDistanceInfo = new NearbyStationDistanceInfo(station2, (float) dist, (float) ang);
+
+            rays[ray].add(nearbyStationDistanceInfo);
+            int ray2 = ray + 1;
+            if (ray2 == RAYS) {
+                ray2 = 0;
             }
+            int ray3 = ray - 1;
+            if (ray3 == -1) {
+                ray3 = RAYS - 1;
+            }
+            rays[ray2].add(nearbyStationDistanceInfo);
+            rays[ray3].add(nearbyStationDistanceInfo);
+        });
 
-            Set<NearbyStationDistanceInfo> result = new HashSet<>();
-            for(Queue<NearbyStationDistanceInfo> ray : rays){
-                int count = 0;
-                while(count < STATIONS_PER_RAY && !ray.isEmpty()) {
-                    NearbyStationDistanceInfo stationDistanceInfo = ray.remove();
-                    if(result.add(stationDistanceInfo)){
-                        count++;
-                    }
+        Set<NearbyStationDistanceInfo> result = new HashSet<>();
+        for(Queue<NearbyStationDistanceInfo> ray : rays){
+            int count = 0;
+            boolean finished = false;
+            while(count < STATIONS_PER_RAY && !ray.isEmpty()) {
+                NearbyStationDistanceInfo stationDistanceInfo = ray.remove();
+                if(result.add(stationDistanceInfo)){
+                    count++;
+                }
 
-                    if(stationDistanceInfo.dist() > 1000){
-                        break; // only 1 station furher than 1000km allowed
-                    }
+                if(stationDistanceInfo.dist() > 1000){
+                    finished = true;
+                    break; // only 1 station furher than 1000km allowed
                 }
             }
 
-            station.setNearbyStations(result);
-        });
+            if(!lastRadius && !finished && count < STATIONS_PER_RAY){
+                return null;
+            }
+        }
+
+        return result;
     }
 
     private GlobalStation createGlobalStation(Station station, Channel ch) {
@@ -113,6 +142,14 @@ public class GlobalStationManager {
         return stations;
     }
 
+    public StationIndex getStationIndex() {
+        return stationIndex;
+    }
+
+    public ActiveEventIndex getActiveEvents() {
+        return activeEvents;
+    }
+
     public UUID getIndexing() {
         return indexing;
     }
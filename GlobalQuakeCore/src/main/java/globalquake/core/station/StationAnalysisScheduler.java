@@ -0,0 +1,181 @@
+package globalquake.core.station;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.metrics.Histogram;
+import globalquake.core.metrics.MetricsRegistry;
+import globalquake.utils.NamedThreadFactory;
+import org.tinylog.Logger;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the station analysis on a fixed set of worker threads.
+ * Every station always belongs to the same shard and is only analysed after new records were added to it.
+ */
+public class StationAnalysisScheduler {
+
+    private final Shard[] shards;
+    private volatile boolean running;
+
+    private final Histogram analysisDuration = MetricsRegistry.getInstance().histogram("gq_station_analysis_duration_seconds",
+            "Duration of the analysis of one station");
+
+    public StationAnalysisScheduler(int shardCount) {
+        shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    public static int getDefaultShardCount() {
+        return Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public void start() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.register("gq_station_analysis_lag_seconds", "How long the oldest station waiting for analysis has been waiting",
+                MetricsRegistry.Type.GAUGE, sink -> {
+                    for (int i = 0; i < shards.length; i++) {
+                        sink.sample(getShardLag(i) / 1000.0, "shard", String.valueOf(i));
+                    }
+                });
+        metrics.register("gq_station_analysis_pending", "Number of stations waiting for analysis",
+                MetricsRegistry.Type.GAUGE, sink -> {
+                    for (int i = 0; i < shards.length; i++) {
+                        sink.sample(getShardPending(i), "shard", String.valueOf(i));
+                    }
+                });
+
+        running = true;
+        for (Shard shard : shards) {
+            shard.start();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        for (Shard shard : shards) {
+            shard.wakeUp();
+            GlobalQuake.instance.stopService(shard.executor);
+        }
+    }
+
+    /**
+     * Marks the station as having pending records, does nothing if it's already waiting for analysis
+     */
+    public void schedule(AbstractStation station) {
+        shards[Math.floorMod(station.getId(), shards.length)].schedule(station);
+    }
+
+    /**
+     * Updates the throughput of all shards, expected to be called once per second
+     */
+    public void second() {
+        for (Shard shard : shards) {
+            shard.second();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return how long the oldest station waiting in the shard has been waiting, in milliseconds
+     */
+    public long getShardLag(int shard) {
+        return shards[shard].getLag();
+    }
+
+    /**
+     * @return number of station analyses the shard completed during the last second
+     */
+    public long getShardThroughput(int shard) {
+        return shards[shard].throughput;
+    }
+
+    public int getShardPending(int shard) {
+        return shards[shard].scheduled.size();
+    }
+
+    private record PendingStation(AbstractStation station, long scheduledAt) {
+    }
+
+    private class Shard {
+
+        private final ExecutorService executor;
+        private final Queue<PendingStation> pending = new ConcurrentLinkedQueue<>();
+        private final Set<AbstractStation> scheduled = ConcurrentHashMap.newKeySet();
+        private final AtomicLong processed = new AtomicLong();
+
+        private volatile Thread thread;
+        private long lastProcessed;
+        private volatile long throughput;
+
+        public Shard(int index) {
+            executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("Station Analysis Thread #%d".formatted(index)));
+        }
+
+        public void start() {
+            executor.submit(this::run);
+        }
+
+        public void schedule(AbstractStation station) {
+            if (scheduled.add(station)) {
+                pending.add(new PendingStation(station, System.currentTimeMillis()));
+                wakeUp();
+            }
+        }
+
+        public void wakeUp() {
+            Thread t = thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+
+        private void run() {
+            thread = Thread.currentThread();
+            while (running && !Thread.currentThread().isInterrupted()) {
+                PendingStation next = pending.poll();
+                if (next == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+
+                // records that arrive from now on schedule the station again
+                scheduled.remove(next.station());
+
+                long start = System.nanoTime();
+                try {
+                    next.station().analyse();
+                } catch (Exception e) {
+                    Logger.error("Exception occurred in station analysis");
+                    GlobalQuake.getErrorHandler().handleException(e);
+                }
+
+                analysisDuration.observeSince(start);
+                processed.incrementAndGet();
+            }
+        }
+
+        public long getLag() {
+            PendingStation oldest = pending.peek();
+            return oldest == null ? 0 : System.currentTimeMillis() - oldest.scheduledAt();
+        }
+
+        public void second() {
+            long total = processed.get();
+            throughput = total - lastProcessed;
+            lastProcessed = total;
+        }
+    }
+
+}
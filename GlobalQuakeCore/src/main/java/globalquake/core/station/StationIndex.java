@@ -0,0 +1,173 @@
+package globalquake.core.station;
+
+import globalquake.utils.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Static k-d tree over the unit vectors of the stations.
+ * Great circle distance grows monotonically with the chord length, so radius queries
+ * only need to visit the part of the tree that is within the matching chord.
+ */
+public class StationIndex {
+
+    // guards the chord bound against rounding, every candidate is checked with the exact distance anyway
+    private static final double CHORD_EPSILON = 1e-9;
+
+    private final AbstractStation[] stations;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+
+    public StationIndex(Collection<? extends AbstractStation> stations) {
+        this.stations = stations.toArray(new AbstractStation[0]);
+        int n = this.stations.length;
+        xs = new double[n];
+        ys = new double[n];
+        zs = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            AbstractStation station = this.stations[i];
+            double lat = Math.toRadians(station.getLatitude());
+            double lon = Math.toRadians(station.getLongitude());
+            xs[i] = Math.cos(lat) * Math.cos(lon);
+            ys[i] = Math.cos(lat) * Math.sin(lon);
+            zs[i] = Math.sin(lat);
+        }
+
+        build(0, n, 0);
+    }
+
+    public int size() {
+        return stations.length;
+    }
+
+    public List<AbstractStation> getStationsWithin(double lat, double lon, double radius) {
+        List<AbstractStation> result = new ArrayList<>();
+        forEachWithin(lat, lon, radius, result::add);
+        return result;
+    }
+
+    /**
+     * Calls the consumer for every station whose great circle distance is at most radius km
+     */
+    public void forEachWithin(double lat, double lon, double radius, Consumer<AbstractStation> consumer) {
+        if (stations.length == 0 || radius < 0) {
+            return;
+        }
+
+        double latRad = Math.toRadians(lat);
+        double lonRad = Math.toRadians(lon);
+        double[] query = {
+                Math.cos(latRad) * Math.cos(lonRad),
+                Math.cos(latRad) * Math.sin(lonRad),
+                Math.sin(latRad)
+        };
+
+        double angle = Math.min(Math.PI, radius / GeoUtils.EARTH_RADIUS);
+        double chord = 2.0 * Math.sin(angle / 2.0) + CHORD_EPSILON;
+
+        search(0, stations.length, 0, query, chord * chord, lat, lon, radius, consumer);
+    }
+
+    private void search(int from, int to, int axis, double[] query, double chordSq,
+                        double lat, double lon, double radius, Consumer<AbstractStation> consumer) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            double dx = query[0] - xs[mid];
+            double dy = query[1] - ys[mid];
+            double dz = query[2] - zs[mid];
+
+            if (dx * dx + dy * dy + dz * dz <= chordSq) {
+                AbstractStation station = stations[mid];
+                if (GeoUtils.greatCircleDistance(lat, lon, station.getLatitude(), station.getLongitude()) <= radius) {
+                    consumer.accept(station);
+                }
+            }
+
+            double diff = axis == 0 ? dx : axis == 1 ? dy : dz;
+            int nextAxis = axis == 2 ? 0 : axis + 1;
+
+            // descend into the near half, the far half only if the splitting plane is within reach
+            if (diff < 0) {
+                if (diff * diff <= chordSq) {
+                    search(mid + 1, to, nextAxis, query, chordSq, lat, lon, radius, consumer);
+                }
+                to = mid;
+            } else {
+                if (diff * diff <= chordSq) {
+                    search(from, mid, nextAxis, query, chordSq, lat, lon, radius, consumer);
+                }
+                from = mid + 1;
+            }
+            axis = nextAxis;
+        }
+    }
+
+    private void build(int from, int to, int axis) {
+        while (to - from > 1) {
+            int mid = (from + to) >>> 1;
+            select(from, to - 1, mid, axis);
+            int nextAxis = axis == 2 ? 0 : axis + 1;
+            build(from, mid, nextAxis);
+            from = mid + 1;
+            axis = nextAxis;
+        }
+    }
+
+    private double coordinate(int index, int axis) {
+        return axis == 0 ? xs[index] : axis == 1 ? ys[index] : zs[index];
+    }
+
+    // quickselect, afterwards everything left of k is <= k and everything right of k is >= k on the given axis
+    private void select(int left, int right, int k, int axis) {
+        while (right > left) {
+            double pivot = coordinate((left + right) >>> 1, axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(i, axis) < pivot) {
+                    i++;
+                }
+                while (coordinate(j, axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        AbstractStation station = stations[a];
+        stations[a] = stations[b];
+        stations[b] = station;
+
+        double x = xs[a];
+        xs[a] = xs[b];
+        xs[b] = x;
+
+        double y = ys[a];
+        ys[a] = ys[b];
+        ys[b] = y;
+
+        double z = zs[a];
+        zs[a] = zs[b];
+        zs[b] = z;
+    }
+
+}
@@ -1,6 +1,7 @@
 package globalquake.core.training;
 
 import globalquake.core.Settings;
+import globalquake.core.analysis.ActiveEventIndex;
 import globalquake.core.analysis.Event;
 import globalquake.core.earthquake.ClusterAnalysis;
 import globalquake.core.earthquake.EarthquakeAnalysis;
@@ -10,6 +11,7 @@ import globalquake.core.intensity.IntensityTable;
 import globalquake.core.regions.Regions;
 import globalquake.core.station.AbstractStation;
 import globalquake.core.station.GlobalStationManager;
+import globalquake.core.station.StationIndex;
 import globalquake.utils.GeoUtils;
 import gqserver.api.packets.station.InputType;
 
@@ -153,11 +155,14 @@ public class ClusterAnalysisTraining {
             stations.add(simulatedStation);
         }
 
-        GlobalStationManager.createListOfClosestStations(stations);
+        StationIndex stationIndex = GlobalStationManager.createListOfClosestStations(stations);
 
         List<Earthquake> earthquakes = new CopyOnWriteArrayList<>();
 
         ClusterAnalysis clusterAnalysis = new ClusterAnalysis(earthquakes, stations);
+        clusterAnalysis.setStationIndex(stationIndex);
+        ActiveEventIndex activeEvents = new ActiveEventIndex();
+        clusterAnalysis.setActiveEvents(activeEvents);
         EarthquakeAnalysis earthquakeAnalysis = new EarthquakeAnalysis(clusterAnalysis, earthquakes);
 
         System.out.println("Init done with "+stations.size()+" stations");
@@ -224,7 +229,7 @@ public class ClusterAnalysisTraining {
                 }
             }
 
-            createEvents(stations, simulatedEarthquakes, time, r);
+            createEvents(stations, activeEvents, simulatedEarthquakes, time, r);
 
             clusterAnalysis.run();
             earthquakeAnalysis.run();
@@ -265,7 +270,7 @@ public class ClusterAnalysisTraining {
 
     private static int eventC = 0;
 
-    private static void createEvents(List<AbstractStation> stations, List<SimulatedEarthquake> earthquakes, long time, Random r) {
+    private static void createEvents(List<AbstractStation> stations, ActiveEventIndex activeEvents, List<SimulatedEarthquake> earthquakes, long time, Random r) {
         for (SimulatedEarthquake earthquake : earthquakes) {
             for (AbstractStation abstractStation : stations) {
                 SimulatedStation station = (SimulatedStation) abstractStation;
@@ -296,6 +301,7 @@ public class ClusterAnalysisTraining {
                         event.setpWave(earthquake.origin + expectedTravelP + r.nextLong(INACCURACY * 2) - INACCURACY);
 
                         station.getAnalysis().getDetectedEvents().add(event);
+                        activeEvents.add(event);
                         eventC++;
                     }
                 }
@@ -312,6 +318,7 @@ public class ClusterAnalysisTraining {
                         event.setpWave(earthquake.origin + expectedTravelP + r.nextLong(INACCURACY * 2) - INACCURACY);
 
                         station.getAnalysis().getDetectedEvents().add(event);
+                        activeEvents.add(event);
                         eventC++;
                     }
                 }
@@ -0,0 +1,105 @@
+package globalquake.core.training;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.Settings;
+import globalquake.core.earthquake.EarthquakeAnalysis;
+import globalquake.core.earthquake.data.Cluster;
+import globalquake.core.earthquake.data.HypocenterFinderSettings;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.utils.GeoUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs the original and the array based CPU hypocenter search on the same picked events
+ * and prints the speed and the differences between the results.
+ */
+@SuppressWarnings("unused")
+public class HypocenterSearchKernelTraining {
+
+    private static final int RUNS = 20;
+    private static final int[] STATION_COUNTS = {10, 50, 200};
+
+    public static void main(String[] args) throws Exception {
+        TauPTravelTimeCalculator.init();
+        GlobalQuake.prepare(new File("./training/"), null);
+
+        Settings.hypocenterDetectionResolution = 40.0;
+        Settings.pWaveInaccuracyThreshold = 4000.0;
+        Settings.parallelHypocenterLocations = true;
+
+        for (int stations : STATION_COUNTS) {
+            long timeOld = 0;
+            long timeNew = 0;
+            double maxDist = 0;
+            double maxDepthDiff = 0;
+            long maxOriginDiff = 0;
+
+            for (int i = 0; i < RUNS; i++) {
+                List<PickedEvent> pickedEvents = new ArrayList<>();
+                Cluster cluster = createTest(888 + i, stations, pickedEvents);
+                HypocenterFinderSettings finderSettings = EarthquakeAnalysis.createSettings();
+                EarthquakeAnalysis earthquakeAnalysis = new EarthquakeAnalysis();
+
+                Settings.useHypocenterSearchKernel = false;
+                long a = System.nanoTime();
+                PreliminaryHypocenter old = earthquakeAnalysis.runHypocenterFinder(pickedEvents, cluster, finderSettings, true);
+                timeOld += System.nanoTime() - a;
+
+                Settings.useHypocenterSearchKernel = true;
+                a = System.nanoTime();
+                PreliminaryHypocenter fast = earthquakeAnalysis.runHypocenterFinder(pickedEvents, cluster, finderSettings, true);
+                timeNew += System.nanoTime() - a;
+
+                maxDist = Math.max(maxDist, GeoUtils.greatCircleDistance(old.lat, old.lon, fast.lat, fast.lon));
+                maxDepthDiff = Math.max(maxDepthDiff, Math.abs(old.depth - fast.depth));
+                maxOriginDiff = Math.max(maxOriginDiff, Math.abs(old.origin - fast.origin));
+            }
+
+            System.err.println("============================================");
+            System.err.printf("STATIONS = %d%n", stations);
+            System.err.printf("ORIGINAL AVERAGE = %.2f ms%n", timeOld / 1e6 / RUNS);
+            System.err.printf("KERNEL AVERAGE = %.2f ms%n", timeNew / 1e6 / RUNS);
+            System.err.printf("MAX DIFFERENCE = %.3f km, depth %.3f km, origin %d ms%n", maxDist, maxDepthDiff, maxOriginDiff);
+        }
+
+        System.err.println("============================================");
+        System.exit(0);
+    }
+
+    private static Cluster createTest(long seed, int stations, List<PickedEvent> pickedEvents) {
+        Random r = new Random(seed);
+
+        List<EarthquakeAnalysisTraining.FakeStation> fakeStations = new ArrayList<>();
+        for (int i = 0; i < stations; i++) {
+            double ang = r.nextDouble() * 360.0;
+            double dist = r.nextDouble() * EarthquakeAnalysisTraining.DIST;
+            double[] latLon = GeoUtils.moveOnGlobe(0, 0, dist, ang);
+            fakeStations.add(new EarthquakeAnalysisTraining.FakeStation(latLon[0], latLon[1]));
+        }
+
+        double lat = r.nextDouble() * 10;
+        double lon = r.nextDouble() * 10;
+        double depth = r.nextDouble() * 200;
+
+        for (EarthquakeAnalysisTraining.FakeStation fakeStation : fakeStations) {
+            double distGC = GeoUtils.greatCircleDistance(lat, lon, fakeStation.lat(), fakeStation.lon());
+            double travelTime = TauPTravelTimeCalculator.getPWaveTravelTime(depth, TauPTravelTimeCalculator.toAngle(distGC));
+
+            long time = (long) (travelTime * 1000.0);
+            time += (long) ((r.nextDouble() - 0.5) * 1000.0);
+
+            pickedEvents.add(new PickedEvent(time, fakeStation.lat(), fakeStation.lon(), 0, 100));
+        }
+
+        Cluster cluster = new Cluster();
+        cluster.calculateRoot(fakeStations);
+        return cluster;
+    }
+
+}
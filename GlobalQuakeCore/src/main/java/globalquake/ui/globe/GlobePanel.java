@@ -12,6 +12,8 @@ import org.tinylog.Logger;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.util.Timer;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -53,6 +55,16 @@ public class GlobePanel extends JPanel implements GeoUtils {
 
     private long lastCinemaModeCheck = 0;
 
+    // frames are rendered off the EDT into the back buffer, paint only draws the last finished one
+    private final Object frameLock = new Object();
+    private final Object requestLock = new Object();
+    private boolean frameRequested = false;
+    private BufferedImage frontBuffer;
+    private BufferedImage backBuffer;
+    private RenderProperties frontProperties;
+    private long lastFrameTime = 0;
+    private Thread renderThread;
+
     public void setCinemaMode(boolean cinemaMode) {
         lastCinemaModeCheck = System.currentTimeMillis();
         this.cinemaMode = cinemaMode;
@@ -112,7 +124,7 @@ public class GlobePanel extends JPanel implements GeoUtils {
                 centerLat = Math.max(-90, Math.min(90, dragStartLat + deltaY * 0.10 * scroll / (createRenderProperties().height / 1000.0)));
 
                 renderer.updateCamera(createRenderProperties());
-                repaint();
+                requestFrame();
             }
         });
         addMouseListener(new MouseAdapter() {
@@ -172,13 +184,14 @@ public class GlobePanel extends JPanel implements GeoUtils {
 
 
             renderer.updateCamera(createRenderProperties());
-            repaint();
+            requestFrame();
         });
 
         addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
                 renderer.updateCamera(createRenderProperties());
+                requestFrame();
             }
 
         });
@@ -255,6 +268,7 @@ public class GlobePanel extends JPanel implements GeoUtils {
                 scroll = currentScroll;
 
                 renderer.updateCamera(createRenderProperties());
+                requestFrame();
 
                 if(step[0] == steps){
                     this.cancel();
@@ -283,6 +297,7 @@ public class GlobePanel extends JPanel implements GeoUtils {
         centerLon = targetLon;
         scroll = targetScroll;
         renderer.updateCamera(createRenderProperties());
+        requestFrame();
     }
 
     public synchronized void smoothTransition(double targetLat, double targetLon, double targetScroll){
@@ -453,11 +468,99 @@ public class GlobePanel extends JPanel implements GeoUtils {
 
                 centerLon += Math.abs(spinSpeed) * spinDirection;
                 renderer.updateCamera(createRenderProperties());
-                repaint();
+                requestFrame();
             }
         }, 0, 10);
     }
 
+    /**
+     * Asks the render thread for a new frame, requests made while a frame is being rendered are merged into the next one
+     */
+    public void requestFrame() {
+        synchronized (requestLock) {
+            frameRequested = true;
+            requestLock.notify();
+        }
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (renderThread == null) {
+            renderThread = new Thread(this::runRenderLoop, "Globe Renderer");
+            renderThread.setDaemon(true);
+            renderThread.start();
+        }
+        requestFrame();
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        if (renderThread != null) {
+            renderThread.interrupt();
+            renderThread = null;
+        }
+    }
+
+    private void runRenderLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                synchronized (requestLock) {
+                    while (!frameRequested) {
+                        requestLock.wait();
+                    }
+                    frameRequested = false;
+                }
+
+                if (renderFrame()) {
+                    frameCount.incrementAndGet();
+                    repaint();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                Logger.error(e);
+            }
+        }
+    }
+
+    private boolean renderFrame() {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        RenderProperties properties = renderer.getRenderProperties();
+        if (configuration == null || properties == null || properties.width <= 0 || properties.height <= 0) {
+            return false;
+        }
+
+        AffineTransform transform = configuration.getDefaultTransform();
+        int imageWidth = (int) Math.ceil(properties.width * transform.getScaleX());
+        int imageHeight = (int) Math.ceil(properties.height * transform.getScaleY());
+
+        BufferedImage buffer = backBuffer;
+        if (buffer == null || buffer.getWidth() != imageWidth || buffer.getHeight() != imageHeight) {
+            buffer = configuration.createCompatibleImage(imageWidth, imageHeight);
+        }
+
+        Graphics2D g = buffer.createGraphics();
+        try {
+            g.setColor(Color.black);
+            g.fillRect(0, 0, imageWidth, imageHeight);
+            g.scale(transform.getScaleX(), transform.getScaleY());
+            renderer.render(g, properties);
+        } finally {
+            g.dispose();
+        }
+
+        synchronized (frameLock) {
+            backBuffer = frontBuffer;
+            frontBuffer = buffer;
+            frontProperties = properties;
+            lastFrameTime = System.currentTimeMillis();
+        }
+
+        return true;
+    }
+
     @Override
     public void paint(Graphics gr) {
         super.paint(gr);
@@ -468,9 +571,16 @@ public class GlobePanel extends JPanel implements GeoUtils {
         g.setColor(Color.black);
         g.fillRect(0, 0, getWidth(), getHeight());
 
-        renderer.render(g, renderer.getRenderProperties());
+        synchronized (frameLock) {
+            if (frontBuffer != null) {
+                g.drawImage(frontBuffer, 0, 0, frontProperties.width, frontProperties.height, null);
+            }
 
-        frameCount.incrementAndGet();
+            // repaints from elsewhere still keep the globe up to date, just not faster than the frame rate
+            if (frontBuffer == null || System.currentTimeMillis() - lastFrameTime > 1000 / Settings.fpsIdle) {
+                requestFrame();
+            }
+        }
     }
 
     private void checkCinemaMode() {
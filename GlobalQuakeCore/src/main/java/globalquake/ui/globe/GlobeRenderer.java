@@ -1,5 +1,6 @@
 package globalquake.ui.globe;
 
+import globalquake.core.Settings;
 import globalquake.ui.globe.feature.RenderFeature;
 import globalquake.utils.GeoUtils;
 import globalquake.utils.Point2DGQ;
@@ -9,7 +10,9 @@ import org.apache.commons.math3.util.FastMath;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -41,6 +44,10 @@ public class GlobeRenderer {
 
 
     private final List<RenderFeature<?>> renderFeatures;
+
+    private BufferedImage basemap;
+    private RenderProperties basemapProperties;
+    private int basemapSettingsChanges;
     private Point lastMouse;
 
     public GlobeRenderer(){
@@ -98,6 +105,39 @@ public class GlobeRenderer {
         return point2D;
     }
 
+    /**
+     * Projects many points at once, given as consecutive x, y, z triplets.
+     * Points behind the horizon or further than margin px outside the screen are set to NaN
+     */
+    public void projectPoints(double[] positions, float[] result, int count, double margin, RenderProperties renderProperties) {
+        Point2D point2D = new Point2D();
+        RenderPrecomputedValues precomputed = renderProperties.getRenderPrecomputedValues();
+        double cameraZ = GeoUtils.EARTH_RADIUS + precomputed.camera_altitude;
+
+        for (int i = 0; i < count; i++) {
+            double x = positions[i * 3];
+            double y = positions[i * 3 + 1];
+            double z = positions[i * 3 + 2];
+
+            result[i * 2] = Float.NaN;
+            result[i * 2 + 1] = Float.NaN;
+
+            if (Double.isNaN(x) || !isAboveHorizon(x, y, z, precomputed)) {
+                continue;
+            }
+
+            project(point2D, x, y, z, cameraZ, renderProperties.width, renderProperties.height, renderProperties);
+
+            if (point2D.x < -margin || point2D.y < -margin
+                    || point2D.x > renderProperties.width + margin || point2D.y > renderProperties.height + margin) {
+                continue;
+            }
+
+            result[i * 2] = (float) point2D.x;
+            result[i * 2 + 1] = (float) point2D.y;
+        }
+    }
+
     public boolean project3D(Path2D.Float result, Polygon3D polygon3D, boolean canClip, RenderProperties renderProperties) {
         if(polygon3D == null || polygon3D.getBoundingBoxCorner(0) == null){
             return false;
@@ -106,6 +146,10 @@ public class GlobeRenderer {
 
         boolean init = false;
         if (canClip) {
+            if (!isCapVisible(polygon3D, renderProperties)) {
+                return false;
+            }
+
             boolean onPlane = false;
             int totalMask = 0xFFFF;
 
@@ -137,8 +181,9 @@ public class GlobeRenderer {
         boolean last = false;
         int mask = 0xFFFF;
 
-        for (int i = 0; i < polygon3D.getPoints().size(); i++) {
-            Vector3D point = polygon3D.getPoints().get(i);
+        List<Vector3D> points = polygon3D.getPoints(renderProperties.getRenderPrecomputedValues().simplificationTolerance);
+        for (int i = 0; i < points.size(); i++) {
+            Vector3D point = points.get(i);
             if (!isAboveHorizon(point, renderProperties) && canClip) {
                 if (bowStart != null) {
                     bowEnd = point;
@@ -171,7 +216,7 @@ public class GlobeRenderer {
             mask &= get_mask(point2D.x, point2D.y, renderProperties);
             result.lineTo(point2D.x, point2D.y);
 
-            if (point == polygon3D.getPoints().get(polygon3D.getPoints().size() - 1)) {
+            if (point == points.get(points.size() - 1)) {
                 i = 0;
                 last = true;
                 continue;
@@ -193,6 +238,23 @@ public class GlobeRenderer {
         return true;
     }
 
+    /**
+     * @return false if the bounding cap of the polygon lies completely behind the horizon
+     */
+    private boolean isCapVisible(Polygon3D polygon3D, RenderProperties renderProperties) {
+        Vector3D capCenter = polygon3D.getCapCenter();
+        if (capCenter == null) {
+            return true;
+        }
+
+        double limit = renderProperties.getRenderPrecomputedValues().maxAngle + polygon3D.getCapRadius();
+        if (limit >= Math.PI) {
+            return true;
+        }
+
+        return Vector3D.dotProduct(capCenter, renderProperties.getRenderPrecomputedValues().viewDirection) >= FastMath.cos(limit);
+    }
+
     private int get_mask(double x, double y, RenderProperties renderProperties) {
         int result = 0;
 
@@ -284,6 +346,13 @@ public class GlobeRenderer {
         return cameraToPoint <= renderProperties.getRenderPrecomputedValues().maxDistance;
     }
 
+    private static boolean isAboveHorizon(double x, double y, double z, RenderPrecomputedValues precomputed) {
+        double dx = x - precomputed.cameraPoint.getX();
+        double dy = y - precomputed.cameraPoint.getY();
+        double dz = z - precomputed.cameraPoint.getZ();
+        return dx * dx + dy * dy + dz * dz <= precomputed.maxDistance * precomputed.maxDistance;
+    }
+
     public static double getX_3D(double lat, double lon, double alt) {
         return -(GeoUtils.EARTH_RADIUS + alt / 1000.0) * FastMath.sin(FastMath.toRadians(lon)) * FastMath.cos(FastMath.toRadians(lat));
     }
@@ -301,12 +370,68 @@ public class GlobeRenderer {
     public synchronized void render(Graphics2D graphics, RenderProperties props) {
         graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
 
-        renderFeatures.stream().filter(renderFeature -> renderFeature.isEnabled(props)).forEach(feature -> {
+        int staticFeatures = getStaticFeatureCount();
+        if (staticFeatures > 0) {
+            renderBasemap(graphics, props, staticFeatures);
+        }
+
+        renderFeatures.stream().skip(staticFeatures).filter(renderFeature -> renderFeature.isEnabled(props)).forEach(feature -> {
             feature.process(this, props);
             feature.renderAll(this, graphics, props);
         });
     }
 
+    /**
+     * @return number of features at the bottom of the stack that only change with the camera and settings
+     */
+    private int getStaticFeatureCount() {
+        int count = 0;
+        while (count < renderFeatures.size() && renderFeatures.get(count).isStatic()) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Draws the static features into an offscreen image, which is then reused until the camera or the settings change
+     */
+    private void renderBasemap(Graphics2D graphics, RenderProperties props, int staticFeatures) {
+        AffineTransform transform = graphics.getTransform();
+        double scaleX = transform.getScaleX();
+        double scaleY = transform.getScaleY();
+        int imageWidth = Math.max(1, (int) Math.ceil(props.width * scaleX));
+        int imageHeight = Math.max(1, (int) Math.ceil(props.height * scaleY));
+
+        if (basemap == null || basemap.getWidth() != imageWidth || basemap.getHeight() != imageHeight) {
+            basemap = graphics.getDeviceConfiguration().createCompatibleImage(imageWidth, imageHeight, Transparency.TRANSLUCENT);
+            basemapProperties = null;
+        }
+
+        if (props != basemapProperties || Settings.changes != basemapSettingsChanges) {
+            Graphics2D basemapGraphics = basemap.createGraphics();
+            try {
+                basemapGraphics.setComposite(AlphaComposite.Clear);
+                basemapGraphics.fillRect(0, 0, imageWidth, imageHeight);
+                basemapGraphics.setComposite(AlphaComposite.SrcOver);
+                basemapGraphics.setRenderingHints(graphics.getRenderingHints());
+                basemapGraphics.scale(scaleX, scaleY);
+
+                renderFeatures.stream().limit(staticFeatures).filter(renderFeature -> renderFeature.isEnabled(props)).forEach(feature -> {
+                    feature.process(this, props);
+                    feature.renderAll(this, basemapGraphics, props);
+                });
+            } finally {
+                basemapGraphics.dispose();
+            }
+
+            basemapProperties = props;
+            basemapSettingsChanges = Settings.changes;
+        }
+
+        graphics.drawImage(basemap, 0, 0, props.width, props.height, null);
+    }
+
     public synchronized void addFeature(RenderFeature<?> renderFeature){
         renderFeatures.add(renderFeature);
     }
@@ -419,6 +544,19 @@ public class GlobeRenderer {
         return isAboveHorizon(vect,  renderProperties) && Math.sqrt(Math.pow(point.x - lastMouse.x, 2) + Math.pow(point.y - lastMouse.y, 2)) <= dist;
     }
 
+    /**
+     * Same as {@link #isMouseNearby(Point2D, double, boolean, RenderProperties)} for an already projected point
+     */
+    public boolean isMouseNearby(double x, double y, double dist, boolean moved) {
+        if(lastMouse == null){
+            return false;
+        }
+        if(moved && !hasMouseMovedRecently()){
+            return false;
+        }
+        return Math.hypot(x - lastMouse.x, y - lastMouse.y) <= dist;
+    }
+
     public boolean hasMouseMovedRecently() {
         return (System.currentTimeMillis() - lastMouseMove) <= 15 * 1000;
     }
@@ -0,0 +1,129 @@
+package globalquake.ui.globe;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of pre-rendered marker sprites, so that thousands of markers can be stamped with drawImage
+ * instead of building and filling a shape for each of them
+ */
+public final class MarkerAtlas {
+
+    public enum Shape {
+        CIRCLE, TRIANGLE_UP, TRIANGLE_DOWN, SQUARE
+    }
+
+    private static final int MAX_SPRITES = 1024;
+
+    // sizes are kept in quarters of a pixel
+    private record Key(Shape shape, int argb, int radius, int stroke, boolean antialias, int scale) {
+    }
+
+    private static final Map<Key, BufferedImage> sprites = new ConcurrentHashMap<>();
+
+    private MarkerAtlas() {
+    }
+
+    /**
+     * @param radius in px, distance of the vertices from the center for triangles and half of the side for squares
+     * @param stroke width of the outline in px, or 0 to fill the shape
+     */
+    public static void draw(Graphics2D graphics, Shape shape, Color color, double radius, double stroke, boolean antialias, double x, double y) {
+        if (radius <= 0) {
+            return;
+        }
+
+        double scale = Math.max(1.0, graphics.getTransform().getScaleX());
+        Key key = new Key(shape, quantize(color), quarters(radius), quarters(stroke), antialias, quarters(scale));
+
+        BufferedImage sprite = sprites.get(key);
+        if (sprite == null) {
+            if (sprites.size() >= MAX_SPRITES) {
+                sprites.clear();
+            }
+            sprite = createSprite(key);
+            sprites.put(key, sprite);
+        }
+
+        double spriteScale = key.scale() / 4.0;
+        double half = sprite.getWidth() / 2.0 / spriteScale;
+
+        AffineTransform transform = AffineTransform.getTranslateInstance(x - half, y - half);
+        transform.scale(1.0 / spriteScale, 1.0 / spriteScale);
+        graphics.drawImage(sprite, transform, null);
+    }
+
+    // continuous color scales would otherwise fill the atlas with invisibly different sprites
+    private static int quantize(Color color) {
+        return new Color(quantize(color.getRed()), quantize(color.getGreen()), quantize(color.getBlue()), color.getAlpha()).getRGB();
+    }
+
+    private static int quantize(int channel) {
+        return (int) Math.round(Math.round(channel / 255.0 * 31.0) * 255.0 / 31.0);
+    }
+
+    private static int quarters(double value) {
+        return (int) Math.round(Math.max(0, value) * 4.0);
+    }
+
+    private static BufferedImage createSprite(Key key) {
+        double scale = key.scale() / 4.0;
+        double radius = key.radius() / 4.0 * scale;
+        double stroke = key.stroke() / 4.0 * scale;
+
+        int half = (int) Math.ceil(radius + stroke / 2.0 + 1);
+        BufferedImage sprite = new BufferedImage(half * 2, half * 2, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        Graphics2D graphics = sprite.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    key.antialias() ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+            graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            graphics.setColor(new Color(key.argb(), true));
+
+            java.awt.Shape outline = createShape(key.shape(), half, half, radius);
+            if (stroke > 0) {
+                graphics.setStroke(new BasicStroke((float) stroke));
+                graphics.draw(outline);
+            } else {
+                graphics.fill(outline);
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        return sprite;
+    }
+
+    private static java.awt.Shape createShape(Shape shape, double x, double y, double radius) {
+        return switch (shape) {
+            case CIRCLE -> new Ellipse2D.Double(x - radius, y - radius, radius * 2, radius * 2);
+            case SQUARE -> new Rectangle2D.Double(x - radius, y - radius, radius * 2, radius * 2);
+            case TRIANGLE_UP -> createTriangle(x, y, radius, -90);
+            case TRIANGLE_DOWN -> createTriangle(x, y, radius, 90);
+        };
+    }
+
+    private static Path2D createTriangle(double x, double y, double radius, double startAngle) {
+        Path2D.Double path = new Path2D.Double();
+        for (int i = 0; i < 3; i++) {
+            double angle = Math.toRadians(startAngle + i * 120);
+            double px = x + radius * Math.cos(angle);
+            double py = y + radius * Math.sin(angle);
+            if (i == 0) {
+                path.moveTo(px, py);
+            } else {
+                path.lineTo(px, py);
+            }
+        }
+        path.closePath();
+        return path;
+    }
+
+}
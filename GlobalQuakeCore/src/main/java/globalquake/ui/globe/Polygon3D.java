@@ -3,16 +3,29 @@ package globalquake.ui.globe;
 import globalquake.utils.GeoUtils;
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 
 public class Polygon3D {
+
+    // tolerance of the most detailed simplified level, each next level doubles it
+    private static final double FIRST_LEVEL_TOLERANCE_KM = 0.1;
+    private static final int MAX_LEVELS = 16;
+    private static final int MIN_LEVEL_POINTS = 8;
+
     private final List<Vector3D> points;
 
     private Vector3D minPoint;
     private Vector3D maxPoint;
     private Vector3D[] bbox;
 
+    private Vector3D capCenter;
+    private double capRadius;
+
+    // levels[i] keeps the points that matter at the tolerance of FIRST_LEVEL_TOLERANCE_KM * 2^i
+    private List<List<Vector3D>> levels;
+
     public Polygon3D() {
         points = new ArrayList<>();
         minPoint = new Vector3D(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
@@ -51,6 +64,147 @@ public class Polygon3D {
                 ground(getBoundingBoxTempCorner(6)),
                 ground(getBoundingBoxTempCorner(7))
         };
+
+        computeCap();
+    }
+
+    /**
+     * The smallest cap of the sphere around the mean direction of the points that contains all of them
+     */
+    private void computeCap() {
+        double x = 0, y = 0, z = 0;
+        for (Vector3D point : points) {
+            double norm = point.getNorm();
+            x += point.getX() / norm;
+            y += point.getY() / norm;
+            z += point.getZ() / norm;
+        }
+
+        double norm = Math.sqrt(x * x + y * y + z * z);
+        if (points.isEmpty() || norm < 1e-9) {
+            // points spread all around the globe
+            capCenter = null;
+            capRadius = Math.PI;
+            return;
+        }
+
+        capCenter = new Vector3D(x / norm, y / norm, z / norm);
+        double minCos = 1.0;
+        for (Vector3D point : points) {
+            minCos = Math.min(minCos, Vector3D.dotProduct(capCenter, point) / point.getNorm());
+        }
+
+        capRadius = Math.acos(Math.max(-1.0, Math.min(1.0, minCos)));
+    }
+
+    /**
+     * @return unit vector pointing to the center of the bounding cap, null if the polygon surrounds the whole globe
+     */
+    public Vector3D getCapCenter() {
+        return capCenter;
+    }
+
+    /**
+     * @return angular radius of the bounding cap in radians
+     */
+    public double getCapRadius() {
+        return capRadius;
+    }
+
+    /**
+     * Precomputes simplified versions of the polygon using Douglas-Peucker, only worth it for large static polygons
+     */
+    public void createLevels() {
+        int count = points.size();
+        if (count <= MIN_LEVEL_POINTS) {
+            levels = null;
+            return;
+        }
+
+        double[] importance = computeImportance();
+
+        levels = new ArrayList<>();
+        double tolerance = FIRST_LEVEL_TOLERANCE_KM;
+        int lastSize = count;
+        for (int level = 0; level < MAX_LEVELS && lastSize > MIN_LEVEL_POINTS; level++) {
+            List<Vector3D> simplified = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (importance[i] >= tolerance) {
+                    simplified.add(points.get(i));
+                }
+            }
+
+            // a level that wouldn't save anything is just the previous one again
+            levels.add(simplified.size() == lastSize && !levels.isEmpty() ? levels.get(levels.size() - 1) : simplified);
+            lastSize = simplified.size();
+            tolerance *= 2;
+        }
+    }
+
+    /**
+     * @return for each point the largest tolerance at which Douglas-Peucker still keeps it
+     */
+    private double[] computeImportance() {
+        int count = points.size();
+        double[] importance = new double[count];
+        importance[0] = Double.POSITIVE_INFINITY;
+        importance[count - 1] = Double.POSITIVE_INFINITY;
+
+        // {start, end, importance of the parent split}
+        ArrayDeque<double[]> stack = new ArrayDeque<>();
+        stack.push(new double[]{0, count - 1, Double.POSITIVE_INFINITY});
+        while (!stack.isEmpty()) {
+            double[] range = stack.pop();
+            int start = (int) range[0];
+            int end = (int) range[1];
+            if (end - start < 2) {
+                continue;
+            }
+
+            Vector3D a = points.get(start);
+            Vector3D b = points.get(end);
+            int farthest = -1;
+            double maxDist = -1;
+            for (int i = start + 1; i < end; i++) {
+                double dist = distanceToSegment(points.get(i), a, b);
+                if (dist > maxDist) {
+                    maxDist = dist;
+                    farthest = i;
+                }
+            }
+
+            // a point can't outlive the point whose split made it relevant
+            double value = Math.min(maxDist, range[2]);
+            importance[farthest] = value;
+            stack.push(new double[]{start, farthest, value});
+            stack.push(new double[]{farthest, end, value});
+        }
+
+        return importance;
+    }
+
+    private static double distanceToSegment(Vector3D p, Vector3D a, Vector3D b) {
+        Vector3D ab = b.subtract(a);
+        double lengthSq = ab.getNormSq();
+        if (lengthSq < 1e-12) {
+            return p.distance(a);
+        }
+
+        double t = Math.max(0, Math.min(1, Vector3D.dotProduct(p.subtract(a), ab) / lengthSq));
+        return p.distance(new Vector3D(1, a, t, ab));
+    }
+
+    /**
+     * @param toleranceKm how far the simplified outline may deviate from the original one
+     * @return the coarsest precomputed level within the tolerance, or all the points if there are no levels
+     */
+    public List<Vector3D> getPoints(double toleranceKm) {
+        if (levels == null || !(toleranceKm >= FIRST_LEVEL_TOLERANCE_KM)) {
+            return points;
+        }
+
+        int level = (int) Math.floor(Math.log(toleranceKm / FIRST_LEVEL_TOLERANCE_KM) / Math.log(2));
+        return levels.get(Math.max(0, Math.min(levels.size() - 1, level)));
     }
 
     public void addPoint(Vector3D point) {
@@ -84,6 +238,7 @@ public class Polygon3D {
 
     public void reset() {
         getPoints().clear();
+        levels = null;
         minPoint = new Vector3D(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
         maxPoint = new Vector3D(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
     }
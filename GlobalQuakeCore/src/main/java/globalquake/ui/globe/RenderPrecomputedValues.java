@@ -19,6 +19,12 @@ public class RenderPrecomputedValues {
     public final double cosPitch;
     public final double sinPitch;
     public double horizonDist;
+    public final Vector3D viewDirection;
+
+    // how many km the outlines may deviate from the truth without it being visible
+    public double simplificationTolerance;
+
+    static final double SIMPLIFICATION_PX = 0.5;
 
     public RenderPrecomputedValues(RenderProperties renderProperties){
         camera_altitude = GeoUtils.EARTH_RADIUS * renderProperties.scroll;
@@ -34,6 +40,7 @@ public class RenderPrecomputedValues {
         cameraPoint = new Vector3D(getX_3D(renderProperties.centerLat, renderProperties.centerLon, camera_altitude * 1000),
                 getY_3D(renderProperties.centerLat, renderProperties.centerLon, camera_altitude * 1000),
                 GlobeRenderer.getZ_3D(renderProperties.centerLat, renderProperties.centerLon, camera_altitude * 1000));
+        viewDirection = cameraPoint.normalize();
      }
 
     public void part2(GlobeRenderer renderer, RenderProperties renderProperties){
@@ -49,6 +56,8 @@ public class RenderPrecomputedValues {
         Point2D ptS1 = renderer.projectPoint(surfacePoint, renderProperties);
         Point2D ptS2 = renderer.projectPoint(surfacePoint1, renderProperties);
         oneDegPx = Math.sqrt(Math.pow(ptS1.x - ptS2.x, 2) + Math.pow(ptS1.y - ptS2.y, 2));
+        // despite the name, oneDegPx is measured over one km
+        simplificationTolerance = oneDegPx > 0 ? SIMPLIFICATION_PX / oneDegPx : 0;
 
         double centerToCamera = GlobeRenderer.CENTER.distance(cameraPoint);
         maxAngle = FastMath.acos(GeoUtils.EARTH_RADIUS / centerToCamera);
@@ -40,6 +40,11 @@ public class FeatureGeoPolygons extends RenderFeature<Polygon> {
         return properties.scroll >=minScroll && properties.scroll < maxScroll;
     }
 
+    @Override
+    public boolean isStatic() {
+        return true;
+    }
+
     @Override
     public boolean needsUpdateEntities() {
         return false;
@@ -64,6 +69,7 @@ public class FeatureGeoPolygons extends RenderFeature<Polygon> {
         }
 
         result_pol.finish();
+        result_pol.createLevels();
         entity.getRenderElement(0).setPolygon(result_pol);
     }
 
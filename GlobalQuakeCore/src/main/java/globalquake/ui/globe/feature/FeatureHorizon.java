@@ -37,6 +37,11 @@ public class FeatureHorizon extends RenderFeature<Point2D>{
                 renderProperties.getRenderPrecomputedValues().maxAngle / (2*Math.PI) * GeoUtils.EARTH_CIRCUMFERENCE, 0, quality);
     }
 
+    @Override
+    public boolean isStatic() {
+        return true;
+    }
+
     @Override
     public boolean needsUpdateEntities() {
         return false;
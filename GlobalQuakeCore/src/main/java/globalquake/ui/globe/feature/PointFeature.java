@@ -0,0 +1,115 @@
+package globalquake.ui.globe.feature;
+
+import globalquake.ui.globe.GlobeRenderer;
+import globalquake.ui.globe.Point2D;
+import globalquake.ui.globe.RenderProperties;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feature drawn as a marker at the center of each entity. Only the centers are projected, all at once into
+ * a primitive buffer, and the markers are expected to be stamped from {@link globalquake.ui.globe.MarkerAtlas}
+ */
+public abstract class PointFeature<E> extends RenderFeature<E> {
+
+    // room for the labels drawn next to the markers
+    private static final double SCREEN_MARGIN = 128;
+
+    private List<RenderEntity<E>> points = new ArrayList<>();
+    private double[] positions = new double[0];
+    private float[] projected = new float[0];
+
+    private int pointsVersion = -1;
+    private RenderProperties projectedProperties;
+
+    public PointFeature() {
+        super(0);
+    }
+
+    public abstract void renderPoint(GlobeRenderer renderer, Graphics2D graphics, RenderEntity<E> entity, double x, double y, RenderProperties renderProperties);
+
+    @Override
+    public final void createPolygon(GlobeRenderer renderer, RenderEntity<E> entity, RenderProperties renderProperties) {
+    }
+
+    @Override
+    public final void project(GlobeRenderer renderer, RenderEntity<E> entity, RenderProperties renderProperties) {
+    }
+
+    @Override
+    public final boolean needsCreatePolygon(RenderEntity<E> entity, boolean propertiesChanged) {
+        return false;
+    }
+
+    @Override
+    public final boolean needsProject(RenderEntity<E> entity, boolean propertiesChanged) {
+        return false;
+    }
+
+    @Override
+    public final void render(GlobeRenderer renderer, Graphics2D graphics, RenderEntity<E> entity, RenderProperties renderProperties) {
+        Point2D centerCoords = getCenterCoords(entity);
+        if (centerCoords == null) {
+            return;
+        }
+
+        double[] position = createPosition(centerCoords);
+        float[] point = new float[2];
+        renderer.projectPoints(position, point, 1, SCREEN_MARGIN, renderProperties);
+        if (!Float.isNaN(point[0])) {
+            renderPoint(renderer, graphics, entity, point[0], point[1], renderProperties);
+        }
+    }
+
+    @Override
+    public void renderAll(GlobeRenderer renderer, Graphics2D graphics, RenderProperties properties) {
+        updatePoints(renderer, properties);
+
+        for (int i = 0; i < points.size(); i++) {
+            float x = projected[i * 2];
+            if (Float.isNaN(x)) {
+                continue;
+            }
+
+            RenderEntity<E> entity = points.get(i);
+            if (!isEntityVisible(entity)) {
+                continue;
+            }
+
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            renderPoint(renderer, graphics, entity, x, projected[i * 2 + 1], properties);
+        }
+    }
+
+    private void updatePoints(GlobeRenderer renderer, RenderProperties properties) {
+        if (getEntitiesVersion() != pointsVersion) {
+            pointsVersion = getEntitiesVersion();
+            points = new ArrayList<>(getEntities());
+            positions = new double[points.size() * 3];
+            projected = new float[points.size() * 2];
+
+            for (int i = 0; i < points.size(); i++) {
+                Point2D centerCoords = getCenterCoords(points.get(i));
+                double[] position = centerCoords == null ? new double[]{Double.NaN, Double.NaN, Double.NaN} : createPosition(centerCoords);
+                System.arraycopy(position, 0, positions, i * 3, 3);
+            }
+
+            projectedProperties = null;
+        }
+
+        if (properties != projectedProperties) {
+            renderer.projectPoints(positions, projected, points.size(), SCREEN_MARGIN, properties);
+            projectedProperties = properties;
+        }
+    }
+
+    private static double[] createPosition(Point2D centerCoords) {
+        return new double[]{
+                GlobeRenderer.getX_3D(centerCoords.x, centerCoords.y, 0),
+                GlobeRenderer.getY_3D(centerCoords.x, centerCoords.y, 0),
+                GlobeRenderer.getZ_3D(centerCoords.x, centerCoords.y, 0)};
+    }
+
+}
@@ -17,6 +17,7 @@ public abstract class RenderFeature<E> {
     private int lastHash = -651684313; // random
     private RenderProperties lastProperties;
     private int settingsChanges = 0;
+    private int entitiesVersion = 0;
 
     public abstract Collection<E> getElements();
 
@@ -44,6 +45,7 @@ public abstract class RenderFeature<E> {
             entities_temp.clear();
             getElements().parallelStream().forEach(element -> entities_temp.put(element, entities.getOrDefault(element, new RenderEntity<>(element, renderElements))));
             swapEntities();
+            entitiesVersion++;
 
             lastHash = hash;
             return true;
@@ -56,6 +58,14 @@ public abstract class RenderFeature<E> {
         return true;
     }
 
+    /**
+     * @return true if the feature only changes with the camera and the settings,
+     * static features at the bottom of the stack are then rendered into a cached layer
+     */
+    public boolean isStatic() {
+        return false;
+    }
+
     public boolean needsUpdateEntities() {
         return getEntities().isEmpty();
     }
@@ -97,6 +107,13 @@ public abstract class RenderFeature<E> {
         return entities.values();
     }
 
+    /**
+     * @return number that changes every time the set of entities is replaced
+     */
+    protected final int getEntitiesVersion() {
+        return entitiesVersion;
+    }
+
     public abstract void createPolygon(GlobeRenderer renderer, RenderEntity<E> entity, RenderProperties renderProperties);
 
     public abstract void project(GlobeRenderer renderer, RenderEntity<E> entity, RenderProperties renderProperties);
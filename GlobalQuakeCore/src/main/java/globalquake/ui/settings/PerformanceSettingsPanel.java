@@ -13,6 +13,8 @@ import java.awt.event.ActionEvent;
 public class PerformanceSettingsPanel extends SettingsPanel {
     private JSlider sliderResolution;
     private JCheckBox chkBoxParalell;
+    private JCheckBox chkBoxSearchKernel;
+    private JCheckBox chkBoxIncremental;
     private JSlider sliderStoreTime;
     private JCheckBox chkBoxRecalibrateOnLauch;
 
@@ -22,6 +24,8 @@ public class PerformanceSettingsPanel extends SettingsPanel {
         add(createSettingAccuracy());
         add(createSettingStoreTime());
         add(createSettingParalell());
+        add(createSettingSearchKernel());
+        add(createSettingIncremental());
     }
 
     private Component createSettingStoreTime() {
@@ -68,10 +72,59 @@ public class PerformanceSettingsPanel extends SettingsPanel {
         return panel;
     }
 
+    @SuppressWarnings("ExtractMethodRecommender")
+    private JPanel createSettingSearchKernel() {
+        JPanel panel = new JPanel();
+        panel.setBorder(BorderFactory.createRaisedBevelBorder());
+        panel.setLayout(new BorderLayout());
+        chkBoxSearchKernel = new JCheckBox("Use optimized CPU hypocenter search");
+        chkBoxSearchKernel.setSelected(Settings.useHypocenterSearchKernel);
+
+        JTextArea textAreaExplanation = new JTextArea(
+                """
+                        Optimized search works on flat arrays of station data and avoids\s
+                        sorting and allocations in the inner loops. Disable it only to compare
+                        the results with the original implementation. Not used when CUDA is available.""");
+        textAreaExplanation.setBorder(new EmptyBorder(5,5,5,5));
+        textAreaExplanation.setEditable(false);
+        textAreaExplanation.setBackground(panel.getBackground());
+
+        chkBoxSearchKernel.addChangeListener(changeEvent -> Settings.useHypocenterSearchKernel = chkBoxSearchKernel.isSelected());
+
+        panel.add(chkBoxSearchKernel, BorderLayout.CENTER);
+        panel.add(textAreaExplanation, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private JPanel createSettingIncremental() {
+        JPanel panel = new JPanel();
+        panel.setBorder(BorderFactory.createRaisedBevelBorder());
+        panel.setLayout(new BorderLayout());
+        chkBoxIncremental = new JCheckBox("Use incremental hypocenter relocation");
+        chkBoxIncremental.setSelected(Settings.incrementalHypocenterRelocation);
+
+        JTextArea textAreaExplanation = new JTextArea(
+                """
+                        Revisions start from the previous hypocenter and only refine it locally.\s
+                        The full search is still performed when the refined solution fits
+                        the arrivals noticeably worse. Requires the optimized CPU hypocenter search.""");
+        textAreaExplanation.setBorder(new EmptyBorder(5,5,5,5));
+        textAreaExplanation.setEditable(false);
+        textAreaExplanation.setBackground(panel.getBackground());
+
+        chkBoxIncremental.addChangeListener(changeEvent -> Settings.incrementalHypocenterRelocation = chkBoxIncremental.isSelected());
+
+        panel.add(chkBoxIncremental, BorderLayout.CENTER);
+        panel.add(textAreaExplanation, BorderLayout.SOUTH);
+        return panel;
+    }
+
     @Override
     public void save() {
         Settings.hypocenterDetectionResolution = (double) sliderResolution.getValue();
         Settings.parallelHypocenterLocations = chkBoxParalell.isSelected();
+        Settings.useHypocenterSearchKernel = chkBoxSearchKernel.isSelected();
+        Settings.incrementalHypocenterRelocation = chkBoxIncremental.isSelected();
         Settings.logsStoreTimeMinutes = sliderStoreTime.getValue();
         Settings.recalibrateOnLaunch = chkBoxRecalibrateOnLauch.isSelected();
     }
@@ -1,5 +1,6 @@
 package globalquake.ui.stationselect;
 
+import globalquake.core.Settings;
 import globalquake.core.database.StationDatabaseManager;
 import globalquake.ui.GQFrame;
 import globalquake.ui.StationCountPanel;
@@ -14,6 +15,8 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.Objects;
 
 public class StationSelectFrame extends GQFrame implements ActionListener {
@@ -53,13 +56,17 @@ public class StationSelectFrame extends GQFrame implements ActionListener {
         toggleButton.setBackground(Color.GRAY);
 
         JPanel centerPanel = new JPanel(new GridBagLayout());
-        stationSelectPanel = new StationSelectPanel(this, manager){
+        stationSelectPanel = new StationSelectPanel(this, manager);
+
+        // the globe only blits finished frames now, so the overlays are refreshed at the frame rate instead of after every paint
+        Timer repaintTimer = new Timer(1000 / Settings.fpsIdle, e -> centerPanel.repaint());
+        repaintTimer.start();
+        addWindowListener(new WindowAdapter() {
             @Override
-            public void paint(Graphics gr) {
-                super.paint(gr);
-                centerPanel.repaint();
+            public void windowClosed(WindowEvent e) {
+                repaintTimer.stop();
             }
-        };
+        });
 
         setPreferredSize(new Dimension(1100, 800));
 
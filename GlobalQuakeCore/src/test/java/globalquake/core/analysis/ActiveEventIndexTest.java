@@ -0,0 +1,66 @@
+package globalquake.core.analysis;
+
+import globalquake.core.station.AbstractStation;
+import globalquake.core.station.GlobalStation;
+import globalquake.utils.GeoUtils;
+import gqserver.api.packets.station.InputType;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class ActiveEventIndexTest {
+
+    @Test
+    public void testWithinRadius() {
+        Random r = new Random(0);
+        ActiveEventIndex index = new ActiveEventIndex();
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double lat = i < 50 ? 89.9 - r.nextDouble() : Math.toDegrees(Math.asin(r.nextDouble() * 2 - 1));
+            double lon = r.nextDouble() * 360.0 - 180.0;
+            AbstractStation station = new GlobalStation("", "", "", "", lat, lon, 0, i, null, -1, InputType.UNKNOWN);
+            Event event = new Event(station.getAnalysis());
+            event.setpWave(r.nextInt(1000));
+            events.add(event);
+            index.add(event);
+        }
+
+        assertEquals(events.size(), index.size());
+
+        for (double radius : new double[]{0, 100, 1000, 5000, 20000}) {
+            for (int i = 0; i < 20; i++) {
+                double lat = i < 3 ? 89.5 : Math.toDegrees(Math.asin(r.nextDouble() * 2 - 1));
+                double lon = i == 3 ? 179.9 : r.nextDouble() * 360.0 - 180.0;
+
+                Set<Event> expected = new HashSet<>();
+                for (Event event : events) {
+                    if (event.getpWave() >= 200 && event.getpWave() <= 700 &&
+                            GeoUtils.greatCircleDistance(lat, lon, event.getLatFromStation(), event.getLonFromStation()) <= radius) {
+                        expected.add(event);
+                    }
+                }
+
+                Set<Event> actual = new HashSet<>();
+                index.forEachWithin(lat, lon, radius, 200, 700, actual::add);
+
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        AbstractStation station = new GlobalStation("", "", "", "", 50, 15, 0, 0, null, -1, InputType.UNKNOWN);
+        Event event = new Event(station.getAnalysis());
+        ActiveEventIndex index = new ActiveEventIndex();
+
+        index.add(event);
+        assertEquals(List.of(event), index.getEvents());
+
+        index.remove(event);
+        assertEquals(0, index.size());
+    }
+
+}
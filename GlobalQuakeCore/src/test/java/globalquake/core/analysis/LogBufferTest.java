@@ -0,0 +1,102 @@
+package globalquake.core.analysis;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LogBufferTest {
+
+    private static boolean add(LogBuffer buffer, long time) {
+        return buffer.add(time, (int) time, time, 1, 1, 1, 1, 1, AnalysisStatus.IDLE);
+    }
+
+    @Test
+    public void testAppendAndTrim(){
+        LogBuffer buffer = new LogBuffer();
+        for(int i = 0; i < 1000; i++){
+            add(buffer, i * 10L);
+        }
+
+        assertEquals(1000, buffer.size());
+        assertEquals(0, buffer.getOldestTime());
+        assertEquals(9990, buffer.getNewestTime());
+
+        buffer.removeOlderThan(5000);
+        assertEquals(500, buffer.size());
+        assertEquals(5000, buffer.getOldestTime());
+
+        // wraps around the end of the arrays
+        for(int i = 1000; i < 1400; i++){
+            add(buffer, i * 10L);
+        }
+
+        assertEquals(900, buffer.size());
+        for(int i = 0; i < buffer.size(); i++){
+            assertEquals(5000 + i * 10L, buffer.getTime(i));
+            assertEquals(5000 + i * 10, buffer.getRawValue(i));
+        }
+    }
+
+    @Test
+    public void testSearch(){
+        LogBuffer buffer = new LogBuffer();
+        for(int i = 0; i < 100; i++){
+            add(buffer, i * 10L);
+        }
+
+        assertEquals(10, buffer.lowerBound(100));
+        assertEquals(11, buffer.lowerBound(101));
+        assertEquals(11, buffer.upperBound(100));
+        assertEquals(0, buffer.lowerBound(-100));
+        assertEquals(100, buffer.upperBound(10000));
+
+        assertEquals(10, buffer.getClosestIndex(102));
+        assertEquals(11, buffer.getClosestIndex(107));
+        assertEquals(-1, buffer.getClosestIndex(-1));
+        assertEquals(-1, buffer.getClosestIndex(991));
+    }
+
+    @Test
+    public void testCopyRange(){
+        LogBuffer buffer = new LogBuffer();
+        for(int i = 0; i < 100; i++){
+            add(buffer, i * 10L);
+        }
+        buffer.removeOlderThan(300);
+
+        LogBuffer copy = buffer.copyRange(450, 600);
+        assertEquals(16, copy.size());
+        assertEquals(450, copy.getOldestTime());
+        assertEquals(600, copy.getNewestTime());
+
+        LogBuffer empty = buffer.copyRange(2000, 3000);
+        assertTrue(empty.isEmpty());
+
+        LogBuffer snapshot = buffer.snapshot();
+        assertEquals(buffer.size(), snapshot.size());
+        assertEquals(buffer.get(5), snapshot.get(5));
+    }
+
+    @Test
+    public void testOutOfOrder(){
+        LogBuffer buffer = new LogBuffer();
+        for(int i = 0; i < 10; i++){
+            assertTrue(add(buffer, i * 10L));
+        }
+
+        assertFalse(add(buffer, 45));
+        assertFalse(add(buffer, -10));
+        assertEquals(10, buffer.size());
+
+        // same time as the newest is still in order
+        assertTrue(add(buffer, 90));
+        assertTrue(add(buffer, 100));
+        assertEquals(12, buffer.size());
+
+        for(int i = 1; i < buffer.size(); i++){
+            assertTrue(buffer.getTime(i - 1) <= buffer.getTime(i));
+        }
+        assertEquals(5, buffer.lowerBound(45));
+    }
+
+}
@@ -0,0 +1,93 @@
+package globalquake.core.analysis;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LogPyramidTest {
+
+    private static int value(long time) {
+        return (int) ((time * 7919) % 1000) - 500;
+    }
+
+    private static LogPyramid create(long from, long to, long step) {
+        LogPyramid pyramid = new LogPyramid();
+        for (long time = from; time < to; time += step) {
+            pyramid.add(time, value(time), value(time) * 0.5f, 1, 1, 2, 1, 1,
+                    time >= 30_000 && time < 31_000 ? AnalysisStatus.EVENT : AnalysisStatus.IDLE);
+        }
+        return pyramid;
+    }
+
+    @Test
+    public void testMinMax() {
+        // 100 Hz for one minute
+        LogPyramid pyramid = create(0, 60_000, 10);
+
+        LogPyramid.View view = pyramid.view(0, 60_000, 600);
+        assertTrue(view.size() >= 600);
+        assertTrue(view.size() <= 60_000 / LogPyramid.BASE_WIDTH);
+        assertTrue(view.getBucketWidth() <= 100);
+
+        for (int i = 0; i < view.size(); i++) {
+            long start = view.getTime(i);
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (long time = start; time < start + view.getBucketWidth(); time += 10) {
+                min = Math.min(min, value(time));
+                max = Math.max(max, value(time));
+            }
+
+            assertEquals(min, view.getMin(i, LogPyramid.RAW), 1e-6);
+            assertEquals(max, view.getMax(i, LogPyramid.RAW), 1e-6);
+            assertEquals(min * 0.5, view.getMin(i, LogPyramid.FILTERED), 1e-6);
+            assertEquals(0.5, view.getMax(i, LogPyramid.RATIO), 1e-6);
+            assertEquals(start + view.getBucketWidth() > 30_000 && start < 31_000, view.isEvent(i));
+            assertFalse(i > 0 && view.isGap(i, 20));
+        }
+    }
+
+    @Test
+    public void testRangeAndTrim() {
+        LogPyramid pyramid = create(0, 60_000, 10);
+
+        LogPyramid.View coarse = pyramid.view(0, 60_000, 10);
+        assertTrue(coarse.getBucketWidth() > 1000);
+        assertTrue(coarse.size() <= 60_000 / coarse.getBucketWidth() + 1);
+
+        pyramid.removeOlderThan(40_000);
+        LogPyramid.View view = pyramid.view(0, 60_000, 600);
+        assertTrue(view.getTime(0) + view.getBucketWidth() > 40_000);
+        assertTrue(view.getTime(view.size() - 1) < 60_000);
+
+        LogPyramid.View part = pyramid.view(45_000, 50_000, 50);
+        // buckets are aligned to their width, the first one may start before the range
+        assertTrue(part.getTime(0) <= 45_000);
+        assertTrue(part.getTime(0) + part.getBucketWidth() > 45_000);
+        assertTrue(part.getTime(part.size() - 1) <= 50_000);
+        assertTrue(part.getTime(part.size() - 1) + part.getBucketWidth() > 50_000);
+
+        pyramid.clear();
+        assertEquals(0, pyramid.view(0, 60_000, 600).size());
+    }
+
+    @Test
+    public void testGap() {
+        LogPyramid pyramid = new LogPyramid();
+        for (long time = 0; time < 10_000; time += 10) {
+            if (time < 4000 || time >= 6000) {
+                pyramid.add(time, 1, 1, 1, 1, 1, 1, 1, AnalysisStatus.IDLE);
+            }
+        }
+
+        LogPyramid.View view = pyramid.view(0, 10_000, 100);
+        int gaps = 0;
+        for (int i = 1; i < view.size(); i++) {
+            if (view.isGap(i, 20)) {
+                gaps++;
+            }
+        }
+        assertEquals(1, gaps);
+    }
+
+}
@@ -0,0 +1,156 @@
+package globalquake.core.archive;
+
+import globalquake.core.earthquake.quality.QualityClass;
+import globalquake.core.regions.Regions;
+import globalquake.utils.GeoUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ArchiveStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static ArchivedQuake quake(int i) {
+        ArrayList<ArchivedEvent> events = new ArrayList<>();
+        for (int j = 0; j < i % 5; j++) {
+            events.add(new ArchivedEvent(i, j, i * 0.5, 1000L * j));
+        }
+
+        return new ArchivedQuake(new UUID(0, i), i * 0.1, i * 0.2, 10, 4.5, 1000L * i, QualityClass.B,
+                12.0, 0.5, "Region " + i, false, events.size(), () -> events);
+    }
+
+    private static Map<UUID, ArchivedQuake> byUuid(List<ArchivedQuake> quakes) {
+        Map<UUID, ArchivedQuake> result = new HashMap<>();
+        quakes.forEach(quake -> result.put(quake.getUuid(), quake));
+        return result;
+    }
+
+    @Test
+    public void testAppendAndReload() throws Exception {
+        File folder = temporaryFolder.newFolder();
+        ArchiveStore store = new ArchiveStore(folder);
+        assertTrue(store.load().isEmpty());
+
+        for (int i = 0; i < 10; i++) {
+            store.append(quake(i));
+        }
+
+        ArchivedQuake updated = quake(3);
+        updated.setWrong(true);
+        store.append(updated);
+        store.remove(new UUID(0, 5));
+        store.flush();
+        store.close();
+
+        store = new ArchiveStore(folder);
+        Map<UUID, ArchivedQuake> loaded = byUuid(store.load());
+        assertEquals(9, loaded.size());
+        assertFalse(loaded.containsKey(new UUID(0, 5)));
+        assertTrue(loaded.get(new UUID(0, 3)).isWrong());
+        assertEquals("Region 7", loaded.get(new UUID(0, 7)).getRegion());
+        assertEquals(QualityClass.B, loaded.get(new UUID(0, 7)).getQualityClass());
+        assertEquals(4, loaded.get(new UUID(0, 4)).getAssignedStations());
+        assertEquals(quake(4).getArchivedEvents(), loaded.get(new UUID(0, 4)).getArchivedEvents());
+        store.close();
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        File folder = temporaryFolder.newFolder();
+        ArchiveStore store = new ArchiveStore(folder);
+        store.load();
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                store.append(quake(i));
+            }
+        }
+        for (int i = 50; i < 100; i++) {
+            store.remove(new UUID(0, i));
+        }
+
+        assertTrue(store.shouldCompact());
+        store.compact();
+        assertFalse(store.shouldCompact());
+
+        store.append(quake(200));
+        store.flush();
+        store.close();
+
+        store = new ArchiveStore(folder);
+        List<ArchivedQuake> loaded = store.load();
+        assertEquals(51, loaded.size());
+
+        Map<UUID, ArchivedQuake> quakes = byUuid(loaded);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i % 5, quakes.get(new UUID(0, i)).getAssignedStations());
+            assertEquals(quake(i).getArchivedEvents(), quakes.get(new UUID(0, i)).getArchivedEvents());
+        }
+        assertEquals(quake(200).getArchivedEvents(), quakes.get(new UUID(0, 200)).getArchivedEvents());
+        store.close();
+    }
+
+    @Test
+    public void testDamagedTail() throws Exception {
+        File folder = temporaryFolder.newFolder();
+        ArchiveStore store = new ArchiveStore(folder);
+        store.load();
+        for (int i = 0; i < 5; i++) {
+            store.append(quake(i));
+        }
+        store.flush();
+        store.close();
+
+        File[] segments = folder.listFiles((dir, name) -> name.endsWith(".seg"));
+        assertNotNull(segments);
+        Arrays.sort(segments);
+        try (FileOutputStream out = new FileOutputStream(segments[segments.length - 1], true)) {
+            out.write(new byte[]{0, 0, 0, 100, 1, 2, 3, 4, 1, 1});
+        }
+
+        store = new ArchiveStore(folder);
+        assertEquals(5, store.load().size());
+        store.append(quake(5));
+        store.flush();
+        store.close();
+
+        store = new ArchiveStore(folder);
+        assertEquals(6, store.load().size());
+        store.close();
+    }
+
+    @Test
+    public void testMaxPGA() throws Exception {
+        File folder = temporaryFolder.newFolder();
+        ArchiveStore store = new ArchiveStore(folder);
+        store.load();
+
+        ArchivedQuake quake = new ArchivedQuake(new UUID(0, 1), 10, 20, 10, 6.5, 1000L, QualityClass.A, 12.0, 0.42,
+                "Region", false, 0, ArrayList::new);
+        store.append(quake);
+
+        ArchivedQuake calculated = new ArchivedQuake(new UUID(0, 2), 10, 20, 10, 6.5, 2000L, QualityClass.A);
+        calculated.awaitPGA();
+        assertEquals(GeoUtils.pgaFunction(6.5, Regions.getOceanDistance(10, 20, false, 10), 10), calculated.getMaxPGA(), 1e-12);
+        store.append(calculated);
+
+        store.flush();
+        store.close();
+
+        store = new ArchiveStore(folder);
+        Map<UUID, ArchivedQuake> loaded = byUuid(store.load());
+        assertEquals(0.42, loaded.get(new UUID(0, 1)).getMaxPGA(), 1e-12);
+        assertEquals(calculated.getMaxPGA(), loaded.get(new UUID(0, 2)).getMaxPGA(), 1e-12);
+        store.close();
+    }
+
+}
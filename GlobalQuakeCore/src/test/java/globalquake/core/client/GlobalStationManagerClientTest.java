@@ -0,0 +1,136 @@
+package globalquake.core.client;
+
+import gqserver.api.Packet;
+import gqserver.api.data.station.StationInfoData;
+import gqserver.api.data.station.StationIntensityData;
+import gqserver.api.packets.station.InputType;
+import gqserver.api.packets.station.StationsInfoEndPacket;
+import gqserver.api.packets.station.StationsInfoPacket;
+import gqserver.api.packets.station.StationsIntensityPacket;
+import gqserver.api.packets.station.StationsRequestPacket;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class GlobalStationManagerClientTest {
+
+    private static class RecordingSocket extends ClientSocket {
+        private final List<Packet> sent = new ArrayList<>();
+
+        @Override
+        public synchronized void sendPacket(Packet packet) {
+            sent.add(packet);
+        }
+    }
+
+    private static StationsInfoPacket stations(UUID indexing, int from, int to) {
+        List<StationInfoData> data = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            data.add(new StationInfoData(i, 50, 15, "CZ", "S" + i, "BHZ", "", 0, 0, false, InputType.VELOCITY));
+        }
+        return new StationsInfoPacket(indexing, data);
+    }
+
+    @Test
+    public void testResumedSession() {
+        GlobalStationManagerClient manager = new GlobalStationManagerClient();
+        RecordingSocket socket = new RecordingSocket();
+        UUID indexing = UUID.randomUUID();
+
+        assertTrue(manager.prepareStations(indexing));
+        manager.processPacket(socket, stations(indexing, 0, 64));
+        manager.processPacket(socket, stations(indexing, 64, 100));
+        manager.processPacket(socket, new StationsInfoEndPacket(indexing, 100));
+
+        // the list was complete, so a resumed session keeps it
+        assertFalse(manager.prepareStations(indexing));
+        assertEquals(100, manager.getStations().size());
+        assertTrue(socket.sent.isEmpty());
+    }
+
+    @Test
+    public void testChangedIndexing() {
+        GlobalStationManagerClient manager = new GlobalStationManagerClient();
+        RecordingSocket socket = new RecordingSocket();
+        UUID indexing = UUID.randomUUID();
+
+        assertTrue(manager.prepareStations(indexing));
+        manager.processPacket(socket, stations(indexing, 0, 10));
+        manager.processPacket(socket, new StationsInfoEndPacket(indexing, 10));
+
+        // the server restarted while disconnected
+        UUID restarted = UUID.randomUUID();
+        assertTrue(manager.prepareStations(restarted));
+        assertEquals(restarted, manager.getIndexing());
+        assertTrue(manager.getStations().isEmpty());
+
+        manager.processPacket(socket, stations(restarted, 0, 5));
+        manager.processPacket(socket, new StationsInfoEndPacket(restarted, 5));
+        assertFalse(manager.prepareStations(restarted));
+
+        // the indexing changes while connected
+        UUID changed = UUID.randomUUID();
+        manager.processPacket(socket, new StationsIntensityPacket(changed, 0, List.of(new StationIntensityData(1, 2.0f, false))));
+        assertEquals(changed, manager.getIndexing());
+        assertTrue(manager.getStations().isEmpty());
+        assertEquals(1, socket.sent.size());
+        assertTrue(socket.sent.get(0) instanceof StationsRequestPacket);
+
+        // a late end of the old list doesn't complete the new one
+        manager.processPacket(socket, new StationsInfoEndPacket(restarted, 0));
+        assertTrue(manager.prepareStations(changed));
+    }
+
+    @Test
+    public void testInterruptedDownload() {
+        GlobalStationManagerClient manager = new GlobalStationManagerClient();
+        RecordingSocket socket = new RecordingSocket();
+        UUID indexing = UUID.randomUUID();
+
+        assertTrue(manager.prepareStations(indexing));
+        manager.processPacket(socket, stations(indexing, 0, 64));
+
+        // disconnected before the rest of the list and its end arrived
+        assertTrue(manager.prepareStations(indexing));
+        assertEquals(64, manager.getStations().size());
+
+        // the whole list comes again, known stations aren't duplicated
+        manager.processPacket(socket, stations(indexing, 0, 64));
+        manager.processPacket(socket, stations(indexing, 64, 128));
+        manager.processPacket(socket, stations(indexing, 128, 150));
+        manager.processPacket(socket, new StationsInfoEndPacket(indexing, 150));
+
+        assertEquals(150, manager.getStations().size());
+        assertFalse(manager.prepareStations(indexing));
+    }
+
+    @Test
+    public void testMissingStations() {
+        GlobalStationManagerClient manager = new GlobalStationManagerClient();
+        RecordingSocket socket = new RecordingSocket();
+        UUID indexing = UUID.randomUUID();
+
+        assertTrue(manager.prepareStations(indexing));
+        manager.processPacket(socket, stations(indexing, 0, 64));
+        manager.processPacket(socket, new StationsInfoEndPacket(indexing, 100));
+
+        assertTrue(manager.prepareStations(indexing));
+    }
+
+    @Test
+    public void testNoEndOfList() {
+        GlobalStationManagerClient manager = new GlobalStationManagerClient();
+        RecordingSocket socket = new RecordingSocket();
+
+        // servers without sessions or the end of the list are always asked again
+        assertTrue(manager.prepareStations(null));
+        manager.processPacket(socket, stations(null, 0, 10));
+        assertTrue(manager.prepareStations(null));
+        assertEquals(10, manager.getStations().size());
+    }
+
+}
@@ -0,0 +1,165 @@
+package globalquake.core.database;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import gqserver.api.packets.station.InputType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class FDSNWSDownloaderTest {
+
+    private static final String WADL = """
+            <application xmlns="http://wadl.dev.java.net/2009/02">
+              <resources><resource path="query"><method name="GET"><request>
+                <param name="minlongitude" type="xs:double"/>
+                <param name="maxlongitude" type="xs:double"/>
+              </request></method></resource></resources>
+            </application>""";
+
+    private static final String WEST = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <FDSNStationXML xmlns="http://www.fdsn.org/xml/station/1" schemaVersion="1.1">
+              <Network code="AA">
+                <Description>Test network</Description>
+                <Station code="WEST" startDate="2000-01-01T00:00:00">
+                  <Latitude>10.5</Latitude>
+                  <Longitude>-20.25</Longitude>
+                  <Elevation>100</Elevation>
+                  <Site><Name>West Site</Name></Site>
+                  <Channel code="HHZ" locationCode="00" startDate="2000-01-01T00:00:00">
+                    <Latitude>10.5</Latitude>
+                    <Longitude>-20.25</Longitude>
+                    <Elevation>90</Elevation>
+                    <SampleRate>100</SampleRate>
+                    <Response>
+                      <InstrumentSensitivity>
+                        <Value>1.5E9</Value>
+                        <Frequency>1</Frequency>
+                        <InputUnits><Name>m/s</Name></InputUnits>
+                        <OutputUnits><Name>counts</Name></OutputUnits>
+                      </InstrumentSensitivity>
+                      <Stage number="1"><PolesZeros><InputUnits><Name>nm</Name></InputUnits></PolesZeros></Stage>
+                    </Response>
+                  </Channel>
+                  <Channel code="LHZ" locationCode="00" startDate="2000-01-01T00:00:00">
+                    <Latitude>10.5</Latitude>
+                    <Longitude>-20.25</Longitude>
+                    <Elevation>90</Elevation>
+                  </Channel>
+                  <Channel code="BHZ" locationCode="" startDate="2000-01-01T00:00:00" endDate="2001-01-01T00:00:00">
+                    <Latitude>10.5</Latitude>
+                    <Longitude>-20.25</Longitude>
+                    <Elevation>90</Elevation>
+                  </Channel>
+                </Station>
+              </Network>
+            </FDSNStationXML>""";
+
+    private static final String EAST = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <FDSNStationXML xmlns="http://www.fdsn.org/xml/station/1" schemaVersion="1.1">
+              <Network code="AA">
+                <Description>Test network</Description>
+                <Station code="EAST">
+                  <Latitude>-5</Latitude>
+                  <Longitude>30</Longitude>
+                  <Elevation>0</Elevation>
+                  <Site><Name>East Site</Name></Site>
+                  <Channel code="EHZ" locationCode="10">
+                    <Latitude>-5</Latitude>
+                    <Longitude>30</Longitude>
+                    <Elevation>0</Elevation>
+                  </Channel>
+                </Station>
+              </Network>
+            </FDSNStationXML>""";
+
+    private HttpServer server;
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/fdsnws/station/1/application.wadl", exchange -> respond(exchange, WADL, false));
+        server.createContext("/fdsnws/station/1/query", exchange -> {
+            queries.incrementAndGet();
+            String query = exchange.getRequestURI().getQuery();
+            if (query.contains("minlongitude=-180.0&maxlongitude=180.0")) {
+                exchange.sendResponseHeaders(413, -1);
+                exchange.close();
+            } else if (query.contains("minlongitude=-180.0")) {
+                String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                respond(exchange, WEST, encoding != null && encoding.contains("gzip"));
+            } else {
+                respond(exchange, EAST, false);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, String body, boolean gzip) throws IOException {
+        byte[] data = body.getBytes(StandardCharsets.UTF_8);
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(data);
+            }
+            data = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+
+        exchange.sendResponseHeaders(200, data.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(data);
+        }
+    }
+
+    @Test
+    public void testSplitAndParse() throws Exception {
+        StationSource source = new StationSource("Stub", "http://127.0.0.1:%d/fdsnws/station/1/".formatted(server.getAddress().getPort()));
+        List<Network> networks = FDSNWSDownloader.downloadFDSNWS(source);
+
+        assertEquals(3, queries.get());
+        assertEquals(1, networks.size());
+
+        Network network = networks.get(0);
+        assertEquals("AA", network.getNetworkCode());
+        assertEquals("Test network", network.getDescription());
+        assertEquals(2, network.getStations().size());
+
+        Station west = StationDatabase.getStation(networks, "AA", "WEST");
+        assertNotNull(west);
+        assertEquals("West Site", west.getStationSite());
+        assertEquals(-20.25, west.getLongitude(), 1e-9);
+        assertEquals(1, west.getChannels().size());
+
+        Channel channel = west.getChannels().iterator().next();
+        assertEquals("HHZ", channel.getCode());
+        assertEquals(100, channel.getSampleRate(), 1e-9);
+        assertEquals(1.5E9, channel.getSensitivity(), 1e-3);
+        assertEquals(InputType.VELOCITY, channel.getInputType());
+
+        Channel east = StationDatabase.getChannel(networks, "AA", "EAST", "EHZ", "10");
+        assertNotNull(east);
+        assertEquals(-1, east.getSensitivity(), 1e-9);
+        assertEquals(-1, east.getSampleRate(), 1e-9);
+    }
+
+}
@@ -1,11 +1,19 @@
 package globalquake.core.earthquake;
 
+import globalquake.core.earthquake.data.Hypocenter;
+import globalquake.core.earthquake.data.HypocenterFinderSettings;
 import globalquake.core.earthquake.data.MagnitudeReading;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import globalquake.core.geo.taup.FlatTravelTable;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.utils.GeoUtils;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -94,4 +102,64 @@ public class EarthquakeAnalysisTest {
         assertEquals(EarthquakeAnalysis.selectMagnitude(mags), 4.0, 0.1);
     }
 
-}
\ No newline at end of file
+    private static boolean isIncrementalAcceptable(int correctEvents, int events, double err, Hypocenter previous){
+        return EarthquakeAnalysis.isIncrementalAcceptable(correctEvents, events, err, previous, 0.05, 1.5, 0.01);
+    }
+
+    @Test
+    public void testIncrementalRelocationGate(){
+        // 40 of 50 events were correct, mean error 0.1
+        Hypocenter previous = new Hypocenter(0, 0, 10, 0, 4.0, 40, null, null);
+        previous.usedEvents = 50;
+        previous.reducedEvents = 40;
+
+        assertTrue(isIncrementalAcceptable(40, 50, 5.0, previous));
+        assertTrue(isIncrementalAcceptable(38, 50, 5.0, previous));
+
+        // correctness dropped from 0.8 to 0.7
+        assertFalse(isIncrementalAcceptable(35, 50, 5.0, previous));
+
+        // mean error grew ten times
+        assertFalse(isIncrementalAcceptable(40, 50, 50.0, previous));
+
+        assertFalse(isIncrementalAcceptable(0, 0, 0, previous));
+    }
+
+    @Test
+    public void testIncrementalRelocationWithOutliers(){
+        double lat = 10.3;
+        double lon = 20.4;
+        double depth = 30;
+
+        // 30 good picks with some noise and 4 picks that are way off
+        Random r = new Random(42);
+        List<PickedEvent> events = new ArrayList<>();
+        for (int i = 0; i < 34; i++) {
+            double stationLat = 10 + (r.nextDouble() - 0.5) * 6;
+            double stationLon = 20 + (r.nextDouble() - 0.5) * 6;
+            double angle = TauPTravelTimeCalculator.toAngle(GeoUtils.greatCircleDistance(lat, lon, stationLat, stationLon));
+            long pWave = (long) (HypocenterSearchKernelTest.travelTime(depth, angle) * 1000) + r.nextInt(400) - 200;
+            events.add(new PickedEvent(i < 30 ? pWave : pWave + 20_000, stationLat, stationLon, 0, 100));
+        }
+
+        FlatTravelTable travelTable = HypocenterSearchKernelTest.createTravelTable();
+        HypocenterFinderSettings finderSettings = new HypocenterFinderSettings(1000, 0.4, 40, 5);
+
+        // the previous hypocenter was located after the outliers had been removed
+        PreliminaryHypocenter previousPrelim = new HypocenterSearchKernel(events.subList(0, 30), travelTable)
+                .refine(lat, lon, depth, TauPTravelTimeCalculator.MAX_DEPTH, finderSettings, 500);
+        Hypocenter previous = new Hypocenter(previousPrelim.lat, previousPrelim.lon, previousPrelim.depth, previousPrelim.origin,
+                previousPrelim.err, 30, null, null);
+        previous.usedEvents = 34;
+        previous.reducedEvents = 30;
+
+        HypocenterSearchKernel kernel = new HypocenterSearchKernel(events, travelTable);
+        PreliminaryHypocenter refined = kernel.refine(previous.lat, previous.lon, previous.depth,
+                TauPTravelTimeCalculator.MAX_DEPTH, finderSettings, 500);
+
+        // over all the events the outliers would dominate the error
+        assertFalse(isIncrementalAcceptable(30, 34, refined.err, previous));
+        assertTrue(isIncrementalAcceptable(30, 34, kernel.getReducedError(refined, previous.reducedEvents, finderSettings), previous));
+    }
+
+}
@@ -0,0 +1,93 @@
+package globalquake.core.earthquake;
+
+import globalquake.core.earthquake.data.HypocenterFinderSettings;
+import globalquake.core.earthquake.data.PickedEvent;
+import globalquake.core.earthquake.data.PreliminaryHypocenter;
+import globalquake.core.geo.taup.FlatTravelTable;
+import globalquake.core.geo.taup.TauPTravelTimeCalculator;
+import globalquake.utils.GeoUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HypocenterSearchKernelTest {
+
+    @Test
+    public void testSelectSingle(){
+        long[] values = {42};
+        assertEquals(42, HypocenterSearchKernel.selectKth(values, 1, 0));
+    }
+
+    @Test
+    public void testSelectMedianMatchesSort(){
+        Random r = new Random(1234);
+        for(int n = 1; n < 200; n++) {
+            long[] values = new long[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = r.nextInt(1000) - 500;
+            }
+
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+
+            assertEquals(sorted[(n - 1) / 2], HypocenterSearchKernel.selectKth(values, n, (n - 1) / 2));
+        }
+    }
+
+    @Test
+    public void testSelectDuplicates(){
+        long[] values = {5, 5, 5, 1, 5, 5, 9, 5};
+        assertEquals(1, HypocenterSearchKernel.selectKth(values.clone(), values.length, 0));
+        assertEquals(5, HypocenterSearchKernel.selectKth(values.clone(), values.length, 3));
+        assertEquals(9, HypocenterSearchKernel.selectKth(values.clone(), values.length, 7));
+    }
+
+    // straight ray with constant velocity, good enough to check the refinement
+    static double travelTime(double depth, double angle) {
+        double dist = angle / 360.0 * GeoUtils.EARTH_CIRCUMFERENCE;
+        return Math.sqrt(dist * dist + depth * depth) / 7.0;
+    }
+
+    static FlatTravelTable createTravelTable() {
+        float[][] table = new float[751][1501];
+        for (int depth = 0; depth < table.length; depth++) {
+            for (int ang = 0; ang < table[depth].length; ang++) {
+                table[depth][ang] = (float) travelTime(depth, ang * 0.1);
+            }
+        }
+        return new FlatTravelTable(table, 0, 150);
+    }
+
+    @Test
+    public void testRefineConverges(){
+        double lat = 10.3;
+        double lon = 20.4;
+        double depth = 30;
+
+        Random r = new Random(42);
+        List<PickedEvent> events = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            double stationLat = 10 + (r.nextDouble() - 0.5) * 6;
+            double stationLon = 20 + (r.nextDouble() - 0.5) * 6;
+            double angle = TauPTravelTimeCalculator.toAngle(GeoUtils.greatCircleDistance(lat, lon, stationLat, stationLon));
+            events.add(new PickedEvent((long) (travelTime(depth, angle) * 1000), stationLat, stationLon, 0, 100));
+        }
+
+        HypocenterSearchKernel kernel = new HypocenterSearchKernel(events, createTravelTable());
+        HypocenterFinderSettings finderSettings = new HypocenterFinderSettings(1000, 0.4, 40, 5);
+
+        PreliminaryHypocenter result = kernel.refine(10.0, 20.0, 10.0, TauPTravelTimeCalculator.MAX_DEPTH, finderSettings, 500);
+
+        assertTrue(GeoUtils.greatCircleDistance(lat, lon, result.lat, result.lon) < 2.0);
+        assertEquals(depth, result.depth, 5.0);
+        assertEquals(0, result.origin, 200);
+        assertEquals(events.size(), result.correctStations);
+    }
+
+}
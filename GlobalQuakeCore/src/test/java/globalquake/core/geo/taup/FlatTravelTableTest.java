@@ -0,0 +1,40 @@
+package globalquake.core.geo.taup;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FlatTravelTableTest {
+
+    // value = row * 10 + column, so the bilinear interpolation is exact
+    private static FlatTravelTable createTable() {
+        float[][] table = new float[5][4];
+        for (int row = 0; row < 5; row++) {
+            for (int column = 0; column < 4; column++) {
+                table[row][column] = row * 10 + column;
+            }
+        }
+        return new FlatTravelTable(table, 0, 30);
+    }
+
+    @Test
+    public void testInterpolation() {
+        FlatTravelTable table = createTable();
+        double depthPerRow = TauPTravelTimeCalculator.MAX_DEPTH / 4.0;
+
+        assertEquals(0, table.getTravelTimeFast(0, 0), 1e-6);
+        assertEquals(12, table.getTravelTimeFast(depthPerRow, 20), 1e-6);
+        assertEquals(25.5, table.getTravelTimeFast(depthPerRow * 2.5, 5), 1e-4);
+    }
+
+    @Test
+    public void testEdges() {
+        FlatTravelTable table = createTable();
+
+        assertEquals(43, table.getTravelTimeFast(TauPTravelTimeCalculator.MAX_DEPTH, 30), 1e-6);
+        assertEquals(TauPTravelTimeCalculator.NO_ARRIVAL, table.getTravelTimeFast(-1, 10), 1e-6);
+        assertEquals(TauPTravelTimeCalculator.NO_ARRIVAL, table.getTravelTimeFast(TauPTravelTimeCalculator.MAX_DEPTH + 1, 10), 1e-6);
+        assertEquals(TauPTravelTimeCalculator.NO_ARRIVAL, table.getTravelTimeFast(10, 30.5), 1e-6);
+    }
+
+}
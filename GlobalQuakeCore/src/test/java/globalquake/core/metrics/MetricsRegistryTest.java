@@ -0,0 +1,48 @@
+package globalquake.core.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testScrape() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_records_total", "Records", "network", "a\"b").inc(3);
+        registry.gauge("test_lag_seconds", "Lag", () -> 1.5);
+        registry.register("test_delay_seconds", "Delay", MetricsRegistry.Type.GAUGE, sink -> sink.sample(2, "station", "X"));
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# TYPE test_records_total counter\n"));
+        assertTrue(text.contains("test_records_total{network=\"a\\\"b\"} 3\n"));
+        assertTrue(text.contains("test_lag_seconds 1.5\n"));
+        assertTrue(text.contains("test_delay_seconds{station=\"X\"} 2\n"));
+    }
+
+    @Test
+    public void testHistogram() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("test_duration_seconds", "Duration", new double[]{0.1, 1});
+        histogram.observe(0.05);
+        histogram.observe(0.1);
+        histogram.observe(5);
+
+        assertSame(histogram, registry.histogram("test_duration_seconds", "Duration", new double[]{0.1, 1}));
+        assertEquals(3, histogram.getCount());
+
+        String text = registry.scrape();
+        assertTrue(text.contains("test_duration_seconds_bucket{le=\"0.1\"} 2\n"));
+        assertTrue(text.contains("test_duration_seconds_bucket{le=\"1\"} 2\n"));
+        assertTrue(text.contains("test_duration_seconds_bucket{le=\"+Inf\"} 3\n"));
+        assertTrue(text.contains("test_duration_seconds_count 3\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeMismatch() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_total", "Test");
+        registry.gauge("test_total", "Test");
+    }
+
+}
@@ -0,0 +1,52 @@
+package globalquake.core.station;
+
+import globalquake.utils.GeoUtils;
+import gqserver.api.packets.station.InputType;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class StationIndexTest {
+
+    @Test
+    public void testWithinRadius() {
+        Random r = new Random(0);
+        List<AbstractStation> stations = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double lat = Math.toDegrees(Math.asin(r.nextDouble() * 2 - 1));
+            double lon = r.nextDouble() * 360.0 - 180.0;
+            stations.add(new GlobalStation("", "", "", "", lat, lon, 0, i, null, -1, InputType.UNKNOWN));
+        }
+
+        StationIndex index = new StationIndex(stations);
+        assertEquals(stations.size(), index.size());
+
+        for (double radius : new double[]{0, 100, 1000, 5000, 20000}) {
+            for (int i = 0; i < 20; i++) {
+                double lat = Math.toDegrees(Math.asin(r.nextDouble() * 2 - 1));
+                double lon = r.nextDouble() * 360.0 - 180.0;
+
+                Set<Integer> expected = new HashSet<>();
+                for (AbstractStation station : stations) {
+                    if (GeoUtils.greatCircleDistance(lat, lon, station.getLatitude(), station.getLongitude()) <= radius) {
+                        expected.add(station.getId());
+                    }
+                }
+
+                Set<Integer> actual = new HashSet<>();
+                index.forEachWithin(lat, lon, radius, station -> actual.add(station.getId()));
+
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        StationIndex index = new StationIndex(Collections.emptyList());
+        assertEquals(0, index.getStationsWithin(0, 0, 1000).size());
+    }
+
+}
@@ -0,0 +1,58 @@
+package globalquake.ui.globe;
+
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+public class MarkerAtlasTest {
+
+    private static BufferedImage draw(MarkerAtlas.Shape shape, double stroke, double scale) {
+        BufferedImage image = new BufferedImage((int) (40 * scale), (int) (40 * scale), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.scale(scale, scale);
+        MarkerAtlas.draw(graphics, shape, Color.red, 8, stroke, false, 20, 20);
+        graphics.dispose();
+        return image;
+    }
+
+    private static boolean isRed(BufferedImage image, int x, int y) {
+        return image.getRGB(x, y) == Color.red.getRGB();
+    }
+
+    @Test
+    public void testFilledShapes() {
+        BufferedImage square = draw(MarkerAtlas.Shape.SQUARE, 0, 1);
+        assertTrue(isRed(square, 20, 20));
+        assertTrue(isRed(square, 13, 13));
+        assertFalse(isRed(square, 10, 10));
+
+        BufferedImage circle = draw(MarkerAtlas.Shape.CIRCLE, 0, 1);
+        assertTrue(isRed(circle, 20, 20));
+        assertTrue(isRed(circle, 20, 13));
+        assertFalse(isRed(circle, 13, 13));
+
+        BufferedImage up = draw(MarkerAtlas.Shape.TRIANGLE_UP, 0, 1);
+        assertTrue(isRed(up, 20, 14));
+        assertFalse(isRed(up, 20, 26));
+
+        BufferedImage down = draw(MarkerAtlas.Shape.TRIANGLE_DOWN, 0, 1);
+        assertTrue(isRed(down, 20, 26));
+        assertFalse(isRed(down, 20, 14));
+    }
+
+    @Test
+    public void testOutlineAndScale() {
+        BufferedImage outline = draw(MarkerAtlas.Shape.SQUARE, 2, 1);
+        assertFalse(isRed(outline, 20, 20));
+        assertTrue(isRed(outline, 12, 20));
+
+        BufferedImage scaled = draw(MarkerAtlas.Shape.SQUARE, 0, 2);
+        assertTrue(isRed(scaled, 40, 40));
+        assertTrue(isRed(scaled, 26, 26));
+        assertFalse(isRed(scaled, 20, 20));
+    }
+
+}
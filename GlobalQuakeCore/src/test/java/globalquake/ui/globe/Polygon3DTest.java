@@ -0,0 +1,70 @@
+package globalquake.ui.globe;
+
+import globalquake.utils.GeoUtils;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class Polygon3DTest {
+
+    private static Polygon3D circle(double lat, double lon, double radiusKm, int count) {
+        Polygon3D polygon = new Polygon3D();
+        for (int i = 0; i <= count; i++) {
+            double[] moved = GeoUtils.moveOnGlobe(lat, lon, radiusKm, 360.0 * (i % count) / count);
+            polygon.addPoint(GlobeRenderer.createVec3D(new Vector2D(moved[0], moved[1]), 0));
+        }
+        polygon.finish();
+        return polygon;
+    }
+
+    @Test
+    public void testCap() {
+        Polygon3D polygon = circle(40, 20, 500, 360);
+
+        Vector3D expectedCenter = GlobeRenderer.createVec3D(new Vector2D(40, 20), 0).normalize();
+        assertEquals(0, Vector3D.angle(expectedCenter, polygon.getCapCenter()), 1e-3);
+        assertEquals(500 / GeoUtils.EARTH_RADIUS, polygon.getCapRadius(), 1e-3);
+    }
+
+    @Test
+    public void testLevels() {
+        Polygon3D polygon = circle(-10, 150, 100, 2000);
+        assertSame(polygon.getPoints(), polygon.getPoints(10));
+
+        polygon.createLevels();
+        assertSame(polygon.getPoints(), polygon.getPoints(0));
+
+        List<Vector3D> fine = polygon.getPoints(0.2);
+        List<Vector3D> coarse = polygon.getPoints(20);
+        assertTrue(fine.size() < polygon.getPoints().size());
+        assertTrue(coarse.size() < fine.size());
+        assertTrue(coarse.size() >= 3);
+
+        // outline must stay closed
+        assertSame(polygon.getPoints().get(0), coarse.get(0));
+        assertSame(polygon.getPoints().get(polygon.getPoints().size() - 1), coarse.get(coarse.size() - 1));
+    }
+
+    @Test
+    public void testToleranceInPixels() {
+        GlobeRenderer renderer = new GlobeRenderer();
+        for (double scroll : new double[]{0.05, 0.5, 3}) {
+            RenderProperties properties = new RenderProperties(800, 600, 20, 30, scroll);
+            renderer.updateCamera(properties);
+            double tolerance = properties.getRenderPrecomputedValues().simplificationTolerance;
+
+            // moving a point at the center of the view by the tolerance must move it by SIMPLIFICATION_PX on the screen
+            double[] moved = GeoUtils.moveOnGlobe(20, 30, tolerance, 90);
+            Point2D a = renderer.projectPoint(GlobeRenderer.createVec3D(new Vector2D(20, 30), 0), properties);
+            Point2D b = renderer.projectPoint(GlobeRenderer.createVec3D(new Vector2D(moved[0], moved[1]), 0), properties);
+            double px = Math.hypot(a.x - b.x, a.y - b.y);
+
+            assertEquals(RenderPrecomputedValues.SIMPLIFICATION_PX, px, RenderPrecomputedValues.SIMPLIFICATION_PX * 0.1);
+        }
+    }
+
+}
@@ -2,22 +2,27 @@ package gqserver.main;
 
 import globalquake.core.GlobalQuake;
 import globalquake.core.Settings;
+import globalquake.core.client.ClientSocket;
 import globalquake.core.database.StationDatabaseManager;
 import globalquake.core.database.StationSource;
 import globalquake.core.earthquake.GQHypocs;
 import globalquake.core.exception.ApplicationErrorHandler;
 import globalquake.core.exception.FatalIOException;
+import globalquake.core.metrics.MetricsRegistry;
+import globalquake.core.metrics.MetricsServer;
 import globalquake.core.training.EarthquakeAnalysisTraining;
 import globalquake.core.regions.Regions;
 import globalquake.core.geo.taup.TauPTravelTimeCalculator;
 
 import globalquake.utils.Scale;
+import gqserver.server.GlobalQuakeRelay;
 import gqserver.server.GlobalQuakeServer;
 import gqserver.ui.server.DatabaseMonitorFrame;
 import org.apache.commons.cli.*;
 import org.tinylog.Logger;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
@@ -61,6 +66,14 @@ public class Main {
         maxClientsOption.setRequired(false);
         options.addOption(maxClientsOption);
 
+        Option metricsPortOption = new Option("m", "metrics-port", true, "port of the HTTP metrics endpoint, 0 to disable");
+        metricsPortOption.setRequired(false);
+        options.addOption(metricsPortOption);
+
+        Option relayOption = new Option("r", "relay", true, "run as a relay of the upstream server at host:port, implies headless");
+        relayOption.setRequired(false);
+        options.addOption(relayOption);
+
         Option maxGpuMemOption = new Option("g", "gpu-max-mem", true, "maximum GPU memory limit in GB");
         maxGpuMemOption.setRequired(false);
         options.addOption(maxGpuMemOption);
@@ -78,7 +91,7 @@ public class Main {
             System.exit(1);
         }
 
-        if(cmd.hasOption(headlessOption.getOpt())){
+        if(cmd.hasOption(headlessOption.getOpt()) || cmd.hasOption(relayOption.getOpt())){
             headless = true;
         }
 
@@ -96,6 +109,20 @@ public class Main {
             }
         }
 
+        if(cmd.hasOption(metricsPortOption.getOpt())) {
+            try {
+                int port = Integer.parseInt(cmd.getOptionValue(metricsPortOption.getOpt()));
+                if(port < 0 || port > 65535){
+                    throw new IllegalArgumentException("Invalid metrics port");
+                }
+                Settings.metricsPort = port;
+                Logger.info("Metrics port set to %d".formatted(Settings.metricsPort));
+            } catch(IllegalArgumentException e){
+                Logger.error(e);
+                System.exit(1);
+            }
+        }
+
         if(cmd.hasOption(maxGpuMemOption.getOpt())) {
             try {
                 double maxMem =  Double.parseDouble(cmd.getOptionValue(maxGpuMemOption.getOpt()));
@@ -112,6 +139,18 @@ public class Main {
 
         Logger.info("Headless = %s".formatted(headless));
 
+        if(cmd.hasOption(relayOption.getOpt())) {
+            String upstream = cmd.getOptionValue(relayOption.getOpt());
+            Executors.newSingleThreadExecutor().submit(() -> {
+                try {
+                    startRelay(upstream);
+                } catch (Exception e) {
+                    getErrorHandler().handleException(e);
+                }
+            });
+            return;
+        }
+
         try {
             startDatabaseManager();
         } catch (FatalIOException e) {
@@ -186,6 +225,40 @@ public class Main {
         GlobalQuakeServer.instance.initStations();
         GlobalQuakeServer.instance.getServerSocket().run(Settings.lastServerIP, Settings.lastServerPORT);
         GlobalQuakeServer.instance.startRuntime();
+        startMetricsServer();
+    }
+
+    private static void startRelay(String upstream) throws Exception {
+        int separator = upstream.lastIndexOf(':');
+        if(separator == -1){
+            throw new IllegalArgumentException("Upstream server must be given as host:port");
+        }
+
+        String host = upstream.substring(0, separator);
+        int port = Integer.parseInt(upstream.substring(separator + 1));
+
+        updateProgressBar("Loading regions...", 0);
+        Regions.init();
+        Scale.load();
+
+        GlobalQuakeRelay relay = new GlobalQuakeRelay(new ClientSocket());
+        Logger.info("Relaying upstream server %s:%d".formatted(host, port));
+        relay.connect(host, port);
+        relay.getServerSocket().run(Settings.lastServerIP, Settings.lastServerPORT);
+        startMetricsServer();
+    }
+
+    private static void startMetricsServer() {
+        if(Settings.metricsPort == 0){
+            return;
+        }
+
+        try {
+            new MetricsServer(MetricsRegistry.getInstance()).start(Settings.lastServerIP, Settings.metricsPort);
+        } catch (IOException e) {
+            Logger.error("Unable to start the metrics server on port %d".formatted(Settings.metricsPort));
+            Logger.error(e);
+        }
     }
 
     public static ApplicationErrorHandler getErrorHandler() {
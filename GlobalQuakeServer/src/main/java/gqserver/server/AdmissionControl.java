@@ -0,0 +1,267 @@
+package gqserver.server;
+
+import globalquake.core.GlobalQuake;
+import globalquake.core.metrics.Counter;
+import globalquake.core.metrics.Histogram;
+import globalquake.core.metrics.MetricsRegistry;
+import globalquake.utils.NamedThreadFactory;
+import gqserver.api.Packet;
+import gqserver.api.ServerClient;
+import gqserver.api.TokenBucket;
+import gqserver.api.exception.PacketLimitException;
+import gqserver.api.packets.earthquake.ArchiveDeltaRequestPacket;
+import gqserver.api.packets.earthquake.ArchiveQueryPacket;
+import gqserver.api.packets.earthquake.ArchivedEventsRequestPacket;
+import gqserver.api.packets.earthquake.ArchivedQuakesRequestPacket;
+import gqserver.api.packets.station.StationsRequestPacket;
+import gqserver.api.packets.system.HeartbeatPacket;
+import org.tinylog.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+/**
+ * Decides which requests of the clients are processed and when.
+ * Every client and every address has its own token buckets. Expensive requests additionally share one global budget,
+ * they wait in a queue per client and the clients take turns, so a reconnect storm can't starve the analysis.
+ */
+public class AdmissionControl {
+
+    // requests per second from one address, over all of its connections
+    private static final double ADDRESS_CAPACITY = 256;
+    private static final double ADDRESS_REFILL = 32;
+
+    // connection attempts from one address
+    private static final double CONNECTS_CAPACITY = 6;
+    private static final double CONNECTS_REFILL = 0.2;
+
+    // cost units of the expensive requests processed per second over all clients
+    private static final double BUDGET_CAPACITY = 64;
+    private static final double BUDGET_REFILL = 32;
+
+    private static final int MAX_QUEUED_PER_CLIENT = 8;
+
+    private record AddressLimits(TokenBucket requests, TokenBucket connects) {
+    }
+
+    private record PendingRequest(ServerClient client, Packet packet, int cost, long queuedAt) {
+    }
+
+    private final BiConsumer<ServerClient, Packet> processor;
+    private final Map<String, AddressLimits> addressLimits = new ConcurrentHashMap<>();
+
+    private final TokenBucket budget = new TokenBucket(BUDGET_CAPACITY, BUDGET_REFILL);
+    private final Map<ServerClient, Deque<PendingRequest>> queues = new HashMap<>();
+    // clients with queued requests, in the order they get their next turn
+    private final Deque<ServerClient> turns = new ArrayDeque<>();
+    private int queued = 0;
+
+    private ExecutorService schedulerService;
+    private volatile boolean running;
+
+    private final Histogram queueWait = MetricsRegistry.getInstance().histogram("gq_server_expensive_request_wait_seconds",
+            "Time expensive requests spent waiting for the global budget");
+
+    /**
+     * @param processor processes the admitted requests
+     */
+    public AdmissionControl(BiConsumer<ServerClient, Packet> processor) {
+        this.processor = processor;
+    }
+
+    public void start() {
+        MetricsRegistry.getInstance().gauge("gq_server_expensive_requests_queued", "Expensive requests waiting for the global budget",
+                () -> getQueued());
+
+        running = true;
+        schedulerService = Executors.newSingleThreadExecutor(new NamedThreadFactory("Expensive Requests Scheduler"));
+        schedulerService.submit(this::runScheduler);
+    }
+
+    public void stop() {
+        running = false;
+        synchronized (this) {
+            queues.clear();
+            turns.clear();
+            queued = 0;
+            notifyAll();
+        }
+        GlobalQuake.instance.stopService(schedulerService);
+    }
+
+    /**
+     * @return relative cost of processing the request, 0 for the cheap ones that are processed right away
+     */
+    public static int getCost(Packet packet) {
+        if (packet instanceof StationsRequestPacket || packet instanceof ArchivedQuakesRequestPacket) {
+            return 16;
+        }
+
+        if (packet instanceof ArchiveQueryPacket || packet instanceof ArchiveDeltaRequestPacket) {
+            return 2;
+        }
+
+        if (packet instanceof ArchivedEventsRequestPacket) {
+            return 1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return false if the address tried to connect too often recently
+     */
+    public boolean allowConnection(String address) {
+        if (getAddressLimits(address).connects().tryAcquire(1)) {
+            return true;
+        }
+
+        throttled("connect");
+        return false;
+    }
+
+    /**
+     * Checks the limits of the client and its address
+     *
+     * @return false if the packet has to be ignored
+     * @throws PacketLimitException if the client should be disconnected
+     */
+    public boolean admit(ClientConnection connection, Packet packet) throws PacketLimitException {
+        ServerClient client = connection.getClient();
+        if (!client.checkLimits(packet)) {
+            throttled("client");
+            return false;
+        }
+
+        // heartbeats are tiny and dropping them would only get the client disconnected
+        if (!(packet instanceof HeartbeatPacket) && !getAddressLimits(connection.getAddress()).requests().tryAcquire(1)) {
+            throttled("address");
+            client.noteThrottled();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Processes the request right away if it's cheap, otherwise queues it until its turn comes and the budget allows it
+     */
+    public void process(ServerClient client, Packet packet) throws PacketLimitException {
+        int cost = getCost(packet);
+        if (cost == 0) {
+            processor.accept(client, packet);
+            return;
+        }
+
+        if (!enqueue(new PendingRequest(client, packet, cost, System.nanoTime()))) {
+            throttled("queue");
+            client.noteThrottled();
+        }
+    }
+
+    private synchronized boolean enqueue(PendingRequest request) {
+        Deque<PendingRequest> queue = queues.get(request.client());
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            queues.put(request.client(), queue);
+            turns.addLast(request.client());
+        } else if (queue.size() >= MAX_QUEUED_PER_CLIENT) {
+            return false;
+        }
+
+        queue.addLast(request);
+        queued++;
+        notifyAll();
+        return true;
+    }
+
+    private synchronized PendingRequest takeNext() throws InterruptedException {
+        while (running && turns.isEmpty()) {
+            wait();
+        }
+
+        ServerClient client = turns.pollFirst();
+        if (client == null) {
+            return null;
+        }
+
+        Deque<PendingRequest> queue = queues.get(client);
+        PendingRequest request = queue.pollFirst();
+        queued--;
+        if (queue.isEmpty()) {
+            queues.remove(client);
+        } else {
+            turns.addLast(client);
+        }
+
+        return request;
+    }
+
+    private void runScheduler() {
+        try {
+            while (running) {
+                PendingRequest request = takeNext();
+                if (request == null) {
+                    continue;
+                }
+
+                long wait;
+                while ((wait = budget.getWaitNanos(request.cost(), System.nanoTime())) > 0) {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+
+                if (!request.client().isConnected() || !budget.tryAcquire(request.cost())) {
+                    continue;
+                }
+
+                queueWait.observeSince(request.queuedAt());
+                try {
+                    processor.accept(request.client(), request.packet());
+                } catch (Exception e) {
+                    Logger.tag("Server").error(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Logger.tag("Server").trace(e);
+        }
+    }
+
+    /**
+     * Forgets the queued requests of a client that left
+     */
+    public synchronized void removeClient(ServerClient client) {
+        Deque<PendingRequest> queue = queues.remove(client);
+        if (queue != null) {
+            queued -= queue.size();
+            turns.remove(client);
+        }
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    /**
+     * Forgets the limits of addresses that haven't sent anything for a while
+     */
+    public void cleanup() {
+        long now = System.nanoTime();
+        addressLimits.values().removeIf(limits -> limits.requests().isFull(now) && limits.connects().isFull(now));
+    }
+
+    private AddressLimits getAddressLimits(String address) {
+        return addressLimits.computeIfAbsent(address, ignored -> new AddressLimits(
+                new TokenBucket(ADDRESS_CAPACITY, ADDRESS_REFILL), new TokenBucket(CONNECTS_CAPACITY, CONNECTS_REFILL)));
+    }
+
+    private static void throttled(String reason) {
+        MetricsRegistry.getInstance().counter("gq_server_throttled_requests_total",
+                "Requests and connections ignored because of the rate limits", "reason", reason).inc();
+    }
+}
@@ -0,0 +1,208 @@
+package gqserver.server;
+
+import gqserver.api.Packet;
+import gqserver.api.ServerClient;
+import gqserver.api.exception.PacketLimitException;
+import gqserver.api.exception.UnknownPacketException;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking connection of one client.
+ * The selector moves the bytes, packets that arrived whole are decoded and processed on a shared pool.
+ * Only clients that stayed on java serialization after the handshake are read with blocking reads, on their own executor.
+ */
+public class ClientConnection {
+
+    // clients only send small requests, anything above this is not a well-behaved client
+    private static final int MAX_INBOUND_BYTES = 1024 * 1024;
+
+    // the handshake is parsed again every time more of it arrives, so it has to stay small
+    private static final int MAX_HANDSHAKE_BYTES = 64 * 1024;
+
+    private final GQServerSocket server;
+    private final SocketChannel channel;
+    private final ClientSelector selector;
+    private final ExecutorService packetService;
+    private final ExecutorService legacyService;
+    private final InboundBuffer inboundBuffer;
+    private final ServerClient client;
+    private final String address;
+    private final long createdAt;
+
+    private final AtomicBoolean readScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean inboundPending = new AtomicBoolean(false);
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+
+    private volatile boolean joined = false;
+    private volatile boolean binaryInput = false;
+    private SelectionKey key;
+
+    public ClientConnection(GQServerSocket server, SocketChannel channel, String address,
+                            ClientSelector selector, ExecutorService packetService, ExecutorService legacyService) throws IOException {
+        this.server = server;
+        this.channel = channel;
+        this.address = address;
+        this.selector = selector;
+        this.packetService = packetService;
+        this.legacyService = legacyService;
+        this.inboundBuffer = new InboundBuffer(GQServerSocket.PACKET_TIMEOUT);
+        this.client = new ServerClient(channel, inboundBuffer, this::requestWrite);
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public ServerClient getClient() {
+        return client;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isJoined() {
+        return joined;
+    }
+
+    public void setJoined(boolean joined) {
+        this.joined = joined;
+    }
+
+    /**
+     * Starts cutting the received bytes into frames of the binary protocol, must be called while processing the handshake
+     */
+    public void enableBinaryInput() {
+        this.binaryInput = true;
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Called from the selector thread when the channel has bytes to read
+     */
+    void onReadable(ByteBuffer readBuffer) {
+        try {
+            readBuffer.clear();
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+            byte[] data = new byte[readBuffer.remaining()];
+            readBuffer.get(data);
+            inboundBuffer.append(data);
+        } catch (IOException e) {
+            Logger.tag("Server").trace(e);
+            close();
+            return;
+        }
+
+        int available = inboundBuffer.available();
+        if (available > MAX_INBOUND_BYTES || (!joined && available > MAX_HANDSHAKE_BYTES)) {
+            Logger.tag("Server").warn("Client #%d sent too much data!".formatted(client.getID()));
+            close();
+            return;
+        }
+
+        scheduleInbound();
+    }
+
+    private boolean isLegacy() {
+        return joined && !binaryInput;
+    }
+
+    private void scheduleInbound() {
+        inboundPending.set(true);
+        if (readScheduled.compareAndSet(false, true)) {
+            boolean legacy = isLegacy();
+            (legacy ? legacyService : packetService).submit(() -> processInbound(legacy));
+        }
+    }
+
+    /**
+     * Called from the selector thread when the channel accepts more bytes or packets were queued
+     */
+    void onWritable() {
+        writeScheduled.set(false);
+        try {
+            boolean done = client.writeOutbound();
+            if (key != null && key.isValid()) {
+                key.interestOps(done ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            Logger.tag("Server").trace(e);
+            close();
+        }
+    }
+
+    private void requestWrite() {
+        if (writeScheduled.compareAndSet(false, true)) {
+            selector.requestWrite(this);
+        }
+    }
+
+    private void processInbound(boolean legacy) {
+        inboundPending.set(false);
+        try {
+            Packet packet;
+            while (client.isConnected() && (packet = nextPacket(legacy)) != null) {
+                server.onPacket(this, packet);
+            }
+        } catch (Exception | UnknownPacketException | PacketLimitException e) {
+            Logger.tag("Server").warn("Client #%d experienced a crash while reading!".formatted(client.getID()));
+            Logger.tag("Server").trace(e);
+            close();
+            return;
+        }
+
+        readScheduled.set(false);
+
+        // more bytes arrived meanwhile, or the client stayed on java serialization after the handshake
+        if (client.isConnected() && (inboundPending.get() || (legacy != isLegacy() && inboundBuffer.available() > 0))) {
+            scheduleInbound();
+        }
+    }
+
+    /**
+     * @return the next packet, or null if no packet arrived whole yet.
+     * Only blocks on the legacy executor, while a packet of a client using java serialization arrived partially
+     */
+    private Packet nextPacket(boolean legacy) throws IOException, UnknownPacketException {
+        if (binaryInput) {
+            byte[] frame = inboundBuffer.pollFrame(MAX_INBOUND_BYTES);
+            return frame == null ? null : client.decodePacket(frame);
+        }
+
+        if (!joined) {
+            return inboundBuffer.hasFirstObject() ? client.readPacket() : null;
+        }
+
+        return legacy && inboundBuffer.available() > 0 ? client.readPacket() : null;
+    }
+
+    public void close() {
+        inboundBuffer.close();
+        try {
+            client.destroy();
+        } catch (IOException e) {
+            Logger.tag("Server").error(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package gqserver.server;
+
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single thread that reads from and writes to the channels of many clients without ever blocking on one of them.
+ */
+public class ClientSelector implements Runnable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Selector selector;
+    private final Queue<ClientConnection> registrations = new ConcurrentLinkedQueue<>();
+    private final Queue<ClientConnection> writeRequests = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    public ClientSelector() throws IOException {
+        selector = Selector.open();
+    }
+
+    public void register(ClientConnection connection) {
+        registrations.add(connection);
+        selector.wakeup();
+    }
+
+    public void requestWrite(ClientConnection connection) {
+        writeRequests.add(connection);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (selector.isOpen()) {
+            try {
+                selector.select();
+                processRegistrations();
+                processWriteRequests();
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+
+                    ClientConnection connection = (ClientConnection) key.attachment();
+                    if (key.isValid() && key.isReadable()) {
+                        connection.onReadable(readBuffer);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.onWritable();
+                    }
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (Exception e) {
+                Logger.tag("Server").error(e);
+            }
+        }
+    }
+
+    private void processRegistrations() {
+        ClientConnection connection;
+        while ((connection = registrations.poll()) != null) {
+            try {
+                connection.setKey(connection.getChannel().register(selector, SelectionKey.OP_READ, connection));
+                // the stream header is already waiting
+                connection.onWritable();
+            } catch (IOException e) {
+                Logger.tag("Server").trace(e);
+                connection.close();
+            }
+        }
+    }
+
+    private void processWriteRequests() {
+        ClientConnection connection;
+        while ((connection = writeRequests.poll()) != null) {
+            connection.onWritable();
+        }
+    }
+
+    public void close() throws IOException {
+        selector.close();
+    }
+}
@@ -1,62 +1,68 @@
 package gqserver.server;
 
-import edu.sc.seis.seisFile.mseed.DataRecord;
 import globalquake.core.station.GlobalStation;
 import gqserver.api.ServerClient;
-import gqserver.api.packets.data.DataRecordPacket;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
-import java.util.PriorityQueue;
-import java.util.Queue;
 
+/**
+ * Subscription of one client to the data of one station, reading the shared {@link StationDataBuffer} of the station.
+ */
 public class DataRequest {
 
     private final GlobalStation station;
     private final ServerClient client;
-    public boolean ready;
+    private final StationDataBuffer buffer;
 
-    private final Queue<DataRecord> dataRecordQueue = new PriorityQueue<>(DataService.getDataRecordComparator());
+    // sequence number of the next record to send
+    private long cursor = 0;
+    private boolean replayed = false;
 
-    public DataRequest(GlobalStation station, ServerClient client) {
+    public DataRequest(GlobalStation station, ServerClient client, StationDataBuffer buffer) {
         this.station = station;
         this.client = client;
-        this.ready = false;
+        this.buffer = buffer;
     }
 
     public GlobalStation getStation() {
         return station;
     }
 
+    public StationDataBuffer getBuffer() {
+        return buffer;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DataRequest that = (DataRequest) o;
-        return Objects.equals(station.getId(), that.station.getId());
+        return Objects.equals(station.getId(), that.station.getId()) && client == that.client;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(station.getId());
+        return Objects.hash(station.getId(), client.getID());
     }
 
-    public synchronized void enqueue(DataRecord dataRecord) {
-        dataRecordQueue.add(dataRecord);
-    }
+    /**
+     * Sends the records the client hasn't received yet, the first call replays the whole buffer ordered by time
+     */
+    public synchronized void sendAvailable() throws IOException {
+        List<SharedDataRecord> pending = new ArrayList<>();
+        cursor = buffer.read(cursor, pending);
 
-    public synchronized void sendAll() throws IOException {
-        while(!dataRecordQueue.isEmpty()){
-            DataRecord dataRecord = dataRecordQueue.remove();
-            client.sendPacket(new DataRecordPacket(station.getId(), dataRecord.toByteArray()));
+        if (!replayed) {
+            pending.sort(Comparator.comparingLong(SharedDataRecord::getStartTime));
+            replayed = true;
         }
-    }
 
-    public int getQueueSize() {
-        return dataRecordQueue.size();
-    }
-
-    public void clear() {
-        dataRecordQueue.clear();
+        for (SharedDataRecord record : pending) {
+            client.sendPacket(record.getPacket());
+        }
     }
 }
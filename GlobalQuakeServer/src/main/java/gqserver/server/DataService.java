@@ -1,10 +1,11 @@
 package gqserver.server;
 
-import edu.sc.seis.seisFile.mseed.DataRecord;
 import globalquake.core.GlobalQuake;
 import globalquake.core.Settings;
+import globalquake.core.archive.ArchiveQuery;
 import globalquake.core.archive.ArchivedEvent;
 import globalquake.core.archive.ArchivedQuake;
+import globalquake.core.archive.EarthquakeArchive;
 import globalquake.core.earthquake.data.Cluster;
 import globalquake.core.earthquake.data.Earthquake;
 import globalquake.core.earthquake.data.Hypocenter;
@@ -21,6 +22,7 @@ import gqserver.api.ServerClient;
 import gqserver.api.data.cluster.ClusterData;
 import gqserver.api.data.earthquake.ArchivedEventData;
 import gqserver.api.data.earthquake.ArchivedQuakeData;
+import gqserver.api.data.earthquake.ArchivedQuakeSummaryData;
 import gqserver.api.data.earthquake.EarthquakeInfo;
 import gqserver.api.data.earthquake.HypocenterData;
 import gqserver.api.data.earthquake.advanced.*;
@@ -29,9 +31,12 @@ import gqserver.api.data.station.StationIntensityData;
 import gqserver.api.packets.cluster.ClusterPacket;
 import gqserver.api.packets.data.DataRequestPacket;
 import gqserver.api.packets.earthquake.*;
+import gqserver.api.packets.station.StationsInfoEndPacket;
 import gqserver.api.packets.station.StationsInfoPacket;
 import gqserver.api.packets.station.StationsIntensityPacket;
 import gqserver.api.packets.station.StationsRequestPacket;
+import gqserver.api.protocol.BinaryProtocol;
+import gqserver.api.protocol.OutboundPacket;
 import gqserver.events.GlobalQuakeServerEventListener;
 import gqserver.events.specific.ClientLeftEvent;
 import org.tinylog.Logger;
@@ -39,8 +44,6 @@ import org.tinylog.Logger;
 import java.io.IOException;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
@@ -49,14 +52,14 @@ public class DataService extends GlobalQuakeEventListener {
 
     private static final int STATIONS_INFO_PACKET_MAX_SIZE = 64;
     private static final int DATA_REQUESTS_MAX_COUNT = 16;
+    private static final int ARCHIVE_QUERY_MAX_PAGE_SIZE = 256;
 
     private final Queue<EarthquakeInfo> currentEarthquakes;
 
     private final Map<AbstractStation, StationStatus> stationIntensities = new HashMap<>();
     private ScheduledExecutorService stationIntensityService;
-    private final Object stationDataQueueLock = new Object();
 
-    private final Map<GlobalStation, Queue<DataRecord>> stationDataQueueMap = new HashMap<>();
+    private final Map<Integer, StationDataBuffer> stationDataBuffers = new ConcurrentHashMap<>();
     private final Map<String, GlobalStation> stationMap = new HashMap<>();
     private final Map<ServerClient, Set<DataRequest>> clientDataRequestMap = new ConcurrentHashMap<>();
     private ScheduledExecutorService cleanupService;
@@ -70,7 +73,7 @@ public class DataService extends GlobalQuakeEventListener {
         GlobalQuakeServer.instance.getServerEventHandler().registerEventListener(new GlobalQuakeServerEventListener(){
             @Override
             public void onClientLeave(ClientLeftEvent event) {
-                clientDataRequestMap.remove(event.client());
+                removeDataRequests(event.client());
             }
         });
 
@@ -82,16 +85,13 @@ public class DataService extends GlobalQuakeEventListener {
     }
 
     private void cleanup() {
-        synchronized (stationDataQueueLock){
-            for(Queue<DataRecord> queue : stationDataQueueMap.values()){
-                while(!queue.isEmpty() && isOld(queue.peek())){
-                    queue.remove();
-                }
-            }
+        long oldestTime = getOldestDataTime();
+        for(StationDataBuffer buffer : stationDataBuffers.values()){
+            buffer.removeOlderThan(oldestTime);
         }
 
         // remove clients that timed out, but for whatever reason didn't fire the client left event
-        clientDataRequestMap.entrySet().removeIf(kv -> isOld(kv.getKey()));
+        clientDataRequestMap.keySet().stream().filter(this::isOld).toList().forEach(this::removeDataRequests);
 
         // remove earthquakes that are not really on the list
         mainloop:
@@ -113,9 +113,11 @@ public class DataService extends GlobalQuakeEventListener {
         return System.currentTimeMillis() - client.getLastHeartbeat() > 5 * 60 * 1000;
     }
 
-    private boolean isOld(DataRecord dataRecord) {
-        return dataRecord.getStartBtime().toInstant().isBefore(
-                Instant.now().minus(Settings.logsStoreTimeMinutes, ChronoUnit.MINUTES));
+    private void removeDataRequests(ServerClient client) {
+        Set<DataRequest> dataRequests = clientDataRequestMap.remove(client);
+        if(dataRequests != null){
+            dataRequests.forEach(dataRequest -> dataRequest.getBuffer().unsubscribe(dataRequest));
+        }
     }
 
     public StationStatus createStatus(AbstractStation station){
@@ -184,37 +186,20 @@ public class DataService extends GlobalQuakeEventListener {
     @Override
     public void onNewData(SeedlinkDataEvent seedlinkDataEvent) {
         GlobalStation station = seedlinkDataEvent.getStation();
-        DataRecord record = seedlinkDataEvent.getDataRecord();
-        synchronized (stationDataQueueLock) {
-            stationDataQueueMap.putIfAbsent(station,
-                    new PriorityQueue<>(getDataRecordComparator()));
-            stationDataQueueMap.get(station).add(record);
+        try {
+            getStationDataBuffer(station).add(new SharedDataRecord(station.getId(), seedlinkDataEvent.getDataRecord()),
+                    getOldestDataTime());
+        } catch (IOException e) {
+            Logger.tag("Server").trace(e);
         }
+    }
 
-        for(var kv : clientDataRequestMap.entrySet()){
-            for(DataRequest dr : kv.getValue()){
-                if(dr.getStation().getId() == station.getId()){
-                    dr.enqueue(record);
-                    if(dr.getQueueSize() > 20 && !dr.ready) {
-                        Logger.tag("Server").warn("Client data queue exceeded a certain limit, sending everyting...");
-                        dr.ready = true;
-                    }
-
-                    if(dr.getQueueSize() > 30){
-                        Logger.tag("Server").warn("Client data queue exceeded another limit, clearing it!");
-                        dr.clear();
-                    }
+    private static long getOldestDataTime() {
+        return GlobalQuake.instance.currentTimeMillis() - Settings.logsStoreTimeMinutes * 60 * 1000L;
+    }
 
-                    if(dr.ready){
-                        try {
-                            dr.sendAll();
-                        } catch (IOException e) {
-                            Logger.tag("Server").trace(e);
-                        }
-                    }
-                }
-            }
-        }
+    private StationDataBuffer getStationDataBuffer(GlobalStation station) {
+        return stationDataBuffers.computeIfAbsent(station.getId(), ignored -> new StationDataBuffer());
     }
 
     @Override
@@ -226,19 +211,23 @@ public class DataService extends GlobalQuakeEventListener {
         return new ClusterData(cluster.getUuid(), cluster.getRootLat(), cluster.getRootLon(), cluster.getLevel());
     }
 
-    public static Comparator<DataRecord> getDataRecordComparator() {
-        return Comparator.comparing(dataRecord -> dataRecord.getStartBtime().toInstant().toEpochMilli());
+    private Packet createArchivedPacket(ArchivedQuake archivedQuake) {
+        return new ArchivedQuakePacket(createArchivedQuakeData(archivedQuake), createArchivedEventsData(archivedQuake.getArchivedEvents()));
     }
 
-    private Packet createArchivedPacket(ArchivedQuake archivedQuake) {
-        return new ArchivedQuakePacket(new ArchivedQuakeData(
+    private ArchivedQuakeSummaryData createArchivedQuakeSummary(ArchivedQuake archivedQuake) {
+        return new ArchivedQuakeSummaryData(createArchivedQuakeData(archivedQuake), archivedQuake.getAssignedStations());
+    }
+
+    private ArchivedQuakeData createArchivedQuakeData(ArchivedQuake archivedQuake) {
+        return new ArchivedQuakeData(
                 archivedQuake.getUuid(),
                 (float) archivedQuake.getLat(),
                 (float) archivedQuake.getLon(),
                 (float) archivedQuake.getDepth(),
                 (float) archivedQuake.getMag(),
                 archivedQuake.getOrigin(),
-                (byte) archivedQuake.getQualityClass().ordinal()), createArchivedEventsData(archivedQuake.getArchivedEvents()));
+                (byte) archivedQuake.getQualityClass().ordinal());
     }
 
     private List<ArchivedEventData> createArchivedEventsData(ArrayList<ArchivedEvent> archivedEvents) {
@@ -329,9 +318,11 @@ public class DataService extends GlobalQuakeEventListener {
     }
 
     private void broadcast(List<ServerClient> clients, Packet packet) {
+        // encoded only once for all clients using the binary protocol
+        OutboundPacket outboundPacket = new OutboundPacket(packet);
         clients.forEach(client -> {
             try {
-                client.sendPacket(packet);
+                client.sendPacket(outboundPacket);
             } catch(SocketException | SocketTimeoutException e){
                 Logger.tag("Server").trace(e);
             }catch (Exception e) {
@@ -360,6 +351,12 @@ public class DataService extends GlobalQuakeEventListener {
                 processEarthquakeRequest(client, earthquakeRequestPacket);
             } else if (packet instanceof ArchivedQuakesRequestPacket) {
                 processArchivedQuakesRequest(client);
+            } else if (packet instanceof ArchiveQueryPacket archiveQueryPacket) {
+                processArchiveQuery(client, archiveQueryPacket);
+            } else if (packet instanceof ArchivedEventsRequestPacket archivedEventsRequestPacket) {
+                processArchivedEventsRequest(client, archivedEventsRequestPacket);
+            } else if (packet instanceof ArchiveDeltaRequestPacket archiveDeltaRequestPacket) {
+                processArchiveDeltaRequest(client, archiveDeltaRequestPacket);
             } else if(packet instanceof StationsRequestPacket){
                 processStationsRequestPacket(client);
             } else if(packet instanceof DataRequestPacket dataRequestPacket){
@@ -380,16 +377,16 @@ public class DataService extends GlobalQuakeEventListener {
             return;
         }
 
-        clientDataRequestMap.putIfAbsent(client, new HashSet<>());
-        Set<DataRequest> dataRequests = clientDataRequestMap.get(client);
+        Set<DataRequest> dataRequests = clientDataRequestMap.computeIfAbsent(client, ignored -> ConcurrentHashMap.newKeySet());
+        DataRequest dataRequest = new DataRequest(station, client, getStationDataBuffer(station));
         if(!packet.cancel()) {
             if(dataRequests.size() >= DATA_REQUESTS_MAX_COUNT){
                 Logger.tag("Server").warn("Too many data requests for client #%d!".formatted(client.getID()));
             } else {
-                sendDataRequest(dataRequests, new DataRequest(station, client));
+                sendDataRequest(dataRequests, dataRequest);
             }
-        } else {
-            dataRequests.removeIf(dataRequest -> dataRequest.getStation().equals(station));
+        } else if(dataRequests.remove(dataRequest)) {
+            dataRequest.getBuffer().unsubscribe(dataRequest);
         }
     }
 
@@ -399,25 +396,26 @@ public class DataService extends GlobalQuakeEventListener {
             return;
         }
 
-        Queue<DataRecord> dataRecords = new PriorityQueue<>(getDataRecordComparator());
-
-        Queue<DataRecord> data = stationDataQueueMap.get(dataRequest.getStation());
-        if(data != null){
-            dataRecords.addAll(data);
-        }
-
-        while(!dataRecords.isEmpty()){
-            DataRecord dataRecord = dataRecords.remove();
-            dataRequest.enqueue(dataRecord);
-        }
+        // subscribed first, so nothing that arrives during the replay is missed
+        dataRequest.getBuffer().subscribe(dataRequest);
+        dataRequest.sendAvailable();
+    }
 
-        dataRequest.sendAll();
-        dataRequest.ready = true;
+    /**
+     * @return identifiers of the stations whose data at least one client receives
+     */
+    public Set<String> getRequestedStations() {
+        Set<String> result = new HashSet<>();
+        clientDataRequestMap.values().forEach(dataRequests ->
+                dataRequests.forEach(dataRequest -> result.add(dataRequest.getStation().getIdentifier())));
+        return result;
     }
 
     private void processStationsRequestPacket(ServerClient client) throws IOException {
         List<StationInfoData> data = new ArrayList<>();
+        int count = 0;
         for (AbstractStation station : GlobalQuake.instance.getStationManager().getStations()){
+            count++;
             data.add(new StationInfoData(
                                 station.getId(),
                                 (float) station.getLatitude(),
@@ -440,6 +438,11 @@ public class DataService extends GlobalQuakeEventListener {
         if(!data.isEmpty()){
             client.sendPacket(new StationsInfoPacket(GlobalQuake.instance.getStationManager().getIndexing(), data));
         }
+
+        // lets the client tell a complete list from one cut off by a disconnect
+        if(client.getProtocolVersion() >= BinaryProtocol.STATIONS_END_VERSION){
+            client.sendPacket(new StationsInfoEndPacket(GlobalQuake.instance.getStationManager().getIndexing(), count));
+        }
     }
 
     private void processArchivedQuakesRequest(ServerClient client) throws IOException {
@@ -450,6 +453,55 @@ public class DataService extends GlobalQuakeEventListener {
         }
     }
 
+    private void processArchiveQuery(ServerClient client, ArchiveQueryPacket packet) throws IOException {
+        int pageSize = Math.max(1, Math.min(ARCHIVE_QUERY_MAX_PAGE_SIZE, packet.pageSize()));
+        ArchiveQuery query = new ArchiveQuery(packet.from(), packet.to(), packet.minMagnitude(),
+                packet.minLat(), packet.maxLat(), packet.minLon(), packet.maxLon());
+
+        // one more than requested tells if there is another page
+        List<ArchivedQuake> quakes = GlobalQuake.instance.getArchive().query(query, packet.cursorOrigin(), packet.cursorUUID(), pageSize + 1);
+
+        List<ArchivedQuakeSummaryData> result = new ArrayList<>();
+        for (ArchivedQuake archivedQuake : quakes.subList(0, Math.min(pageSize, quakes.size()))) {
+            result.add(createArchivedQuakeSummary(archivedQuake));
+        }
+
+        client.sendPacket(new ArchiveQueryResultPacket(result, quakes.size() > pageSize));
+    }
+
+    private void processArchiveDeltaRequest(ServerClient client, ArchiveDeltaRequestPacket packet) throws IOException {
+        EarthquakeArchive archive = GlobalQuake.instance.getArchive();
+        long sequence = archive.getSequence();
+
+        List<ArchivedQuakeSummaryData> result = new ArrayList<>();
+        for (ArchivedQuake archivedQuake : archive.getArchivedQuakes(packet.archiveSequence(), sequence)) {
+            result.add(createArchivedQuakeSummary(archivedQuake));
+        }
+
+        client.sendPacket(new ArchiveDeltaPacket(result, sequence));
+    }
+
+    private void processArchivedEventsRequest(ServerClient client, ArchivedEventsRequestPacket packet) {
+        ArchivedQuake archivedQuake = GlobalQuake.instance.getArchive().getArchivedQuakeByUUID(packet.uuid());
+        if(archivedQuake == null) {
+            sendArchivedEvents(client, packet.uuid(), null);
+            return;
+        }
+
+        // a relay has to fetch the events from its upstream server first
+        GlobalQuake.instance.getArchive().loadDetails(archivedQuake).whenComplete((loaded, throwable) ->
+                sendArchivedEvents(client, packet.uuid(), throwable == null ? loaded : null));
+    }
+
+    private void sendArchivedEvents(ServerClient client, UUID uuid, ArchivedQuake archivedQuake) {
+        try {
+            client.sendPacket(new ArchivedEventsPacket(uuid,
+                    archivedQuake == null ? List.of() : createArchivedEventsData(archivedQuake.getArchivedEvents())));
+        } catch (IOException e) {
+            Logger.tag("Server").trace(e);
+        }
+    }
+
     private void processEarthquakeRequest(ServerClient client, EarthquakeRequestPacket earthquakeRequestPacket) throws IOException {
         for(Earthquake earthquake : GlobalQuakeServer.instance.getEarthquakeAnalysis().getEarthquakes()){
             if(earthquake.getUuid().equals(earthquakeRequestPacket.uuid())){
@@ -471,7 +523,7 @@ public class DataService extends GlobalQuakeEventListener {
 
         stationMap.clear();
         clientDataRequestMap.clear();
-        stationDataQueueMap.clear();
+        stationDataBuffers.clear();
         stationIntensities.clear();
         currentEarthquakes.clear();
     }
@@ -3,30 +3,38 @@ package gqserver.server;
 import globalquake.core.GlobalQuake;
 import globalquake.core.Settings;
 import globalquake.core.exception.RuntimeApplicationException;
+import globalquake.core.metrics.MetricsRegistry;
+import globalquake.utils.NamedThreadFactory;
 import globalquake.utils.monitorable.MonitorableCopyOnWriteArrayList;
 import gqserver.api.GQApi;
 import gqserver.api.Packet;
 import gqserver.api.ServerClient;
+import gqserver.api.data.system.SessionData;
 import gqserver.api.exception.PacketLimitException;
 import gqserver.api.packets.system.HandshakePacket;
 import gqserver.api.packets.system.HandshakeSuccessfulPacket;
 import gqserver.api.packets.system.TerminationPacket;
+import gqserver.api.protocol.BinaryProtocol;
+import gqserver.api.protocol.OutboundPacket;
 import gqserver.events.specific.ClientJoinedEvent;
 import gqserver.events.specific.ClientLeftEvent;
 import gqserver.events.specific.ServerStatusChangedEvent;
-import gqserver.api.exception.UnknownPacketException;
 import gqserver.main.Main;
 import gqserver.ui.server.tabs.StatusTab;
 import org.tinylog.Logger;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -37,20 +45,29 @@ public class GQServerSocket {
     private static final int HANDSHAKE_TIMEOUT = 10 * 1000;
     private static final int WATCHDOG_TIMEOUT = 60 * 1000;
 
-    public static final int READ_TIMEOUT = WATCHDOG_TIMEOUT + 10 * 1000;
+    // how long a client may take to finish sending a packet it started sending
+    public static final int PACKET_TIMEOUT = 10 * 1000;
     private static final int CONNECTIONS_LIMIT = 3;
     private final DataService dataService;
+    private final AdmissionControl admissionControl;
     private SocketStatus status;
-    private ExecutorService handshakeService;
-    private ExecutorService readerService;
+    private ExecutorService packetService;
+    private ExecutorService legacyService;
+    private ExecutorService selectorService;
+    private ClientSelector[] selectors;
+    private int nextSelector = 0;
     private ScheduledExecutorService clientsWatchdog;
     private ScheduledExecutorService clientsLimitWatchdog;
     private ScheduledExecutorService statusReportingService;
     private final List<ServerClient> clients;
+    private final Set<ClientConnection> handshakingConnections = ConcurrentHashMap.newKeySet();
 
     private GQServerStats stats;
 
-    private volatile ServerSocket lastSocket;
+    // sequence numbers sent to the clients are only valid within this run of the server
+    private final UUID serverSession = UUID.randomUUID();
+
+    private volatile ServerSocketChannel lastSocket;
     private final Object joinMutex = new Object();
     private final Object connectionsMapLock = new Object();
 
@@ -60,13 +77,15 @@ public class GQServerSocket {
         status = SocketStatus.IDLE;
         clients = new MonitorableCopyOnWriteArrayList<>();
         dataService = new DataService();
+        admissionControl = new AdmissionControl(dataService::processPacket);
     }
 
     public void run(String ip, int port) {
         Logger.tag("Server").info("Creating server...");
         ExecutorService acceptService = Executors.newSingleThreadExecutor();
-        handshakeService = Executors.newCachedThreadPool();
-        readerService = Executors.newCachedThreadPool();
+        packetService = Executors.newFixedThreadPool(getPacketThreads(), new NamedThreadFactory("Packet Service"));
+        // only clients that passed the handshake, so there are never more of these threads than clients
+        legacyService = Executors.newCachedThreadPool(new NamedThreadFactory("Legacy Client Reader"));
         clientsWatchdog = Executors.newSingleThreadScheduledExecutor();
         clientsLimitWatchdog = Executors.newSingleThreadScheduledExecutor();
         statusReportingService = Executors.newSingleThreadScheduledExecutor();
@@ -74,11 +93,18 @@ public class GQServerSocket {
 
         setStatus(SocketStatus.OPENING);
         try {
-            lastSocket = new ServerSocket();
+            selectors = new ClientSelector[getSelectorCount()];
+            selectorService = Executors.newFixedThreadPool(selectors.length, new NamedThreadFactory("Client Selector"));
+            for (int i = 0; i < selectors.length; i++) {
+                selectors[i] = new ClientSelector();
+                selectorService.submit(selectors[i]);
+            }
+
+            lastSocket = ServerSocketChannel.open();
             Logger.tag("Server").info("Binding port %d...".formatted(port));
             lastSocket.bind(new InetSocketAddress(ip, port));
             clientsWatchdog.scheduleAtFixedRate(this::checkClients, 0, 10, TimeUnit.SECONDS);
-            clientsLimitWatchdog.scheduleAtFixedRate(this::updateLimits, 0, 60, TimeUnit.SECONDS);
+            clientsLimitWatchdog.scheduleAtFixedRate(admissionControl::cleanup, 60, 60, TimeUnit.SECONDS);
             acceptService.submit(this::runAccept);
 
             if(Main.isHeadless()){
@@ -86,6 +112,8 @@ public class GQServerSocket {
             }
 
             dataService.run();
+            admissionControl.start();
+            registerMetrics();
             setStatus(SocketStatus.RUNNING);
             Logger.tag("Server").info("Server launched successfully");
         } catch (IOException e) {
@@ -94,25 +122,74 @@ public class GQServerSocket {
         }
     }
 
-    private void updateLimits() {
-        clients.forEach(ServerClient::updateLimits);
+    private static int getPacketThreads() {
+        return Math.max(2, Runtime.getRuntime().availableProcessors());
+    }
+
+    private static int getSelectorCount() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
     }
 
     private void printStatus() {
         long maxMem = Runtime.getRuntime().maxMemory();
         long usedMem = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
 
-        int[] summary = GlobalQuakeServer.instance.getStationDatabaseManager().getSummary();
+        if (GlobalQuakeServer.instance.getStationDatabaseManager() == null) {
+            Logger.tag("ServerStatus").info("Relay status: Clients: %d / %d, RAM: %.2f / %.2f GB, Stations: %d"
+                    .formatted(clients.size(), Settings.maxClients, usedMem / StatusTab.GB, maxMem / StatusTab.GB,
+                            GlobalQuakeServer.instance.getStationManager().getStations().size()));
+        } else {
+            int[] summary = GlobalQuakeServer.instance.getStationDatabaseManager().getSummary();
 
-        Logger.tag("ServerStatus").info("Server status: Clients: %d / %d, RAM: %.2f / %.2f GB, Seedlinks: %d / %d, Stations: %d / %d"
-                .formatted(clients.size(), Settings.maxClients, usedMem / StatusTab.GB, maxMem / StatusTab.GB,
-                        summary[2], summary[3], summary[1], summary[0]));
+            Logger.tag("ServerStatus").info("Server status: Clients: %d / %d, RAM: %.2f / %.2f GB, Seedlinks: %d / %d, Stations: %d / %d"
+                    .formatted(clients.size(), Settings.maxClients, usedMem / StatusTab.GB, maxMem / StatusTab.GB,
+                            summary[2], summary[3], summary[1], summary[0]));
+        }
 
         if (stats != null) {
             Logger.tag("ServerStatus").info(
-                    "accepted: %d, wrongVersion: %d, wrongPacket: %d, serverFull: %d, success: %d, error: %d, ipRejects: %d"
-                    .formatted(stats.accepted, stats.wrongVersion, stats.wrongPacket, stats.serverFull, stats.successfull, stats.errors, stats.ipRejects));
+                    "accepted: %d, wrongVersion: %d, wrongPacket: %d, serverFull: %d, success: %d, resumed: %d, error: %d, ipRejects: %d"
+                    .formatted(stats.accepted, stats.wrongVersion, stats.wrongPacket, stats.serverFull, stats.successfull, stats.resumed, stats.errors, stats.ipRejects));
         }
+
+        Logger.tag("ServerStatus").info("Outbound data: encoded %.2f MB, sent %.2f MB"
+                .formatted(OutboundPacket.getEncodedBytes() / StatusTab.MB, OutboundPacket.getSentBytes() / StatusTab.MB));
+    }
+
+    private void registerMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        GQServerStats stats = this.stats;
+
+        metrics.gauge("gq_server_clients", "Number of connected clients", clients::size);
+        metrics.register("gq_server_connections_total", "Number of incoming connections by their outcome",
+                MetricsRegistry.Type.COUNTER, sink -> {
+                    sink.sample(stats.accepted, "result", "accepted");
+                    sink.sample(stats.wrongVersion, "result", "wrong_version");
+                    sink.sample(stats.wrongPacket, "result", "wrong_packet");
+                    sink.sample(stats.serverFull, "result", "server_full");
+                    sink.sample(stats.successfull, "result", "success");
+                    sink.sample(stats.resumed, "result", "resumed");
+                    sink.sample(stats.errors, "result", "error");
+                    sink.sample(stats.ipRejects, "result", "ip_reject");
+                });
+        metrics.register("gq_server_outbound_bytes_total", "Number of bytes encoded for and written to the clients",
+                MetricsRegistry.Type.COUNTER, sink -> {
+                    sink.sample(OutboundPacket.getEncodedBytes(), "stage", "encoded");
+                    sink.sample(OutboundPacket.getSentBytes(), "stage", "sent");
+                });
+
+        metrics.register("gq_client_queued_packets", "Number of packets waiting to be written to the client",
+                MetricsRegistry.Type.GAUGE, sink -> clients.forEach(client ->
+                        sink.sample(client.getQueuedPackets(), "client", String.valueOf(client.getID()))));
+        metrics.register("gq_client_sent_bytes_total", "Number of bytes written to the client",
+                MetricsRegistry.Type.COUNTER, sink -> clients.forEach(client ->
+                        sink.sample(client.getSentBytes(), "client", String.valueOf(client.getID()))));
+        metrics.register("gq_client_dropped_packets_total", "Number of packets dropped because the client couldn't keep up",
+                MetricsRegistry.Type.COUNTER, sink -> clients.forEach(client ->
+                        sink.sample(client.getDroppedPackets(), "client", String.valueOf(client.getID()))));
+        metrics.register("gq_client_throttled_requests_total", "Number of requests ignored because the client exceeded its limits",
+                MetricsRegistry.Type.COUNTER, sink -> clients.forEach(client ->
+                        sink.sample(client.getThrottledPackets(), "client", String.valueOf(client.getID()))));
     }
 
     private void checkClients() {
@@ -123,7 +200,8 @@ public class GQServerSocket {
                     try {
                         client.destroy();
                         toRemove.add(client);
-                        clientLeft(client.getSocket());
+                        admissionControl.removeClient(client);
+                        clientLeft(getRemoteAddress(client.getSocket().getRemoteSocketAddress()));
                         GlobalQuakeServer.instance.getServerEventHandler().fireEvent(new ClientLeftEvent(client));
                         Logger.tag("Server").info("Client #%d disconnected due to timeout".formatted(client.getID()));
                     } catch (Exception e) {
@@ -132,21 +210,52 @@ public class GQServerSocket {
                 }
             }
             clients.removeAll(toRemove);
+
+            for (ClientConnection connection : handshakingConnections) {
+                if (!connection.getClient().isConnected() || System.currentTimeMillis() - connection.getCreatedAt() > HANDSHAKE_TIMEOUT) {
+                    Logger.tag("Server").info("Client #%d didn't finish the handshake in time".formatted(connection.getClient().getID()));
+                    handshakeFailed(connection);
+                }
+            }
         }catch(Exception e) {
             Logger.tag("Server").error(e);
         }
     }
 
-    private boolean handshake(ServerClient client) throws IOException {
-        Packet packet;
-        try {
-            packet = client.readPacket();
-        } catch (UnknownPacketException | PacketLimitException e) {
-            client.destroy();
-            Logger.tag("Server").error(e);
-            return false;
+    /**
+     * Called from the packet service for every packet received from the client, in order
+     */
+    void onPacket(ClientConnection connection, Packet packet) throws IOException, PacketLimitException {
+        ServerClient client = connection.getClient();
+        if (!admissionControl.admit(connection, packet)) {
+            return;
+        }
+
+        if (connection.isJoined()) {
+            packet.onServerReceive(client);
+            admissionControl.process(client, packet);
+            return;
+        }
+
+        if (handshake(connection, packet)) {
+            handshakingConnections.remove(connection);
+            connection.setJoined(true);
+        } else {
+            handshakeFailed(connection);
         }
+    }
+
+    private void handshakeFailed(ClientConnection connection) {
+        connection.close();
+        if (handshakingConnections.remove(connection)) {
+            clientLeft(connection.getAddress());
+        }
+    }
 
+    private boolean handshake(ClientConnection connection, Packet packet) throws IOException {
+        ServerClient client = connection.getClient();
+        int protocolVersion;
+        SessionData session;
         if (packet instanceof HandshakePacket handshakePacket) {
             if (handshakePacket.compatVersion() != GQApi.COMPATIBILITY_VERSION) {
                 stats.wrongVersion++;
@@ -156,6 +265,8 @@ public class GQServerSocket {
             }
 
             client.setClientConfig(handshakePacket.clientConfig());
+            protocolVersion = Math.min(handshakePacket.binaryProtocolVersion(), BinaryProtocol.VERSION);
+            session = handshakePacket.session();
         } else {
             stats.wrongPacket++;
             Logger.tag("Server").warn("Client send invalid initial packet!");
@@ -171,8 +282,13 @@ public class GQServerSocket {
             } else {
                 Logger.tag("Server").info("Client #%d handshake successfull".formatted(client.getID()));
                 stats.successfull++;
-                client.sendPacket(new HandshakeSuccessfulPacket());
-                readerService.submit(new ClientReader(client));
+                if (isResumed(session)) {
+                    stats.resumed++;
+                }
+                client.sendPacket(new HandshakeSuccessfulPacket(protocolVersion, createSessionData()));
+                if (protocolVersion > 0) {
+                    connection.enableBinaryInput();
+                }
                 clients.add(client);
                 GlobalQuakeServer.instance.getServerEventHandler().fireEvent(new ClientJoinedEvent(client));
             }
@@ -181,15 +297,36 @@ public class GQServerSocket {
         return true;
     }
 
+    private boolean isResumed(SessionData session) {
+        return session != null && serverSession.equals(session.serverSession());
+    }
+
+    private SessionData createSessionData() {
+        return new SessionData(serverSession, GlobalQuake.instance.getStationManager().getIndexing(),
+                GlobalQuake.instance.getArchive().getSequence());
+    }
+
     private void onClose() {
         clients.clear();
+        handshakingConnections.forEach(ClientConnection::close);
+        handshakingConnections.clear();
+
+        for (ClientSelector selector : selectors) {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                Logger.tag("Server").error(e);
+            }
+        }
 
         GlobalQuake.instance.stopService(clientsLimitWatchdog);
         GlobalQuake.instance.stopService(clientsWatchdog);
-        GlobalQuake.instance.stopService(readerService);
-        GlobalQuake.instance.stopService(handshakeService);
+        GlobalQuake.instance.stopService(selectorService);
+        GlobalQuake.instance.stopService(packetService);
+        GlobalQuake.instance.stopService(legacyService);
         GlobalQuake.instance.stopService(statusReportingService);
 
+        admissionControl.stop();
         dataService.stop();
         // we are the acceptservice
         setStatus(SocketStatus.IDLE);
@@ -225,13 +362,20 @@ public class GQServerSocket {
     }
 
     private void runAccept() {
-        while (lastSocket.isBound() && !lastSocket.isClosed()) {
+        while (lastSocket.isOpen()) {
             try {
-                lastSocket.setSoTimeout(0); // we can wait for clients forever
-                Socket socket = lastSocket.accept();
+                SocketChannel channel = lastSocket.accept();
+                String address = getRemoteAddress(channel.getRemoteAddress());
+
+                if(!admissionControl.allowConnection(address)){
+                    channel.close();
+                    Logger.tag("Server").warn("Client rejected for connecting too often!");
+                    stats.ipRejects++;
+                    continue;
+                }
 
-                if(!checkAddress(socket)){
-                    socket.close();
+                if(!checkAddress(address)){
+                    channel.close();
                     Logger.tag("Server").warn("Client rejected for reaching max connection count!");
                     stats.ipRejects++;
                     continue;
@@ -240,23 +384,24 @@ public class GQServerSocket {
                 stats.accepted++;
 
                 Logger.tag("Server").info("A new client is joining...");
-                socket.setSoTimeout(HANDSHAKE_TIMEOUT);
-
-                handshakeService.submit(() -> {
-                    ServerClient client;
-                    try {
-                        client = new ServerClient(socket);
-                        Logger.tag("Server").info("Performing handshake for client #%d".formatted(client.getID()));
-                        if(!handshake(client)){
-                            clientLeft(socket);
-                        }
-                    } catch (IOException e) {
-                        stats.errors++;
-                        Logger.tag("Server").error("Failure when accepting client!");
-                        Logger.tag("Server").trace(e);
-                        clientLeft(socket);
-                    }
-                });
+                try {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+
+                    ClientSelector selector = selectors[nextSelector];
+                    nextSelector = (nextSelector + 1) % selectors.length;
+
+                    ClientConnection connection = new ClientConnection(this, channel, address, selector, packetService, legacyService);
+                    Logger.tag("Server").info("Performing handshake for client #%d".formatted(connection.getClient().getID()));
+                    handshakingConnections.add(connection);
+                    selector.register(connection);
+                } catch (IOException e) {
+                    stats.errors++;
+                    Logger.tag("Server").error("Failure when accepting client!");
+                    Logger.tag("Server").trace(e);
+                    channel.close();
+                    clientLeft(address);
+                }
             } catch (IOException e) {
                 break;
             }
@@ -265,15 +410,13 @@ public class GQServerSocket {
         onClose();
     }
 
-    private void clientLeft(Socket socket) {
-        String address = getRemoteAddress(socket);
+    private void clientLeft(String address) {
         synchronized (connectionsMapLock) {
             connectionsMap.put(address, connectionsMap.get(address) - 1);
         }
     }
 
-    private boolean checkAddress(Socket socket) {
-        String address = getRemoteAddress(socket);
+    private boolean checkAddress(String address) {
         synchronized (connectionsMapLock) {
             int connections = connectionsMap.getOrDefault(address, 1);
 
@@ -287,8 +430,8 @@ public class GQServerSocket {
         }
     }
 
-    private String getRemoteAddress(Socket socket) {
-        return (((InetSocketAddress) socket.getRemoteSocketAddress()).getAddress()).toString();
+    private String getRemoteAddress(SocketAddress socketAddress) {
+        return (((InetSocketAddress) socketAddress).getAddress()).toString();
     }
 
     public int getClientCount() {
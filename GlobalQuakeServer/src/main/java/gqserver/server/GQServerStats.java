@@ -8,6 +8,7 @@ public class GQServerStats {
     public int wrongPacket;
     public int serverFull;
     public int successfull;
+    public int resumed;
     public int errors;
     public int ipRejects;
 }
@@ -0,0 +1,97 @@
+package gqserver.server;
+
+import globalquake.core.client.ClientSocket;
+import globalquake.core.client.ClusterAnalysisClient;
+import globalquake.core.client.EarthquakeAnalysisClient;
+import globalquake.core.client.EarthquakeArchiveClient;
+import globalquake.core.client.GlobalStationManagerClient;
+import globalquake.core.client.SeedlinkNetworksReaderClient;
+import globalquake.core.events.GlobalQuakeEventHandler;
+import globalquake.utils.NamedThreadFactory;
+import gqserver.api.packets.data.DataRequestPacket;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server that receives everything from an upstream server as a client would and serves it to its own clients.
+ * No analysis runs here, the stations, earthquakes, clusters and archive are mirrors of the upstream ones.
+ */
+public class GlobalQuakeRelay extends GlobalQuakeServer {
+
+    private final ClientSocket upstream;
+
+    // stations whose data are currently requested from the upstream server
+    private final Set<String> upstreamDataRequests = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService dataRequestService;
+
+    public GlobalQuakeRelay(ClientSocket upstream) {
+        super.eventHandler = new GlobalQuakeEventHandler().runHandler();
+        super.globalStationManager = new GlobalStationManagerClient();
+        super.earthquakeAnalysis = new EarthquakeAnalysisClient();
+        super.clusterAnalysis = new ClusterAnalysisClient();
+        super.archive = new EarthquakeArchiveClient();
+        super.seedlinkNetworksReader = new SeedlinkNetworksReaderClient();
+        this.upstream = upstream;
+
+        // the upstream server forgets the data requests of the previous connection
+        upstream.setConnectListener(upstreamDataRequests::clear);
+    }
+
+    /**
+     * Connects to the upstream server, if it's not reachable the connection is retried in the background
+     */
+    public void connect(String ip, int port) {
+        try {
+            upstream.connect(ip, port);
+        } catch (Exception e) {
+            Logger.tag("Relay").warn("Unable to connect to the upstream server %s:%d: %s".formatted(ip, port, e.getMessage()));
+        }
+        upstream.runReconnectService();
+
+        dataRequestService = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Relay Data Requests"));
+        dataRequestService.scheduleAtFixedRate(this::updateDataRequests, 0, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Requests the data of the stations some client is watching and cancels the rest
+     */
+    private void updateDataRequests() {
+        try {
+            Set<String> requested = getServerSocket().getDataService().getRequestedStations();
+            for (String station : requested) {
+                if (!upstreamDataRequests.contains(station)) {
+                    upstream.sendPacket(new DataRequestPacket(station, false));
+                    upstreamDataRequests.add(station);
+                }
+            }
+
+            for (String station : upstreamDataRequests) {
+                if (!requested.contains(station)) {
+                    upstream.sendPacket(new DataRequestPacket(station, true));
+                    upstreamDataRequests.remove(station);
+                }
+            }
+        } catch (IOException e) {
+            Logger.tag("Relay").trace(e);
+        } catch (Exception e) {
+            Logger.tag("Relay").error(e);
+        }
+    }
+
+    public ClientSocket getUpstream() {
+        return upstream;
+    }
+
+    @Override
+    public void destroy() {
+        stopService(dataRequestService);
+        upstream.destroy();
+        super.destroy();
+    }
+}
@@ -19,6 +19,15 @@ public class GlobalQuakeServer extends GlobalQuake {
         this.serverEventHandler = new GlobalQuakeServerEventHandler().runHandler();
     }
 
+    /**
+     * Creates the server without any of the analysis, the subclass provides the components
+     */
+    protected GlobalQuakeServer() {
+        instance = this;
+        serverSocket = new GQServerSocket();
+        this.serverEventHandler = new GlobalQuakeServerEventHandler().runHandler();
+    }
+
     @SuppressWarnings("unused")
     @Override
     public void destroy() {
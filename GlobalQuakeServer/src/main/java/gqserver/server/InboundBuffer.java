@@ -0,0 +1,185 @@
+package gqserver.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bytes received by the selector, read by the thread that decodes the packets of the client.
+ * Frames of the binary protocol are taken only once they arrived whole, reads of the stream block while a packet arrived partially.
+ */
+public class InboundBuffer extends InputStream {
+
+    private final Deque<byte[]> chunks = new ArrayDeque<>();
+    private final long timeout;
+
+    private int offset = 0;
+    private int available = 0;
+    private boolean closed = false;
+
+    public InboundBuffer(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public synchronized void append(byte[] data) {
+        if (closed || data.length == 0) {
+            return;
+        }
+
+        chunks.addLast(data);
+        available += data.length;
+        notifyAll();
+    }
+
+    /**
+     * Takes the next length-prefixed frame if it arrived whole, never blocks
+     *
+     * @return the frame without its length, or null if it didn't arrive whole yet
+     * @throws IOException if the length of the frame is not between 1 and the maximum length
+     */
+    public synchronized byte[] pollFrame(int maxLength) throws IOException {
+        if (available < Integer.BYTES) {
+            return null;
+        }
+
+        byte[] header = new byte[Integer.BYTES];
+        copy(header, header.length);
+        int length = ((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+        if (length <= 0 || length > maxLength) {
+            throw new IOException("Invalid frame length %d".formatted(length));
+        }
+
+        if (available < Integer.BYTES + length) {
+            return null;
+        }
+
+        read(header, 0, header.length);
+        byte[] frame = new byte[length];
+        read(frame, 0, length);
+        return frame;
+    }
+
+    /**
+     * Checks whether the first object of a java serialization stream arrived whole by parsing a copy of the received bytes,
+     * never blocks. Only usable before anything was read, later objects of the stream may refer to the earlier ones
+     */
+    public boolean hasFirstObject() {
+        byte[] received;
+        synchronized (this) {
+            if (available == 0) {
+                return false;
+            }
+
+            received = new byte[available];
+            copy(received, received.length);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(received))) {
+            in.readObject();
+        } catch (EOFException e) {
+            return false;
+        } catch (Exception e) {
+            // broken, reading it for real fails the same way
+        }
+
+        return true;
+    }
+
+    // copies the first bytes without consuming them
+    private void copy(byte[] b, int len) {
+        int total = 0;
+        int chunkOffset = offset;
+        for (byte[] chunk : chunks) {
+            if (total == len) {
+                break;
+            }
+
+            int count = Math.min(len - total, chunk.length - chunkOffset);
+            System.arraycopy(chunk, chunkOffset, b, total, count);
+            total += count;
+            chunkOffset = 0;
+        }
+    }
+
+    @Override
+    public synchronized int read() throws IOException {
+        if (!awaitData()) {
+            return -1;
+        }
+
+        byte[] chunk = chunks.getFirst();
+        int result = chunk[offset] & 0xFF;
+        consume(chunk, 1);
+        return result;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!awaitData()) {
+            return -1;
+        }
+
+        int total = 0;
+        while (total < len && available > 0) {
+            byte[] chunk = chunks.getFirst();
+            int count = Math.min(len - total, chunk.length - offset);
+            System.arraycopy(chunk, offset, b, off + total, count);
+            consume(chunk, count);
+            total += count;
+        }
+
+        return total;
+    }
+
+    private void consume(byte[] chunk, int count) {
+        offset += count;
+        available -= count;
+        if (offset == chunk.length) {
+            chunks.removeFirst();
+            offset = 0;
+        }
+    }
+
+    private boolean awaitData() throws IOException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (available == 0) {
+            if (closed) {
+                return false;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new SocketTimeoutException("Timed out waiting for the rest of a packet");
+            }
+
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public synchronized int available() {
+        return available;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+}
@@ -0,0 +1,34 @@
+package gqserver.server;
+
+import edu.sc.seis.seisFile.mseed.DataRecord;
+import gqserver.api.packets.data.DataRecordPacket;
+import gqserver.api.protocol.OutboundPacket;
+
+import java.io.IOException;
+
+/**
+ * Raw miniSEED bytes of one data record, kept once in the buffer of its station and sent as the same packet to every subscriber.
+ */
+public class SharedDataRecord {
+
+    private final long startTime;
+    private final OutboundPacket packet;
+
+    public SharedDataRecord(int stationId, DataRecord dataRecord) throws IOException {
+        this(dataRecord.getStartBtime().toInstant().toEpochMilli(),
+                new OutboundPacket(new DataRecordPacket(stationId, dataRecord.toByteArray())));
+    }
+
+    SharedDataRecord(long startTime, OutboundPacket packet) {
+        this.startTime = startTime;
+        this.packet = packet;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public OutboundPacket getPacket() {
+        return packet;
+    }
+}
@@ -0,0 +1,97 @@
+package gqserver.server;
+
+import globalquake.core.Settings;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Ring buffer of the recent data records of one station, in the order they arrived.
+ * Records older than {@link Settings#logsStoreTimeMinutes} are evicted by the data service, subscribers read the shared records through their own cursor.
+ */
+public class StationDataBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private SharedDataRecord[] records = new SharedDataRecord[INITIAL_CAPACITY];
+
+    // sequence numbers of the oldest record and of the next one
+    private long head = 0;
+    private long tail = 0;
+
+    private final Set<DataRequest> subscribers = new CopyOnWriteArraySet<>();
+
+    /**
+     * @param oldestTime records that started before this time are evicted first
+     */
+    public void add(SharedDataRecord record, long oldestTime) {
+        synchronized (this) {
+            removeOlderThan(oldestTime);
+            if (tail - head == records.length) {
+                grow();
+            }
+
+            records[index(tail)] = record;
+            tail++;
+        }
+
+        for (DataRequest subscriber : subscribers) {
+            try {
+                subscriber.sendAvailable();
+            } catch (IOException e) {
+                Logger.tag("Server").trace(e);
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    /**
+     * @param from sequence number of the first record wanted, records that were already overwritten are skipped
+     * @return sequence number to continue from
+     */
+    public synchronized long read(long from, List<SharedDataRecord> result) {
+        for (long sequence = Math.max(from, head); sequence < tail; sequence++) {
+            result.add(records[index(sequence)]);
+        }
+
+        return tail;
+    }
+
+    public synchronized void removeOlderThan(long oldestTime) {
+        while (head < tail && records[index(head)].getStartTime() < oldestTime) {
+            records[index(head)] = null;
+            head++;
+        }
+    }
+
+    public synchronized int size() {
+        return (int) (tail - head);
+    }
+
+    public void subscribe(DataRequest dataRequest) {
+        subscribers.add(dataRequest);
+    }
+
+    public void unsubscribe(DataRequest dataRequest) {
+        subscribers.remove(dataRequest);
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % records.length);
+    }
+
+    private void grow() {
+        SharedDataRecord[] grown = new SharedDataRecord[records.length * 2];
+        for (long sequence = head; sequence < tail; sequence++) {
+            grown[(int) (sequence % grown.length)] = records[index(sequence)];
+        }
+        records = grown;
+    }
+}
@@ -33,7 +33,7 @@ public class GQServerSocketTest {
 
 
         ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
-        out.writeObject(new HandshakePacket(GQApi.COMPATIBILITY_VERSION, new ServerClientConfig(false, false)));
+        out.writeObject(new HandshakePacket(GQApi.COMPATIBILITY_VERSION, new ServerClientConfig(false, false), 0, null));
 
         while(true){
             Thread.sleep(1000);
@@ -0,0 +1,75 @@
+package gqserver.server;
+
+import gqserver.api.data.system.ServerClientConfig;
+import gqserver.api.exception.UnknownPacketException;
+import gqserver.api.packets.system.HandshakePacket;
+import gqserver.api.packets.system.HeartbeatPacket;
+import gqserver.api.packets.system.TerminationPacket;
+import gqserver.api.protocol.BinaryProtocol;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class InboundBufferTest {
+
+    @Test
+    public void testPartialFrames() throws IOException, UnknownPacketException {
+        byte[] first = BinaryProtocol.encodeFrame(new TerminationPacket("bye"));
+        byte[] second = BinaryProtocol.encodeFrame(new HeartbeatPacket());
+
+        InboundBuffer buffer = new InboundBuffer(1000);
+        assertNull(buffer.pollFrame(1024));
+
+        // the length alone and then the frame split in two
+        buffer.append(Arrays.copyOfRange(first, 0, 3));
+        assertNull(buffer.pollFrame(1024));
+        buffer.append(Arrays.copyOfRange(first, 3, 6));
+        assertNull(buffer.pollFrame(1024));
+        assertEquals(6, buffer.available());
+
+        byte[] rest = new byte[first.length - 6 + second.length];
+        System.arraycopy(first, 6, rest, 0, first.length - 6);
+        System.arraycopy(second, 0, rest, first.length - 6, second.length);
+        buffer.append(rest);
+
+        assertEquals(new TerminationPacket("bye"), BinaryProtocol.decode(buffer.pollFrame(1024)));
+        assertTrue(BinaryProtocol.decode(buffer.pollFrame(1024)) instanceof HeartbeatPacket);
+        assertNull(buffer.pollFrame(1024));
+        assertEquals(0, buffer.available());
+    }
+
+    @Test
+    public void testFirstObject() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(new HandshakePacket(8, new ServerClientConfig(true, true), BinaryProtocol.VERSION, null));
+        out.flush();
+        byte[] handshake = bytes.toByteArray();
+
+        InboundBuffer buffer = new InboundBuffer(1000);
+        assertFalse(buffer.hasFirstObject());
+
+        buffer.append(Arrays.copyOfRange(handshake, 0, 2));
+        assertFalse(buffer.hasFirstObject());
+        buffer.append(Arrays.copyOfRange(handshake, 2, handshake.length - 1));
+        assertFalse(buffer.hasFirstObject());
+        buffer.append(Arrays.copyOfRange(handshake, handshake.length - 1, handshake.length));
+        assertTrue(buffer.hasFirstObject());
+
+        // nothing was consumed
+        assertEquals(handshake.length, buffer.available());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidLength() throws IOException {
+        InboundBuffer buffer = new InboundBuffer(1000);
+        buffer.append(new byte[]{0, 0, 4, 0, 1});
+        buffer.pollFrame(1000);
+    }
+
+}
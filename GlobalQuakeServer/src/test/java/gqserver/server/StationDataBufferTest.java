@@ -0,0 +1,86 @@
+package gqserver.server;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StationDataBufferTest {
+
+    private static void add(StationDataBuffer buffer, long from, long to) {
+        for (long time = from; time < to; time++) {
+            buffer.add(new SharedDataRecord(time, null), Long.MIN_VALUE);
+        }
+    }
+
+    private static void assertTimes(List<SharedDataRecord> records, long from, long to) {
+        assertEquals(to - from, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(from + i, records.get(i).getStartTime());
+        }
+    }
+
+    @Test
+    public void testWrapAround() {
+        StationDataBuffer buffer = new StationDataBuffer();
+        add(buffer, 0, 50);
+        buffer.removeOlderThan(30);
+        assertEquals(20, buffer.size());
+
+        // wraps around the end of the initial array
+        add(buffer, 50, 90);
+        List<SharedDataRecord> records = new ArrayList<>();
+        assertEquals(90, buffer.read(0, records));
+        assertTimes(records, 30, 90);
+
+        // grows while wrapped
+        add(buffer, 90, 200);
+        records.clear();
+        assertEquals(200, buffer.read(0, records));
+        assertTimes(records, 30, 200);
+    }
+
+    @Test
+    public void testOverrunCursor() {
+        StationDataBuffer buffer = new StationDataBuffer();
+        add(buffer, 0, 10);
+
+        List<SharedDataRecord> records = new ArrayList<>();
+        long cursor = buffer.read(0, records);
+        assertEquals(10, cursor);
+        assertTimes(records, 0, 10);
+
+        // the subscriber falls behind and the records it didn't read yet are evicted
+        add(buffer, 10, 110);
+        buffer.removeOlderThan(80);
+
+        records.clear();
+        cursor = buffer.read(cursor, records);
+        assertEquals(110, cursor);
+        assertTimes(records, 80, 110);
+
+        records.clear();
+        assertEquals(110, buffer.read(cursor, records));
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    public void testEvictOnAdd() {
+        StationDataBuffer buffer = new StationDataBuffer();
+        for (long time = 0; time < 100_000; time += 1000) {
+            buffer.add(new SharedDataRecord(time, null), time - 5000);
+        }
+
+        List<SharedDataRecord> records = new ArrayList<>();
+        buffer.read(0, records);
+        assertEquals(6, records.size());
+        assertEquals(94_000, records.get(0).getStartTime());
+        assertEquals(99_000, records.get(5).getStartTime());
+
+        buffer.removeOlderThan(Long.MAX_VALUE);
+        assertEquals(0, buffer.size());
+    }
+
+}